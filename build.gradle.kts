@@ -51,6 +51,17 @@ sourceSets {
             }
         }
     }
+
+    // Microbenchmarks and profiling tools which run on a plain JVM, without a game instance or OpenGL context. These are
+    // not shipped.
+    create("benchmark") {
+        java {
+            compileClasspath += main.compileClasspath
+            compileClasspath += main.output
+            runtimeClasspath += main.runtimeClasspath
+            runtimeClasspath += main.output
+        }
+    }
 }
 
 repositories {
@@ -62,6 +73,17 @@ repositories {
         }
     }
     maven("https://maven.covers1624.net/")
+    mavenCentral {
+        content {
+            includeGroup("org.openjdk.jmh")
+            includeGroup("org.apache.commons")
+            includeGroup("org.junit")
+            includeGroup("org.junit.jupiter")
+            includeGroup("org.junit.platform")
+            includeGroup("org.opentest4j")
+            includeGroup("org.apiguardian")
+        }
+    }
 }
 
 jarJar.enable()
@@ -136,6 +158,13 @@ dependencies {
         jarJar.ranged(this, "[0.3.5,)")
     }
 
+    "benchmarkImplementation"("org.openjdk.jmh:jmh-core:${"jmh_version"()}")
+    "benchmarkAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${"jmh_version"()}")
+
+    testImplementation(platform("org.junit:junit-bom:${"junit_version"()}"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
     // Hack fix for now, force jopt-simple to be exactly 5.0.4 because Mojang ships that version, but some transitive dependencies request 6.0+
     implementation("net.sf.jopt-simple:jopt-simple:5.0.4") { version { strictly("5.0.4") } }
 
@@ -152,6 +181,61 @@ dependencies {
     }
 }
 
+// The unit tests check the headless parts of the renderer, without a game instance or OpenGL context. They must not
+// bootstrap the game, since mixins are not applied outside of a run configuration.
+tasks.test {
+    useJUnitPlatform()
+    jvmArgs("-Djava.awt.headless=true")
+}
+
+// Runs all benchmarks, or those matching -Pbenchmarks=<regex>, and writes the results as JSON so that they can be
+// compared between commits
+tasks.register<JavaExec>("runBenchmarks") {
+    group = "verification"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+
+    args(listOfNotNull(project.findProperty("benchmarks")?.toString(), "-rf", "json", "-rff", resultFile.absolutePath))
+    jvmArgs("-Djava.awt.headless=true")
+
+    doFirst {
+        resultFile.parentFile.mkdirs()
+    }
+}
+
+// Replays a chunk pipeline trace which was recorded in game, given with -Ptrace=<path>. The number of worker threads
+// can be overridden with -PreplayWorkers=<count>.
+tasks.register<JavaExec>("replayTrace") {
+    group = "verification"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass = "org.embeddedt.embeddium.impl.render.chunk.trace.PipelineTraceReplayer"
+
+    args(listOfNotNull(project.findProperty("trace")?.toString(), project.findProperty("replayWorkers")?.toString()))
+    jvmArgs("-Djava.awt.headless=true")
+}
+
+// Meshes a synthetic corpus under per-thread allocation counters and fails if any stage allocates more than the
+// baseline in src/benchmark/allocation-baseline.properties. The thread count can be set with -PallocationThreads=<count>,
+// and -PupdateAllocationBaseline rewrites the baseline from the current results.
+tasks.register<JavaExec>("profileAllocations") {
+    group = "verification"
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    mainClass = "org.embeddedt.embeddium.impl.render.chunk.compile.AllocationProfiler"
+
+    val baselineFile = file("src/benchmark/allocation-baseline.properties")
+    val reportDir = layout.buildDirectory.dir("reports/allocations").get().asFile
+
+    args(listOfNotNull(
+        baselineFile.absolutePath,
+        reportDir.absolutePath,
+        project.findProperty("allocationThreads")?.toString(),
+        if (project.hasProperty("updateAllocationBaseline")) "--update-baseline" else null
+    ))
+    jvmArgs("-Djava.awt.headless=true")
+}
+
 tasks.processResources {
     inputs.property("version", "version"())
 
@@ -0,0 +1,302 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.SharedConstants;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.ItemOverrides;
+import net.minecraft.client.renderer.block.model.ItemTransforms;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.MultiPartBakedModel;
+import net.minecraft.client.resources.model.SimpleBakedModel;
+import net.minecraft.core.Direction;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.PipeBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.SingleThreadedRandomSource;
+import net.minecraftforge.client.model.data.ModelData;
+import org.apache.commons.lang3.tuple.Pair;
+import org.embeddedt.embeddium.impl.model.quad.cache.BakedGeometry;
+import org.embeddedt.embeddium.impl.model.quad.cache.StateGeometryCache;
+import org.embeddedt.embeddium.impl.model.quad.cache.StaticGeometryModel;
+import org.embeddedt.embeddium.impl.render.chunk.compile.pipeline.BlockRenderer;
+import org.embeddedt.embeddium.impl.util.DirectionUtil;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compares looking up the quads of every face of a model through {@link BakedModel#getQuads} with reading them from a
+ * {@link BakedGeometry}, for one section's worth of blocks. Mixins aren't applied here, so the uncached path is the
+ * unmodified one from the game.
+ * <p>
+ * The cached quads are read three ways: from geometry which was found in advance, from geometry which is found through
+ * {@link StaticGeometryModel#embeddium$getStaticGeometry} for each block, and from geometry which is found through
+ * {@link BlockRenderer#getCachedGeometry} like the block renderer does. The models which the mixins turn into static
+ * geometry models are stood in for by subclasses which keep their geometry in the same way.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BakedQuadCacheBenchmark {
+    private static final int BLOCKS = 16 * 16 * 16;
+
+    public enum Shape {
+        /**
+         * One quad on each face, like stone.
+         */
+        CUBE,
+        /**
+         * Two quads on each face, one of them without ambient occlusion, like a block with an emissive overlay.
+         */
+        OVERLAY_CUBE,
+        /**
+         * Four quads which aren't culled by any face, like a plant.
+         */
+        CROSS,
+        /**
+         * A multipart model with a post and up to four sides, which are selected by the state, like a fence. The blocks
+         * cycle through every state of an oak fence.
+         */
+        FENCE
+    }
+
+    @Param({ "CUBE", "OVERLAY_CUBE", "CROSS", "FENCE" })
+    public Shape shape;
+
+    // The state of each block, which is null for the shapes that don't depend on it
+    private final BlockState[] states = new BlockState[BLOCKS];
+
+    private BakedModel model;
+    private BakedModel staticModel;
+
+    private final BakedGeometry[] geometries = new BakedGeometry[BLOCKS];
+
+    private final RandomSource random = new SingleThreadedRandomSource(42L);
+
+    @Setup
+    public void setup() {
+        if (this.shape == Shape.FENCE) {
+            SharedConstants.tryDetectVersion();
+            Bootstrap.bootStrap();
+
+            List<BlockState> fenceStates = Blocks.OAK_FENCE.getStateDefinition().getPossibleStates();
+
+            for (int block = 0; block < BLOCKS; block++) {
+                this.states[block] = fenceStates.get(block % fenceStates.size());
+            }
+
+            this.model = createFenceModel(null);
+            this.staticModel = createFenceModel(fenceStates);
+        } else {
+            this.model = createModel(this.shape);
+            this.staticModel = createModel(this.shape, true);
+        }
+
+        // Every state has been rendered before, like in a world which has been loaded for a while
+        for (int block = 0; block < BLOCKS; block++) {
+            this.geometries[block] = ((StaticGeometryModel) this.staticModel).embeddium$getStaticGeometry(this.states[block]);
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        for (int block = 0; block < BLOCKS; block++) {
+            var state = this.states[block];
+
+            for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                this.random.setSeed(block);
+
+                var quads = this.model.getQuads(state, face, this.random, ModelData.EMPTY, null);
+                blackhole.consume(quads);
+                blackhole.consume(BakedGeometry.allHaveAmbientOcclusion(quads));
+            }
+
+            this.random.setSeed(block);
+
+            var quads = this.model.getQuads(state, null, this.random, ModelData.EMPTY, null);
+            blackhole.consume(quads);
+            blackhole.consume(BakedGeometry.allHaveAmbientOcclusion(quads));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for (int block = 0; block < BLOCKS; block++) {
+            consumeGeometry(blackhole, this.geometries[block]);
+        }
+    }
+
+    @Benchmark
+    public void staticGeometry(Blackhole blackhole) {
+        var model = (StaticGeometryModel) this.staticModel;
+
+        for (int block = 0; block < BLOCKS; block++) {
+            consumeGeometry(blackhole, model.embeddium$getStaticGeometry(this.states[block]));
+        }
+    }
+
+    @Benchmark
+    public void blockRendererLookup(Blackhole blackhole) {
+        for (int block = 0; block < BLOCKS; block++) {
+            consumeGeometry(blackhole, BlockRenderer.getCachedGeometry(this.staticModel, this.states[block], block, this.random));
+        }
+    }
+
+    private static void consumeGeometry(Blackhole blackhole, BakedGeometry geometry) {
+        for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+            blackhole.consume(geometry.getQuads(face));
+            blackhole.consume(geometry.hasAmbientOcclusion(face));
+        }
+
+        blackhole.consume(geometry.getQuads(null));
+        blackhole.consume(geometry.hasAmbientOcclusion(null));
+    }
+
+    /**
+     * Creates a model with the given shape, whose quads have no vertex data or sprite. Multipart shapes are created from
+     * the states of their block with {@link #createFenceModel} instead.
+     */
+    public static BakedModel createModel(Shape shape) {
+        return createModel(shape, false);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static BakedModel createModel(Shape shape, boolean staticGeometry) {
+        List<BakedQuad> unculled = new ArrayList<>();
+        Map<Direction, List<BakedQuad>> culled = new EnumMap<>(Direction.class);
+
+        for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+            culled.put(face, new ArrayList<>());
+        }
+
+        switch (shape) {
+            case CUBE -> {
+                for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                    culled.get(face).add(createQuad(face, true));
+                }
+            }
+            case OVERLAY_CUBE -> {
+                for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                    culled.get(face).add(createQuad(face, true));
+                    culled.get(face).add(createQuad(face, false));
+                }
+            }
+            case CROSS -> {
+                for (Direction face : DirectionUtil.HORIZONTAL_DIRECTIONS) {
+                    unculled.add(createQuad(face, true));
+                }
+            }
+            case FENCE -> throw new IllegalArgumentException("Multipart models are created from the states of their block");
+        }
+
+        if (staticGeometry) {
+            return new StaticSimpleModel(unculled, culled);
+        }
+
+        return new SimpleBakedModel(unculled, culled, true, true, false, null, ItemTransforms.NO_TRANSFORMS, ItemOverrides.EMPTY);
+    }
+
+    /**
+     * Creates a fence model, whose post is a cube and whose sides are two quads which aren't culled by any face.
+     *
+     * @param states The states of the block, if the model should keep its geometry for each of them
+     */
+    @SuppressWarnings("deprecation")
+    private static BakedModel createFenceModel(@Nullable List<BlockState> states) {
+        List<Pair<Predicate<BlockState>, BakedModel>> selectors = new ArrayList<>();
+        selectors.add(Pair.of(state -> true, createModel(Shape.CUBE)));
+
+        for (Direction face : DirectionUtil.HORIZONTAL_DIRECTIONS) {
+            // Fences use the same properties for their sides as pipe blocks
+            var property = PipeBlock.PROPERTY_BY_DIRECTION.get(face);
+            var side = new SimpleBakedModel(List.of(createQuad(face, true), createQuad(Direction.UP, true)), emptyFaces(),
+                    true, true, false, null, ItemTransforms.NO_TRANSFORMS, ItemOverrides.EMPTY);
+
+            selectors.add(Pair.of(state -> state.getValue(property), side));
+        }
+
+        if (states == null) {
+            return new MultiPartBakedModel(selectors);
+        }
+
+        var indices = new Reference2IntOpenHashMap<BlockState>();
+        indices.defaultReturnValue(-1);
+
+        for (int i = 0; i < states.size(); i++) {
+            indices.put(states.get(i), i);
+        }
+
+        return new StaticMultiPartModel(selectors, indices::getInt);
+    }
+
+    private static Map<Direction, List<BakedQuad>> emptyFaces() {
+        Map<Direction, List<BakedQuad>> faces = new EnumMap<>(Direction.class);
+
+        for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+            faces.put(face, List.of());
+        }
+
+        return faces;
+    }
+
+    private static BakedQuad createQuad(Direction face, boolean ambientOcclusion) {
+        // Only the identity of the quads matters here, so the vertex data is left empty
+        return new BakedQuad(new int[32], -1, face, null, true, ambientOcclusion);
+    }
+
+    /**
+     * A simple model which keeps its geometry in the same way as {@code SimpleBakedModelMixin}.
+     */
+    private static class StaticSimpleModel extends SimpleBakedModel implements StaticGeometryModel {
+        private volatile BakedGeometry geometry;
+
+        @SuppressWarnings("deprecation")
+        StaticSimpleModel(List<BakedQuad> unculled, Map<Direction, List<BakedQuad>> culled) {
+            super(unculled, culled, true, true, false, null, ItemTransforms.NO_TRANSFORMS, ItemOverrides.EMPTY);
+        }
+
+        @Override
+        public BakedGeometry embeddium$getStaticGeometry(BlockState state) {
+            var geometry = this.geometry;
+
+            if (geometry == null) {
+                this.geometry = geometry = BakedGeometry.bake(this, state);
+            }
+
+            return geometry;
+        }
+    }
+
+    /**
+     * A multipart model which keeps its geometry in the same {@link StateGeometryCache} as
+     * {@code MultipartBakedModelMixin}. Without the mixins the states don't carry their own index, so it is read from a
+     * map instead, which makes each lookup a little slower than in game.
+     */
+    private static class StaticMultiPartModel extends MultiPartBakedModel implements StaticGeometryModel {
+        private final StateGeometryCache geometryCache;
+
+        StaticMultiPartModel(List<Pair<Predicate<BlockState>, BakedModel>> selectors, ToIntFunction<BlockState> indexer) {
+            super(selectors);
+
+            this.geometryCache = new StateGeometryCache(indexer);
+        }
+
+        @Override
+        public BakedGeometry embeddium$getStaticGeometry(BlockState state) {
+            return this.geometryCache.get(this, state);
+        }
+    }
+}
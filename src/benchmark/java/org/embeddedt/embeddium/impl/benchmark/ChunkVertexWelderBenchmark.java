@@ -0,0 +1,123 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkVertexWelder;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.impl.CompactChunkVertex;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to merge the identical vertices of the solid quads in a section, and how much memory the
+ * welded mesh takes up compared to the original one. The {@code originalBytes} and {@code weldedBytes} counters report
+ * the size of each mesh.
+ * <p>
+ * With {@link Uvs#ATLAS}, every quad maps the corners of its sprite in the atlas like real block models do, so quads
+ * almost never have a vertex in common. {@link Uvs#SOLID_COLOR} samples a single texel for every vertex of a quad
+ * instead, which is the best case for welding. With the compact vertex format (20 bytes per vertex, and 12 bytes of
+ * 16-bit indices per quad once welded), the meshes of seed 0 come out as:
+ * <pre>
+ * Scenario   ATLAS vertices kept / size    SOLID_COLOR vertices kept / size
+ * TERRAIN    100.0% / +15.0%               84.0% / -1.0%
+ * CAVES       99.9% / +14.9%               88.0% / +3.0%
+ * WATER      100.0% / +15.0%               83.1% / -1.9%
+ * GLASS      100.0% / +15.0%               84.0% / -1.0%
+ * FOLIAGE     95.8% / +10.8%               71.6% / -13.4%
+ * </pre>
+ * Meshes which would grow are not welded in game, see {@link ChunkVertexWelder#isWorthWelding(int, int, int)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkVertexWelderBenchmark {
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.ZERO, true);
+    private static final int STRIDE = CompactChunkVertex.STRIDE;
+
+    public enum Uvs {
+        /**
+         * The texture coordinates of each corner of a quad are the matching corner of its sprite.
+         */
+        ATLAS,
+        /**
+         * Every vertex of a quad has the texture coordinates of the center of its sprite.
+         */
+        SOLID_COLOR
+    }
+
+    @Param({ "TERRAIN", "CAVES", "WATER", "GLASS", "FOLIAGE" })
+    public SyntheticWorld.Scenario scenario;
+
+    @Param({ "ATLAS", "SOLID_COLOR" })
+    public Uvs uvs;
+
+    private ChunkVertexWelder welder;
+    private int vertexCount;
+
+    private long src, dst, indices;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class MeshSize {
+        public long originalBytes;
+        public long weldedBytes;
+    }
+
+    @Setup
+    public void setup() {
+        var quads = SyntheticWorld.generate(this.scenario, 0L).createMesh().solidQuads();
+
+        if (this.uvs == Uvs.SOLID_COLOR) {
+            useSpriteCenters(quads);
+        }
+
+        this.welder = new ChunkVertexWelder();
+        this.vertexCount = quads.size() * 4;
+
+        // Allocate at least one vertex, since nothing can be allocated for an empty mesh
+        int capacity = Math.max(1, this.vertexCount);
+
+        this.src = MemoryUtil.nmemAlloc((long) capacity * STRIDE);
+        this.dst = MemoryUtil.nmemAlloc((long) capacity * STRIDE);
+        this.indices = MemoryUtil.nmemAlloc(Math.max(4, ChunkVertexWelder.getIndexBufferSize(capacity)));
+
+        SyntheticWorld.Mesh.encode(quads, ChunkMeshFormats.COMPACT.getEncoder(), MATERIAL, this.src);
+    }
+
+    private static void useSpriteCenters(List<ChunkVertexEncoder.Vertex[]> quads) {
+        for (var quad : quads) {
+            // Sprites are one sixteenth of the atlas in size, so this is the center of the sprite of the quad
+            float u = ((float) Math.floor(quad[0].u * 16.0f) + 0.5f) / 16.0f;
+            float v = 0.5f / 16.0f;
+
+            for (var vertex : quad) {
+                vertex.u = u;
+                vertex.v = v;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        MemoryUtil.nmemFree(this.src);
+        MemoryUtil.nmemFree(this.dst);
+        MemoryUtil.nmemFree(this.indices);
+    }
+
+    @Benchmark
+    public int weld(MeshSize size) {
+        int uniqueCount = this.welder.weld(this.src, this.vertexCount, STRIDE, this.dst, this.indices);
+
+        size.originalBytes += (long) this.vertexCount * STRIDE;
+        size.weldedBytes += ((long) uniqueCount * STRIDE) + ChunkVertexWelder.getIndexBufferSize(this.vertexCount);
+
+        return uniqueCount;
+    }
+}
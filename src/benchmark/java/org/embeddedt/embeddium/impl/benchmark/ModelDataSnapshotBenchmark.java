@@ -0,0 +1,112 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraftforge.client.model.data.ModelData;
+import net.minecraftforge.client.model.data.ModelProperty;
+import org.embeddedt.embeddium.impl.model.ModelDataSnapshotter;
+import org.embeddedt.embeddium.impl.model.SectionModelData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares snapshotting the model data of a section into a map keyed by position, as was done before, with the indexed
+ * snapshot, and then looking up the model data of every block in the section from it. The model data is the same as
+ * that of the test block entity used by the game tests, which can't be loaded here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelDataSnapshotBenchmark {
+    private static final ModelProperty<Object> TEST_PROPERTY = new ModelProperty<>();
+    private static final ModelData TEST_DATA = ModelData.builder().with(TEST_PROPERTY, new Object()).build();
+
+    private static final SectionPos ORIGIN = SectionPos.of(0, 4, 0);
+
+    /**
+     * The number of blocks with model data in the section being built. The same number are placed in the section above
+     * it, since the model data is retrieved for the whole chunk.
+     */
+    @Param({ "16", "512", "4096" })
+    public int blocks;
+
+    private Map<BlockPos, ModelData> chunkData;
+    private SectionModelData previous;
+
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+    @Setup
+    public void setup() {
+        this.chunkData = new HashMap<>();
+
+        fillSection(this.chunkData, ORIGIN, this.blocks, 1L);
+        fillSection(this.chunkData, ORIGIN.offset(0, 1, 0), this.blocks, 2L);
+
+        this.previous = ModelDataSnapshotter.snapshot(this.chunkData, ORIGIN, null);
+    }
+
+    private static void fillSection(Map<BlockPos, ModelData> data, SectionPos section, int blocks, long seed) {
+        var random = new Random(seed);
+        int placed = 0;
+
+        while (placed < blocks) {
+            var pos = section.origin().offset(random.nextInt(16), random.nextInt(16), random.nextInt(16));
+
+            if (data.put(pos, TEST_DATA) == null) {
+                placed++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void map(Blackhole blackhole) {
+        BoundingBox volume = new BoundingBox(ORIGIN.minBlockX(), ORIGIN.minBlockY(), ORIGIN.minBlockZ(), ORIGIN.maxBlockX(), ORIGIN.maxBlockY(), ORIGIN.maxBlockZ());
+        Map<BlockPos, ModelData> snapshot = new Object2ObjectOpenHashMap<>();
+
+        for (Map.Entry<BlockPos, ModelData> entry : this.chunkData.entrySet()) {
+            if (volume.isInside(entry.getKey())) {
+                snapshot.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    this.pos.set(ORIGIN.minBlockX() + x, ORIGIN.minBlockY() + y, ORIGIN.minBlockZ() + z);
+                    blackhole.consume(snapshot.getOrDefault(this.pos, ModelData.EMPTY));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        lookupAll(ModelDataSnapshotter.snapshot(this.chunkData, ORIGIN, null), blackhole);
+    }
+
+    @Benchmark
+    public void indexedReused(Blackhole blackhole) {
+        lookupAll(ModelDataSnapshotter.snapshot(this.chunkData, ORIGIN, this.previous), blackhole);
+    }
+
+    private void lookupAll(SectionModelData snapshot, Blackhole blackhole) {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    this.pos.set(ORIGIN.minBlockX() + x, ORIGIN.minBlockY() + y, ORIGIN.minBlockZ() + z);
+                    blackhole.consume(snapshot.get(this.pos));
+                }
+            }
+        }
+    }
+}
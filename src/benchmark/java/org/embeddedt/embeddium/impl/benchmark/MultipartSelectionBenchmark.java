@@ -0,0 +1,143 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import org.embeddedt.embeddium.impl.util.collections.DenseIndexCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Measures the contention between meshing threads which look up the selected submodels of multipart models at the same
+ * time, comparing the previous cache behind a {@link StampedLock} with the lock-free {@link DenseIndexCache}. Each
+ * benchmark is repeated for 1, 4, 8, and 16 threads.
+ * <p>
+ * Block states can't be created here without starting the game, so they are replaced by keys which carry their own
+ * index, the same as the index of a state within its block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultipartSelectionBenchmark {
+    // The number of states of a redstone wire
+    private static final int STATES = 1296;
+
+    private static final int LOOKUPS = 256;
+
+    private record Key(int index) { }
+
+    private final Key[] keys = new Key[STATES];
+    private final Object[][] selections = new Object[STATES][];
+
+    private final Map<Key, Object[]> lockedCache = new Reference2ReferenceOpenHashMap<>();
+    private final StampedLock lock = new StampedLock();
+
+    private final DenseIndexCache<Key, Object[]> lockFreeCache = new DenseIndexCache<>(Key::index);
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < STATES; i++) {
+            this.keys[i] = new Key(i);
+            this.selections[i] = new Object[i % 5];
+        }
+
+        // Fill both caches in advance, since a section build almost always finds the selection already cached
+        for (Key key : this.keys) {
+            this.lockedCache.put(key, this.selections[key.index()]);
+            this.lockFreeCache.put(key, this.selections[key.index()]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        // Each thread walks through the states with a different stride, so that they don't all read the same entry
+        private int position;
+        private int stride;
+
+        @Setup
+        public void setup() {
+            this.position = (int) (Thread.currentThread().getId() * 31) % STATES;
+            this.stride = 1 + (((int) Thread.currentThread().getId() * 2) % 17);
+        }
+
+        private int next() {
+            return this.position = (this.position + this.stride) % STATES;
+        }
+    }
+
+    @Benchmark @Threads(1)
+    public int locked_1(Cursor cursor) {
+        return this.lookupLocked(cursor);
+    }
+
+    @Benchmark @Threads(4)
+    public int locked_4(Cursor cursor) {
+        return this.lookupLocked(cursor);
+    }
+
+    @Benchmark @Threads(8)
+    public int locked_8(Cursor cursor) {
+        return this.lookupLocked(cursor);
+    }
+
+    @Benchmark @Threads(16)
+    public int locked_16(Cursor cursor) {
+        return this.lookupLocked(cursor);
+    }
+
+    @Benchmark @Threads(1)
+    public int lockFree_1(Cursor cursor) {
+        return this.lookupLockFree(cursor);
+    }
+
+    @Benchmark @Threads(4)
+    public int lockFree_4(Cursor cursor) {
+        return this.lookupLockFree(cursor);
+    }
+
+    @Benchmark @Threads(8)
+    public int lockFree_8(Cursor cursor) {
+        return this.lookupLockFree(cursor);
+    }
+
+    @Benchmark @Threads(16)
+    public int lockFree_16(Cursor cursor) {
+        return this.lookupLockFree(cursor);
+    }
+
+    private int lookupLocked(Cursor cursor) {
+        int total = 0;
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            Key key = this.keys[cursor.next()];
+            Object[] selection;
+
+            long readStamp = this.lock.readLock();
+            try {
+                selection = this.lockedCache.get(key);
+            } finally {
+                this.lock.unlockRead(readStamp);
+            }
+
+            total += selection.length;
+        }
+
+        return total;
+    }
+
+    private int lookupLockFree(Cursor cursor) {
+        int total = 0;
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            Key key = this.keys[cursor.next()];
+
+            total += this.lockFreeCache.get(key).length;
+        }
+
+        return total;
+    }
+}
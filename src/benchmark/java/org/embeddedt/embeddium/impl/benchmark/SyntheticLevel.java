@@ -0,0 +1,158 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.BlockAndTintGetter;
+import net.minecraft.world.level.ColorResolver;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import net.minecraft.world.level.material.FluidState;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Shows the blocks of a {@link SyntheticWorld} as real block states, so that code which queries the shapes and
+ * properties of blocks can run outside the game. The registries are bootstrapped the first time this class is used,
+ * which works without a client, although models and textures are still unavailable.
+ * <p>
+ * The section is at the origin of the level, so block positions are the same as the local positions in the world.
+ * Everything outside the section and its border is air with full sky light.
+ */
+public class SyntheticLevel implements BlockAndTintGetter {
+    public static final SectionPos ORIGIN = SectionPos.of(0, 0, 0);
+
+    private static final BlockState[] STATES;
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        // Indexed by the block IDs of the synthetic world
+        STATES = new BlockState[] {
+                Blocks.AIR.defaultBlockState(),
+                Blocks.STONE.defaultBlockState(),
+                Blocks.DIRT.defaultBlockState(),
+                Blocks.GRASS_BLOCK.defaultBlockState(),
+                Blocks.WATER.defaultBlockState(),
+                Blocks.GLASS.defaultBlockState(),
+                Blocks.OAK_LEAVES.defaultBlockState()
+        };
+    }
+
+    private static final int MIN = -1;
+    private static final int MAX = SyntheticWorld.SIZE;
+
+    private final SyntheticWorld world;
+
+    // The highest block which isn't air in each column, for approximating sky light
+    private final int[] surfaceHeights = new int[(MAX - MIN + 1) * (MAX - MIN + 1)];
+
+    public SyntheticLevel(SyntheticWorld world) {
+        this.world = world;
+
+        for (int x = MIN; x <= MAX; x++) {
+            for (int z = MIN; z <= MAX; z++) {
+                int y = MAX;
+
+                while (y >= MIN && world.get(x, y, z) == SyntheticWorld.AIR) {
+                    y--;
+                }
+
+                this.surfaceHeights[columnIndex(x, z)] = y;
+            }
+        }
+    }
+
+    private static boolean isInside(int x, int y, int z) {
+        return x >= MIN && x <= MAX && y >= MIN && y <= MAX && z >= MIN && z <= MAX;
+    }
+
+    private static int columnIndex(int x, int z) {
+        return ((z - MIN) * (MAX - MIN + 1)) + (x - MIN);
+    }
+
+    public BlockState getBlockState(int x, int y, int z) {
+        if (!isInside(x, y, z)) {
+            return STATES[SyntheticWorld.AIR];
+        }
+
+        return STATES[this.world.get(x, y, z)];
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return this.getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return this.getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public @Nullable BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getBrightness(LightLayer type, BlockPos pos) {
+        if (type == LightLayer.BLOCK) {
+            return 0;
+        }
+
+        if (!isInside(pos.getX(), pos.getY(), pos.getZ())) {
+            return 15;
+        }
+
+        // Light fades quickly below the surface, so that caves and the undersides of leaves are darker
+        int depth = this.surfaceHeights[columnIndex(pos.getX(), pos.getZ())] - pos.getY();
+
+        return depth < 0 ? 15 : Math.max(0, 13 - (depth * 3));
+    }
+
+    @Override
+    public int getRawBrightness(BlockPos pos, int ambientDarkness) {
+        return Math.max(0, this.getBrightness(LightLayer.SKY, pos) - ambientDarkness);
+    }
+
+    @Override
+    public float getShade(Direction direction, boolean shade) {
+        if (!shade) {
+            return 1.0f;
+        }
+
+        // The same shading as the overworld
+        return switch (direction) {
+            case DOWN -> 0.5f;
+            case UP -> 1.0f;
+            case NORTH, SOUTH -> 0.8f;
+            case WEST, EAST -> 0.6f;
+        };
+    }
+
+    @Override
+    public LevelLightEngine getLightEngine() {
+        // Light is only provided through getBrightness
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getBlockTint(BlockPos pos, ColorResolver resolver) {
+        return 0xFFFFFF;
+    }
+
+    @Override
+    public int getHeight() {
+        return 384;
+    }
+
+    @Override
+    public int getMinBuildHeight() {
+        return -64;
+    }
+}
@@ -0,0 +1,352 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import net.minecraft.core.Direction;
+import org.embeddedt.embeddium.impl.model.quad.ModelQuad;
+import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFlags;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the blocks of a single section from a seed, and the quads which the mesher would emit for them. This
+ * replaces a real world in benchmarks, since baked models can't be loaded without starting the game. Benchmarks which
+ * need real block states can view the same blocks through {@link SyntheticLevel}.
+ * <p>
+ * Blocks are stored with a border of one block on every side, so that faces on the edge of the section are culled
+ * against their neighbours like they would be in a world slice.
+ */
+public class SyntheticWorld {
+    public static final int SIZE = 16;
+    private static final int BORDER = 1;
+    private static final int STRIDE = SIZE + BORDER * 2;
+
+    public static final byte AIR = 0;
+    public static final byte STONE = 1;
+    public static final byte DIRT = 2;
+    public static final byte GRASS = 3;
+    public static final byte WATER = 4;
+    public static final byte GLASS = 5;
+    public static final byte LEAVES = 6;
+
+    private static final int SEA_LEVEL = 9;
+
+    // The direction of each face, in the order which the block renderer visits them: down, up, north, south, west, east
+    private static final int[][] FACE_DIRECTIONS = {
+            { 0, -1, 0 }, { 0, 1, 0 }, { 0, 0, -1 }, { 0, 0, 1 }, { -1, 0, 0 }, { 1, 0, 0 }
+    };
+
+    // The corners of each face, counter-clockwise when seen from outside the block
+    private static final float[][][] FACE_CORNERS = {
+            { { 0, 0, 1 }, { 0, 0, 0 }, { 1, 0, 0 }, { 1, 0, 1 } },
+            { { 0, 1, 0 }, { 0, 1, 1 }, { 1, 1, 1 }, { 1, 1, 0 } },
+            { { 1, 1, 0 }, { 1, 0, 0 }, { 0, 0, 0 }, { 0, 1, 0 } },
+            { { 0, 1, 1 }, { 0, 0, 1 }, { 1, 0, 1 }, { 1, 1, 1 } },
+            { { 0, 1, 0 }, { 0, 0, 0 }, { 0, 0, 1 }, { 0, 1, 1 } },
+            { { 1, 1, 1 }, { 1, 0, 1 }, { 1, 0, 0 }, { 1, 1, 0 } }
+    };
+
+    private static final float[][] CORNER_UVS = { { 0, 0 }, { 0, 1 }, { 1, 1 }, { 1, 0 } };
+
+    private static final float[] FACE_SHADE = { 0.5f, 1.0f, 0.8f, 0.8f, 0.6f, 0.6f };
+
+    public enum Scenario {
+        /**
+         * Rolling hills of stone, dirt, and grass.
+         */
+        TERRAIN,
+        /**
+         * Solid stone with winding caves carved out of it.
+         */
+        CAVES,
+        /**
+         * Low terrain flooded with water up to sea level.
+         */
+        WATER,
+        /**
+         * Terrain with walls and clusters of glass above it.
+         */
+        GLASS,
+        /**
+         * Terrain covered with trees.
+         */
+        FOLIAGE
+    }
+
+    private final byte[] blocks = new byte[STRIDE * STRIDE * STRIDE];
+    private final long seed;
+
+    private SyntheticWorld(long seed) {
+        this.seed = seed;
+    }
+
+    public static SyntheticWorld generate(Scenario scenario, long seed) {
+        var world = new SyntheticWorld(seed);
+
+        for (int x = -BORDER; x < SIZE + BORDER; x++) {
+            for (int z = -BORDER; z < SIZE + BORDER; z++) {
+                int height = world.getHeight(scenario, x, z);
+
+                for (int y = -BORDER; y < SIZE + BORDER; y++) {
+                    world.set(x, y, z, world.pick(scenario, x, y, z, height));
+                }
+            }
+        }
+
+        return world;
+    }
+
+    private int getHeight(Scenario scenario, int x, int z) {
+        float noise = this.noise(x * 0.08f, 0.0f, z * 0.08f);
+
+        return switch (scenario) {
+            case CAVES -> SIZE + BORDER;
+            case WATER -> 3 + (int) (noise * 8.0f);
+            default -> 5 + (int) (noise * 7.0f);
+        };
+    }
+
+    private byte pick(Scenario scenario, int x, int y, int z, int height) {
+        if (y < height) {
+            if (scenario == Scenario.CAVES && this.noise(x * 0.15f, y * 0.15f, z * 0.15f) > 0.6f) {
+                return AIR;
+            }
+
+            if (y < height - 3) {
+                return STONE;
+            }
+
+            return y == height - 1 && scenario != Scenario.WATER ? GRASS : DIRT;
+        }
+
+        return switch (scenario) {
+            case WATER -> y < SEA_LEVEL ? WATER : AIR;
+            case GLASS -> this.isGlass(x, y, z, height) ? GLASS : AIR;
+            case FOLIAGE -> this.isLeaves(x, y, z, height) ? LEAVES : AIR;
+            default -> AIR;
+        };
+    }
+
+    private boolean isGlass(int x, int y, int z, int height) {
+        // Walls along two axes, with windows missing at random, and scattered blocks in between
+        if (y > height + 6) {
+            return false;
+        }
+
+        if (Math.floorMod(x, 6) == 0 || Math.floorMod(z, 7) == 0) {
+            return this.random(x, y, z) > 0.2f;
+        }
+
+        return this.random(x, y, z) > 0.95f;
+    }
+
+    private boolean isLeaves(int x, int y, int z, int height) {
+        // Round canopies which are centered on a grid, plus some sparse leaves as undergrowth
+        int cx = Math.floorDiv(x, 6) * 6 + 3;
+        int cz = Math.floorDiv(z, 6) * 6 + 3;
+        int cy = height + 5;
+
+        int dx = x - cx, dy = y - cy, dz = z - cz;
+
+        if ((dx * dx) + (dy * dy * 2) + (dz * dz) <= 9) {
+            return this.random(x, y, z) > 0.1f;
+        }
+
+        return y == height && this.random(x, y, z) > 0.7f;
+    }
+
+    private void set(int x, int y, int z, byte block) {
+        this.blocks[index(x, y, z)] = block;
+    }
+
+    public byte get(int x, int y, int z) {
+        return this.blocks[index(x, y, z)];
+    }
+
+    private static int index(int x, int y, int z) {
+        return ((y + BORDER) * STRIDE * STRIDE) + ((z + BORDER) * STRIDE) + (x + BORDER);
+    }
+
+    public static boolean isTranslucent(byte block) {
+        return block == WATER || block == GLASS;
+    }
+
+    private static boolean isOpaque(byte block) {
+        return block == STONE || block == DIRT || block == GRASS;
+    }
+
+    private static boolean shouldDrawFace(byte block, byte neighbor) {
+        if (neighbor == AIR) {
+            return true;
+        }
+
+        // Like vanilla, faces between two blocks of the same translucent type are skipped
+        if (isTranslucent(block) && block == neighbor) {
+            return false;
+        }
+
+        return !isOpaque(neighbor);
+    }
+
+    /**
+     * Creates the quads which are visible in this section, in the same order that the mesher would visit the blocks.
+     */
+    public Mesh createMesh() {
+        var solid = new ArrayList<ChunkVertexEncoder.Vertex[]>();
+        var translucent = new ArrayList<ChunkVertexEncoder.Vertex[]>();
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    byte block = this.get(x, y, z);
+
+                    if (block == AIR) {
+                        continue;
+                    }
+
+                    for (int face = 0; face < FACE_DIRECTIONS.length; face++) {
+                        int[] dir = FACE_DIRECTIONS[face];
+                        byte neighbor = this.get(x + dir[0], y + dir[1], z + dir[2]);
+
+                        if (shouldDrawFace(block, neighbor)) {
+                            var quad = this.createQuad(block, face, x, y, z);
+                            (isTranslucent(block) ? translucent : solid).add(quad);
+                        }
+                    }
+                }
+            }
+        }
+
+        return new Mesh(solid, translucent);
+    }
+
+    private ChunkVertexEncoder.Vertex[] createQuad(byte block, int face, int x, int y, int z) {
+        var vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
+
+        // Water which is not covered by another water block is lowered slightly, like a fluid surface
+        float top = (block == WATER && this.get(x, y + 1, z) != WATER) ? 14.0f / 16.0f : 1.0f;
+
+        int tint = switch (block) {
+            case GRASS, LEAVES -> 0x59AE30;
+            case WATER -> 0x3F76E4;
+            default -> 0xFFFFFF;
+        };
+
+        int skyLight = y >= SEA_LEVEL ? 240 : 240 - ((SEA_LEVEL - y) * 16);
+        int blockLight = (int) (this.random(x, y, z) * 4.0f) * 16;
+
+        for (int i = 0; i < 4; i++) {
+            var vertex = vertices[i];
+            float[] corner = FACE_CORNERS[face][i];
+
+            vertex.x = x + corner[0];
+            vertex.y = y + (corner[1] * top);
+            vertex.z = z + corner[2];
+
+            vertex.color = shade(tint, FACE_SHADE[face]);
+
+            vertex.u = (block + CORNER_UVS[i][0]) / 16.0f;
+            vertex.v = CORNER_UVS[i][1] / 16.0f;
+
+            vertex.light = (skyLight << 16) | blockLight;
+        }
+
+        return vertices;
+    }
+
+    /**
+     * Creates a quad which covers the given face of a full block, like the faces of a cube model.
+     */
+    public static ModelQuad createFaceQuad(Direction face) {
+        var quad = new ModelQuad();
+
+        // The faces are stored in the same order as the directions
+        float[][] corners = FACE_CORNERS[face.ordinal()];
+
+        for (int i = 0; i < 4; i++) {
+            quad.setX(i, corners[i][0]);
+            quad.setY(i, corners[i][1]);
+            quad.setZ(i, corners[i][2]);
+
+            quad.setTexU(i, CORNER_UVS[i][0]);
+            quad.setTexV(i, CORNER_UVS[i][1]);
+        }
+
+        quad.setLightFace(face);
+        quad.setFlags(ModelQuadFlags.getQuadFlags(quad, face));
+
+        return quad;
+    }
+
+    private static int shade(int rgb, float brightness) {
+        int r = (int) (((rgb >> 16) & 0xFF) * brightness);
+        int g = (int) (((rgb >> 8) & 0xFF) * brightness);
+        int b = (int) ((rgb & 0xFF) * brightness);
+
+        // ABGR, as used by the vertex formats
+        return 0xFF000000 | (b << 16) | (g << 8) | r;
+    }
+
+    private float random(int x, int y, int z) {
+        return (hash(this.seed, x, y, z) >>> 40) / (float) (1 << 24);
+    }
+
+    /**
+     * Smoothly interpolated value noise between 0 and 1.
+     */
+    private float noise(float x, float y, float z) {
+        int x0 = (int) Math.floor(x), y0 = (int) Math.floor(y), z0 = (int) Math.floor(z);
+        float fx = smooth(x - x0), fy = smooth(y - y0), fz = smooth(z - z0);
+
+        float c000 = this.random(x0, y0, z0), c100 = this.random(x0 + 1, y0, z0);
+        float c010 = this.random(x0, y0 + 1, z0), c110 = this.random(x0 + 1, y0 + 1, z0);
+        float c001 = this.random(x0, y0, z0 + 1), c101 = this.random(x0 + 1, y0, z0 + 1);
+        float c011 = this.random(x0, y0 + 1, z0 + 1), c111 = this.random(x0 + 1, y0 + 1, z0 + 1);
+
+        float c00 = lerp(fx, c000, c100), c10 = lerp(fx, c010, c110);
+        float c01 = lerp(fx, c001, c101), c11 = lerp(fx, c011, c111);
+
+        return lerp(fz, lerp(fy, c00, c10), lerp(fy, c01, c11));
+    }
+
+    private static float smooth(float t) {
+        return t * t * (3.0f - 2.0f * t);
+    }
+
+    private static float lerp(float t, float a, float b) {
+        return a + (t * (b - a));
+    }
+
+    private static long hash(long seed, int x, int y, int z) {
+        long h = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL) ^ (z * 0x165667B19E3779F9L);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * The quads of a section, split by whether they need to be sorted.
+     */
+    public record Mesh(List<ChunkVertexEncoder.Vertex[]> solidQuads, List<ChunkVertexEncoder.Vertex[]> translucentQuads) {
+        public int getVertexCount() {
+            return (this.solidQuads.size() + this.translucentQuads.size()) * 4;
+        }
+
+        /**
+         * Writes the vertices of the given quads to memory.
+         *
+         * @return The pointer after the last vertex
+         */
+        public static long encode(List<ChunkVertexEncoder.Vertex[]> quads, ChunkVertexEncoder encoder, Material material, long ptr) {
+            for (var quad : quads) {
+                for (var vertex : quad) {
+                    ptr = encoder.write(ptr, material, vertex, 0);
+                }
+            }
+
+            return ptr;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to find the sort state of the translucent quads in a section.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslucentQuadAnalyzerBenchmark {
+    // The other scenarios don't contain any translucent blocks
+    @Param({ "WATER", "GLASS" })
+    public SyntheticWorld.Scenario scenario;
+
+    private SyntheticWorld.Mesh mesh;
+    private TranslucentQuadAnalyzer analyzer;
+
+    @Setup
+    public void setup() {
+        this.mesh = SyntheticWorld.generate(this.scenario, 0L).createMesh();
+        this.analyzer = new TranslucentQuadAnalyzer();
+    }
+
+    @Benchmark
+    public TranslucentQuadAnalyzer.SortState analyze() {
+        for (var quad : this.mesh.translucentQuads()) {
+            for (var vertex : quad) {
+                this.analyzer.capture(vertex);
+            }
+        }
+
+        return this.analyzer.getSortState();
+    }
+}
@@ -0,0 +1,60 @@
+package org.embeddedt.embeddium.impl.benchmark;
+
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to write the vertices of a section in each of the chunk vertex formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertexEncodingBenchmark {
+    // The material only needs to be packed into the vertices, so it doesn't need a render pass
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.ZERO, true);
+
+    @Param({ "TERRAIN", "CAVES", "WATER", "GLASS", "FOLIAGE" })
+    public SyntheticWorld.Scenario scenario;
+
+    @Param({ "COMPACT", "VANILLA_LIKE", "DENSE" })
+    public String format;
+
+    private SyntheticWorld.Mesh mesh;
+    private ChunkVertexEncoder encoder;
+    private long buffer;
+
+    @Setup
+    public void setup() {
+        ChunkVertexType vertexType = switch (this.format) {
+            case "COMPACT" -> ChunkMeshFormats.COMPACT;
+            case "VANILLA_LIKE" -> ChunkMeshFormats.VANILLA_LIKE;
+            case "DENSE" -> ChunkMeshFormats.DENSE;
+            default -> throw new IllegalArgumentException("Unknown vertex format: " + this.format);
+        };
+
+        this.mesh = SyntheticWorld.generate(this.scenario, 0L).createMesh();
+        this.encoder = vertexType.getEncoder();
+        this.buffer = MemoryUtil.nmemAlloc((long) this.mesh.getVertexCount() * vertexType.getVertexFormat().getStride());
+    }
+
+    @TearDown
+    public void tearDown() {
+        MemoryUtil.nmemFree(this.buffer);
+    }
+
+    @Benchmark
+    public long encode() {
+        long ptr = SyntheticWorld.Mesh.encode(this.mesh.solidQuads(), this.encoder, MATERIAL, this.buffer);
+        return SyntheticWorld.Mesh.encode(this.mesh.translucentQuads(), this.encoder, MATERIAL, ptr);
+    }
+}
@@ -0,0 +1,104 @@
+package org.embeddedt.embeddium.impl.model.light;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import org.embeddedt.embeddium.impl.benchmark.SyntheticLevel;
+import org.embeddedt.embeddium.impl.benchmark.SyntheticWorld;
+import org.embeddedt.embeddium.impl.model.light.data.ArrayLightDataCache;
+import org.embeddedt.embeddium.impl.model.light.data.QuadLightData;
+import org.embeddedt.embeddium.impl.model.light.flat.FlatLightPipeline;
+import org.embeddedt.embeddium.impl.model.light.smooth.SmoothLightPipeline;
+import org.embeddedt.embeddium.impl.model.quad.ModelQuad;
+import org.embeddedt.embeddium.impl.render.chunk.compile.pipeline.BlockOcclusionCache;
+import org.embeddedt.embeddium.impl.util.DirectionUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lights every visible face of a synthetic section with real block states, the way the block renderer lights the
+ * faces of cube models. The light data cache is cleared on each invocation, so the cost of reading block properties
+ * into it is included. The pipelines are created directly, since the provider picks one from the Forge config, which
+ * isn't loaded here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightPipelineBenchmark {
+    @Param({ "TERRAIN", "CAVES", "FOLIAGE" })
+    public SyntheticWorld.Scenario scenario;
+
+    @Param({ "SMOOTH", "FLAT" })
+    public LightMode mode;
+
+    private ArrayLightDataCache lightCache;
+    private LightPipeline pipeline;
+
+    private final ModelQuad[] quads = new ModelQuad[DirectionUtil.ALL_DIRECTIONS.length];
+    private final QuadLightData out = new QuadLightData();
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+    // The local position and direction of each visible face, as packed by packFace
+    private int[] faces;
+
+    @Setup
+    public void setup() {
+        var level = new SyntheticLevel(SyntheticWorld.generate(this.scenario, 1234L));
+
+        this.lightCache = new ArrayLightDataCache(level);
+        this.pipeline = this.mode == LightMode.SMOOTH ? new SmoothLightPipeline(this.lightCache) : new FlatLightPipeline(this.lightCache);
+
+        for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+            this.quads[face.ordinal()] = SyntheticWorld.createFaceQuad(face);
+        }
+
+        var occlusionCache = new BlockOcclusionCache();
+        var faces = new int[SyntheticWorld.SIZE * SyntheticWorld.SIZE * SyntheticWorld.SIZE * DirectionUtil.ALL_DIRECTIONS.length];
+        int count = 0;
+
+        for (int y = 0; y < SyntheticWorld.SIZE; y++) {
+            for (int z = 0; z < SyntheticWorld.SIZE; z++) {
+                for (int x = 0; x < SyntheticWorld.SIZE; x++) {
+                    var state = level.getBlockState(x, y, z);
+
+                    if (state.isAir()) {
+                        continue;
+                    }
+
+                    for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                        if (occlusionCache.shouldDrawSide(state, level, this.pos.set(x, y, z), face)) {
+                            faces[count++] = packFace(x, y, z, face);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.faces = Arrays.copyOf(faces, count);
+    }
+
+    private static int packFace(int x, int y, int z, Direction face) {
+        return x | (y << 4) | (z << 8) | (face.ordinal() << 12);
+    }
+
+    @Benchmark
+    public void calculate(Blackhole blackhole) {
+        this.lightCache.reset(SyntheticLevel.ORIGIN);
+        this.pipeline.reset();
+
+        for (int packed : this.faces) {
+            Direction face = DirectionUtil.ALL_DIRECTIONS[packed >>> 12];
+            this.pos.set(packed & 15, (packed >>> 4) & 15, (packed >>> 8) & 15);
+
+            this.pipeline.calculate(this.quads[face.ordinal()], this.pos, this.out, face, face, true);
+
+            blackhole.consume(this.out.lm[0]);
+            blackhole.consume(this.out.br[0]);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.data.SectionRenderDataStorage;
+import org.embeddedt.embeddium.impl.render.chunk.data.SectionRenderDataUnsafe;
+import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderList;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to prepare the draw commands of a full region for one frame while the camera moves
+ * through it, either through the per-region cache or by rebuilding the commands every frame as the renderer did
+ * before the cache existed. Each invocation is one frame. This lives in the same package as
+ * {@link DefaultChunkRenderer} so that it can call the command building directly, without a graphics device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawCommandCacheBenchmark {
+    public enum Movement {
+        STILL(0.0),
+        // Walking speed at 60 frames per second
+        WALKING(4.3 / 60.0),
+        // Sprint-flying speed at 60 frames per second
+        FLYING(22.0 / 60.0);
+
+        private final double blocksPerFrame;
+
+        Movement(double blocksPerFrame) {
+            this.blocksPerFrame = blocksPerFrame;
+        }
+    }
+
+    // The camera goes back and forth along a diagonal which crosses the whole region, including the faces near its edges
+    private static final double PATH_START = -24.0;
+    private static final double PATH_LENGTH = (RenderRegion.REGION_WIDTH * 16) + 48.0;
+
+    @Param({ "STILL", "WALKING", "FLYING" })
+    public Movement movement;
+
+    private final TerrainRenderPass pass = new TerrainRenderPass(null, false, false);
+
+    private RenderRegion region;
+    private SectionRenderDataStorage storage;
+    private ChunkRenderList renderList;
+
+    private MultiDrawBatch batch, weldedBatch;
+
+    private long frame;
+
+    @Setup
+    public void setup() {
+        this.region = new RenderRegion(0, 0, 0, null);
+        this.storage = new SectionRenderDataStorage();
+
+        this.renderList = this.region.getRenderList();
+        this.renderList.reset(0);
+
+        var info = BuiltSectionInfo.createPlaceholder(1 << RenderSectionFlags.HAS_BLOCK_GEOMETRY, 0L);
+        int vertexOffset = 0;
+
+        for (int x = 0; x < RenderRegion.REGION_WIDTH; x++) {
+            for (int y = 0; y < RenderRegion.REGION_HEIGHT; y++) {
+                for (int z = 0; z < RenderRegion.REGION_LENGTH; z++) {
+                    var section = new RenderSection(this.region, x, y, z);
+                    section.setInfo(info);
+
+                    this.renderList.add(section);
+
+                    // Every section has geometry on all of its faces, so face culling decides what is drawn
+                    long pMeshData = this.storage.getDataPointer(section.getSectionIndex());
+
+                    for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                        SectionRenderDataUnsafe.setVertexOffset(pMeshData, facing, vertexOffset);
+                        SectionRenderDataUnsafe.setElementCount(pMeshData, facing, 600);
+                        SectionRenderDataUnsafe.setIndexOffset(pMeshData, facing, 0);
+
+                        vertexOffset += 400;
+                    }
+
+                    SectionRenderDataUnsafe.setSliceMask(pMeshData, ModelQuadFacing.ALL);
+                    SectionRenderDataUnsafe.setWelded(pMeshData, false);
+                }
+            }
+        }
+
+        int capacity = (RenderRegion.REGION_SIZE * ModelQuadFacing.COUNT) + 1;
+
+        this.batch = new MultiDrawBatch(capacity);
+        this.weldedBatch = new MultiDrawBatch(capacity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        // Indirect commands are never created here, so there is nothing on the graphics device to delete
+        this.storage.delete(null);
+
+        this.batch.delete();
+        this.weldedBatch.delete();
+    }
+
+    private CameraTransform nextCamera() {
+        double distance = (this.frame++ * this.movement.blocksPerFrame) % (PATH_LENGTH * 2);
+
+        if (distance > PATH_LENGTH) {
+            distance = (PATH_LENGTH * 2) - distance;
+        }
+
+        double position = PATH_START + distance;
+
+        return new CameraTransform(position, 32.5 + (position * 0.25), position);
+    }
+
+    @Benchmark
+    public int cached() {
+        var commands = DefaultChunkRenderer.prepareDrawCommands(this.region, this.storage, this.renderList, this.nextCamera(),
+                this.pass, false, true);
+
+        return commands.getBatch().size();
+    }
+
+    @Benchmark
+    public int rebuilt() {
+        DefaultChunkRenderer.fillCommandBuffer(this.batch, this.weldedBatch, this.region, this.storage, this.renderList,
+                this.nextCamera(), this.pass, false, true);
+
+        return this.batch.size();
+    }
+}
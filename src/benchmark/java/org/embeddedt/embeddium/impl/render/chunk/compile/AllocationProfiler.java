@@ -0,0 +1,634 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceMap;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.RenderShape;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.SingleThreadedRandomSource;
+import net.minecraftforge.client.model.data.ModelData;
+import net.minecraftforge.client.model.data.ModelProperty;
+import org.embeddedt.embeddium.impl.benchmark.BakedQuadCacheBenchmark;
+import org.embeddedt.embeddium.impl.benchmark.SyntheticLevel;
+import org.embeddedt.embeddium.impl.benchmark.SyntheticWorld;
+import org.embeddedt.embeddium.impl.model.ModelDataSnapshotter;
+import org.embeddedt.embeddium.impl.model.SectionModelData;
+import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.impl.CompactChunkVertex;
+import org.embeddedt.embeddium.impl.util.DirectionUtil;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Meshes a corpus of synthetic sections on several threads at once, and counts how many bytes each stage of the
+ * worker-side pipeline allocates per section using the allocation counters of each thread. The counts are compared
+ * against a baseline file, and the run fails if any stage allocates noticeably more than it did when the baseline was
+ * written.
+ * <p>
+ * While the measured passes run, allocation samples are recorded with Flight Recorder, and the bytes they account for
+ * are grouped by the method and line which allocated them. This is written to {@code call-sites.csv} in the report
+ * directory, next to the recording itself, to show where any new garbage comes from.
+ * <p>
+ * The registries are bootstrapped so that every block in the corpus has a real block state, and some of them are given
+ * model data. The baked models of the game can't be loaded without a client, so each block state is given a simple
+ * model with the same faces, and its render types come from the game's defaults. The block and fluid renderers still
+ * need a client, so the corpus stands in for them with the quads which they would have emitted. This lives in the same
+ * package as {@link ChunkMeshCompressor} so that it can compress into scratch memory, like the benchmark does.
+ */
+public class AllocationProfiler {
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.ZERO, true);
+    private static final int STRIDE = CompactChunkVertex.STRIDE;
+
+    private static final int SEEDS_PER_SCENARIO = 16;
+
+    // The fraction of blocks which are given model data, in the section being built and in the section above it
+    private static final float MODEL_DATA_CHANCE = 1.0f / 16.0f;
+
+    private static final ModelProperty<Object> TEST_PROPERTY = new ModelProperty<>();
+    private static final ModelData TEST_DATA = ModelData.builder().with(TEST_PROPERTY, new Object()).build();
+
+    // Enough passes for the JIT to finish compiling the pipeline, since escape analysis removes many allocations
+    private static final int WARMUP_PASSES = 50;
+    private static final int MEASURED_PASSES = 20;
+
+    // Each section is sorted from several camera positions, like it would be while the player moves around it
+    private static final float[][] CAMERA_POSITIONS = {
+            { 8.0f, 40.0f, 8.0f }, { -24.0f, 12.0f, 8.0f }, { 8.0f, 4.0f, 40.0f }, { 30.0f, -16.0f, -20.0f }
+    };
+
+    // A stage fails if it allocates more than this fraction above the baseline, plus a fixed allowance so that stages
+    // which allocate almost nothing don't fail on noise
+    private static final double TOLERANCE = 0.10;
+    private static final long TOLERANCE_BYTES = 64;
+
+    // Stages which the committed baseline has no entry for yet. They are measured and reported, but only checked once
+    // the baseline is updated to include them.
+    private static final Set<Stage> STAGES_WITHOUT_BASELINE = EnumSet.of(Stage.MODEL);
+
+    private static final String WORKER_THREAD_NAME = "Allocation Profiler Worker";
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public enum Stage {
+        /**
+         * Snapshotting the model data of the section, and finding the model, model data, render types and quads of each
+         * block, like the meshing task does before rendering it.
+         */
+        MODEL,
+        /**
+         * Writing the vertices of each quad and capturing the translucent quads for sorting.
+         */
+        ENCODE,
+        /**
+         * Turning the captured translucent quads into the sort state which is kept with the section.
+         */
+        SORT_STATE,
+        /**
+         * Merging the identical vertices of the solid quads.
+         */
+        WELD,
+        /**
+         * Compressing the vertex data while it waits to be uploaded.
+         */
+        COMPRESS,
+        /**
+         * Sorting the translucent quads for each camera position.
+         */
+        SORT;
+
+        public String getKey() {
+            return this.name().toLowerCase();
+        }
+    }
+
+    /**
+     * A section of the corpus, with the model data of the chunk which contains it.
+     */
+    private record Section(SyntheticLevel level, SyntheticWorld.Mesh mesh, Map<BlockPos, ModelData> modelData) { }
+
+    private final List<Section> corpus;
+    private final int threadCount;
+
+    private AllocationProfiler(List<Section> corpus, int threadCount) {
+        this.corpus = corpus;
+        this.threadCount = threadCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: AllocationProfiler <baseline> <report directory> [thread count] [--update-baseline]");
+            System.exit(1);
+        }
+
+        var baselinePath = Path.of(args[0]);
+        var reportDir = Path.of(args[1]);
+
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        boolean updateBaseline = false;
+
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--update-baseline")) {
+                updateBaseline = true;
+            } else {
+                threadCount = Math.max(1, Integer.parseInt(args[i]));
+            }
+        }
+
+        if (!THREAD_BEAN.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM can't count the bytes allocated by each thread");
+            System.exit(1);
+        }
+
+        THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+        Files.createDirectories(reportDir);
+
+        var profiler = new AllocationProfiler(createCorpus(), threadCount);
+        var result = profiler.run(reportDir.resolve("allocations.jfr"));
+
+        writeCallSites(reportDir.resolve("allocations.jfr"), reportDir.resolve("call-sites.csv"));
+
+        System.out.printf("Meshed %d sections on %d threads%n", result.sections(), threadCount);
+
+        for (var stage : Stage.values()) {
+            System.out.printf("  %-10s %10.1f bytes/section%n", stage.getKey(), result.getBytesPerSection(stage));
+        }
+
+        if (updateBaseline) {
+            writeBaseline(baselinePath, result);
+            System.out.println("Wrote baseline to " + baselinePath);
+            return;
+        }
+
+        if (!Files.exists(baselinePath)) {
+            System.err.println("There is no baseline at " + baselinePath + ", run with --update-baseline to write one");
+            System.exit(1);
+        }
+
+        if (!checkBaseline(baselinePath, result)) {
+            System.exit(1);
+        }
+    }
+
+    private static List<Section> createCorpus() {
+        var corpus = new ArrayList<Section>();
+
+        for (var scenario : SyntheticWorld.Scenario.values()) {
+            for (long seed = 0; seed < SEEDS_PER_SCENARIO; seed++) {
+                var world = SyntheticWorld.generate(scenario, seed);
+                var level = new SyntheticLevel(world);
+
+                corpus.add(new Section(level, world.createMesh(), createModelData(level, seed)));
+            }
+        }
+
+        return corpus;
+    }
+
+    private static Map<BlockPos, ModelData> createModelData(SyntheticLevel level, long seed) {
+        var modelData = new HashMap<BlockPos, ModelData>();
+        var random = new Random(seed);
+
+        for (int y = 0; y < SyntheticWorld.SIZE; y++) {
+            for (int z = 0; z < SyntheticWorld.SIZE; z++) {
+                for (int x = 0; x < SyntheticWorld.SIZE; x++) {
+                    if (level.getBlockState(x, y, z).isAir()) {
+                        continue;
+                    }
+
+                    if (random.nextFloat() < MODEL_DATA_CHANCE) {
+                        modelData.put(new BlockPos(x, y, z), TEST_DATA);
+                    }
+
+                    // The model data is retrieved for the whole chunk, so the snapshot has to skip the section above
+                    if (random.nextFloat() < MODEL_DATA_CHANCE) {
+                        modelData.put(new BlockPos(x, y + SyntheticWorld.SIZE, z), TEST_DATA);
+                    }
+                }
+            }
+        }
+
+        return modelData;
+    }
+
+    /**
+     * Gives every block state in the corpus which is rendered with a model a simple model with the same faces, since the
+     * models of the game can't be baked here. Grass blocks have a second quad on each face, like their overlay.
+     */
+    private static Reference2ReferenceMap<BlockState, BakedModel> createModels(List<Section> corpus) {
+        var models = new Reference2ReferenceOpenHashMap<BlockState, BakedModel>();
+
+        for (var section : corpus) {
+            for (int y = 0; y < SyntheticWorld.SIZE; y++) {
+                for (int z = 0; z < SyntheticWorld.SIZE; z++) {
+                    for (int x = 0; x < SyntheticWorld.SIZE; x++) {
+                        var state = section.level().getBlockState(x, y, z);
+
+                        if (state.getRenderShape() == RenderShape.MODEL && !models.containsKey(state)) {
+                            models.put(state, BakedQuadCacheBenchmark.createModel(state.is(Blocks.GRASS_BLOCK) ?
+                                    BakedQuadCacheBenchmark.Shape.OVERLAY_CUBE : BakedQuadCacheBenchmark.Shape.CUBE));
+                        }
+                    }
+                }
+            }
+        }
+
+        return models;
+    }
+
+    private record Result(long[] bytes, long sections) {
+        double getBytesPerSection(Stage stage) {
+            return this.sections == 0 ? 0.0 : (double) this.bytes[stage.ordinal()] / this.sections;
+        }
+    }
+
+    private Result run(Path recordingPath) throws InterruptedException, IOException {
+        var workers = new ArrayList<Worker>();
+        var threads = new ArrayList<Thread>();
+
+        var models = createModels(this.corpus);
+
+        try (var recording = new Recording()) {
+            recording.enable("jdk.ObjectAllocationSample")
+                    .with("throttle", "10000/s")
+                    .withStackTrace();
+
+            // Every worker finishes its warmup before any of them are measured, so that the recording only contains
+            // allocations from the measured passes
+            var measurementStart = new CyclicBarrier(this.threadCount, recording::start);
+
+            for (int i = 0; i < this.threadCount; i++) {
+                var worker = new Worker(this.corpus, models, measurementStart);
+
+                workers.add(worker);
+                threads.add(new Thread(worker, WORKER_THREAD_NAME + " " + i));
+            }
+
+            for (var thread : threads) {
+                thread.start();
+            }
+
+            for (var thread : threads) {
+                thread.join();
+            }
+
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+
+        long[] bytes = new long[Stage.values().length];
+        long sections = 0;
+
+        for (var worker : workers) {
+            if (worker.failure != null) {
+                throw new RuntimeException("Worker failed", worker.failure);
+            }
+
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] += worker.bytes[i];
+            }
+
+            sections += worker.sections;
+        }
+
+        return new Result(bytes, sections);
+    }
+
+    /**
+     * Runs the pipeline on one thread, with its own scratch buffers like a chunk builder thread would have.
+     */
+    private static class Worker implements Runnable {
+        private final List<Section> corpus;
+        private final Reference2ReferenceMap<BlockState, BakedModel> models;
+        private final CyclicBarrier measurementStart;
+
+        // The snapshot taken the last time each section was built, which is kept with the section by the renderer
+        private final SectionModelData[] previousModelData;
+
+        private final RandomSource random = new SingleThreadedRandomSource(42L);
+        private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        // Counts the quads which were found, so that the lookups can't be removed as dead code
+        private long quadCount;
+
+        private final ChunkVertexEncoder encoder = ChunkMeshFormats.COMPACT.getEncoder();
+        private final TranslucentQuadAnalyzer analyzer = new TranslucentQuadAnalyzer();
+        private final ChunkVertexWelder welder = new ChunkVertexWelder();
+
+        private final long[] bytes = new long[Stage.values().length];
+        private long sections;
+
+        private Throwable failure;
+
+        // The cost of reading the allocation counter, which is subtracted from every measurement
+        private long counterOverhead;
+
+        private Worker(List<Section> corpus, Reference2ReferenceMap<BlockState, BakedModel> models, CyclicBarrier measurementStart) {
+            this.corpus = corpus;
+            this.models = models;
+            this.measurementStart = measurementStart;
+            this.previousModelData = new SectionModelData[corpus.size()];
+        }
+
+        @Override
+        public void run() {
+            int maxVertices = 4;
+
+            for (var section : this.corpus) {
+                maxVertices = Math.max(maxVertices, section.mesh().getVertexCount());
+            }
+
+            long vertices = MemoryUtil.nmemAlloc((long) maxVertices * STRIDE);
+            long welded = MemoryUtil.nmemAlloc((long) maxVertices * STRIDE);
+            long indices = MemoryUtil.nmemAlloc(Math.max(ChunkVertexWelder.getIndexBufferSize(maxVertices), ChunkBufferSorter.getIndexBufferSize(maxVertices / 4)));
+            long compressed = MemoryUtil.nmemAlloc(ChunkMeshCompressor.getMaxCompressedLength(maxVertices * STRIDE));
+
+            try {
+                this.counterOverhead = measureCounterOverhead();
+
+                for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+                    this.runPass(vertices, welded, indices, compressed, null);
+                }
+
+                this.measurementStart.await();
+
+                for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+                    this.runPass(vertices, welded, indices, compressed, this.bytes);
+                }
+            } catch (Throwable t) {
+                this.failure = t;
+
+                // Release the other workers if they are still waiting for this one to finish its warmup
+                this.measurementStart.reset();
+            } finally {
+                MemoryUtil.nmemFree(vertices);
+                MemoryUtil.nmemFree(welded);
+                MemoryUtil.nmemFree(indices);
+                MemoryUtil.nmemFree(compressed);
+            }
+        }
+
+        private void runPass(long vertices, long welded, long indices, long compressed, long[] bytes) {
+            for (int i = 0; i < this.corpus.size(); i++) {
+                var section = this.corpus.get(i);
+                var mesh = section.mesh();
+
+                long start = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                this.previousModelData[i] = this.findModels(section, this.previousModelData[i]);
+
+                long afterModel = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                long ptr = SyntheticWorld.Mesh.encode(mesh.solidQuads(), this.encoder, MATERIAL, vertices);
+
+                for (var quad : mesh.translucentQuads()) {
+                    for (var vertex : quad) {
+                        ptr = this.encoder.write(ptr, MATERIAL, vertex, 0);
+                        this.analyzer.capture(vertex);
+                    }
+                }
+
+                long afterEncode = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                var sortState = this.analyzer.getSortState();
+
+                long afterSortState = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                // Empty meshes are never welded or compressed by the renderer either
+                if (!mesh.solidQuads().isEmpty()) {
+                    this.welder.weld(vertices, mesh.solidQuads().size() * 4, STRIDE, welded, indices);
+                }
+
+                long afterWeld = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                if (mesh.getVertexCount() > 0) {
+                    ChunkMeshCompressor.encode(vertices, mesh.getVertexCount() * STRIDE, STRIDE, compressed);
+                }
+
+                long afterCompress = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                for (var camera : CAMERA_POSITIONS) {
+                    ChunkBufferSorter.sort(indices, sortState, camera[0], camera[1], camera[2]);
+                }
+
+                long afterSort = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                if (bytes != null) {
+                    this.add(bytes, Stage.MODEL, afterModel - start);
+                    this.add(bytes, Stage.ENCODE, afterEncode - afterModel);
+                    this.add(bytes, Stage.SORT_STATE, afterSortState - afterEncode);
+                    this.add(bytes, Stage.WELD, afterWeld - afterSortState);
+                    this.add(bytes, Stage.COMPRESS, afterCompress - afterWeld);
+                    this.add(bytes, Stage.SORT, afterSort - afterCompress);
+
+                    this.sections++;
+                }
+            }
+        }
+
+        private SectionModelData findModels(Section section, SectionModelData previous) {
+            var modelData = ModelDataSnapshotter.snapshot(section.modelData(), SyntheticLevel.ORIGIN, previous);
+            var level = section.level();
+
+            for (int y = 0; y < SyntheticWorld.SIZE; y++) {
+                for (int z = 0; z < SyntheticWorld.SIZE; z++) {
+                    for (int x = 0; x < SyntheticWorld.SIZE; x++) {
+                        var state = level.getBlockState(x, y, z);
+
+                        if (state.getRenderShape() != RenderShape.MODEL) {
+                            continue;
+                        }
+
+                        this.pos.set(x, y, z);
+
+                        var model = this.models.get(state);
+                        var data = model.getModelData(level, this.pos, state, modelData.get(this.pos));
+
+                        long seed = state.getSeed(this.pos);
+                        this.random.setSeed(seed);
+
+                        for (RenderType layer : model.getRenderTypes(state, this.random, data)) {
+                            for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                                this.random.setSeed(seed);
+                                this.quadCount += model.getQuads(state, face, this.random, data, layer).size();
+                            }
+
+                            this.random.setSeed(seed);
+                            this.quadCount += model.getQuads(state, null, this.random, data, layer).size();
+                        }
+                    }
+                }
+            }
+
+            return modelData;
+        }
+
+        private void add(long[] bytes, Stage stage, long allocated) {
+            bytes[stage.ordinal()] += Math.max(0, allocated - this.counterOverhead);
+        }
+
+        private static long measureCounterOverhead() {
+            long min = Long.MAX_VALUE;
+
+            for (int i = 0; i < 1000; i++) {
+                long start = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+                long end = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+
+                min = Math.min(min, end - start);
+            }
+
+            return min;
+        }
+    }
+
+    private record CallSite(String frame, String caller, String objectClass) { }
+
+    private static void writeCallSites(Path recordingPath, Path outputPath) throws IOException {
+        Map<CallSite, long[]> sites = new HashMap<>();
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingPath)) {
+            var thread = event.getThread("eventThread");
+
+            if (thread == null || thread.getJavaName() == null || !thread.getJavaName().startsWith(WORKER_THREAD_NAME)) {
+                continue;
+            }
+
+            var stackTrace = event.getStackTrace();
+
+            if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+                continue;
+            }
+
+            var frames = stackTrace.getFrames();
+            var objectClass = event.getClass("objectClass");
+
+            var site = new CallSite(describe(frames.get(0)), describe(findCaller(frames)), objectClass != null ? objectClass.getName() : "unknown");
+            var totals = sites.computeIfAbsent(site, k -> new long[2]);
+            totals[0]++;
+            totals[1] += event.getLong("weight");
+        }
+
+        var sorted = new ArrayList<>(sites.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+        try (var out = new PrintWriter(Files.newBufferedWriter(outputPath))) {
+            out.println("frame,caller,object_class,samples,weight_bytes");
+
+            for (var entry : sorted) {
+                var site = entry.getKey();
+                out.printf("\"%s\",\"%s\",%s,%d,%d%n", site.frame(), site.caller(), site.objectClass(), entry.getValue()[0], entry.getValue()[1]);
+            }
+        }
+
+        System.out.println("Top allocation sites on worker threads:");
+
+        for (var entry : sorted.subList(0, Math.min(10, sorted.size()))) {
+            var site = entry.getKey();
+            System.out.printf("  %10d bytes  %s (%s, via %s)%n", entry.getValue()[1], site.frame(), site.objectClass(), site.caller());
+        }
+
+        System.out.println("Wrote " + outputPath);
+    }
+
+    /**
+     * Finds the innermost frame of the mod's own code, since allocations inside collections and the JDK are more useful
+     * when they are attributed to whatever called them.
+     */
+    private static RecordedFrame findCaller(List<RecordedFrame> frames) {
+        for (var frame : frames) {
+            var type = frame.getMethod().getType().getName();
+
+            if (type.startsWith("org.embeddedt.embeddium.impl.") && !type.startsWith(AllocationProfiler.class.getName())) {
+                return frame;
+            }
+        }
+
+        return frames.get(0);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        var method = frame.getMethod();
+
+        return method.getType().getName() + "." + method.getName() + ":" + frame.getLineNumber();
+    }
+
+    private static void writeBaseline(Path path, Result result) throws IOException {
+        var properties = new Properties();
+
+        for (var stage : Stage.values()) {
+            properties.setProperty(stage.getKey(), Long.toString(Math.round(result.getBytesPerSection(stage))));
+        }
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "Bytes allocated per section by each stage of the chunk build pipeline");
+        }
+    }
+
+    private static boolean checkBaseline(Path path, Result result) throws IOException {
+        var properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+
+        boolean passed = true;
+
+        for (var stage : Stage.values()) {
+            var value = properties.getProperty(stage.getKey());
+
+            if (value == null) {
+                if (STAGES_WITHOUT_BASELINE.contains(stage)) {
+                    System.out.printf("Not checking %s, since the baseline has no entry for it yet%n", stage.getKey());
+                } else {
+                    System.err.printf("Baseline has no entry for %s, run with --update-baseline to add it%n", stage.getKey());
+                    passed = false;
+                }
+
+                continue;
+            }
+
+            long baseline = Long.parseLong(value.trim());
+            double limit = baseline * (1.0 + TOLERANCE) + TOLERANCE_BYTES;
+            double actual = result.getBytesPerSection(stage);
+
+            if (actual > limit) {
+                System.err.printf("%s allocates %.1f bytes/section, which is more than the baseline of %d bytes/section%n",
+                        stage.getKey(), actual, baseline);
+                passed = false;
+            }
+        }
+
+        return passed;
+    }
+}
@@ -0,0 +1,73 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import org.embeddedt.embeddium.impl.benchmark.SyntheticWorld;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.impl.CompactChunkVertex;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to compress and decompress the vertex data of a section. This lives in the same package
+ * as {@link ChunkMeshCompressor} so that it can use the pointer-based methods directly, since the public methods
+ * allocate buffers which depend on the options of the mod.
+ * <p>
+ * The vertices are encoded from the synthetic quads of {@link SyntheticWorld}, not from meshes captured from a real
+ * world, so the compression ratios and timings are only an estimate of what the chunk builder sees in game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkMeshCompressorBenchmark {
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.ZERO, true);
+    private static final int STRIDE = CompactChunkVertex.STRIDE;
+
+    @Param({ "TERRAIN", "CAVES", "WATER", "GLASS", "FOLIAGE" })
+    public SyntheticWorld.Scenario scenario;
+
+    private int length, compressedLength;
+
+    private long vertices, compressed, decompressed;
+
+    @Setup
+    public void setup() {
+        var mesh = SyntheticWorld.generate(this.scenario, 0L).createMesh();
+
+        this.length = mesh.getVertexCount() * STRIDE;
+
+        this.vertices = MemoryUtil.nmemAlloc(Math.max(8, this.length));
+        this.compressed = MemoryUtil.nmemAlloc(ChunkMeshCompressor.getMaxCompressedLength(this.length));
+        this.decompressed = MemoryUtil.nmemAlloc(Math.max(8, this.length));
+
+        var encoder = ChunkMeshFormats.COMPACT.getEncoder();
+        long ptr = SyntheticWorld.Mesh.encode(mesh.solidQuads(), encoder, MATERIAL, this.vertices);
+        SyntheticWorld.Mesh.encode(mesh.translucentQuads(), encoder, MATERIAL, ptr);
+
+        this.compressedLength = ChunkMeshCompressor.encode(this.vertices, this.length, STRIDE, this.compressed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MemoryUtil.nmemFree(this.vertices);
+        MemoryUtil.nmemFree(this.compressed);
+        MemoryUtil.nmemFree(this.decompressed);
+    }
+
+    @Benchmark
+    public int compress() {
+        return ChunkMeshCompressor.encode(this.vertices, this.length, STRIDE, this.compressed);
+    }
+
+    @Benchmark
+    public long decompress() {
+        ChunkMeshCompressor.decode(this.compressed, this.compressedLength, STRIDE, this.decompressed, this.length);
+
+        return MemoryUtil.memGetLong(this.decompressed);
+    }
+}
@@ -0,0 +1,96 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.pipeline;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Block;
+import org.embeddedt.embeddium.impl.benchmark.SyntheticLevel;
+import org.embeddedt.embeddium.impl.benchmark.SyntheticWorld;
+import org.embeddedt.embeddium.impl.util.DirectionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks every face of every block in a synthetic section for visibility, which the block renderer does before it
+ * writes the quads of each face. This compares {@link BlockOcclusionCache} with the vanilla check, using real block
+ * states and shapes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockOcclusionCacheBenchmark {
+    @Param({ "TERRAIN", "CAVES", "WATER", "GLASS", "FOLIAGE" })
+    public SyntheticWorld.Scenario scenario;
+
+    private SyntheticLevel level;
+
+    // The renderer keeps its cache between sections, so it is only created once
+    private final BlockOcclusionCache occlusionCache = new BlockOcclusionCache();
+
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    private final BlockPos.MutableBlockPos adjPos = new BlockPos.MutableBlockPos();
+
+    @Setup
+    public void setup() {
+        this.level = new SyntheticLevel(SyntheticWorld.generate(this.scenario, 1234L));
+    }
+
+    @Benchmark
+    public int cached() {
+        int visible = 0;
+
+        for (int y = 0; y < SyntheticWorld.SIZE; y++) {
+            for (int z = 0; z < SyntheticWorld.SIZE; z++) {
+                for (int x = 0; x < SyntheticWorld.SIZE; x++) {
+                    var state = this.level.getBlockState(x, y, z);
+
+                    if (state.isAir()) {
+                        continue;
+                    }
+
+                    this.pos.set(x, y, z);
+
+                    for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                        if (this.occlusionCache.shouldDrawSide(state, this.level, this.pos, face)) {
+                            visible++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return visible;
+    }
+
+    @Benchmark
+    public int vanilla() {
+        int visible = 0;
+
+        for (int y = 0; y < SyntheticWorld.SIZE; y++) {
+            for (int z = 0; z < SyntheticWorld.SIZE; z++) {
+                for (int x = 0; x < SyntheticWorld.SIZE; x++) {
+                    var state = this.level.getBlockState(x, y, z);
+
+                    if (state.isAir()) {
+                        continue;
+                    }
+
+                    this.pos.set(x, y, z);
+
+                    for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
+                        this.adjPos.setWithOffset(this.pos, face);
+
+                        if (Block.shouldRenderFace(state, this.level, this.pos, face, this.adjPos)) {
+                            visible++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return visible;
+    }
+}
@@ -0,0 +1,443 @@
+package org.embeddedt.embeddium.impl.render.chunk.trace;
+
+import it.unimi.dsi.fastutil.longs.*;
+import net.minecraft.core.SectionPos;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkRebuildScheduler;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuilder;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.lists.VisibleChunkCollector;
+import org.embeddedt.embeddium.impl.render.chunk.map.ChunkTracker;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.OcclusionCuller;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
+import org.embeddedt.embeddium.impl.render.viewport.Viewport;
+import org.embeddedt.embeddium.impl.render.viewport.frustum.Frustum;
+import org.embeddedt.embeddium.impl.render.viewport.frustum.SimpleFrustum;
+import org.embeddedt.embeddium.impl.util.task.CancellationToken;
+import org.joml.FrustumIntersection;
+import org.joml.Vector3d;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a {@link PipelineTrace} without the game, using the real chunk tracker, occlusion culler, visible section
+ * collector, and rebuild scheduler, with a simulated chunk builder in place of the worker threads. Build tasks take as
+ * long as they did during recording, and produce the same occlusion data, so only the order and timing of builds can
+ * differ. Render regions are created without any graphics resources, since only their render lists are used.
+ * <p>
+ * For every frame, the number of visible sections is written to {@code <trace>.frames.csv}, and for every section, the
+ * time from being loaded to being built for the first time is written to {@code <trace>.builds.csv}. Replaying the same
+ * trace before and after a change to the scheduler or culler gives two sets of curves which can be compared directly.
+ * <p>
+ * Sort tasks and the upload budget are not simulated, since they don't affect which sections are visible.
+ */
+public class PipelineTraceReplayer {
+    private static final long MIN_BUILD_NANOS = 100_000L;
+
+    private static final int REGION_X_SHIFT = Integer.numberOfTrailingZeros(RenderRegion.REGION_WIDTH);
+    private static final int REGION_Y_SHIFT = Integer.numberOfTrailingZeros(RenderRegion.REGION_HEIGHT);
+    private static final int REGION_Z_SHIFT = Integer.numberOfTrailingZeros(RenderRegion.REGION_LENGTH);
+
+    // Everything which can pass through the frustum when the recording has no frustum matrix
+    private static final Frustum INFINITE_FRUSTUM = (minX, minY, minZ, maxX, maxY, maxZ) -> true;
+
+    private final PipelineTrace.Header header;
+    private final int workerCount;
+
+    private final ChunkTracker tracker = new ChunkTracker();
+    private final Long2ReferenceMap<RenderSection> sections = new Long2ReferenceOpenHashMap<>();
+    private final Long2ReferenceMap<RenderRegion> regions = new Long2ReferenceOpenHashMap<>();
+    private final OcclusionCuller culler;
+
+    // What the recording says about the contents of each section
+    private final Long2BooleanMap emptySections = new Long2BooleanOpenHashMap();
+    private final Long2ObjectMap<ArrayDeque<PipelineTrace.SectionBuilt>> recordedBuilds = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<PipelineTrace.SectionBuilt> lastRecordedBuilds = new Long2ObjectOpenHashMap<>();
+    private final long defaultBuildNanos;
+
+    // The simulated chunk builder
+    private final ArrayDeque<Job> queuedJobs = new ArrayDeque<>();
+    private final List<Job> runningJobs = new ArrayList<>();
+    private final long[] workerFreeTime;
+
+    private final Long2LongMap loadTimes = new Long2LongOpenHashMap();
+
+    private final PrintWriter frameOutput;
+    private final PrintWriter buildOutput;
+
+    private long startTime = Long.MIN_VALUE;
+
+    private final LongArrayList buildLatencies = new LongArrayList();
+
+    // Set as the build cancellation token of a section while it is being built, like the jobs of the real builder
+    private static class Job implements CancellationToken {
+        final RenderSection section;
+        final long key;
+        final long submitTime, duration;
+
+        long endTime;
+        boolean cancelled;
+
+        Job(RenderSection section, long key, long submitTime, long duration) {
+            this.section = section;
+            this.key = key;
+            this.submitTime = submitTime;
+            this.duration = duration;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public void setCancelled() {
+            this.cancelled = true;
+        }
+    }
+
+    private PipelineTraceReplayer(PipelineTrace trace, int workerCount, PrintWriter frameOutput, PrintWriter buildOutput) {
+        this.header = trace.header();
+        this.workerCount = workerCount;
+        this.workerFreeTime = new long[workerCount];
+
+        this.culler = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.sections), this.header.minSection(), this.header.maxSection());
+
+        this.frameOutput = frameOutput;
+        this.buildOutput = buildOutput;
+
+        var durations = new LongArrayList();
+
+        for (var event : trace.events()) {
+            if (event instanceof PipelineTrace.SectionBuilt built) {
+                this.recordedBuilds.computeIfAbsent(SectionPos.asLong(built.x(), built.y(), built.z()), k -> new ArrayDeque<>())
+                        .add(built);
+
+                if (built.buildNanos() >= 0) {
+                    durations.add(built.buildNanos());
+                }
+            }
+        }
+
+        // Builds without a recorded duration (such as those which came from the mesh cache) take the median time
+        if (durations.isEmpty()) {
+            this.defaultBuildNanos = MIN_BUILD_NANOS;
+        } else {
+            durations.sort(null);
+            this.defaultBuildNanos = durations.getLong(durations.size() / 2);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PipelineTraceReplayer <trace> [worker count]");
+            System.exit(1);
+        }
+
+        var path = Path.of(args[0]);
+        var trace = PipelineTrace.read(path);
+
+        int workerCount = args.length > 1 ? Integer.parseInt(args[1]) : trace.header().workerCount();
+
+        var framesPath = path.resolveSibling(path.getFileName() + ".frames.csv");
+        var buildsPath = path.resolveSibling(path.getFileName() + ".builds.csv");
+
+        try (var frames = new PrintWriter(Files.newBufferedWriter(framesPath));
+             var builds = new PrintWriter(Files.newBufferedWriter(buildsPath))) {
+            var replayer = new PipelineTraceReplayer(trace, Math.max(1, workerCount), frames, builds);
+            replayer.run(trace.events());
+            replayer.printSummary();
+        }
+
+        System.out.println("Wrote " + framesPath + " and " + buildsPath);
+    }
+
+    private void run(List<PipelineTrace.Event> events) {
+        this.frameOutput.println("frame,time_ms,sections,recorded_visible,replayed_visible,queued_jobs,running_jobs");
+        this.buildOutput.println("x,y,z,load_ms,built_ms,latency_ms");
+
+        // Build results were already indexed up front, since a simulated build may finish earlier than it did during
+        // recording
+        for (var event : events) {
+            if (event instanceof PipelineTrace.ChunkStatus status) {
+                if (status.added()) {
+                    this.tracker.onChunkStatusAdded(status.x(), status.z(), status.flags());
+                } else {
+                    this.tracker.onChunkStatusRemoved(status.x(), status.z(), status.flags());
+                }
+            } else if (event instanceof PipelineTrace.SectionAdded added) {
+                this.emptySections.put(SectionPos.asLong(added.x(), added.y(), added.z()), added.empty());
+            } else if (event instanceof PipelineTrace.SectionDirty dirty) {
+                this.markDirty(dirty);
+            } else if (event instanceof PipelineTrace.Frame frame) {
+                this.runFrame(frame);
+            }
+        }
+    }
+
+    private void runFrame(PipelineTrace.Frame frame) {
+        if (this.startTime == Long.MIN_VALUE) {
+            this.startTime = frame.time();
+        }
+
+        long time = frame.time() - this.startTime;
+
+        // Same order as the renderer: load and unload chunks, upload finished builds, find the visible sections, and
+        // then schedule new builds
+        this.tracker.forEachEvent((x, z) -> this.onChunkAdded(x, z, time), this::onChunkRemoved);
+
+        this.runWorkers(time);
+
+        var visitor = new VisibleChunkCollector(frame.frame());
+        this.culler.findVisible(visitor, this.createViewport(frame), frame.searchDistance(), frame.useOcclusionCulling(), frame.frame());
+
+        this.submitJobs(visitor, time);
+
+        this.frameOutput.printf("%d,%.3f,%d,%d,%d,%d,%d%n", frame.frame(), time / 1_000_000.0, this.sections.size(),
+                frame.visibleSections(), getVisibleSectionCount(visitor), this.queuedJobs.size(), this.runningJobs.size());
+    }
+
+    // Counted in the same way as the renderer counts the visible sections which are recorded with each frame
+    private static int getVisibleSectionCount(VisibleChunkCollector visitor) {
+        int count = 0;
+        var iterator = visitor.createRenderLists().iterator();
+
+        while (iterator.hasNext()) {
+            count += iterator.next().getSectionsWithGeometryCount();
+        }
+
+        return count;
+    }
+
+    private Viewport createViewport(PipelineTrace.Frame frame) {
+        Frustum frustum = frame.matrix() != null ? new SimpleFrustum(new FrustumIntersection(frame.matrix())) : INFINITE_FRUSTUM;
+
+        return new Viewport(frustum, new Vector3d(frame.cameraX(), frame.cameraY(), frame.cameraZ()));
+    }
+
+    private void onChunkAdded(int x, int z, long time) {
+        for (int y = this.header.minSection(); y < this.header.maxSection(); y++) {
+            long key = SectionPos.asLong(x, y, z);
+
+            if (this.sections.containsKey(key)) {
+                continue;
+            }
+
+            var region = this.regions.computeIfAbsent(RenderRegion.key(x >> REGION_X_SHIFT, y >> REGION_Y_SHIFT, z >> REGION_Z_SHIFT),
+                    k -> new RenderRegion(x >> REGION_X_SHIFT, y >> REGION_Y_SHIFT, z >> REGION_Z_SHIFT, null));
+
+            var section = new RenderSection(region, x, y, z);
+            region.addSection(section);
+
+            this.sections.put(key, section);
+
+            // Sections which weren't loaded during recording are assumed to contain something
+            if (this.emptySections.getOrDefault(key, false)) {
+                section.setInfo(BuiltSectionInfo.EMPTY);
+            } else {
+                section.setPendingUpdate(ChunkUpdateType.INITIAL_BUILD);
+                this.loadTimes.put(key, time);
+            }
+
+            section.connectAdjacentNodes(this.sections);
+        }
+    }
+
+    private void onChunkRemoved(int x, int z) {
+        for (int y = this.header.minSection(); y < this.header.maxSection(); y++) {
+            long key = SectionPos.asLong(x, y, z);
+            var section = this.sections.remove(key);
+
+            if (section == null) {
+                continue;
+            }
+
+            var region = section.getRegion();
+            region.removeSection(section);
+
+            if (region.isEmpty()) {
+                this.regions.remove(RenderRegion.key(x >> REGION_X_SHIFT, y >> REGION_Y_SHIFT, z >> REGION_Z_SHIFT));
+            }
+
+            section.disconnectAdjacentNodes();
+            section.setInfo(null);
+            section.delete();
+
+            this.loadTimes.remove(key);
+        }
+    }
+
+    private void markDirty(PipelineTrace.SectionDirty dirty) {
+        var section = this.sections.get(SectionPos.asLong(dirty.x(), dirty.y(), dirty.z()));
+
+        if (section == null) {
+            return;
+        }
+
+        var type = ChunkUpdateType.getPromotionUpdateType(section.getPendingUpdate(),
+                dirty.important() ? ChunkUpdateType.IMPORTANT_REBUILD : ChunkUpdateType.REBUILD);
+
+        if (type != null) {
+            section.setPendingUpdate(type);
+        }
+    }
+
+    private void submitJobs(VisibleChunkCollector visitor, long time) {
+        var blocking = new ReplayJobSink(Integer.MAX_VALUE, time);
+        var deferredRebuilds = new ReplayJobSink(ChunkBuilder.getSchedulingBudget(this.workerCount, this.queuedJobs.size()), time);
+
+        // Sorts are not simulated
+        var deferredSorts = new ReplayJobSink(0, time);
+
+        ChunkRebuildScheduler.submitAll(visitor.getRebuildLists(), blocking, deferredRebuilds, deferredSorts, false);
+    }
+
+    private long getBuildDuration(long key) {
+        var builds = this.recordedBuilds.get(key);
+        var next = builds != null ? builds.peek() : null;
+
+        if (next == null || next.buildNanos() < 0) {
+            return this.defaultBuildNanos;
+        }
+
+        return Math.max(MIN_BUILD_NANOS, next.buildNanos());
+    }
+
+    /**
+     * Starts every queued job which a worker could have picked up by the given time, and finishes every job which
+     * would have completed by then.
+     */
+    private void runWorkers(long time) {
+        while (!this.queuedJobs.isEmpty()) {
+            int worker = 0;
+
+            for (int i = 1; i < this.workerFreeTime.length; i++) {
+                if (this.workerFreeTime[i] < this.workerFreeTime[worker]) {
+                    worker = i;
+                }
+            }
+
+            var job = this.queuedJobs.peek();
+            long start = Math.max(this.workerFreeTime[worker], job.submitTime);
+
+            if (start > time) {
+                break;
+            }
+
+            this.queuedJobs.remove();
+
+            job.endTime = start + job.duration;
+            this.workerFreeTime[worker] = job.endTime;
+
+            this.runningJobs.add(job);
+        }
+
+        this.runningJobs.sort((a, b) -> Long.compare(a.endTime, b.endTime));
+
+        var iterator = this.runningJobs.iterator();
+
+        while (iterator.hasNext()) {
+            var job = iterator.next();
+
+            if (job.endTime > time) {
+                break;
+            }
+
+            iterator.remove();
+            this.finishJob(job, time);
+        }
+    }
+
+    private void finishJob(Job job, long time) {
+        if (job.section.getBuildCancellationToken() == job) {
+            job.section.setBuildCancellationToken(null);
+        }
+
+        var builds = this.recordedBuilds.get(job.key);
+        var result = builds != null && !builds.isEmpty() ? builds.remove() : this.lastRecordedBuilds.get(job.key);
+
+        if (result != null) {
+            this.lastRecordedBuilds.put(job.key, result);
+        }
+
+        if (job.section.isDisposed()) {
+            return;
+        }
+
+        // Sections which were never built during recording are treated as empty
+        job.section.setInfo(result != null ? BuiltSectionInfo.createPlaceholder(result.flags(), result.visibilityData()) : BuiltSectionInfo.EMPTY);
+
+        if (this.loadTimes.containsKey(job.key)) {
+            long loadTime = this.loadTimes.remove(job.key);
+            var section = job.section;
+
+            this.buildLatencies.add(time - loadTime);
+            this.buildOutput.printf("%d,%d,%d,%.3f,%.3f,%.3f%n", section.getChunkX(), section.getChunkY(), section.getChunkZ(),
+                    loadTime / 1_000_000.0, time / 1_000_000.0, (time - loadTime) / 1_000_000.0);
+        }
+    }
+
+    private void printSummary() {
+        System.out.printf("Replayed with %d workers, %d sections were built for the first time%n", this.workerCount, this.buildLatencies.size());
+
+        if (!this.buildLatencies.isEmpty()) {
+            this.buildLatencies.sort(null);
+
+            System.out.printf("Time from load to first build: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    this.getLatencyPercentile(0.50), this.getLatencyPercentile(0.90), this.getLatencyPercentile(0.99),
+                    this.buildLatencies.getLong(this.buildLatencies.size() - 1) / 1_000_000.0);
+        }
+
+        System.out.printf("%d sections were never built%n", this.loadTimes.size());
+    }
+
+    private double getLatencyPercentile(double percentile) {
+        int index = (int) Math.ceil(percentile * this.buildLatencies.size()) - 1;
+
+        return this.buildLatencies.getLong(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    /**
+     * Queues a simulated job for each section which the scheduler hands out, up to a budget.
+     */
+    private class ReplayJobSink implements ChunkRebuildScheduler.JobSink {
+        private final int budget;
+        private final long time;
+
+        private int submitted;
+
+        ReplayJobSink(int budget, long time) {
+            this.budget = budget;
+            this.time = time;
+        }
+
+        @Override
+        public boolean canOffer() {
+            return this.submitted < this.budget;
+        }
+
+        @Override
+        public void submit(RenderSection section, ChunkUpdateType type) {
+            long key = section.getPosition().asLong();
+            var job = new Job(section, key, this.time, PipelineTraceReplayer.this.getBuildDuration(key));
+
+            if (type.isImportant()) {
+                PipelineTraceReplayer.this.queuedJobs.addFirst(job);
+            } else {
+                PipelineTraceReplayer.this.queuedJobs.addLast(job);
+            }
+
+            section.setBuildCancellationToken(job);
+            section.setPendingUpdate(null);
+
+            this.submitted++;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.embeddedt.embeddium.impl.render.immediate.gui;
+
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.TextureAtlas;
+import net.minecraft.resources.ResourceLocation;
+import org.embeddedt.embeddium.api.vertex.buffer.VertexBufferWriter;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatDescription;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatRegistry;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording and planning one frame of a large container screen, with 9x27 slots which each hold
+ * an item and a stack count. The auxiliary counters compare the number of draw calls after batching with the number
+ * vanilla makes, which is one for every element, since it flushes after each of them.
+ * <p>
+ * Everything goes through {@link GuiBatchRecorder}, the same way the game submits it: item quads are pushed in bulk
+ * through {@link VertexBufferWriter}, and glyphs are written one vertex at a time. No OpenGL context is available here,
+ * so the planned batches are discarded instead of being drawn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuiBatchingBenchmark {
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 27;
+    private static final int SLOT_SIZE = 18;
+
+    // Blocks have three visible faces in their inventory model
+    private static final int MAX_ITEM_QUADS = 3;
+
+    private static final int FULL_BRIGHT = 0x00F000F0;
+
+    private final RenderType itemCutout = RenderType.entityCutout(TextureAtlas.LOCATION_BLOCKS);
+    private final RenderType itemTranslucent = RenderType.entityTranslucentCull(TextureAtlas.LOCATION_BLOCKS);
+    private final RenderType text = RenderType.text(ResourceLocation.withDefaultNamespace("default/0"));
+
+    private final VertexFormatDescription itemFormat = VertexFormatRegistry.instance().get(DefaultVertexFormat.NEW_ENTITY);
+
+    private ByteBufferBuilder targetBuffer;
+    private GuiBatchRecorder recorder;
+
+    private long itemVertices;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class DrawCalls {
+        public long batched;
+        public long unbatched;
+    }
+
+    @Setup
+    public void setup() {
+        this.targetBuffer = new ByteBufferBuilder(256);
+
+        this.recorder = new GuiBatchRecorder();
+        this.recorder.begin(MultiBufferSource.immediate(this.targetBuffer));
+
+        this.itemVertices = MemoryUtil.nmemCalloc(MAX_ITEM_QUADS * 4, this.itemFormat.stride());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.recorder.destroy();
+        this.targetBuffer.close();
+
+        MemoryUtil.nmemFree(this.itemVertices);
+    }
+
+    @Benchmark
+    public int recordAndPlan(DrawCalls drawCalls) {
+        var recorder = this.recorder;
+
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                float x = 8 + (column * SLOT_SIZE);
+                float y = 18 + (row * SLOT_SIZE);
+                int slot = (row * COLUMNS) + column;
+
+                // A mix of flat items, a few of which are translucent, and blocks, which have three visible faces and
+                // are lit like 3D items
+                switch (slot % 5) {
+                    case 0, 1, 2 -> this.addItem(this.itemCutout, true, x, y, 1);
+                    case 3 -> this.addItem(this.itemTranslucent, true, x, y, 1);
+                    default -> this.addItem(this.itemCutout, false, x, y, 3);
+                }
+
+                // Stack counts are drawn as two glyphs in the corner of the slot
+                if (slot % 3 == 0) {
+                    this.addGlyph(x + 6, y + 9);
+                    this.addGlyph(x + 11, y + 9);
+                }
+            }
+        }
+
+        int batches = recorder.plan();
+
+        drawCalls.batched += batches;
+        drawCalls.unbatched += recorder.getCommandCount();
+
+        recorder.discard();
+
+        return batches;
+    }
+
+    private void addItem(RenderType renderType, boolean flatLighting, float x, float y, int quads) {
+        this.recorder.setFlatLighting(flatLighting);
+
+        int stride = this.itemFormat.stride();
+        long ptr = this.itemVertices;
+
+        for (int quad = 0; quad < quads; quad++) {
+            putPosition(ptr, x, y);
+            putPosition(ptr + stride, x, y + 16);
+            putPosition(ptr + (stride * 2L), x + 16, y + 16);
+            putPosition(ptr + (stride * 3L), x + 16, y);
+
+            ptr += stride * 4L;
+        }
+
+        var writer = VertexBufferWriter.of(this.recorder.getBuffer(renderType));
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            writer.push(stack, this.itemVertices, quads * 4, this.itemFormat);
+        }
+
+        this.recorder.setFlatLighting(false);
+    }
+
+    private void addGlyph(float x, float y) {
+        VertexConsumer consumer = this.recorder.getBuffer(this.text);
+
+        consumer.addVertex(x, y, 0.0f).setColor(-1).setUv(0.0f, 0.0f).setLight(FULL_BRIGHT);
+        consumer.addVertex(x, y + 7, 0.0f).setColor(-1).setUv(0.0f, 0.0625f).setLight(FULL_BRIGHT);
+        consumer.addVertex(x + 5, y + 7, 0.0f).setColor(-1).setUv(0.0625f, 0.0625f).setLight(FULL_BRIGHT);
+        consumer.addVertex(x + 5, y, 0.0f).setColor(-1).setUv(0.0625f, 0.0f).setLight(FULL_BRIGHT);
+    }
+
+    private static void putPosition(long ptr, float x, float y) {
+        // The position is the first attribute of the entity vertex format
+        MemoryUtil.memPutFloat(ptr, x);
+        MemoryUtil.memPutFloat(ptr + 4, y);
+        MemoryUtil.memPutFloat(ptr + 8, 0.0f);
+    }
+}
@@ -46,6 +46,9 @@ import org.embeddedt.embeddium.impl.gametest.content.client.InstrumentingModelWr
 import org.embeddedt.embeddium.impl.gametest.content.client.TestModel;
 import org.embeddedt.embeddium.impl.gametest.network.SyncS2CPacket;
 import org.embeddedt.embeddium.impl.gametest.tests.EmbeddiumGameTests;
+import org.embeddedt.embeddium.impl.gametest.tests.EmbeddiumPerformanceTests;
+import org.embeddedt.embeddium.impl.gametest.tests.FluidRendererTests;
+import org.embeddedt.embeddium.impl.gametest.util.PerformanceBaselines;
 import org.embeddedt.embeddium.impl.gametest.util.TestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +75,9 @@ public class TestRegistry {
     public static final ResourceLocation EMPTY_TEMPLATE = ResourceLocation.fromNamespaceAndPath(EmbeddiumConstants.MODID, "empty_structure");
     public static final String EMPTY_TEMPLATE_STR = EMPTY_TEMPLATE.toString();
 
+    public static final ResourceLocation PERF_TEMPLATE = ResourceLocation.fromNamespaceAndPath(EmbeddiumConstants.MODID, "perf_structure");
+    public static final String PERF_TEMPLATE_STR = PERF_TEMPLATE.toString();
+
     public static final boolean IS_AUTOMATED_TEST_RUN = Boolean.getBoolean("embeddium.runAutomatedTests");
 
     /**
@@ -109,13 +115,18 @@ public class TestRegistry {
 
     static class GameEvents {
         /**
-         * Inject the fake structure template used to allow creating gametests without dedicated structures.
+         * Inject the fake structure templates used to allow creating gametests without dedicated structures.
          */
         @SubscribeEvent
         public static void createEmptyTemplate(ServerAboutToStartEvent event) {
             var structureManager = event.getServer().getStructureManager();
-            StructureTemplate template = structureManager.getOrCreate(EMPTY_TEMPLATE);
-            ObfuscationReflectionHelper.setPrivateValue(StructureTemplate.class, template, new Vec3i(9, 9, 9), "size");
+            createEmptyTemplate(structureManager.getOrCreate(EMPTY_TEMPLATE), new Vec3i(9, 9, 9));
+            // Large enough for each stress structure to cover several sections
+            createEmptyTemplate(structureManager.getOrCreate(PERF_TEMPLATE), new Vec3i(32, 32, 32));
+        }
+
+        private static void createEmptyTemplate(StructureTemplate template, Vec3i size) {
+            ObfuscationReflectionHelper.setPrivateValue(StructureTemplate.class, template, size, "size");
             template.setAuthor("Embeddium");
         }
 
@@ -242,14 +253,23 @@ public class TestRegistry {
     public static void createGameTests(RegisterGameTestsEvent event) {
         Collection<TestFunction> functions = ObfuscationReflectionHelper.getPrivateValue(GameTestRegistry.class, null, "TEST_FUNCTIONS");
         Set<String> classNames = ObfuscationReflectionHelper.getPrivateValue(GameTestRegistry.class, null, "TEST_CLASS_NAMES");
-        classNames.add(EmbeddiumGameTests.class.getSimpleName());
-        for(Method m : EmbeddiumGameTests.class.getDeclaredMethods()) {
+        registerGameTests(functions, classNames, EmbeddiumGameTests.class, EMPTY_TEMPLATE_STR);
+        // Without baselines measured on the same machine, the performance tests have nothing to compare against
+        if(!IS_AUTOMATED_TEST_RUN || PerformanceBaselines.isAvailable()) {
+            registerGameTests(functions, classNames, EmbeddiumPerformanceTests.class, PERF_TEMPLATE_STR);
+        }
+        registerGameTests(functions, classNames, FluidRendererTests.class, PERF_TEMPLATE_STR);
+    }
+
+    private static void registerGameTests(Collection<TestFunction> functions, Set<String> classNames, Class<?> testClass, String template) {
+        classNames.add(testClass.getSimpleName());
+        for(Method m : testClass.getDeclaredMethods()) {
             GameTest gametest = m.getAnnotation(GameTest.class);
             if(gametest != null) {
                 functions.add(new TestFunction(
                     gametest.batch(),
                     m.getName(),
-                    EMPTY_TEMPLATE_STR,
+                    template,
                     Rotation.NONE,
                     gametest.timeoutTicks(),
                     gametest.setupTicks(),
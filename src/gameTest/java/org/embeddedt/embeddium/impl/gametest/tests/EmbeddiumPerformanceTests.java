@@ -0,0 +1,144 @@
+package org.embeddedt.embeddium.impl.gametest.tests;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.DyeColor;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import org.embeddedt.embeddium.impl.gametest.content.TestRegistry;
+import org.embeddedt.embeddium.impl.gametest.util.PerformanceBaselines;
+import org.embeddedt.embeddium.impl.gametest.util.PerformanceMeasurement;
+import org.embeddedt.embeddium.impl.gametest.util.TestUtils;
+
+/**
+ * Builds stress structures which each target one expensive part of the renderer, then measures how quickly they are
+ * built and rendered and compares that against the stored baselines. Every test is in its own batch, so that they
+ * never run at the same time as another test.
+ */
+public class EmbeddiumPerformanceTests {
+    private static final int SIZE = 32;
+    private static final int HEIGHT = 24;
+
+    // Above the middle of the structure, looking straight down at it
+    private static final BlockPos CAMERA_POS = new BlockPos(SIZE / 2, HEIGHT + 16, SIZE / 2);
+
+    private static final int TIMEOUT_TICKS = 1200;
+
+    /**
+     * Stacks of stained glass in alternating colors, so that no faces are culled between neighbors, and every section
+     * needs its translucent quads sorted.
+     */
+    @GameTest(batch = "embeddium_perf_translucent", timeoutTicks = TIMEOUT_TICKS)
+    public static void testPerfDenseTranslucentStacks(GameTestHelper helper) {
+        DyeColor[] colors = DyeColor.values();
+        Block[] glass = new Block[colors.length];
+
+        for (int i = 0; i < colors.length; i++) {
+            glass[i] = BuiltInRegistries.BLOCK.get(ResourceLocation.withDefaultNamespace(colors[i].getSerializedName() + "_stained_glass"));
+        }
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    // Leave gaps between the stacks so that their sides are visible
+                    if ((x % 4) == 3 || (z % 4) == 3) {
+                        continue;
+                    }
+
+                    helper.setBlock(x, y, z, glass[(x + y + z) % glass.length]);
+                }
+            }
+        }
+
+        measure(helper, "dense_translucent_stacks");
+    }
+
+    /**
+     * A grid of fences, walls, panes, and bars which connect to each other in many combinations, so that their
+     * multipart models select a different set of parts for most blocks.
+     */
+    @GameTest(batch = "embeddium_perf_multipart", timeoutTicks = TIMEOUT_TICKS)
+    public static void testPerfMultipartBlocks(GameTestHelper helper) {
+        Block[] blocks = { Blocks.OAK_FENCE, Blocks.COBBLESTONE_WALL, Blocks.GLASS_PANE, Blocks.IRON_BARS };
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    if (((x * 7) + (z * 3) + y) % 5 == 0) {
+                        continue;
+                    }
+
+                    helper.setBlock(x, y, z, blocks[(x + (z * 3) + y) % blocks.length]);
+                }
+            }
+        }
+
+        measure(helper, "multipart_blocks");
+    }
+
+    /**
+     * A large basin of water over an uneven floor, next to a smaller pool of lava, so that most fluid blocks have
+     * neighbors at different heights.
+     */
+    @GameTest(batch = "embeddium_perf_fluids", timeoutTicks = TIMEOUT_TICKS)
+    public static void testPerfLargeFluidArea(GameTestHelper helper) {
+        BlockState water = Blocks.WATER.defaultBlockState();
+        BlockState lava = Blocks.LAVA.defaultBlockState();
+
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                boolean wall = x == 0 || z == 0 || x == SIZE - 1 || z == SIZE - 1 || x == SIZE / 4;
+                int floor = 1 + (int) (4.0 * (2.0 + Math.sin(x * 0.4) + Math.cos(z * 0.3)));
+
+                for (int y = 0; y < HEIGHT; y++) {
+                    if (wall || y < floor) {
+                        helper.setBlock(x, y, z, Blocks.STONE);
+                    } else if (y < HEIGHT - 2) {
+                        helper.setBlock(x, y, z, x < SIZE / 4 ? lava : water);
+                    }
+                }
+            }
+        }
+
+        measure(helper, "large_fluid_area");
+    }
+
+    /**
+     * A lattice of chests and blocks whose models depend on their block entity, which both have to be collected while
+     * the sections are built.
+     */
+    @GameTest(batch = "embeddium_perf_block_entities", timeoutTicks = TIMEOUT_TICKS)
+    public static void testPerfManyBlockEntities(GameTestHelper helper) {
+        BlockState testBlock = TestRegistry.TEST_BLOCK.get().defaultBlockState();
+        BlockState chest = Blocks.CHEST.defaultBlockState();
+
+        // Spaced out so that chests never join into double chests
+        for (int y = 0; y < HEIGHT; y += 2) {
+            for (int x = 0; x < SIZE; x += 2) {
+                for (int z = 0; z < SIZE; z += 2) {
+                    helper.setBlock(x, y, z, ((x + y + z) / 2) % 2 == 0 ? chest : testBlock);
+                }
+            }
+        }
+
+        measure(helper, "many_block_entities");
+    }
+
+    private static void measure(GameTestHelper helper, String name) {
+        TestUtils.clientBarrier();
+        TestUtils.movePlayerToPosition(helper, CAMERA_POS);
+
+        var result = PerformanceMeasurement.measure(TestUtils.getTestBounds(helper));
+        var failures = PerformanceBaselines.check(name, result);
+
+        if (!failures.isEmpty()) {
+            helper.fail(String.join("; ", failures));
+        }
+
+        helper.succeed();
+    }
+}
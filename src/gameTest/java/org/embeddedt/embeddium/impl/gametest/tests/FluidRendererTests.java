@@ -0,0 +1,162 @@
+package org.embeddedt.embeddium.impl.gametest.tests;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.client.Minecraft;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LiquidBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import org.embeddedt.embeddium.impl.gametest.util.FluidMeshing;
+import org.embeddedt.embeddium.impl.gametest.util.PerformanceBaselines;
+import org.embeddedt.embeddium.impl.gametest.util.TestUtils;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Meshes fixed areas of fluids with and without the fluid height cache, to check that the cache never changes the
+ * output of the fluid renderer, and to measure how much faster it makes large bodies of water.
+ */
+public class FluidRendererTests {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int SIZE = 32;
+    private static final int HEIGHT = 24;
+
+    private static final int TIMEOUT_TICKS = 1200;
+
+    private static final int WARMUP_PASSES = 20;
+    private static final int MEASURED_PASSES = 10;
+    private static final int ROUNDS = 5;
+
+    /**
+     * A basin over an uneven floor, with water and lava at every level and some of it falling, so that most fluid
+     * blocks have neighbors at different heights, including the neighbors outside the sections being built.
+     */
+    @GameTest(batch = "embeddium_fluid_height_cache", timeoutTicks = TIMEOUT_TICKS)
+    public static void testFluidHeightCacheMatchesUncached(GameTestHelper helper) {
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                boolean wall = x == 0 || z == 0 || x == SIZE - 1 || z == SIZE - 1;
+                int floor = 1 + (int) (4.0 * (2.0 + Math.sin(x * 0.4) + Math.cos(z * 0.3)));
+
+                for (int y = 0; y < HEIGHT; y++) {
+                    if (wall || y < floor) {
+                        helper.setBlock(x, y, z, Blocks.STONE);
+                    } else if (y < HEIGHT - 2) {
+                        helper.setBlock(x, y, z, getFluid(x, y, z, x < SIZE / 4 ? Blocks.LAVA : Blocks.WATER));
+                    }
+                }
+            }
+        }
+
+        TestUtils.clientBarrier();
+
+        var bounds = TestUtils.getTestBounds(helper);
+
+        // Both meshes are built from the same copy of the world, so that flowing fluids can't change in between
+        String mismatch = Minecraft.getInstance().submit(() -> {
+            var meshing = new FluidMeshing(bounds);
+
+            try {
+                var cached = meshing.mesh(true);
+                var uncached = meshing.mesh(false);
+
+                if (uncached.isEmpty()) {
+                    return "No fluids were meshed";
+                }
+
+                if (!cached.keySet().equals(uncached.keySet())) {
+                    return "Meshed %s with the cache, but %s without it".formatted(cached.keySet(), uncached.keySet());
+                }
+
+                for (var entry : uncached.entrySet()) {
+                    if (!Arrays.equals(cached.get(entry.getKey()), entry.getValue())) {
+                        return "Vertex data of " + entry.getKey() + " differs with the cache";
+                    }
+                }
+
+                return null;
+            } finally {
+                meshing.cleanup();
+            }
+        }).join();
+
+        if (mismatch != null) {
+            helper.fail(mismatch);
+        }
+
+        helper.succeed();
+    }
+
+    private static BlockState getFluid(int x, int y, int z, Block block) {
+        int hash = (x * 31) + (y * 17) + (z * 7);
+
+        // Mostly sources, with flowing fluid of every level and some falling fluid mixed in
+        int level = hash % 3 == 0 ? 0 : hash % 11 == 0 ? 8 : (hash % 7) + 1;
+
+        return block.defaultBlockState().setValue(LiquidBlock.LEVEL, level);
+    }
+
+    /**
+     * An ocean of still water over a flat floor, which is the case the height cache is meant for, since every height is
+     * read by the block itself and its eight neighbors. The fluids are meshed alternately with and without the cache,
+     * and the fastest round of each is recorded. Timings on shared test machines are too noisy to fail on, so this only
+     * reports them.
+     */
+    @GameTest(batch = "embeddium_perf_fluid_height_cache", timeoutTicks = TIMEOUT_TICKS)
+    public static void testPerfOceanFluidHeightCache(GameTestHelper helper) {
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                helper.setBlock(x, 0, z, Blocks.STONE);
+
+                for (int y = 1; y < HEIGHT - 2; y++) {
+                    helper.setBlock(x, y, z, Blocks.WATER);
+                }
+            }
+        }
+
+        TestUtils.clientBarrier();
+
+        var bounds = TestUtils.getTestBounds(helper);
+
+        long[] nanos = Minecraft.getInstance().submit(() -> {
+            var meshing = new FluidMeshing(bounds);
+
+            try {
+                meshing.time(true, WARMUP_PASSES);
+                meshing.time(false, WARMUP_PASSES);
+
+                long cached = Long.MAX_VALUE;
+                long uncached = Long.MAX_VALUE;
+
+                for (int round = 0; round < ROUNDS; round++) {
+                    cached = Math.min(cached, meshing.time(true, MEASURED_PASSES));
+                    uncached = Math.min(uncached, meshing.time(false, MEASURED_PASSES));
+                }
+
+                return new long[] { cached, uncached, meshing.getSectionCount() };
+            } finally {
+                meshing.cleanup();
+            }
+        }).join();
+
+        double cachedMillis = nanos[0] / 1_000_000.0;
+        double uncachedMillis = nanos[1] / 1_000_000.0;
+
+        LOGGER.info("Meshed the fluids of {} ocean sections in {} ms with the fluid height cache, and {} ms without it",
+                nanos[2], format(cachedMillis), format(uncachedMillis));
+
+        PerformanceBaselines.record("ocean_fluid_height_cache", "cached_ms", cachedMillis);
+        PerformanceBaselines.record("ocean_fluid_height_cache", "uncached_ms", uncachedMillis);
+
+        helper.succeed();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,156 @@
+package org.embeddedt.embeddium.impl.gametest.util;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.phys.AABB;
+import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
+import org.embeddedt.embeddium.impl.world.WorldSlice;
+import org.embeddedt.embeddium.impl.world.cloned.ChunkRenderContext;
+import org.embeddedt.embeddium.impl.world.cloned.ClonedChunkSectionCache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Meshes only the fluids in an area of the client world, the same way the meshing task does, so that the output and
+ * speed of the fluid renderer can be compared with and without its height cache. Everything here has to run on the
+ * client thread.
+ */
+public class FluidMeshing {
+    private final ChunkBuildContext context;
+    private final List<ChunkRenderContext> sections = new ArrayList<>();
+
+    private final BlockPos.MutableBlockPos blockPos = new BlockPos.MutableBlockPos();
+    private final BlockPos.MutableBlockPos modelOffset = new BlockPos.MutableBlockPos();
+
+    /**
+     * Copies every section which overlaps the given area from the client world. Later changes to the world are not
+     * seen, so each mesh is built from the same blocks.
+     */
+    public FluidMeshing(AABB bounds) {
+        var level = Minecraft.getInstance().level;
+
+        this.context = new ChunkBuildContext(level, ChunkMeshFormats.COMPACT);
+
+        var sectionCache = new ClonedChunkSectionCache(level);
+
+        for (int x = SectionPos.posToSectionCoord(bounds.minX); x <= SectionPos.posToSectionCoord(bounds.maxX); x++) {
+            for (int y = SectionPos.posToSectionCoord(bounds.minY); y <= SectionPos.posToSectionCoord(bounds.maxY); y++) {
+                for (int z = SectionPos.posToSectionCoord(bounds.minZ); z <= SectionPos.posToSectionCoord(bounds.maxZ); z++) {
+                    var renderContext = WorldSlice.prepare(level, SectionPos.of(x, y, z), sectionCache);
+
+                    // Empty sections have nothing to mesh
+                    if (renderContext != null) {
+                        this.sections.add(renderContext);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Meshes the fluids of every section, and returns the vertex data of each one for each render pass and facing, in
+     * the order they were built.
+     */
+    public Map<String, byte[]> mesh(boolean useHeightCache) {
+        var output = new LinkedHashMap<String, byte[]>();
+
+        for (var section : this.sections) {
+            this.renderFluids(section, useHeightCache);
+
+            for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+                for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                    var buffer = this.context.buffers.get(pass).getVertexBuffer(facing);
+
+                    if (buffer.isEmpty()) {
+                        continue;
+                    }
+
+                    var data = buffer.slice();
+                    var bytes = new byte[data.remaining()];
+                    data.get(bytes);
+
+                    output.put(section.getOrigin() + " " + pass + " " + facing, bytes);
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Meshes the fluids of every section the given number of times, and measures the time spent in the fluid renderer.
+     * Copying the blocks of each section into the world slice isn't included.
+     *
+     * @return The time taken to mesh the fluids of every section once, in nanoseconds
+     */
+    public long time(boolean useHeightCache, int passes) {
+        long total = 0;
+
+        for (int pass = 0; pass < passes; pass++) {
+            for (var section : this.sections) {
+                total += this.renderFluids(section, useHeightCache);
+            }
+        }
+
+        return total / passes;
+    }
+
+    public int getSectionCount() {
+        return this.sections.size();
+    }
+
+    public void cleanup() {
+        this.context.cleanup();
+    }
+
+    /**
+     * @return The time spent rendering the fluids, in nanoseconds
+     */
+    private long renderFluids(ChunkRenderContext renderContext, boolean useHeightCache) {
+        var cache = this.context.cache;
+        var buffers = this.context.buffers;
+
+        buffers.init(new BuiltSectionInfo.Builder(), 0);
+        cache.init(renderContext);
+
+        var fluidRenderer = cache.getFluidRenderer();
+        fluidRenderer.setHeightCacheEnabled(useHeightCache);
+
+        WorldSlice slice = cache.getWorldSlice();
+        SectionPos origin = renderContext.getOrigin();
+
+        long start = System.nanoTime();
+
+        try {
+            for (int y = origin.minBlockY(); y <= origin.maxBlockY(); y++) {
+                for (int z = origin.minBlockZ(); z <= origin.maxBlockZ(); z++) {
+                    for (int x = origin.minBlockX(); x <= origin.maxBlockX(); x++) {
+                        var fluidState = slice.getBlockState(x, y, z).getFluidState();
+
+                        if (fluidState.isEmpty()) {
+                            continue;
+                        }
+
+                        this.blockPos.set(x, y, z);
+                        this.modelOffset.set(x & 15, y & 15, z & 15);
+
+                        fluidRenderer.render(slice, fluidState, this.blockPos, this.modelOffset, buffers);
+                    }
+                }
+            }
+
+            return System.nanoTime() - start;
+        } finally {
+            fluidRenderer.setHeightCacheEnabled(true);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.embeddedt.embeddium.impl.gametest.util;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.client.Minecraft;
+import org.embeddedt.embeddium.impl.gametest.content.TestRegistry;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Compares the results of performance tests against the baselines stored in {@code embeddium-perf-baselines.properties}.
+ * <p>
+ * Every result is also written to {@code embeddium/perf/results.properties} in the game directory, in the same format,
+ * so that the baselines can be updated by copying that file over them after an intended change. The baselines are
+ * wall-clock timings, so they only hold on the machine which produced them. Automated runs leave the performance tests
+ * out entirely until a baseline file exists, which has to be taken from the results of a run on the CI machine. Once it
+ * does, results without a baseline fail the test during automated runs, so that an incomplete file can't make the
+ * checks pass without comparing anything.
+ */
+public class PerformanceBaselines {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final String BASELINE_RESOURCE = "/embeddium-perf-baselines.properties";
+
+    // Timings vary a lot between runs on shared machines, so only large regressions are reported
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("embeddium.perfTolerance", "0.25"));
+
+    private static final Properties BASELINES = loadBaselines();
+
+    private static Properties loadBaselines() {
+        var properties = new Properties();
+
+        try (InputStream stream = PerformanceBaselines.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            if (stream != null) {
+                properties.load(stream);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load performance baselines", e);
+        }
+
+        return properties;
+    }
+
+    /**
+     * @return Whether a baseline file is available to compare the results of the performance tests against
+     */
+    public static boolean isAvailable() {
+        return !BASELINES.isEmpty();
+    }
+
+    /**
+     * Records the result of a test, and checks it against the baselines.
+     *
+     * @return A description of every metric which regressed beyond the tolerance, or an empty list if none did
+     */
+    public static List<String> check(String testName, PerformanceMeasurement.Result result) {
+        LOGGER.info("Performance of {}: {} sections built at {} sections/s, first render in {} ms, frame time p50 {} ms, p95 {} ms",
+                testName, result.sectionsBuilt(), format(result.sectionsPerSecond()), format(result.firstRenderMillis()),
+                format(result.frameMillisP50()), format(result.frameMillisP95()));
+
+        var values = new Properties();
+        values.setProperty(testName + ".sections_per_second", format(result.sectionsPerSecond()));
+        values.setProperty(testName + ".first_render_ms", format(result.firstRenderMillis()));
+        values.setProperty(testName + ".frame_p50_ms", format(result.frameMillisP50()));
+        values.setProperty(testName + ".frame_p95_ms", format(result.frameMillisP95()));
+
+        recordResults(values);
+
+        var failures = new ArrayList<String>();
+
+        checkMinimum(failures, testName + ".sections_per_second", result.sectionsPerSecond());
+        checkMaximum(failures, testName + ".first_render_ms", result.firstRenderMillis());
+        checkMaximum(failures, testName + ".frame_p50_ms", result.frameMillisP50());
+        checkMaximum(failures, testName + ".frame_p95_ms", result.frameMillisP95());
+
+        return failures;
+    }
+
+    /**
+     * Records a measurement which isn't compared against a baseline, such as one half of a comparison which the test
+     * checks by itself.
+     */
+    public static void record(String testName, String metric, double value) {
+        LOGGER.info("Performance of {}: {} is {}", testName, metric, format(value));
+
+        var values = new Properties();
+        values.setProperty(testName + "." + metric, format(value));
+
+        recordResults(values);
+    }
+
+    private static void checkMinimum(List<String> failures, String key, double value) {
+        var baseline = getBaseline(failures, key);
+
+        if (baseline != null && value < Double.parseDouble(baseline) * (1.0 - TOLERANCE)) {
+            failures.add("%s is %s, below the baseline of %s".formatted(key, format(value), baseline));
+        }
+    }
+
+    private static void checkMaximum(List<String> failures, String key, double value) {
+        var baseline = getBaseline(failures, key);
+
+        if (baseline != null && value > Double.parseDouble(baseline) * (1.0 + TOLERANCE)) {
+            failures.add("%s is %s, above the baseline of %s".formatted(key, format(value), baseline));
+        }
+    }
+
+    private static String getBaseline(List<String> failures, String key) {
+        var baseline = BASELINES.getProperty(key);
+
+        if (baseline == null && TestRegistry.IS_AUTOMATED_TEST_RUN) {
+            failures.add("%s has no baseline in %s".formatted(key, BASELINE_RESOURCE.substring(1)));
+        }
+
+        return baseline;
+    }
+
+    private static synchronized void recordResults(Properties values) {
+        Path path = Minecraft.getInstance().gameDirectory.toPath().resolve("embeddium").resolve("perf").resolve("results.properties");
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            var results = new Properties();
+
+            if (Files.exists(path)) {
+                try (Reader reader = Files.newBufferedReader(path)) {
+                    results.load(reader);
+                }
+            }
+
+            results.putAll(values);
+
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                results.store(writer, "Results of the Embeddium performance tests");
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to record performance results", e);
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,112 @@
+package org.embeddedt.embeddium.impl.gametest.util;
+
+import net.minecraft.client.DeltaTracker;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.phys.AABB;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.render.EmbeddiumWorldRenderer;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
+
+import java.util.Arrays;
+
+/**
+ * Measures how quickly the renderer handles the area of a test, from the client side.
+ */
+public class PerformanceMeasurement {
+    private static final int WARMUP_FRAMES = 30;
+    private static final int MEASURED_FRAMES = 120;
+
+    private static final long FIRST_RENDER_TIMEOUT_NANOS = 60_000_000_000L;
+
+    /**
+     * @param sectionsBuilt The number of sections which were built while rendering the area for the first time
+     * @param sectionsPerSecond The rate at which sections were built while rendering the area for the first time
+     * @param firstRenderMillis The time from the renderer being reloaded until every section in the area was built
+     * @param frameMillisP50 The median time which the client thread spent rendering each frame
+     * @param frameMillisP95 The 95th percentile of the time which the client thread spent rendering each frame
+     */
+    public record Result(long sectionsBuilt, double sectionsPerSecond, double firstRenderMillis, double frameMillisP50, double frameMillisP95) { }
+
+    /**
+     * Reloads the renderer and waits for the given area to be built, then renders a fixed number of frames from the
+     * current camera position. The client should already be looking at the area.
+     */
+    public static Result measure(AABB bounds) {
+        var mc = Minecraft.getInstance();
+        var builtSections = MetricsRegistry.GLOBAL.counter("render_section_manager.sections_built");
+
+        long[] start = mc.submit(() -> {
+            // Reloading the renderer throws away every mesh, so that all sections are built again from scratch
+            mc.levelRenderer.allChanged();
+            MetricsRegistry.GLOBAL.setEnabled(true);
+            return new long[] { System.nanoTime(), builtSections.getTotal() };
+        }).join();
+
+        long end;
+
+        try {
+            end = waitForFirstRender(bounds, start[0]);
+        } finally {
+            mc.submit(() -> MetricsRegistry.GLOBAL.setEnabled(Embeddium.options().advanced.enableMetricsOverlay)).join();
+        }
+
+        long sectionsBuilt = builtSections.getTotal() - start[1];
+        double firstRenderSeconds = (end - start[0]) / 1_000_000_000.0;
+
+        double[] frameMillis = mc.submit(() -> {
+            var times = new double[MEASURED_FRAMES];
+
+            mc.getMainRenderTarget().bindWrite(true);
+
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                mc.gameRenderer.render(DeltaTracker.ONE, true);
+            }
+
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                long frameStart = System.nanoTime();
+                mc.gameRenderer.render(DeltaTracker.ONE, true);
+                times[i] = (System.nanoTime() - frameStart) / 1_000_000.0;
+            }
+
+            mc.getMainRenderTarget().unbindWrite();
+
+            return times;
+        }).join();
+
+        Arrays.sort(frameMillis);
+
+        return new Result(sectionsBuilt, sectionsBuilt / firstRenderSeconds, firstRenderSeconds * 1000.0,
+                getPercentile(frameMillis, 0.50), getPercentile(frameMillis, 0.95));
+    }
+
+    /**
+     * Polls the client until every section in the area has been built and nothing is left in the build queue. This
+     * polls much more often than {@link TestUtils#waitForConditionMetOnClient}, since the time is being measured.
+     *
+     * @return The time at which the area was found to be complete
+     */
+    private static long waitForFirstRender(AABB bounds, long startTime) {
+        var mc = Minecraft.getInstance();
+
+        while (true) {
+            boolean complete = mc.submit(() -> TestUtils.isAABBLoaded(bounds) && EmbeddiumWorldRenderer.instance().isTerrainRenderComplete()).join();
+            long now = System.nanoTime();
+
+            if (complete) {
+                return now;
+            }
+
+            if (now - startTime > FIRST_RENDER_TIMEOUT_NANOS) {
+                throw new RuntimeException("Test area was not rendered within " + (FIRST_RENDER_TIMEOUT_NANOS / 1_000_000_000L) + " seconds");
+            }
+
+            TestUtils.sleepForMillis(5);
+        }
+    }
+
+    private static double getPercentile(double[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
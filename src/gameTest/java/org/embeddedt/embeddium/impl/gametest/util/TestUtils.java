@@ -51,6 +51,10 @@ public class TestUtils {
     }
 
     public static void waitForConditionMetOnClient(BooleanSupplier condition) {
+        waitForConditionMetOnClient(condition, 10);
+    }
+
+    public static void waitForConditionMetOnClient(BooleanSupplier condition, long timeoutSeconds) {
         var future = CompletableFuture.runAsync(() -> {
             while(!condition.getAsBoolean()) {
                 sleepForMillis(100);
@@ -58,7 +62,7 @@ public class TestUtils {
         }, WAITING_EXECUTOR);
 
         try {
-            future.get(10, TimeUnit.SECONDS);
+            future.get(timeoutSeconds, TimeUnit.SECONDS);
         } catch(TimeoutException | InterruptedException | ExecutionException e) {
             throw new RuntimeException("Client did not meet condition quickly enough", e);
         }
@@ -181,13 +185,16 @@ public class TestUtils {
         return true;
     }
 
-    public static void waitForTestAreaToLoad(GameTestHelper helper) {
-        AABB bounds;
+    public static AABB getTestBounds(GameTestHelper helper) {
         try {
-            bounds = (AABB)getBoundsMethod.invoke(helper);
+            return (AABB)getBoundsMethod.invoke(helper);
         } catch (IllegalAccessException | InvocationTargetException e) {
             throw new RuntimeException(e);
         }
+    }
+
+    public static void waitForTestAreaToLoad(GameTestHelper helper) {
+        AABB bounds = getTestBounds(helper);
 
         waitForConditionMetOnClient(() -> isAABBLoaded(bounds));
     }
@@ -53,6 +53,7 @@ public final class StandardOptions {
         public static final ResourceLocation DEFFER_CHUNK_UPDATES = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "defer_chunk_updates");
         public static final ResourceLocation BLOCK_FACE_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "block_face_culling");
         public static final ResourceLocation COMPACT_VERTEX_FORMAT = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "compact_vertex_format");
+        public static final ResourceLocation DENSE_VERTEX_FORMAT = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "dense_vertex_format");
         public static final ResourceLocation FOG_OCCLUSION = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "fog_occlusion");
         public static final ResourceLocation ENTITY_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "entity_culling");
         public static final ResourceLocation ANIMATE_VISIBLE_TEXTURES = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "animate_only_visible_textures");
@@ -7,6 +7,7 @@ import org.embeddedt.embeddium.impl.data.fingerprint.FingerprintMeasure;
 import org.embeddedt.embeddium.impl.data.fingerprint.HashedFingerprint;
 import org.embeddedt.embeddium.impl.gui.EmbeddiumOptions;
 import org.embeddedt.embeddium.impl.render.ShaderModBridge;
+import org.embeddedt.embeddium.impl.render.vertex.serializers.VertexSerializerWarmup;
 import org.embeddedt.embeddium.impl.sodium.FlawlessFrames;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +40,8 @@ public class Embeddium {
 
     public void onClientSetup(final FMLClientSetupEvent event) {
         FlawlessFrames.onClientInitialization();
+
+        VertexSerializerWarmup.start();
     }
 
     public static EmbeddiumOptions options() {
@@ -122,6 +125,14 @@ public class Embeddium {
         return !Embeddium.options().performance.useCompactVertexFormat && !ShaderModBridge.areShadersEnabled();
     }
 
+    public static boolean canUseDenseVertices() {
+        return Embeddium.options().advanced.useDenseVertexFormat && Embeddium.options().performance.useCompactVertexFormat && !ShaderModBridge.areShadersEnabled();
+    }
+
+    public static boolean canUseVertexWelding() {
+        return Embeddium.options().advanced.useVertexWelding && !ShaderModBridge.areShadersEnabled();
+    }
+
     public static boolean canApplyTranslucencySorting() {
         return Embeddium.options().performance.useTranslucentFaceSorting && !ShaderModBridge.isNvidiumEnabled();
     }
@@ -5,10 +5,14 @@ import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
 import org.embeddedt.embeddium.impl.gl.buffer.GlBufferUsage;
 import org.embeddedt.embeddium.impl.gl.buffer.GlMutableBuffer;
 import org.embeddedt.embeddium.impl.gl.device.CommandList;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.LatencyHistogram;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,12 +21,20 @@ import java.util.stream.Stream;
 public class GlBufferArena {
     static final boolean CHECK_ASSERTIONS = false;
 
+    /**
+     * The group of allocations which don't ask to be kept together with other allocations.
+     */
+    public static final int NO_GROUP = 0;
+
     private static final GlBufferUsage BUFFER_USAGE = GlBufferUsage.STATIC_DRAW;
     /**
      * When the arena needs to be grown, it will generally attempt to increase its size by (1 / RESIZE_FACTOR).
      */
     private static final int RESIZE_FACTOR = 2;
 
+    private static final Counter ALLOCATIONS = MetricsRegistry.GLOBAL.counter("buffer_arena.allocations");
+    private static final LatencyHistogram RESIZE_TIME = MetricsRegistry.GLOBAL.histogram("buffer_arena.resize");
+
     private int resizeIncrement;
 
     private final StagingBuffer stagingBuffer;
@@ -55,11 +67,17 @@ public class GlBufferArena {
             throw new UnsupportedOperationException("New capacity must be larger than used size");
         }
 
+        long startTime = RESIZE_TIME.startTime();
+
         this.checkAssertions();
 
         int tail = newCapacity - this.used;
 
         List<GlBufferSegment> usedSegments = this.getUsedSegments();
+
+        // Compaction is a good opportunity to move the allocations of each group next to each other. The sort is stable,
+        // so allocations within a group keep their order, and an arena with only one group is compacted as before.
+        usedSegments.sort(Comparator.comparingInt(GlBufferSegment::getGroup));
         List<PendingBufferCopyCommand> pendingCopies = this.buildTransferList(usedSegments, tail);
 
         this.transferSegments(commandList, pendingCopies, newCapacity);
@@ -76,6 +94,8 @@ public class GlBufferArena {
         }
 
         this.checkAssertions();
+
+        RESIZE_TIME.recordSince(startTime);
     }
 
     private List<PendingBufferCopyCommand> buildTransferList(List<GlBufferSegment> usedSegments, int base) {
@@ -166,19 +186,34 @@ public class GlBufferArena {
         return (long)this.capacity * this.stride;
     }
 
-    private GlBufferSegment alloc(int size) {
-        GlBufferSegment a = this.findFree(size);
+    private GlBufferSegment alloc(int size, int group) {
+        GlBufferSegment a = this.findFree(size, group);
 
         if (a == null) {
             return null;
         }
 
+        ALLOCATIONS.increment();
+
         GlBufferSegment result;
 
         if (a.getLength() == size) {
             a.setFree(false);
 
             result = a;
+        } else if (group != NO_GROUP && isAfterGroup(a, group)) {
+            // Take the start of the free segment so that the allocation ends up right after the rest of its group
+            GlBufferSegment b = new GlBufferSegment(this, a.getOffset(), size);
+            b.setPrev(a.getPrev());
+            b.setNext(a);
+            b.getPrev()
+                    .setNext(b);
+
+            a.setOffset(a.getOffset() + size);
+            a.setLength(a.getLength() - size);
+            a.setPrev(b);
+
+            result = b;
         } else {
             GlBufferSegment b = new GlBufferSegment(this, a.getEnd() - size, size);
             b.setNext(a.getNext());
@@ -195,24 +230,31 @@ public class GlBufferArena {
             result = b;
         }
 
+        result.setGroup(group);
+
         this.used += result.getLength();
         this.checkAssertions();
 
         return result;
     }
 
-    private GlBufferSegment findFree(int size) {
+    private GlBufferSegment findFree(int size, int group) {
         GlBufferSegment entry = this.head;
         GlBufferSegment best = null;
+        boolean bestIsLocal = false;
 
         while (entry != null) {
-            if (entry.isFree()) {
-                if (entry.getLength() == size) {
+            if (entry.isFree() && entry.getLength() >= size) {
+                // Free space next to another allocation of the same group is preferred over a tighter fit elsewhere
+                boolean local = group != NO_GROUP && isNextToGroup(entry, group);
+
+                if (entry.getLength() == size && (local || group == NO_GROUP)) {
                     return entry;
-                } else if (entry.getLength() >= size) {
-                    if (best == null || best.getLength() > entry.getLength()) {
-                        best = entry;
-                    }
+                }
+
+                if (best == null || (local && !bestIsLocal) || (local == bestIsLocal && best.getLength() > entry.getLength())) {
+                    best = entry;
+                    bestIsLocal = local;
                 }
             }
 
@@ -222,6 +264,20 @@ public class GlBufferArena {
         return best;
     }
 
+    private static boolean isAfterGroup(GlBufferSegment entry, int group) {
+        GlBufferSegment prev = entry.getPrev();
+        GlBufferSegment next = entry.getNext();
+
+        return prev != null && prev.getGroup() == group && (next == null || next.getGroup() != group);
+    }
+
+    private static boolean isNextToGroup(GlBufferSegment entry, int group) {
+        GlBufferSegment prev = entry.getPrev();
+        GlBufferSegment next = entry.getNext();
+
+        return (prev != null && prev.getGroup() == group) || (next != null && next.getGroup() == group);
+    }
+
     public void free(GlBufferSegment entry) {
         if (entry.isFree()) {
             throw new IllegalStateException("Already freed");
@@ -259,6 +315,16 @@ public class GlBufferArena {
     }
 
     public boolean upload(CommandList commandList, Stream<PendingUpload> stream) {
+        return this.upload(commandList, stream, NO_GROUP);
+    }
+
+    /**
+     * Uploads the given data into the arena. If the arena is shared by different owners, each owner can pass its own
+     * group, which makes the arena try to keep the allocations of each group close to each other.
+     *
+     * @return True if the arena had to re-allocate its buffer, which moves every allocation
+     */
+    public boolean upload(CommandList commandList, Stream<PendingUpload> stream, int group) {
         // Record the buffer object before we start any work
         // If the arena needs to re-allocate a buffer, this will allow us to check and return an appropriate flag
         GlBuffer buffer = this.arenaBuffer;
@@ -267,7 +333,7 @@ public class GlBufferArena {
         List<PendingUpload> queue = stream.collect(Collectors.toCollection(LinkedList::new));
 
         // Try to upload all of the data into free segments first
-        this.tryUploads(commandList, queue);
+        this.tryUploads(commandList, queue, group);
 
         // If we weren't able to upload some buffers, they will have been left behind in the queue
         if (!queue.isEmpty()) {
@@ -282,7 +348,7 @@ public class GlBufferArena {
             this.ensureCapacity(commandList, remainingElements);
 
             // Try again to upload any buffers that failed last time
-            this.tryUploads(commandList, queue);
+            this.tryUploads(commandList, queue, group);
 
             // If we still had failures, something has gone wrong
             if (!queue.isEmpty()) {
@@ -293,18 +359,18 @@ public class GlBufferArena {
         return this.arenaBuffer != buffer;
     }
 
-    private void tryUploads(CommandList commandList, List<PendingUpload> queue) {
-        queue.removeIf(upload -> this.tryUpload(commandList, upload));
+    private void tryUploads(CommandList commandList, List<PendingUpload> queue, int group) {
+        queue.removeIf(upload -> this.tryUpload(commandList, upload, group));
         this.stagingBuffer.flush(commandList);
     }
 
-    private boolean tryUpload(CommandList commandList, PendingUpload upload) {
+    private boolean tryUpload(CommandList commandList, PendingUpload upload, int group) {
         ByteBuffer data = upload.getDataBuffer()
                 .getDirectBuffer();
 
         int elementCount = data.remaining() / this.stride;
 
-        GlBufferSegment dst = this.alloc(elementCount);
+        GlBufferSegment dst = this.alloc(elementCount, group);
 
         if (dst == null) {
             return false;
@@ -334,7 +400,11 @@ public class GlBufferArena {
         }
     }
 
-    private void checkAssertions0() {
+    /**
+     * Throws if the segments don't cover the arena one after another, if free segments weren't merged, or if the used
+     * size doesn't match the segments which are in use.
+     */
+    void checkAssertions0() {
         GlBufferSegment seg = this.head;
         int used = 0;
 
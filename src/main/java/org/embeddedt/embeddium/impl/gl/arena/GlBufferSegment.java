@@ -8,6 +8,8 @@ public class GlBufferSegment {
     private int offset;
     private int length;
 
+    private int group = GlBufferArena.NO_GROUP;
+
     private GlBufferSegment next;
     private GlBufferSegment prev;
 
@@ -49,6 +51,14 @@ public class GlBufferSegment {
         this.offset = offset;
     }
 
+    public int getGroup() {
+        return this.group;
+    }
+
+    protected void setGroup(int group) {
+        this.group = group;
+    }
+
     protected void setFree(boolean free) {
         this.free = free;
     }
@@ -6,7 +6,6 @@ import org.embeddedt.embeddium.impl.gl.buffer.*;
 import org.embeddedt.embeddium.impl.gl.device.CommandList;
 import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
 import org.embeddedt.embeddium.impl.gl.functions.BufferStorageFunctions;
-import org.embeddedt.embeddium.impl.gl.sync.GlFence;
 import org.embeddedt.embeddium.impl.gl.util.EnumBitField;
 import org.embeddedt.embeddium.impl.util.MathUtil;
 
@@ -14,6 +13,14 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A staging buffer which writes data into persistently mapped memory, and then copies it into the destination buffer
+ * on the graphics device.
+ * <p>
+ * The mapped memory is split into segments, each of which is used as a ring buffer (see {@link StagingRing}). If
+ * uploads keep falling back to the slow path because the existing segments are still in use by the graphics device, a
+ * new segment is added. Extra segments which go unused for a while are released again.
+ */
 public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferStorageFlags> STORAGE_FLAGS =
             EnumBitField.of(GlBufferStorageFlags.PERSISTENT, GlBufferStorageFlags.CLIENT_STORAGE, GlBufferStorageFlags.MAP_WRITE);
@@ -21,30 +28,36 @@ public class MappedStagingBuffer implements StagingBuffer {
     private static final EnumBitField<GlBufferMapFlags> MAP_FLAGS =
             EnumBitField.of(GlBufferMapFlags.PERSISTENT, GlBufferMapFlags.INVALIDATE_BUFFER, GlBufferMapFlags.WRITE, GlBufferMapFlags.EXPLICIT_FLUSH);
 
+    private static final int MAX_SEGMENTS = 8;
+
+    // The number of consecutive frames which must stall before another segment is added
+    private static final int GROW_AFTER_FRAMES = 3;
+
+    // The number of consecutive frames which an extra segment must be unused for before it is released
+    private static final int SHRINK_AFTER_FRAMES = 600;
+
     private final FallbackStagingBuffer fallbackStagingBuffer;
 
-    private final MappedBuffer mappedBuffer;
+    private final List<Segment> segments = new ArrayList<>();
     private final PriorityQueue<CopyCommand> pendingCopies = new ObjectArrayFIFOQueue<>();
-    private final PriorityQueue<FencedMemoryRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
 
-    private int start = 0;
-    private int pos = 0;
+    private final int segmentSize;
 
-    private final int capacity;
-    private int remaining;
+    private boolean stalledThisFrame;
+    private int stalledFrames;
+    private boolean growRequested;
+
+    private long stallCount, fallbackCount;
 
     public MappedStagingBuffer(CommandList commandList) {
         this(commandList, 1024 * 1024 * 16 /* 16 MB */);
     }
 
-    public MappedStagingBuffer(CommandList commandList, int capacity) {
-        GlImmutableBuffer buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
-        GlBufferMapping map = commandList.mapBuffer(buffer, 0, capacity, MAP_FLAGS);
-
-        this.mappedBuffer = new MappedBuffer(buffer, map);
+    public MappedStagingBuffer(CommandList commandList, int segmentSize) {
         this.fallbackStagingBuffer = new FallbackStagingBuffer(commandList);
-        this.capacity = capacity;
-        this.remaining = this.capacity;
+        this.segmentSize = segmentSize;
+
+        this.segments.add(new Segment(commandList, segmentSize));
     }
 
     public static boolean isSupported(RenderDevice instance) {
@@ -53,35 +66,75 @@ public class MappedStagingBuffer implements StagingBuffer {
 
     @Override
     public void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset) {
+        this.resize(commandList);
+
         int length = data.remaining();
+        Segment segment = this.findSegment(length);
+
+        if (segment == null) {
+            if (length <= this.segmentSize) {
+                // The data would fit, but the memory is still being used by the graphics device
+                this.stallCount++;
+                this.stalledThisFrame = true;
+            } else {
+                this.fallbackCount++;
+            }
 
-        if (length > this.remaining) {
             this.fallbackStagingBuffer.enqueueCopy(commandList, data, dst, writeOffset);
 
             return;
         }
 
-        int remaining = this.capacity - this.pos;
+        int offset = segment.ring.allocate(length);
+        int remaining = segment.ring.getCapacity() - offset;
 
-        // Split the transfer in two if we have enough available memory at the end and start of the buffer
+        // Split the transfer in two if it wraps around the end of the segment
         if (length > remaining) {
             int split = length - remaining;
 
-            this.addTransfer(data.slice(0, remaining), dst, this.pos, writeOffset);
-            this.addTransfer(data.slice(remaining, split), dst, 0, writeOffset + remaining);
-
-            this.pos = split;
+            this.addTransfer(segment, data.slice(0, remaining), dst, offset, writeOffset);
+            this.addTransfer(segment, data.slice(remaining, split), dst, 0, writeOffset + remaining);
         } else {
-            this.addTransfer(data, dst, this.pos, writeOffset);
-            this.pos += length;
+            this.addTransfer(segment, data, dst, offset, writeOffset);
+        }
+
+        segment.idleFrames = 0;
+    }
+
+    private Segment findSegment(int length) {
+        // Prefer the earliest segments, so that the later ones become idle and can be released
+        for (Segment segment : this.segments) {
+            if (segment.ring.canAllocate(length)) {
+                return segment;
+            }
+        }
+
+        return null;
+    }
+
+    private void resize(CommandList commandList) {
+        if (this.growRequested) {
+            this.growRequested = false;
+
+            if (this.segments.size() < MAX_SEGMENTS) {
+                this.segments.add(new Segment(commandList, this.segmentSize));
+            }
         }
 
-        this.remaining -= length;
+        // The first segment is always kept
+        for (int i = this.segments.size() - 1; i > 0; i--) {
+            Segment segment = this.segments.get(i);
+
+            if (segment.idleFrames >= SHRINK_AFTER_FRAMES && segment.ring.isIdle()) {
+                segment.delete(commandList);
+                this.segments.remove(i);
+            }
+        }
     }
 
-    private void addTransfer(ByteBuffer data, GlBuffer dst, long readOffset, long writeOffset) {
-        this.mappedBuffer.map.write(data, (int) readOffset);
-        this.pendingCopies.enqueue(new CopyCommand(dst, readOffset, writeOffset, data.remaining()));
+    private void addTransfer(Segment segment, ByteBuffer data, GlBuffer dst, long readOffset, long writeOffset) {
+        segment.map.write(data, (int) readOffset);
+        this.pendingCopies.enqueue(new CopyCommand(segment.buffer, dst, readOffset, writeOffset, data.remaining()));
     }
 
     @Override
@@ -90,24 +143,33 @@ public class MappedStagingBuffer implements StagingBuffer {
             return;
         }
 
-        if (this.pos < this.start) {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.capacity - this.start);
-            commandList.flushMappedRange(this.mappedBuffer.map, 0, this.pos);
-        } else {
-            commandList.flushMappedRange(this.mappedBuffer.map, this.start, this.pos - this.start);
-        }
+        for (Segment segment : this.segments) {
+            int start = segment.ring.getPendingStart();
+            int length = segment.ring.getPendingLength();
 
-        int bytes = 0;
+            if (length == 0) {
+                continue;
+            }
 
-        for (CopyCommand command : consolidateCopies(this.pendingCopies)) {
-            bytes += command.bytes;
+            int capacity = segment.ring.getCapacity();
 
-            commandList.copyBufferSubData(this.mappedBuffer.buffer, command.buffer, command.readOffset, command.writeOffset, command.bytes);
+            if (start + length > capacity) {
+                commandList.flushMappedRange(segment.map, start, capacity - start);
+                commandList.flushMappedRange(segment.map, 0, (start + length) - capacity);
+            } else {
+                commandList.flushMappedRange(segment.map, start, length);
+            }
         }
 
-        this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), bytes));
+        for (CopyCommand command : consolidateCopies(this.pendingCopies)) {
+            commandList.copyBufferSubData(command.src, command.buffer, command.readOffset, command.writeOffset, command.bytes);
+        }
 
-        this.start = this.pos;
+        for (Segment segment : this.segments) {
+            if (segment.ring.getPendingLength() > 0) {
+                segment.ring.fence(commandList.createFence());
+            }
+        }
     }
 
     private static List<CopyCommand> consolidateCopies(PriorityQueue<CopyCommand> queue) {
@@ -118,7 +180,8 @@ public class MappedStagingBuffer implements StagingBuffer {
             CopyCommand command = queue.dequeue();
 
             if (last != null) {
-                if (last.buffer == command.buffer &&
+                if (last.src == command.src &&
+                        last.buffer == command.buffer &&
                         last.writeOffset + last.bytes == command.writeOffset &&
                         last.readOffset + last.bytes == command.readOffset) {
                     last.bytes += command.bytes;
@@ -134,36 +197,49 @@ public class MappedStagingBuffer implements StagingBuffer {
 
     @Override
     public void delete(CommandList commandList) {
-        this.mappedBuffer.delete(commandList);
+        for (Segment segment : this.segments) {
+            segment.delete(commandList);
+        }
+
+        this.segments.clear();
         this.fallbackStagingBuffer.delete(commandList);
         this.pendingCopies.clear();
     }
 
     @Override
     public void flip() {
-        while (!this.fencedRegions.isEmpty()) {
-            var region = this.fencedRegions.first();
-            var fence = region.fence();
+        for (Segment segment : this.segments) {
+            segment.ring.retire();
 
-            if (!fence.isCompleted()) {
-                break;
+            if (segment.ring.isIdle()) {
+                segment.idleFrames++;
+            } else {
+                segment.idleFrames = 0;
             }
+        }
 
-            fence.delete();
+        if (this.stalledThisFrame) {
+            this.stalledThisFrame = false;
 
-            this.fencedRegions.dequeue();
-            this.remaining += region.length();
+            if (++this.stalledFrames >= GROW_AFTER_FRAMES) {
+                this.stalledFrames = 0;
+                this.growRequested = true;
+            }
+        } else {
+            this.stalledFrames = 0;
         }
     }
 
     private static final class CopyCommand {
+        private final GlBuffer src;
         private final GlBuffer buffer;
         private final long readOffset;
         private final long writeOffset;
 
         private long bytes;
 
-        private CopyCommand(GlBuffer buffer, long readOffset, long writeOffset, long bytes) {
+        private CopyCommand(GlBuffer src, GlBuffer buffer, long readOffset, long writeOffset, long bytes) {
+            this.src = src;
             this.buffer = buffer;
             this.readOffset = readOffset;
             this.writeOffset = writeOffset;
@@ -171,6 +247,7 @@ public class MappedStagingBuffer implements StagingBuffer {
         }
 
         public CopyCommand(CopyCommand command) {
+            this.src = command.src;
             this.buffer = command.buffer;
             this.writeOffset = command.writeOffset;
             this.readOffset = command.readOffset;
@@ -178,20 +255,37 @@ public class MappedStagingBuffer implements StagingBuffer {
         }
     }
 
-    private record MappedBuffer(GlImmutableBuffer buffer,
-                                GlBufferMapping map) {
+    private static final class Segment {
+        private final GlImmutableBuffer buffer;
+        private final GlBufferMapping map;
+        private final StagingRing ring;
+
+        private int idleFrames;
+
+        private Segment(CommandList commandList, int capacity) {
+            this.buffer = commandList.createImmutableBuffer(capacity, STORAGE_FLAGS);
+            this.map = commandList.mapBuffer(this.buffer, 0, capacity, MAP_FLAGS);
+            this.ring = new StagingRing(capacity);
+        }
+
         public void delete(CommandList commandList) {
+            this.ring.delete();
+
             commandList.unmap(this.map);
             commandList.deleteBuffer(this.buffer);
         }
     }
 
-    private record FencedMemoryRegion(GlFence fence, int length) {
-
-    }
-
     @Override
     public String toString() {
-        return "Mapped (%s/%s MiB)".formatted(MathUtil.toMib(this.remaining), MathUtil.toMib(this.capacity));
+        long remaining = 0, capacity = 0;
+
+        for (Segment segment : this.segments) {
+            remaining += segment.ring.getRemaining();
+            capacity += segment.ring.getCapacity();
+        }
+
+        return "Mapped (%s/%s MiB, %d segments, %d stalls, %d fallbacks)".formatted(MathUtil.toMib(remaining), MathUtil.toMib(capacity),
+                this.segments.size(), this.stallCount, this.fallbackCount);
     }
 }
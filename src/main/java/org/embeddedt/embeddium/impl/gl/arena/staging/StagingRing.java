@@ -0,0 +1,137 @@
+package org.embeddedt.embeddium.impl.gl.arena.staging;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
+import org.embeddedt.embeddium.impl.gl.sync.Fence;
+
+/**
+ * Keeps track of which parts of a ring buffer are free to be written to. Memory is handed out in the order it was
+ * written, and every flush of the written memory is followed by a fence. Memory only becomes free again once the fence
+ * which follows it has completed, since the graphics device may still be reading from it until then.
+ * <p>
+ * This class doesn't touch the graphics device, so it can be used with any kind of {@link Fence}.
+ */
+public class StagingRing {
+    private final int capacity;
+
+    private final ObjectArrayFIFOQueue<FencedRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
+
+    // The start of the memory which was written since the last fence
+    private int start = 0;
+
+    // The position where the next allocation will start
+    private int pos = 0;
+
+    // The number of bytes which are neither written nor waiting on a fence
+    private int remaining;
+
+    // The number of bytes which were written since the last fence
+    private int pending;
+
+    public StagingRing(int capacity) {
+        this.capacity = capacity;
+        this.remaining = capacity;
+    }
+
+    public boolean canAllocate(int length) {
+        return length <= this.remaining;
+    }
+
+    /**
+     * Allocates the given number of bytes. If the allocation goes past the end of the ring, it continues at the start
+     * of the ring, and the caller must split its data at {@code capacity - offset} bytes.
+     *
+     * @return The offset of the first byte of the allocation
+     */
+    public int allocate(int length) {
+        if (!this.canAllocate(length)) {
+            throw new IllegalStateException("Not enough space in ring buffer (requested " + length + " bytes, but only " + this.remaining + " are free)");
+        }
+
+        int offset = this.pos;
+
+        this.pos = (this.pos + length) % this.capacity;
+        this.remaining -= length;
+        this.pending += length;
+
+        return offset;
+    }
+
+    /**
+     * @return The offset of the first byte which was written since the last fence
+     */
+    public int getPendingStart() {
+        return this.start;
+    }
+
+    /**
+     * @return The number of bytes which were written since the last fence
+     */
+    public int getPendingLength() {
+        return this.pending;
+    }
+
+    /**
+     * Marks all memory which was written since the last fence as being in use until the given fence completes.
+     */
+    public void fence(Fence fence) {
+        this.fencedRegions.enqueue(new FencedRegion(fence, this.pending));
+
+        this.start = this.pos;
+        this.pending = 0;
+    }
+
+    /**
+     * Frees the memory of every fence which has completed. Fences complete in order, so this stops at the first fence
+     * which is still pending.
+     *
+     * @return The number of bytes which were freed
+     */
+    public int retire() {
+        int freed = 0;
+
+        while (!this.fencedRegions.isEmpty()) {
+            var region = this.fencedRegions.first();
+
+            if (!region.fence().isCompleted()) {
+                break;
+            }
+
+            region.fence().delete();
+
+            this.fencedRegions.dequeue();
+            this.remaining += region.length();
+
+            freed += region.length();
+        }
+
+        return freed;
+    }
+
+    /**
+     * @return True if no memory is written or waiting on a fence
+     */
+    public boolean isIdle() {
+        return this.remaining == this.capacity;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getRemaining() {
+        return this.remaining;
+    }
+
+    /**
+     * Deletes every fence which is still pending, without waiting for it.
+     */
+    public void delete() {
+        while (!this.fencedRegions.isEmpty()) {
+            this.fencedRegions.dequeue().fence().delete();
+        }
+    }
+
+    private record FencedRegion(Fence fence, int length) {
+
+    }
+}
@@ -95,13 +95,9 @@ public class GlVertexFormat<T extends Enum<T>> {
         public GlVertexFormat<T> build() {
             int size = 0;
 
-            for (T key : this.type.getEnumConstants()) {
-                GlVertexAttribute attribute = this.attributes.get(key);
-
-                if (attribute == null) {
-                    throw new NullPointerException("Generic attribute not assigned to enumeration " + key.name());
-                }
-
+            // Formats may leave out attributes which they pack into other attributes, in which case retrieving them
+            // with getAttribute will fail
+            for (GlVertexAttribute attribute : this.attributes.values()) {
                 size = Math.max(size, attribute.getPointer() + attribute.getSize());
             }
 
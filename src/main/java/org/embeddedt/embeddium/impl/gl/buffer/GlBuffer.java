@@ -4,12 +4,21 @@ import org.embeddedt.embeddium.impl.gl.GlObject;
 import org.lwjgl.opengl.GL20C;
 
 public abstract class GlBuffer extends GlObject {
+    public static final int NULL_BUFFER_ID = 0;
+
     private GlBufferMapping activeMapping;
 
     protected GlBuffer() {
         this.setHandle(GL20C.glGenBuffers());
     }
 
+    /**
+     * Wraps a buffer object which was created elsewhere.
+     */
+    protected GlBuffer(int handle) {
+        this.setHandle(handle);
+    }
+
     public GlBufferMapping getActiveMapping() {
         return this.activeMapping;
     }
@@ -9,6 +9,15 @@ public class GlImmutableBuffer extends GlBuffer {
         this.flags = flags;
     }
 
+    /**
+     * Wraps an existing buffer object with the given handle, instead of creating a new one.
+     */
+    public GlImmutableBuffer(int handle, EnumBitField<GlBufferStorageFlags> flags) {
+        super(handle);
+
+        this.flags = flags;
+    }
+
     public EnumBitField<GlBufferStorageFlags> getFlags() {
         return this.flags;
     }
@@ -11,6 +11,13 @@ public class GlMutableBuffer extends GlBuffer {
         super();
     }
 
+    /**
+     * Wraps an existing buffer object with the given handle, instead of creating a new one.
+     */
+    public GlMutableBuffer(int handle) {
+        super(handle);
+    }
+
     public void setSize(long size) {
         this.size = size;
     }
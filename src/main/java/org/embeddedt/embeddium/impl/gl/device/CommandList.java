@@ -21,10 +21,17 @@ public interface CommandList extends AutoCloseable {
 
     void uploadData(GlMutableBuffer glBuffer, ByteBuffer byteBuffer, GlBufferUsage usage);
 
+    /**
+     * Replaces part of the contents of a buffer, without re-allocating its storage.
+     */
+    void uploadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer);
+
     void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes);
 
     void bindBuffer(GlBufferTarget target, GlBuffer buffer);
 
+    void unbindBuffer(GlBufferTarget target);
+
     void unbindVertexArray();
 
     void allocateStorage(GlMutableBuffer buffer, long bufferSize, GlBufferUsage usage);
@@ -5,6 +5,8 @@ import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
 public interface DrawCommandList extends AutoCloseable {
     void multiDrawElementsBaseVertex(MultiDrawBatch batch, GlIndexType indexType);
 
+    void multiDrawElementsIndirect(MultiDrawIndirectBuffer buffer, int first, int count, GlIndexType indexType);
+
     void endTessellating();
 
     void flush();
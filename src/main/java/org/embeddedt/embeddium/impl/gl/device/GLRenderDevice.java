@@ -8,6 +8,7 @@ import org.embeddedt.embeddium.impl.gl.sync.GlFence;
 import org.embeddedt.embeddium.impl.gl.tessellation.*;
 import org.embeddedt.embeddium.impl.gl.util.EnumBitField;
 import org.lwjgl.opengl.*;
+import org.lwjgl.system.MemoryUtil;
 import com.mojang.blaze3d.vertex.BufferUploader;
 import java.nio.ByteBuffer;
 
@@ -88,6 +89,13 @@ public class GLRenderDevice implements RenderDevice {
             glBuffer.setSize(byteBuffer.remaining());
         }
 
+        @Override
+        public void uploadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer) {
+            this.bindBuffer(GlBufferTarget.ARRAY_BUFFER, glBuffer);
+
+            GL20C.glBufferSubData(GlBufferTarget.ARRAY_BUFFER.getTargetParameter(), offset, byteBuffer);
+        }
+
         @Override
         public void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes) {
             this.bindBuffer(GlBufferTarget.COPY_READ_BUFFER, src);
@@ -103,6 +111,13 @@ public class GLRenderDevice implements RenderDevice {
             }
         }
 
+        @Override
+        public void unbindBuffer(GlBufferTarget target) {
+            if (this.stateTracker.makeBufferInactive(target)) {
+                GL20C.glBindBuffer(target.getTargetParameter(), GlBuffer.NULL_BUFFER_ID);
+            }
+        }
+
         @Override
         public void unbindVertexArray() {
             if (this.stateTracker.makeVertexArrayActive(null)) {
@@ -278,6 +293,33 @@ public class GLRenderDevice implements RenderDevice {
                     batch.pBaseVertex);
         }
 
+        @Override
+        public void multiDrawElementsIndirect(MultiDrawIndirectBuffer buffer, int first, int count, GlIndexType indexType) {
+            GlPrimitiveType primitiveType = GLRenderDevice.this.activeTessellation.getPrimitiveType();
+
+            if (!MultiDrawIndirectBuffer.isSupported(GLRenderDevice.this)) {
+                // Without indirect draws, issue the same commands one at a time from the host copy of the buffer
+                for (int index = first; index < first + count; index++) {
+                    long pCommand = buffer.getCommandPointer(index);
+
+                    GL32C.glDrawElementsBaseVertex(primitiveType.getId(),
+                            MemoryUtil.memGetInt(pCommand + 0),
+                            indexType.getFormatId(),
+                            Integer.toUnsignedLong(MemoryUtil.memGetInt(pCommand + 8)) * indexType.getStride(),
+                            MemoryUtil.memGetInt(pCommand + 12));
+                }
+
+                return;
+            }
+
+            GLRenderDevice.this.commandList.bindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER, buffer.getBufferObject());
+            GLRenderDevice.this.functions.getMultiDrawIndirectFunctions().multiDrawElementsIndirect(primitiveType.getId(),
+                    indexType.getFormatId(),
+                    (long) first * MultiDrawIndirectBuffer.COMMAND_STRIDE,
+                    count,
+                    MultiDrawIndirectBuffer.COMMAND_STRIDE);
+        }
+
         @Override
         public void endTessellating() {
             GLRenderDevice.this.activeTessellation.unbind(GLRenderDevice.this.commandList);
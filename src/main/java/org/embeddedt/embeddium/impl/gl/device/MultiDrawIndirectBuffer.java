@@ -0,0 +1,176 @@
+package org.embeddedt.embeddium.impl.gl.device;
+
+import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferUsage;
+import org.embeddedt.embeddium.impl.gl.buffer.GlMutableBuffer;
+import org.embeddedt.embeddium.impl.gl.functions.MultiDrawIndirectFunctions;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.Pointer;
+
+/**
+ * Collects the draw commands of one or more {@link MultiDrawBatch} instances into a buffer of indirect draw commands,
+ * which is kept on the graphics device and drawn with
+ * {@link org.lwjgl.opengl.GL43C#glMultiDrawElementsIndirect(int, int, long, int, int)}.
+ * <p>
+ * A copy of what was last uploaded is kept on the host, so that each upload only sends the commands which changed.
+ * <p>
+ * Each command is laid out as follows:
+ * <pre>
+ * u32 count;
+ * u32 instance_count;
+ * u32 first_index;
+ * s32 base_vertex;
+ * u32 base_instance;
+ * </pre>
+ */
+public final class MultiDrawIndirectBuffer {
+    public static final int COMMAND_STRIDE = 20;
+
+    private final GlMutableBuffer buffer;
+
+    private long pCommands;
+    private int capacity;
+
+    private int size;
+
+    // The commands in the buffer on the graphics device, of which only the first deviceSize have been uploaded
+    private long pDeviceCommands;
+    private int deviceCapacity;
+    private int deviceSize;
+
+    public MultiDrawIndirectBuffer(CommandList commandList, int initialCapacity) {
+        this.buffer = commandList.createMutableBuffer();
+
+        this.capacity = Math.max(1, initialCapacity);
+        this.pCommands = MemoryUtil.nmemAlloc((long) this.capacity * COMMAND_STRIDE);
+    }
+
+    /**
+     * Appends the commands of a batch. The element pointers of the batch are converted into the index of the first
+     * element, since indirect commands can't refer to a byte offset.
+     *
+     * @return The index of the first command which was appended
+     */
+    public int append(MultiDrawBatch batch, GlIndexType indexType) {
+        int first = this.size;
+        int count = batch.size();
+
+        this.ensureCapacity(first + count);
+
+        int indexStride = indexType.getStride();
+
+        for (int index = 0; index < count; index++) {
+            long pCommand = this.pCommands + ((long) (first + index) * COMMAND_STRIDE);
+
+            MemoryUtil.memPutInt(pCommand + 0, MemoryUtil.memGetInt(batch.pElementCount + ((long) index * Integer.BYTES)));
+            MemoryUtil.memPutInt(pCommand + 4, 1);
+            MemoryUtil.memPutInt(pCommand + 8, (int) (MemoryUtil.memGetAddress(batch.pElementPointer + ((long) index * Pointer.POINTER_SIZE)) / indexStride));
+            MemoryUtil.memPutInt(pCommand + 12, MemoryUtil.memGetInt(batch.pBaseVertex + ((long) index * Integer.BYTES)));
+            MemoryUtil.memPutInt(pCommand + 16, 0);
+        }
+
+        this.size += count;
+
+        return first;
+    }
+
+    public static boolean isSupported(RenderDevice device) {
+        return device.getDeviceFunctions().getMultiDrawIndirectFunctions() != MultiDrawIndirectFunctions.NONE;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.capacity) {
+            this.capacity = Math.max(this.capacity * 2, capacity);
+            this.pCommands = MemoryUtil.nmemRealloc(this.pCommands, (long) this.capacity * COMMAND_STRIDE);
+        }
+    }
+
+    /**
+     * Uploads the commands which differ from the last upload, as a single range from the first to the last changed
+     * command. If nothing changed, nothing is uploaded. The storage on the graphics device is only re-allocated when it
+     * is too small for the commands, in which case all of them are uploaded.
+     */
+    public void upload(CommandList commandList) {
+        int size = this.size;
+
+        if (size > this.deviceCapacity) {
+            this.deviceCapacity = this.capacity;
+            this.deviceSize = 0;
+
+            commandList.allocateStorage(this.buffer, (long) this.deviceCapacity * COMMAND_STRIDE, GlBufferUsage.DYNAMIC_DRAW);
+            this.pDeviceCommands = MemoryUtil.nmemRealloc(this.pDeviceCommands, (long) this.deviceCapacity * COMMAND_STRIDE);
+        }
+
+        // Commands past the end of the last upload are never on the graphics device yet
+        int uploaded = Math.min(size, this.deviceSize);
+
+        int first = 0;
+
+        while (first < uploaded && this.isCommandUploaded(first)) {
+            first++;
+        }
+
+        if (first == size) {
+            return;
+        }
+
+        int last = size - 1;
+
+        if (size <= this.deviceSize) {
+            while (this.isCommandUploaded(last)) {
+                last--;
+            }
+        }
+
+        long offset = (long) first * COMMAND_STRIDE;
+        int length = ((last + 1) - first) * COMMAND_STRIDE;
+
+        commandList.uploadSubData(this.buffer, offset, MemoryUtil.memByteBuffer(this.pCommands + offset, length));
+        MemoryUtil.memCopy(this.pCommands + offset, this.pDeviceCommands + offset, length);
+
+        this.deviceSize = Math.max(this.deviceSize, last + 1);
+    }
+
+    private boolean isCommandUploaded(int index) {
+        long pCommand = this.pCommands + ((long) index * COMMAND_STRIDE);
+        long pDeviceCommand = this.pDeviceCommands + ((long) index * COMMAND_STRIDE);
+
+        return MemoryUtil.memGetLong(pCommand) == MemoryUtil.memGetLong(pDeviceCommand) &&
+                MemoryUtil.memGetLong(pCommand + 8) == MemoryUtil.memGetLong(pDeviceCommand + 8) &&
+                MemoryUtil.memGetInt(pCommand + 16) == MemoryUtil.memGetInt(pDeviceCommand + 16);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return A pointer to the host copy of the command at the given index
+     */
+    public long getCommandPointer(int index) {
+        return this.pCommands + ((long) index * COMMAND_STRIDE);
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public GlBuffer getBufferObject() {
+        return this.buffer;
+    }
+
+    public void delete(CommandList commandList) {
+        commandList.deleteBuffer(this.buffer);
+
+        MemoryUtil.nmemFree(this.pCommands);
+        this.pCommands = MemoryUtil.NULL;
+
+        MemoryUtil.nmemFree(this.pDeviceCommands);
+        this.pDeviceCommands = MemoryUtil.NULL;
+    }
+}
@@ -0,0 +1,46 @@
+package org.embeddedt.embeddium.impl.gl.functions;
+
+import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
+import org.lwjgl.opengl.ARBMultiDrawIndirect;
+import org.lwjgl.opengl.GL43C;
+import org.lwjgl.opengl.GLCapabilities;
+
+public enum MultiDrawIndirectFunctions {
+    NONE {
+        @Override
+        public void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+            throw new UnsupportedOperationException();
+        }
+    },
+    CORE {
+        @Override
+        public void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+            GL43C.glMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+        }
+    },
+    ARB {
+        @Override
+        public void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride) {
+            ARBMultiDrawIndirect.glMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+        }
+    };
+
+    public static MultiDrawIndirectFunctions pickBest(RenderDevice device) {
+        GLCapabilities capabilities = device.getCapabilities();
+
+        if (capabilities.OpenGL43) {
+            return CORE;
+        } else if (capabilities.GL_ARB_multi_draw_indirect && capabilities.GL_ARB_draw_indirect) {
+            return ARB;
+        } else {
+            return NONE;
+        }
+    }
+
+
+    /**
+     * Issues draws for the commands stored in the buffer bound to {@link org.lwjgl.opengl.GL40C#GL_DRAW_INDIRECT_BUFFER},
+     * starting at the given byte offset.
+     */
+    public abstract void multiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride);
+}
@@ -40,6 +40,16 @@ public class GlStateTracker {
         return changed;
     }
 
+    public boolean makeBufferInactive(GlBufferTarget target) {
+        boolean changed = this.bufferState[target.ordinal()] != GlBuffer.NULL_BUFFER_ID;
+
+        if (changed) {
+            this.bufferState[target.ordinal()] = GlBuffer.NULL_BUFFER_ID;
+        }
+
+        return changed;
+    }
+
     public boolean makeVertexArrayActive(GlVertexArray array) {
         int handle = array == null ? GlVertexArray.NULL_ARRAY_ID : array.handle();
         boolean changed = this.vertexArrayState != handle;
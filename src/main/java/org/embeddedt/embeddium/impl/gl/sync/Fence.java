@@ -0,0 +1,10 @@
+package org.embeddedt.embeddium.impl.gl.sync;
+
+/**
+ * A point in the command stream of the graphics device which can be checked for completion.
+ */
+public interface Fence {
+    boolean isCompleted();
+
+    void delete();
+}
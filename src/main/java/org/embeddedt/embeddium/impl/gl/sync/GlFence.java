@@ -5,7 +5,7 @@ import org.lwjgl.system.MemoryStack;
 
 import java.nio.IntBuffer;
 
-public class GlFence {
+public class GlFence implements Fence {
     private final long id;
     private boolean disposed;
 
@@ -13,6 +13,7 @@ public class GlFence {
         this.id = id;
     }
 
+    @Override
     public boolean isCompleted() {
         this.checkDisposed();
 
@@ -40,6 +41,7 @@ public class GlFence {
         GL32C.glWaitSync(this.id, GL32C.GL_SYNC_FLUSH_COMMANDS_BIT, timeout);
     }
 
+    @Override
     public void delete() {
         GL32C.glDeleteSync(this.id);
         this.disposed = true;
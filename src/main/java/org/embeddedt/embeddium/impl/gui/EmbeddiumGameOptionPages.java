@@ -360,6 +360,17 @@ public class EmbeddiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.DENSE_VERTEX_FORMAT)
+                        .setName(Component.translatable("embeddium.options.use_dense_vertex_format.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_dense_vertex_format.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setEnabled(!ShaderModBridge.areShadersEnabled())
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.advanced.useDenseVertexFormat = value, opts -> opts.advanced.useDenseVertexFormat)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setId(StandardOptions.Option.FOG_OCCLUSION)
                         .setName(Component.translatable("sodium.options.use_fog_occlusion.name"))
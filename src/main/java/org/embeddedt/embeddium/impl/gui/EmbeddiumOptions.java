@@ -58,6 +58,21 @@ public class EmbeddiumOptions {
         public boolean enableMemoryTracing = false;
         public boolean useAdvancedStagingBuffers = true;
         public boolean disableIncompatibleModWarnings = false;
+        public boolean enableGuiBatching = true;
+        public boolean enableAnimatedTextureBatching = true;
+        public boolean useDenseVertexFormat = false;
+        public boolean useVertexWelding = false;
+        public boolean useIndirectDraws = false;
+        public boolean useSharedGeometryPool = false;
+        public boolean enableMetricsOverlay = false;
+        public boolean recordPipelineTrace = false;
+        public boolean useBakedQuadCache = true;
+
+        public int chunkUploadBudgetKilobytes = 16 * 1024;
+        public int chunkUploadBudgetMicroseconds = 4000;
+        public int meshCompressionBacklogMegabytes = 0;
+        public int meshCacheMegabytes = 0;
+        public int sectionSplitThresholdMicroseconds = 6000;
 
         public int cpuRenderAheadLimit = 3;
     }
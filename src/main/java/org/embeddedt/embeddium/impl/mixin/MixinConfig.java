@@ -57,6 +57,7 @@ public class MixinConfig {
         this.addMixinRule("features.render.entity.shadow", true);
 
         this.addMixinRule("features.render.gui", true);
+        this.addMixinRule("features.render.gui.batching", true);
         this.addMixinRule("features.render.gui.debug", true);
         this.addMixinRule("features.render.gui.font", true);
         this.addMixinRule("features.render.gui.outlines", true);
@@ -81,6 +82,7 @@ public class MixinConfig {
 
         this.addMixinRule("features.textures", true);
         this.addMixinRule("features.textures.animations", true);
+        this.addMixinRule("features.textures.animations.batching", true);
         this.addMixinRule("features.textures.mipmaps", true);
 
         this.addMixinRule("features.world", true);
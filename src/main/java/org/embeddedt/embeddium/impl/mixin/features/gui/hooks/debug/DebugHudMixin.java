@@ -3,8 +3,11 @@ package org.embeddedt.embeddium.impl.mixin.features.gui.hooks.debug;
 import com.google.common.collect.Lists;
 import org.embeddedt.embeddium.impl.Embeddium;
 import org.embeddedt.embeddium.impl.render.EmbeddiumWorldRenderer;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkVertexWelder;
+import org.embeddedt.embeddium.impl.render.texture.AnimatedTextureUploader;
 import org.embeddedt.embeddium.impl.util.MathUtil;
 import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.components.DebugScreenOverlay;
@@ -38,6 +41,20 @@ public abstract class DebugHudMixin {
             strings.addAll(renderer.getDebugStrings());
         }
 
+        if (Embeddium.options().advanced.enableAnimatedTextureBatching) {
+            strings.add(AnimatedTextureUploader.instance().getDebugString());
+        }
+
+        if (Embeddium.canUseVertexWelding()) {
+            strings.add(ChunkVertexWelder.getDebugString());
+        }
+
+        if (MetricsRegistry.GLOBAL.isEnabled()) {
+            strings.add("");
+            strings.add("Metrics (per second):");
+            strings.addAll(MetricsRegistry.GLOBAL.getOverlayLines());
+        }
+
         for (int i = 0; i < strings.size(); i++) {
             String str = strings.get(i);
 
@@ -0,0 +1,31 @@
+package org.embeddedt.embeddium.impl.mixin.features.model;
+
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockBehaviour;
+import net.minecraft.world.level.block.state.BlockState;
+import org.embeddedt.embeddium.impl.model.IndexedBlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(BlockBehaviour.BlockStateBase.class)
+public abstract class BlockStateBaseMixin implements IndexedBlockState {
+    @Shadow
+    public abstract Block getBlock();
+
+    // Computed on first use, since the states of a block are created before the list which holds them. Threads which
+    // race here compute the same value.
+    @Unique
+    private int embeddium$stateIndex = -1;
+
+    @Override
+    public int embeddium$getStateIndex() {
+        int index = this.embeddium$stateIndex;
+
+        if (index < 0) {
+            this.embeddium$stateIndex = index = this.getBlock().getStateDefinition().getPossibleStates().indexOf((BlockState) (Object) this);
+        }
+
+        return index;
+    }
+}
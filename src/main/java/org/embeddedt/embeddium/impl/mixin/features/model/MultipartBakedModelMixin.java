@@ -1,6 +1,5 @@
 package org.embeddedt.embeddium.impl.mixin.features.model;
 
-import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import net.minecraft.client.renderer.ItemBlockRenderTypes;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.block.model.BakedQuad;
@@ -16,22 +15,28 @@ import net.minecraftforge.client.ChunkRenderTypeSet;
 import net.minecraftforge.client.model.data.ModelData;
 import net.minecraftforge.client.model.data.MultipartModelData;
 import org.apache.commons.lang3.tuple.Pair;
+import org.embeddedt.embeddium.impl.model.IndexedBlockState;
+import org.embeddedt.embeddium.impl.model.quad.cache.BakedGeometry;
+import org.embeddedt.embeddium.impl.model.quad.cache.StateGeometryCache;
+import org.embeddedt.embeddium.impl.model.quad.cache.StaticGeometryModel;
+import org.embeddedt.embeddium.impl.util.collections.DenseIndexCache;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.*;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import java.util.*;
-import java.util.concurrent.locks.StampedLock;
 import java.util.function.Predicate;
 
 @Mixin(MultiPartBakedModel.class)
-public class MultipartBakedModelMixin {
+public class MultipartBakedModelMixin implements StaticGeometryModel {
+    // Many meshing threads look up the same states at once, so these are indexed by the state and never lock
     @Unique
-    private final Map<BlockState, BakedModel[]> stateCacheFast = new Reference2ReferenceOpenHashMap<>();
+    private final DenseIndexCache<BlockState, BakedModel[]> stateCacheFast = new DenseIndexCache<>(IndexedBlockState::getIndex);
     @Unique
-    private final StampedLock lock = new StampedLock();
+    private final StateGeometryCache geometryCache = new StateGeometryCache(IndexedBlockState::getIndex);
 
     @Shadow
     @Final
@@ -76,31 +81,19 @@ public class MultipartBakedModelMixin {
 
     @Unique
     private BakedModel[] getModelComponents(BlockState state) {
-        BakedModel[] models;
-
-        long readStamp = this.lock.readLock();
-        try {
-            models = this.stateCacheFast.get(state);
-        } finally {
-            this.lock.unlockRead(readStamp);
-        }
+        BakedModel[] models = this.stateCacheFast.get(state);
 
         if (models == null) {
-            long writeStamp = this.lock.writeLock();
-            try {
-                List<BakedModel> modelList = new ArrayList<>(this.selectors.size());
+            List<BakedModel> modelList = new ArrayList<>(this.selectors.size());
 
-                for (Pair<Predicate<BlockState>, BakedModel> pair : this.selectors) {
-                    if (pair.getLeft().test(state)) {
-                        modelList.add(pair.getRight());
-                    }
+            for (Pair<Predicate<BlockState>, BakedModel> pair : this.selectors) {
+                if (pair.getLeft().test(state)) {
+                    modelList.add(pair.getRight());
                 }
-
-                models = modelList.toArray(BakedModel[]::new);
-                this.stateCacheFast.put(state, models);
-            } finally {
-                this.lock.unlockWrite(writeStamp);
             }
+
+            models = modelList.toArray(BakedModel[]::new);
+            this.stateCacheFast.put(state, models);
         }
 
         return models;
@@ -177,4 +170,17 @@ public class MultipartBakedModelMixin {
 
         return ChunkRenderTypeSet.union(sets);
     }
+
+    /**
+     * If every submodel is a plain {@link SimpleBakedModel} without custom render types, the quads only depend on which
+     * submodels the state selects, so they can be cached for each state.
+     */
+    @Override
+    public @Nullable BakedGeometry embeddium$getStaticGeometry(BlockState state) {
+        if (this.embeddium$hasCustomRenderTypes || this.getClass() != MultiPartBakedModel.class) {
+            return null;
+        }
+
+        return this.geometryCache.get((BakedModel) (Object) this, state);
+    }
 }
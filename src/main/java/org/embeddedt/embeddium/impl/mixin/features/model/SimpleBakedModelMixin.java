@@ -0,0 +1,34 @@
+package org.embeddedt.embeddium.impl.mixin.features.model;
+
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.client.resources.model.SimpleBakedModel;
+import net.minecraft.world.level.block.state.BlockState;
+import org.embeddedt.embeddium.impl.model.quad.cache.BakedGeometry;
+import org.embeddedt.embeddium.impl.model.quad.cache.StaticGeometryModel;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(SimpleBakedModel.class)
+public class SimpleBakedModelMixin implements StaticGeometryModel {
+    // The quads of a simple model don't depend on the state either, so one copy is shared by all of them. If two
+    // threads bake this at the same time, they will produce identical copies, so it's fine for one to be lost.
+    @Unique
+    private volatile BakedGeometry embeddium$geometry;
+
+    @Override
+    public @Nullable BakedGeometry embeddium$getStaticGeometry(BlockState state) {
+        // Check for the exact class in case someone extends SimpleBakedModel
+        if (this.getClass() != SimpleBakedModel.class) {
+            return null;
+        }
+
+        var geometry = this.embeddium$geometry;
+
+        if (geometry == null) {
+            this.embeddium$geometry = geometry = BakedGeometry.bake((BakedModel) (Object) this, state);
+        }
+
+        return geometry;
+    }
+}
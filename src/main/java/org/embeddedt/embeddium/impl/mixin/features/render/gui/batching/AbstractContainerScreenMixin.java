@@ -0,0 +1,25 @@
+package org.embeddedt.embeddium.impl.mixin.features.render.gui.batching;
+
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
+import org.embeddedt.embeddium.impl.render.immediate.gui.GuiGraphicsExtended;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(AbstractContainerScreen.class)
+public class AbstractContainerScreenMixin {
+    /**
+     * @reason Batch the items, counts, and decorations of all slots together instead of flushing after each element
+     */
+    @Inject(method = "render", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/gui/screens/inventory/AbstractContainerScreen;renderSlot(Lnet/minecraft/client/gui/GuiGraphics;Lnet/minecraft/world/inventory/Slot;)V"))
+    private void beginSlotBatching(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick, CallbackInfo ci) {
+        ((GuiGraphicsExtended) guiGraphics).embeddium$beginBatching();
+    }
+
+    @Inject(method = "render", at = { @At(value = "INVOKE", target = "Lnet/minecraft/client/gui/screens/inventory/AbstractContainerScreen;renderLabels(Lnet/minecraft/client/gui/GuiGraphics;II)V"), @At("RETURN") })
+    private void endSlotBatching(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick, CallbackInfo ci) {
+        ((GuiGraphicsExtended) guiGraphics).embeddium$endBatching();
+    }
+}
@@ -0,0 +1,95 @@
+package org.embeddedt.embeddium.impl.mixin.features.render.gui.batching;
+
+import com.mojang.blaze3d.platform.Lighting;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.renderer.MultiBufferSource;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.render.immediate.gui.GuiBatchRecorder;
+import org.embeddedt.embeddium.impl.render.immediate.gui.GuiGraphicsExtended;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(GuiGraphics.class)
+public abstract class GuiGraphicsMixin implements GuiGraphicsExtended {
+    @Shadow
+    @Final
+    @Mutable
+    private MultiBufferSource.BufferSource bufferSource;
+
+    @Shadow
+    public abstract void flush();
+
+    @Unique
+    private MultiBufferSource.BufferSource embeddium$realBufferSource;
+
+    @Override
+    public void embeddium$beginBatching() {
+        if (this.embeddium$realBufferSource != null || !Embeddium.options().advanced.enableGuiBatching) {
+            return;
+        }
+
+        // Draw anything submitted before batching started, so it stays underneath what we record
+        this.flush();
+
+        GuiBatchRecorder recorder = GuiBatchRecorder.instance();
+        recorder.begin(this.bufferSource);
+
+        // All geometry submitted through this GuiGraphics is redirected into the recorder, and the flushes vanilla
+        // performs after every element become no-ops until batching ends
+        this.embeddium$realBufferSource = this.bufferSource;
+        this.bufferSource = recorder;
+    }
+
+    @Override
+    public void embeddium$endBatching() {
+        if (this.embeddium$realBufferSource == null) {
+            return;
+        }
+
+        this.bufferSource = this.embeddium$realBufferSource;
+        this.embeddium$realBufferSource = null;
+
+        GuiBatchRecorder.instance().end();
+    }
+
+    /**
+     * Anything drawn immediately instead of through the buffer source acts as a barrier, as it would otherwise end up
+     * underneath geometry which was recorded before it.
+     */
+    @Inject(method = {
+            "innerBlit(Lnet/minecraft/resources/ResourceLocation;IIIIIFFFF)V",
+            "innerBlit(Lnet/minecraft/resources/ResourceLocation;IIIIIFFFFFFFF)V",
+            "enableScissor(IIII)V",
+            "disableScissor()V"
+    }, at = @At("HEAD"))
+    private void embeddium$flushBeforeImmediateDraw(CallbackInfo ci) {
+        if (this.embeddium$realBufferSource != null) {
+            GuiBatchRecorder.instance().flush(this.embeddium$realBufferSource);
+        }
+    }
+
+    @Redirect(method = "renderItem", at = @At(value = "INVOKE", target = "Lcom/mojang/blaze3d/platform/Lighting;setupForFlatItems()V"))
+    private void embeddium$recordFlatLighting() {
+        if (this.embeddium$realBufferSource != null) {
+            GuiBatchRecorder.instance().setFlatLighting(true);
+        } else {
+            Lighting.setupForFlatItems();
+        }
+    }
+
+    @Redirect(method = "renderItem", at = @At(value = "INVOKE", target = "Lcom/mojang/blaze3d/platform/Lighting;setupFor3DItems()V"))
+    private void embeddium$recordDefaultLighting() {
+        if (this.embeddium$realBufferSource != null) {
+            GuiBatchRecorder.instance().setFlatLighting(false);
+        } else {
+            Lighting.setupFor3DItems();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.embeddedt.embeddium.impl.mixin.features.textures.animations.batching;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import net.minecraft.client.renderer.texture.SpriteContents;
+import org.embeddedt.embeddium.impl.render.texture.AnimatedSpriteContentsExtended;
+import org.embeddedt.embeddium.impl.render.texture.AnimatedTextureUploader;
+import org.embeddedt.embeddium.impl.render.texture.SpriteFrameCache;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(SpriteContents.class)
+public abstract class SpriteContentsMixin implements AnimatedSpriteContentsExtended {
+    @Shadow
+    @Final
+    NativeImage[] byMipLevel;
+
+    @Shadow
+    public abstract int width();
+
+    @Shadow
+    public abstract int height();
+
+    @Unique
+    private SpriteFrameCache frameCache;
+
+    @Override
+    public SpriteFrameCache embeddium$getFrameCache() {
+        if (this.frameCache == null) {
+            this.frameCache = new SpriteFrameCache(this.width(), this.height(), this.byMipLevel.length);
+        }
+
+        return this.frameCache;
+    }
+
+    @Inject(method = "upload(IIII[Lcom/mojang/blaze3d/platform/NativeImage;)V", at = @At("HEAD"), cancellable = true)
+    private void embeddium$recordUpload(int x, int y, int frameX, int frameY, NativeImage[] images, CallbackInfo ci) {
+        var uploader = AnimatedTextureUploader.instance();
+
+        if (!uploader.isRecording()) {
+            // The texture is being changed behind the cache's back, so it can no longer be used for comparisons
+            if (this.frameCache != null) {
+                this.frameCache.invalidate();
+            }
+
+            return;
+        }
+
+        var cache = this.embeddium$getFrameCache();
+
+        for (int level = 0; level < this.byMipLevel.length; level++) {
+            uploader.record(cache, level, x >> level, y >> level, images[level], frameX >> level, frameY >> level);
+        }
+
+        ci.cancel();
+    }
+
+    @Inject(method = "close", at = @At("HEAD"))
+    private void embeddium$destroyFrameCache(CallbackInfo ci) {
+        if (this.frameCache != null) {
+            this.frameCache.destroy();
+            this.frameCache = null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.embeddedt.embeddium.impl.mixin.features.textures.animations.batching;
+
+import net.minecraft.client.renderer.texture.TextureAtlas;
+import org.embeddedt.embeddium.impl.render.texture.AnimatedTextureUploader;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(TextureAtlas.class)
+public class TextureAtlasMixin {
+    @Inject(method = "cycleAnimationFrames", at = @At("HEAD"))
+    private void beginAnimationUploads(CallbackInfo ci) {
+        AnimatedTextureUploader.instance().begin();
+    }
+
+    @Inject(method = "cycleAnimationFrames", at = @At("RETURN"))
+    private void endAnimationUploads(CallbackInfo ci) {
+        // The atlas is still bound from the start of the method
+        AnimatedTextureUploader.instance().end();
+    }
+}
@@ -0,0 +1,16 @@
+package org.embeddedt.embeddium.impl.mixin.features.textures.animations.batching;
+
+import net.minecraft.client.renderer.texture.TextureManager;
+import org.embeddedt.embeddium.impl.render.texture.AnimatedTextureUploader;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(TextureManager.class)
+public class TextureManagerMixin {
+    @Inject(method = "tick", at = @At("HEAD"))
+    private void beginAnimationTick(CallbackInfo ci) {
+        AnimatedTextureUploader.instance().beginTick();
+    }
+}
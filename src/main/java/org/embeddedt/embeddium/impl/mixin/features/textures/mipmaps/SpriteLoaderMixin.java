@@ -0,0 +1,62 @@
+package org.embeddedt.embeddium.impl.mixin.features.textures.mipmaps;
+
+import com.llamalad7.mixinextras.injector.ModifyReturnValue;
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import com.llamalad7.mixinextras.sugar.Local;
+import com.llamalad7.mixinextras.sugar.Share;
+import com.llamalad7.mixinextras.sugar.ref.LocalLongRef;
+import net.minecraft.client.renderer.texture.SpriteLoader;
+import net.minecraft.resources.ResourceLocation;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.render.texture.ParallelMipmapGenerator;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+@Mixin(SpriteLoader.class)
+public class SpriteLoaderMixin {
+    @Shadow
+    @Final
+    private ResourceLocation location;
+
+    @Inject(method = "stitch", at = @At("HEAD"))
+    private void embeddium$beginStitchTiming(CallbackInfoReturnable<SpriteLoader.Preparations> cir, @Share("stitchStart") LocalLongRef stitchStart) {
+        stitchStart.set(System.nanoTime());
+    }
+
+    /**
+     * Vanilla generates the mip levels of every sprite in a single task. This is skipped, and replaced with parallel
+     * generation once the stitched sprites are returned.
+     */
+    @WrapOperation(method = "stitch", at = @At(value = "INVOKE", target = "Ljava/util/concurrent/CompletableFuture;runAsync(Ljava/lang/Runnable;Ljava/util/concurrent/Executor;)Ljava/util/concurrent/CompletableFuture;"))
+    private CompletableFuture<Void> embeddium$skipSerialMipmapGeneration(Runnable runnable, Executor executor, Operation<CompletableFuture<Void>> original) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @ModifyReturnValue(method = "stitch", at = @At("RETURN"))
+    private SpriteLoader.Preparations embeddium$generateMipmapsInParallel(SpriteLoader.Preparations preparations,
+                                                                        @Local(argsOnly = true) Executor executor,
+                                                                        @Share("stitchStart") LocalLongRef stitchStart) {
+        long stitchNanos = System.nanoTime() - stitchStart.get();
+
+        if (preparations.mipLevel() <= 0) {
+            Embeddium.logger().info("Atlas {}: stitched {} sprites in {} ms", this.location,
+                    preparations.regions().size(), stitchNanos / 1_000_000L);
+
+            return preparations;
+        }
+
+        var readyForUpload = ParallelMipmapGenerator.generate(this.location, preparations.regions().values(),
+                preparations.mipLevel(), executor, stitchNanos);
+
+        return new SpriteLoader.Preparations(preparations.width(), preparations.height(), preparations.mipLevel(),
+                preparations.missing(), preparations.regions(), readyForUpload);
+    }
+}
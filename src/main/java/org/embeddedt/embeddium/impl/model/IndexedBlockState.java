@@ -0,0 +1,18 @@
+package org.embeddedt.embeddium.impl.model;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Gives every block state a dense index within the states of its block, so that values computed for each state can be
+ * stored in an array instead of a map.
+ */
+public interface IndexedBlockState {
+    /**
+     * @return The position of this state within {@link net.minecraft.world.level.block.state.StateDefinition#getPossibleStates()}
+     */
+    int embeddium$getStateIndex();
+
+    static int getIndex(BlockState state) {
+        return ((IndexedBlockState) state).embeddium$getStateIndex();
+    }
+}
@@ -1,49 +1,96 @@
 package org.embeddedt.embeddium.impl.model;
 
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.Short2ReferenceOpenHashMap;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.SectionPos;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
 import net.minecraftforge.client.model.data.ModelData;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
 import java.util.Map;
 
 public class ModelDataSnapshotter {
+    private static final Counter REUSED_SNAPSHOTS = MetricsRegistry.GLOBAL.counter("model_data_snapshotter.reused");
+
     /**
      * Retrieve all needed model data for the given subchunk.
      * @param world the client world to retrieve data for
      * @param origin the origin of the subchunk
-     * @return a map of all model data contained within this subchunk
+     * @param previous the snapshot taken the last time this subchunk was built, if any
+     * @return a snapshot of all model data contained within this subchunk
      */
-    public static Map<BlockPos, ModelData> getModelDataForSection(ClientLevel world, SectionPos origin) {
-        Map<BlockPos, ModelData> forgeMap = world.getModelDataManager().getAt(origin.chunk());
+    public static SectionModelData getModelDataForSection(ClientLevel world, SectionPos origin, @Nullable SectionModelData previous) {
+        return snapshot(world.getModelDataManager().getAt(origin.chunk()), origin, previous);
+    }
 
+    /**
+     * Creates a snapshot of the model data from the given chunk which is contained within the subchunk. If the
+     * contents would be identical to the previous snapshot, that is returned instead.
+     */
+    public static SectionModelData snapshot(Map<BlockPos, ModelData> forgeMap, SectionPos origin, @Nullable SectionModelData previous) {
         // Fast path if there is no model data in this chunk
         if(forgeMap.isEmpty())
-            return Collections.emptyMap();
-
-        Object2ObjectOpenHashMap<BlockPos, ModelData> ourMap = new Object2ObjectOpenHashMap<>();
+            return SectionModelData.EMPTY;
 
         BoundingBox volume = new BoundingBox(origin.minBlockX(), origin.minBlockY(), origin.minBlockZ(), origin.maxBlockX(), origin.maxBlockY(), origin.maxBlockZ());
 
+        // Forge only replaces the model data of a block when it is asked to refresh it, so in the common case where
+        // nothing in the subchunk was refreshed, the previous snapshot holds the very same instances
+        if(previous != null && isUnchanged(forgeMap, volume, previous)) {
+            REUSED_SNAPSHOTS.increment();
+            return previous;
+        }
+
+        Short2ReferenceOpenHashMap<ModelData> ourData = null;
+
+        for(Map.Entry<BlockPos, ModelData> dataEntry : forgeMap.entrySet()) {
+            ModelData data = dataEntry.getValue();
+
+            if(data == null || data == ModelData.EMPTY) {
+                // There is no reason to populate the snapshot with empty model data, because
+                // missing entries are returned as the empty instance anyway
+                continue;
+            }
+
+            BlockPos key = dataEntry.getKey();
+
+            if(volume.isInside(key)) {
+                if(ourData == null) {
+                    ourData = new Short2ReferenceOpenHashMap<>();
+                }
+
+                ourData.put((short) SectionModelData.getLocalIndex(key), data);
+            }
+        }
+
+        return ourData == null ? SectionModelData.EMPTY : SectionModelData.of(ourData);
+    }
+
+    private static boolean isUnchanged(Map<BlockPos, ModelData> forgeMap, BoundingBox volume, SectionModelData previous) {
+        int count = 0;
+
         for(Map.Entry<BlockPos, ModelData> dataEntry : forgeMap.entrySet()) {
             ModelData data = dataEntry.getValue();
 
             if(data == null || data == ModelData.EMPTY) {
-                // There is no reason to populate the map with empty model data, because our
-                // getOrDefault call will return the empty instance by default anyway
                 continue;
             }
 
             BlockPos key = dataEntry.getKey();
 
             if(volume.isInside(key)) {
-                ourMap.put(key, data);
+                if(previous.getAt(SectionModelData.getLocalIndex(key)) != data) {
+                    return false;
+                }
+
+                count++;
             }
         }
 
-        return ourMap.isEmpty() ? Collections.emptyMap() : ourMap;
+        // Every entry matched, so the only remaining difference could be entries which have since been removed
+        return count == previous.size();
     }
 }
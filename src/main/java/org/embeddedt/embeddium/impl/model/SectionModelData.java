@@ -0,0 +1,89 @@
+package org.embeddedt.embeddium.impl.model;
+
+import it.unimi.dsi.fastutil.shorts.Short2ReferenceMap;
+import it.unimi.dsi.fastutil.shorts.Short2ReferenceOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraftforge.client.model.data.ModelData;
+import org.embeddedt.embeddium.impl.world.WorldSlice;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable snapshot of the model data within a section, keyed by the local index of each block. Blocks without
+ * model data are given {@link ModelData#EMPTY}.
+ * <p>
+ * Most sections only have model data for a few blocks, so the entries are kept in an open-addressed table. Once enough
+ * of the section has model data that an array covering every block would be smaller, that is used instead.
+ */
+public final class SectionModelData {
+    public static final SectionModelData EMPTY = new SectionModelData(null, null, 0);
+
+    static final int SECTION_VOLUME = 16 * 16 * 16;
+
+    // A table with this many entries takes up about as much memory as an array covering the whole section
+    private static final int DENSE_THRESHOLD = SECTION_VOLUME / 4;
+
+    private final ModelData @Nullable[] dense;
+    private final @Nullable Short2ReferenceOpenHashMap<ModelData> sparse;
+    private final int count;
+
+    private SectionModelData(ModelData @Nullable[] dense, @Nullable Short2ReferenceOpenHashMap<ModelData> sparse, int count) {
+        this.dense = dense;
+        this.sparse = sparse;
+        this.count = count;
+    }
+
+    /**
+     * Creates a snapshot from the given model data, keyed by local index. The table is owned by the snapshot afterward,
+     * and must not be modified.
+     */
+    static SectionModelData of(Short2ReferenceOpenHashMap<ModelData> entries) {
+        if (entries.isEmpty()) {
+            return EMPTY;
+        }
+
+        if (entries.size() < DENSE_THRESHOLD) {
+            entries.trim();
+
+            return new SectionModelData(null, entries, entries.size());
+        }
+
+        ModelData[] dense = new ModelData[SECTION_VOLUME];
+
+        for (Short2ReferenceMap.Entry<ModelData> entry : entries.short2ReferenceEntrySet()) {
+            dense[entry.getShortKey()] = entry.getValue();
+        }
+
+        return new SectionModelData(dense, null, entries.size());
+    }
+
+    public ModelData get(BlockPos pos) {
+        ModelData data = this.getAt(getLocalIndex(pos));
+
+        return data != null ? data : ModelData.EMPTY;
+    }
+
+    @Nullable ModelData getAt(int index) {
+        if (this.dense != null) {
+            return this.dense[index];
+        } else if (this.sparse != null) {
+            return this.sparse.get((short) index);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The number of blocks in the section with model data
+     */
+    public int size() {
+        return this.count;
+    }
+
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    static int getLocalIndex(BlockPos pos) {
+        return WorldSlice.getLocalBlockIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+}
@@ -0,0 +1,91 @@
+package org.embeddedt.embeddium.impl.model.quad.cache;
+
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.core.Direction;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.SingleThreadedRandomSource;
+import net.minecraftforge.client.model.data.ModelData;
+import org.embeddedt.embeddium.impl.util.DirectionUtil;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * The quads of a {@link StaticGeometryModel} for one block state, copied out of the model once so that the block
+ * renderer doesn't need to query the model again for every block. Along with the quads, this stores which faces can be
+ * reoriented, which would otherwise be found by checking every quad each time.
+ * <p>
+ * Instances are immutable, and can be shared between threads.
+ */
+public final class BakedGeometry {
+    private static final Counter BAKED = MetricsRegistry.GLOBAL.counter("block_renderer.quad_cache.misses");
+
+    // The quads which are not culled by any face are stored after those of each direction
+    private static final int UNCULLED = DirectionUtil.ALL_DIRECTIONS.length;
+
+    private final List<BakedQuad>[] quads;
+
+    // Bit set of the faces where every quad uses ambient occlusion
+    private final int ambientOcclusionFaces;
+
+    private BakedGeometry(List<BakedQuad>[] quads, int ambientOcclusionFaces) {
+        this.quads = quads;
+        this.ambientOcclusionFaces = ambientOcclusionFaces;
+    }
+
+    /**
+     * Copies the quads of a model for the given state. The model must not depend on the random source, model data, or
+     * render type which are passed to it.
+     */
+    @SuppressWarnings("unchecked")
+    public static BakedGeometry bake(BakedModel model, @Nullable BlockState state) {
+        RandomSource random = new SingleThreadedRandomSource(42L);
+
+        List<BakedQuad>[] quads = new List[UNCULLED + 1];
+        int ambientOcclusionFaces = 0;
+
+        for (int i = 0; i < quads.length; i++) {
+            Direction face = i == UNCULLED ? null : DirectionUtil.ALL_DIRECTIONS[i];
+
+            quads[i] = List.copyOf(model.getQuads(state, face, random, ModelData.EMPTY, null));
+
+            if (allHaveAmbientOcclusion(quads[i])) {
+                ambientOcclusionFaces |= 1 << i;
+            }
+        }
+
+        BAKED.increment();
+
+        return new BakedGeometry(quads, ambientOcclusionFaces);
+    }
+
+    private static int getIndex(@Nullable Direction face) {
+        return face == null ? UNCULLED : face.ordinal();
+    }
+
+    public List<BakedQuad> getQuads(@Nullable Direction face) {
+        return this.quads[getIndex(face)];
+    }
+
+    /**
+     * @return True if every quad on the given face uses ambient occlusion
+     */
+    public boolean hasAmbientOcclusion(@Nullable Direction face) {
+        return (this.ambientOcclusionFaces & (1 << getIndex(face))) != 0;
+    }
+
+    public static boolean allHaveAmbientOcclusion(List<BakedQuad> quads) {
+        // noinspection ForLoopReplaceableByForEach
+        for (int i = 0, quadsSize = quads.size(); i < quadsSize; i++) {
+            if (!quads.get(i).hasAmbientOcclusion()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
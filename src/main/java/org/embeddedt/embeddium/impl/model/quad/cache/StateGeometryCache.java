@@ -0,0 +1,34 @@
+package org.embeddedt.embeddium.impl.model.quad.cache;
+
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.world.level.block.state.BlockState;
+import org.embeddedt.embeddium.impl.util.collections.DenseIndexCache;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * The {@link BakedGeometry} of one model for each block state which it has been rendered with, for models whose quads
+ * only depend on the state. Many meshing threads look up the same states at once, so this is indexed by the state and
+ * never locks.
+ */
+public final class StateGeometryCache {
+    private final DenseIndexCache<BlockState, BakedGeometry> cache;
+
+    /**
+     * @param indexer Gives each state a small index which is unique among the states the model is rendered with
+     */
+    public StateGeometryCache(ToIntFunction<BlockState> indexer) {
+        this.cache = new DenseIndexCache<>(indexer);
+    }
+
+    public BakedGeometry get(BakedModel model, BlockState state) {
+        BakedGeometry geometry = this.cache.get(state);
+
+        if (geometry == null) {
+            geometry = BakedGeometry.bake(model, state);
+            this.cache.put(state, geometry);
+        }
+
+        return geometry;
+    }
+}
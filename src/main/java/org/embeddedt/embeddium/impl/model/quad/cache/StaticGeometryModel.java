@@ -0,0 +1,17 @@
+package org.embeddedt.embeddium.impl.model.quad.cache;
+
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by models whose quads may only depend on the block state, and not on the random seed, model data, or
+ * render type which are passed to them. Each model keeps the {@link BakedGeometry} of the states which have been
+ * rendered, so the cache is thrown away along with the models whenever they are baked again.
+ */
+public interface StaticGeometryModel {
+    /**
+     * @return The quads of this model for the given state, or null if this instance can't guarantee that they are
+     * static (for instance, because it is a subclass which overrides getQuads)
+     */
+    @Nullable BakedGeometry embeddium$getStaticGeometry(BlockState state);
+}
@@ -21,6 +21,7 @@ import org.embeddedt.embeddium.impl.render.chunk.map.ChunkTrackerHolder;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
 import org.embeddedt.embeddium.impl.render.viewport.Viewport;
 import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import org.embeddedt.embeddium.impl.world.WorldRendererExtended;
 import net.minecraft.client.Camera;
 import net.minecraft.client.Minecraft;
@@ -45,8 +46,13 @@ import net.minecraft.world.phys.Vec3;
 
 import net.minecraftforge.common.extensions.IForgeBlockEntity;
 import net.minecraftforge.fml.loading.FMLLoader;
+import net.minecraftforge.fml.loading.FMLPaths;
 import org.joml.Matrix4f;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.Consumer;
 
@@ -132,9 +138,33 @@ public class EmbeddiumWorldRenderer {
             this.renderSectionManager = null;
         }
 
+        if (MetricsRegistry.GLOBAL.isEnabled()) {
+            exportMetrics();
+        }
+
         this.world = null;
     }
 
+    /**
+     * Writes the recent history of all metrics to a CSV file, so that it can be looked at after leaving the world.
+     */
+    private static void exportMetrics() {
+        var name = "metrics-" + DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss").format(LocalDateTime.now()) + ".csv";
+        var path = FMLPaths.GAMEDIR.get().resolve("embeddium").resolve("metrics").resolve(name);
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            try (var writer = Files.newBufferedWriter(path)) {
+                MetricsRegistry.GLOBAL.writeCsv(writer);
+            }
+
+            Embeddium.logger().info("Exported renderer metrics to {}", path);
+        } catch (IOException e) {
+            Embeddium.logger().warn("Failed to export renderer metrics", e);
+        }
+    }
+
     /**
      * @return The number of chunk renders which are visible in the current camera's frustum
      */
@@ -168,6 +198,7 @@ public class EmbeddiumWorldRenderer {
                              boolean spectator,
                              boolean updateChunksImmediately) {
         NativeBuffer.reclaim(false);
+        MetricsRegistry.GLOBAL.tick(System.nanoTime());
 
         this.processChunkEvents();
 
@@ -226,7 +257,7 @@ public class EmbeddiumWorldRenderer {
         if (updateChunksImmediately) {
             profiler.popPush("chunk_upload_immediately");
 
-            this.renderSectionManager.uploadChunks();
+            this.renderSectionManager.uploadChunks(true);
         }
 
         profiler.popPush("chunk_render_tick");
@@ -275,6 +306,8 @@ public class EmbeddiumWorldRenderer {
 
         this.renderDistance = this.client.options.getEffectiveRenderDistance();
 
+        MetricsRegistry.GLOBAL.setEnabled(Embeddium.options().advanced.enableMetricsOverlay);
+
         this.renderSectionManager = new RenderSectionManager(this.world, this.renderDistance, commandList);
 
         var tracker = ChunkTrackerHolder.get(this.world);
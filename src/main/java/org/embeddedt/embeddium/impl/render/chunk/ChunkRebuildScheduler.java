@@ -0,0 +1,67 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Takes sections from the rebuild lists which were collected while finding the visible sections, and decides in which
+ * order their jobs are submitted and which budget each of them counts against. The renderer and the offline trace
+ * replayer both schedule through this, so that a replay follows the same rules as the game.
+ */
+public final class ChunkRebuildScheduler {
+    /**
+     * A destination for jobs, which limits how many of them can be submitted.
+     */
+    public interface JobSink {
+        /**
+         * @return True if another job can be submitted
+         */
+        boolean canOffer();
+
+        /**
+         * Submits a job for the given section, which has the given update pending.
+         */
+        void submit(RenderSection section, ChunkUpdateType type);
+    }
+
+    private ChunkRebuildScheduler() {
+
+    }
+
+    /**
+     * Submits jobs for the sections in the rebuild lists. Important updates always go to the blocking sink, and the
+     * others only do when everything needs to be updated immediately.
+     *
+     * @param rebuildLists The sections waiting for each type of update, nearest first
+     * @param blocking The sink for jobs which must finish before the frame is rendered
+     * @param deferredRebuilds The sink for rebuilds which may finish during a later frame
+     * @param deferredSorts The sink for sorts which may finish during a later frame
+     * @param updateImmediately True if every job should be submitted to the blocking sink
+     */
+    public static void submitAll(Map<ChunkUpdateType, ArrayDeque<RenderSection>> rebuildLists, JobSink blocking,
+                                 JobSink deferredRebuilds, JobSink deferredSorts, boolean updateImmediately) {
+        submit(rebuildLists.get(ChunkUpdateType.IMPORTANT_REBUILD), ChunkUpdateType.IMPORTANT_REBUILD, blocking);
+        submit(rebuildLists.get(ChunkUpdateType.IMPORTANT_SORT), ChunkUpdateType.IMPORTANT_SORT, blocking);
+        submit(rebuildLists.get(ChunkUpdateType.REBUILD), ChunkUpdateType.REBUILD, updateImmediately ? blocking : deferredRebuilds);
+        submit(rebuildLists.get(ChunkUpdateType.INITIAL_BUILD), ChunkUpdateType.INITIAL_BUILD, updateImmediately ? blocking : deferredRebuilds);
+        submit(rebuildLists.get(ChunkUpdateType.SORT), ChunkUpdateType.SORT, updateImmediately ? blocking : deferredSorts);
+    }
+
+    private static void submit(ArrayDeque<RenderSection> queue, ChunkUpdateType type, JobSink sink) {
+        while (!queue.isEmpty() && sink.canOffer()) {
+            RenderSection section = queue.remove();
+
+            if (section.isDisposed()) {
+                continue;
+            }
+
+            // Because Sodium creates the update queue on the frame before it's processed,
+            // the update type might no longer match. Filter out such a scenario.
+            if (section.getPendingUpdate() != type) {
+                continue;
+            }
+
+            sink.submit(section, type);
+        }
+    }
+}
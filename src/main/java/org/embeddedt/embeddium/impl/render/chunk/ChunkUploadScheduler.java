@@ -0,0 +1,252 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceLinkedOpenHashMap;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the results of chunk build tasks until they can be uploaded, and limits how much data is uploaded in each
+ * frame. Results for sections which are visible and close to the camera are uploaded first, and everything which
+ * doesn't fit into the budget of a frame is kept for the next one. Results of important updates, which the player
+ * is waiting to see, are always uploaded straight away and don't count towards the budget.
+ * <p>
+ * Results which are made obsolete by a newer result for the same section, or whose section was disposed while they
+ * were waiting, are deleted as soon as they are found.
+ */
+public class ChunkUploadScheduler {
+    /**
+     * The number of results which are uploaded together before checking the time budget again.
+     */
+    private static final int UPLOAD_GROUP_SIZE = 16;
+
+    private final LongSupplier clock;
+
+    private ArrayList<ChunkBuildOutput> pending = new ArrayList<>();
+
+    private long lastUploadedBytes, lastDeferredBytes;
+    private int lastUploadedCount, lastDeferredCount;
+
+    public ChunkUploadScheduler() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param clock The source of the current time in nanoseconds, which is checked against the time budget
+     */
+    ChunkUploadScheduler(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public void enqueue(Collection<ChunkBuildOutput> results) {
+        this.pending.addAll(results);
+    }
+
+    /**
+     * Uploads as many of the pending results as the budget allows.
+     *
+     * @param uploader The function which uploads a group of results, which are deleted after it returns
+     * @param cameraX The X coordinate of the camera
+     * @param cameraY The Y coordinate of the camera
+     * @param cameraZ The Z coordinate of the camera
+     * @param visibleFrame The frame which sections must have been last visible in to be considered visible
+     * @param byteBudget The maximum number of bytes to upload, not counting important results, or zero if there is no
+     *                   limit
+     * @param nanoBudget The maximum time to spend uploading, not counting important results, or zero if there is no
+     *                   limit
+     * @return True if any results were uploaded
+     */
+    public boolean upload(Consumer<List<ChunkBuildOutput>> uploader, float cameraX, float cameraY, float cameraZ,
+                          int visibleFrame, long byteBudget, long nanoBudget) {
+        if (this.pending.isEmpty()) {
+            this.lastUploadedBytes = 0;
+            this.lastUploadedCount = 0;
+            this.lastDeferredBytes = 0;
+            this.lastDeferredCount = 0;
+
+            return false;
+        }
+
+        var results = removeObsoleteResults(this.pending);
+
+        // Important results are uploaded first and in full, since the frame is waiting for them
+        var important = new ArrayList<ChunkBuildOutput>();
+        var deferrable = new ArrayList<ChunkBuildOutput>(results.size());
+
+        for (var result : results) {
+            (result.isImportant() ? important : deferrable).add(result);
+        }
+
+        long importantBytes = 0;
+
+        for (int start = 0; start < important.size(); start += UPLOAD_GROUP_SIZE) {
+            var group = important.subList(start, Math.min(important.size(), start + UPLOAD_GROUP_SIZE));
+
+            for (var result : group) {
+                importantBytes += getUploadSize(result);
+            }
+
+            uploadGroup(uploader, group);
+        }
+
+        results = deferrable;
+
+        long startNanos = this.clock.getAsLong();
+
+        // Sections which are not visible are only uploaded after all visible sections
+        results.sort(Comparator.<ChunkBuildOutput>comparingInt(result -> result.render.getLastVisibleFrame() == visibleFrame ? 0 : 1)
+                .thenComparingDouble(result -> result.render.getSquaredDistance(cameraX, cameraY, cameraZ)));
+
+        long uploadedBytes = 0;
+        int uploaded = 0;
+
+        while (uploaded < results.size()) {
+            var group = new ArrayList<ChunkBuildOutput>(UPLOAD_GROUP_SIZE);
+
+            // The first result is always uploaded, so that progress is made even if it is larger than the budget
+            while (uploaded + group.size() < results.size() && group.size() < UPLOAD_GROUP_SIZE) {
+                var result = results.get(uploaded + group.size());
+                long size = getUploadSize(result);
+
+                if (byteBudget > 0 && uploadedBytes > 0 && uploadedBytes + size > byteBudget) {
+                    break;
+                }
+
+                group.add(result);
+                uploadedBytes += size;
+            }
+
+            if (group.isEmpty()) {
+                break;
+            }
+
+            uploadGroup(uploader, group);
+
+            uploaded += group.size();
+
+            if (nanoBudget > 0 && (this.clock.getAsLong() - startNanos) > nanoBudget) {
+                break;
+            }
+        }
+
+        var remaining = new ArrayList<>(results.subList(uploaded, results.size()));
+
+        long deferredBytes = 0;
+
+        for (var result : remaining) {
+            deferredBytes += getUploadSize(result);
+        }
+
+        this.pending = remaining;
+
+        this.lastUploadedBytes = importantBytes + uploadedBytes;
+        this.lastUploadedCount = important.size() + uploaded;
+        this.lastDeferredBytes = deferredBytes;
+        this.lastDeferredCount = remaining.size();
+
+        return this.lastUploadedCount > 0;
+    }
+
+    private static void uploadGroup(Consumer<List<ChunkBuildOutput>> uploader, List<ChunkBuildOutput> group) {
+        uploader.accept(group);
+
+        for (var result : group) {
+            result.delete();
+        }
+    }
+
+    /**
+     * Keeps only the newest result for each section, and deletes every other result.
+     */
+    private static ArrayList<ChunkBuildOutput> removeObsoleteResults(ArrayList<ChunkBuildOutput> outputs) {
+        var map = new Reference2ReferenceLinkedOpenHashMap<RenderSection, ChunkBuildOutput>();
+
+        for (var output : outputs) {
+            if (output.render.isDisposed() || output.render.getLastBuiltFrame() > output.buildTime) {
+                output.delete();
+                continue;
+            }
+
+            var render = output.render;
+            var previous = map.get(render);
+
+            if (previous == null) {
+                map.put(render, output);
+            } else if (isReplacedBy(previous, output)) {
+                // The newer result also contains the change which made the older one important
+                output.setImportant(output.isImportant() || previous.isImportant());
+
+                previous.delete();
+                map.put(render, output);
+            } else {
+                output.delete();
+            }
+        }
+
+        return new ArrayList<>(map.values());
+    }
+
+    private static boolean isReplacedBy(ChunkBuildOutput previous, ChunkBuildOutput next) {
+        // A re-sort only replaces the index buffer, so it can't replace a full rebuild which is still waiting to be
+        // uploaded
+        if (next.isIndexOnlyUpload() && !previous.isIndexOnlyUpload()) {
+            return false;
+        }
+
+        return previous.buildTime < next.buildTime;
+    }
+
+    private static long getUploadSize(ChunkBuildOutput result) {
+        long size = 0;
+
+        for (BuiltSectionMeshParts mesh : result.meshes.values()) {
+            if (!result.isIndexOnlyUpload() && mesh.getVertexData() != null) {
+                size += mesh.getVertexDataLength();
+            }
+
+            if (mesh.getIndexData() != null) {
+                size += mesh.getIndexData().getLength();
+            }
+        }
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return this.pending.isEmpty();
+    }
+
+    public int size() {
+        return this.pending.size();
+    }
+
+    /**
+     * @return The number of bytes which were left waiting for a later frame by the last upload
+     */
+    public long getPendingBytes() {
+        return this.lastDeferredBytes;
+    }
+
+    /**
+     * Deletes every pending result without uploading it.
+     */
+    public void clear() {
+        for (var result : this.pending) {
+            result.delete();
+        }
+
+        this.pending.clear();
+    }
+
+    public String getDebugString() {
+        return String.format("Chunk Uploads: %d KiB (%d) | Deferred: %d KiB (%d)",
+                this.lastUploadedBytes / 1024, this.lastUploadedCount,
+                this.lastDeferredBytes / 1024, this.lastDeferredCount);
+    }
+}
@@ -1,17 +1,21 @@
 package org.embeddedt.embeddium.impl.render.chunk;
 
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import org.embeddedt.embeddium.impl.Embeddium;
 import org.embeddedt.embeddium.impl.gl.attribute.GlVertexAttributeBinding;
 import org.embeddedt.embeddium.impl.gl.attribute.GlVertexFormat;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferTarget;
 import org.embeddedt.embeddium.impl.gl.device.CommandList;
 import org.embeddedt.embeddium.impl.gl.device.DrawCommandList;
 import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawIndirectBuffer;
 import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
 import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
 import org.embeddedt.embeddium.impl.gl.tessellation.GlPrimitiveType;
 import org.embeddedt.embeddium.impl.gl.tessellation.GlTessellation;
 import org.embeddedt.embeddium.impl.gl.tessellation.TessellationBinding;
 import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
+import org.embeddedt.embeddium.impl.render.chunk.data.SectionDrawCommandCache;
 import org.embeddedt.embeddium.impl.render.chunk.data.SectionRenderDataStorage;
 import org.embeddedt.embeddium.impl.render.chunk.data.SectionRenderDataUnsafe;
 import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderListIterable;
@@ -25,25 +29,44 @@ import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
 import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
 import org.embeddedt.embeddium.impl.util.BitwiseMath;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.LatencyHistogram;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import org.lwjgl.system.MemoryUtil;
 import java.util.Iterator;
 
 public class DefaultChunkRenderer extends ShaderChunkRenderer {
-    private final MultiDrawBatch batch;
+    private static final LatencyHistogram RENDER_TIME = MetricsRegistry.GLOBAL.histogram("chunk_renderer.render");
+    private static final Counter DRAWN_REGIONS = MetricsRegistry.GLOBAL.counter("chunk_renderer.regions");
 
     private final SharedQuadIndexBuffer sharedIndexBuffer;
 
     private final GlVertexAttributeBinding[] vertexAttributeBindings;
 
+    private final boolean useIndirectDraws;
+
     private boolean isIndexedPass;
 
+    // The tessellation which is currently bound, which is kept bound for as long as the following regions use it too
+    private GlTessellation activeTessellation;
+    private DrawCommandList activeDrawCommandList;
+
+    // The number of regions drawn and vertex arrays bound by the last frame of each render pass
+    private final Reference2ObjectOpenHashMap<TerrainRenderPass, int[]> passStats = new Reference2ObjectOpenHashMap<>();
+    private int drawnRegionCount, tessellationBindCount;
+
     public DefaultChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
+        this(device, vertexType, Embeddium.options().advanced.useIndirectDraws && MultiDrawIndirectBuffer.isSupported(device));
+    }
+
+    DefaultChunkRenderer(RenderDevice device, ChunkVertexType vertexType, boolean useIndirectDraws) {
         super(device, vertexType);
 
-        this.batch = new MultiDrawBatch((ModelQuadFacing.COUNT * RenderRegion.REGION_SIZE) + 1);
         this.sharedIndexBuffer = new SharedQuadIndexBuffer(device.createCommandList(), SharedQuadIndexBuffer.IndexType.INTEGER);
 
         this.vertexAttributeBindings = getBindingsForType();
+
+        this.useIndirectDraws = useIndirectDraws;
     }
 
     @Override
@@ -52,6 +75,8 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
                        ChunkRenderListIterable renderLists,
                        TerrainRenderPass renderPass,
                        CameraTransform camera) {
+        long startTime = RENDER_TIME.startTime();
+
         super.begin(renderPass);
 
         boolean useBlockFaceCulling = Embeddium.options().performance.useBlockFaceCulling;
@@ -62,6 +87,44 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
 
         Iterator<ChunkRenderList> iterator = renderLists.iterator(renderPass.isReverseOrder());
 
+        this.drawnRegionCount = 0;
+        this.tessellationBindCount = 0;
+
+        this.renderRegions(commandList, iterator, renderPass, camera, shader::setRegionOffset, useBlockFaceCulling);
+
+        var stats = this.passStats.computeIfAbsent(renderPass, pass -> new int[2]);
+        stats[0] = this.drawnRegionCount;
+        stats[1] = this.tessellationBindCount;
+
+        DRAWN_REGIONS.add(this.drawnRegionCount);
+
+        super.end(renderPass);
+
+        RENDER_TIME.recordSince(startTime);
+    }
+
+    /**
+     * Receives the offset of each region from the camera before the region is drawn.
+     */
+    @FunctionalInterface
+    interface RegionOffsetUniform {
+        void set(float x, float y, float z);
+    }
+
+    /**
+     * Draws the visible sections of each region in the render lists. This is everything {@link #render} does once the
+     * shader is set up.
+     * <p>
+     * With indirect draws, the commands of each region are kept on the graphics device by its
+     * {@link SectionDrawCommandCache}, so they are only uploaded again after they were rebuilt. Otherwise, they are
+     * passed to the draw call directly.
+     */
+    void renderRegions(CommandList commandList,
+                       Iterator<ChunkRenderList> iterator,
+                       TerrainRenderPass renderPass,
+                       CameraTransform camera,
+                       RegionOffsetUniform regionOffset,
+                       boolean useBlockFaceCulling) {
         this.isIndexedPass = renderPass.isSorted();
 
         while (iterator.hasNext()) {
@@ -74,35 +137,118 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
                 continue;
             }
 
-            fillCommandBuffer(this.batch, region, storage, renderList, camera, renderPass, useBlockFaceCulling);
+            var commands = prepareDrawCommands(region, storage, renderList, camera, renderPass, this.isIndexedPass, useBlockFaceCulling);
+            var batch = commands.getBatch();
+            var weldedBatch = commands.getWeldedBatch();
 
-            if (this.batch.isEmpty()) {
+            if (batch.isEmpty() && weldedBatch.isEmpty()) {
                 continue;
             }
 
+            setModelMatrixUniforms(regionOffset, region, camera);
+
+            var indirectCommands = this.useIndirectDraws ? commands.getIndirectCommands(commandList) : null;
 
+            if (!batch.isEmpty()) {
+                if (!this.isIndexedPass) {
+                    this.sharedIndexBuffer.ensureCapacity(commandList, commands.getMaxElementCount());
+                }
 
-            if (!this.isIndexedPass) {
-                this.sharedIndexBuffer.ensureCapacity(commandList, this.batch.getIndexBufferSize());
+                var tessellation = this.prepareTessellation(commandList, region, this.isIndexedPass);
+                var drawCommandList = this.beginTessellating(commandList, tessellation);
+
+                if (indirectCommands != null) {
+                    drawCommandList.multiDrawElementsIndirect(indirectCommands, 0, batch.size(), GlIndexType.UNSIGNED_INT);
+                } else {
+                    drawCommandList.multiDrawElementsBaseVertex(batch, GlIndexType.UNSIGNED_INT);
+                }
             }
 
-            var tessellation = this.prepareTessellation(commandList, region);
+            if (!weldedBatch.isEmpty()) {
+                var tessellation = this.prepareTessellation(commandList, region, true);
+                var drawCommandList = this.beginTessellating(commandList, tessellation);
 
-            setModelMatrixUniforms(shader, region, camera);
-            executeDrawBatch(commandList, tessellation, this.batch);
+                if (indirectCommands != null) {
+                    drawCommandList.multiDrawElementsIndirect(indirectCommands, batch.size(), weldedBatch.size(), GlIndexType.UNSIGNED_SHORT);
+                } else {
+                    drawCommandList.multiDrawElementsBaseVertex(weldedBatch, GlIndexType.UNSIGNED_SHORT);
+                }
+            }
         }
 
-        super.end(renderPass);
+        this.endTessellating();
+
+        if (this.useIndirectDraws) {
+            // Don't leave the commands bound for other renderers, which don't expect an indirect buffer
+            commandList.unbindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER);
+        }
+    }
+
+    /**
+     * Returns the draw commands for the visible sections of a region, re-using the commands from a previous frame if
+     * nothing which they depend on has changed since.
+     */
+    static SectionDrawCommandCache prepareDrawCommands(RenderRegion region,
+                                                       SectionRenderDataStorage storage,
+                                                       ChunkRenderList renderList,
+                                                       CameraTransform camera,
+                                                       TerrainRenderPass pass,
+                                                       boolean indexed,
+                                                       boolean useBlockFaceCulling) {
+        var cache = storage.getDrawCommandCache();
+
+        // The visible faces only depend on the position of the camera, and only if they are being culled
+        boolean cullFaces = useBlockFaceCulling && !pass.isSorted();
+
+        int visibleFacesKey = cullFaces ? getVisibleFacesKey(camera, region) : 0;
+
+        int flags = (cullFaces ? 1 : 0) | (indexed ? 2 : 0) | (pass.isReverseOrder() ? 4 : 0);
+        int version = storage.getVersion();
+
+        if (!cache.isValid(renderList, version, visibleFacesKey, flags)) {
+            cache.prepare(renderList);
+            fillCommandBuffer(cache.getBatch(), cache.getWeldedBatch(), region, storage, renderList, camera, pass, indexed, useBlockFaceCulling);
+            cache.update(renderList, version, visibleFacesKey, flags);
+        }
+
+        return cache;
+    }
+
+    /**
+     * Returns a key which only changes when the camera crosses one of the planes that
+     * {@link #getVisibleFaces(int, int, int, int, int, int)} tests against for the sections of the region. Two camera
+     * positions with the same key see the same faces of every section in the region.
+     */
+    static int getVisibleFacesKey(CameraTransform camera, RenderRegion region) {
+        int keyX = getVisibleFacesKey(camera.intX, region.getChunkX(), RenderRegion.REGION_WIDTH);
+        int keyY = getVisibleFacesKey(camera.intY, region.getChunkY(), RenderRegion.REGION_HEIGHT);
+        int keyZ = getVisibleFacesKey(camera.intZ, region.getChunkZ(), RenderRegion.REGION_LENGTH);
+
+        return keyX | (keyY << 8) | (keyZ << 16);
+    }
+
+    private static int getVisibleFacesKey(int origin, int regionChunkPos, int regionSize) {
+        int offset = origin - (regionChunkPos << 4);
+
+        // The positive face of the section at index i is visible when (offset + 2) >= (i * 16), and its negative face
+        // is hidden when (offset - 19) >= (i * 16). Counting those sections along the axis describes all of them.
+        int visiblePositive = Math.max(0, Math.min(regionSize, Math.floorDiv(offset + 2, 16) + 1));
+        int hiddenNegative = Math.max(0, Math.min(regionSize, Math.floorDiv(offset - 19, 16) + 1));
+
+        return (visiblePositive << 4) | hiddenNegative;
     }
 
-    private static void fillCommandBuffer(MultiDrawBatch batch,
+    static void fillCommandBuffer(MultiDrawBatch batch,
+                                          MultiDrawBatch weldedBatch,
                                           RenderRegion renderRegion,
                                           SectionRenderDataStorage renderDataStorage,
                                           ChunkRenderList renderList,
                                           CameraTransform camera,
                                           TerrainRenderPass pass,
+                                          boolean indexed,
                                           boolean useBlockFaceCulling) {
         batch.clear();
+        weldedBatch.clear();
 
         var iterator = renderList.sectionsWithGeometryIterator(pass.isReverseOrder());
 
@@ -114,7 +260,7 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         int originY = renderRegion.getChunkY();
         int originZ = renderRegion.getChunkZ();
 
-        int indexPointerMask = pass.isSorted() ? 0xFFFFFFFF : 0;
+        int indexPointerMask = indexed ? 0xFFFFFFFF : 0;
 
         while (iterator.hasNext()) {
             int sectionIndex = iterator.nextByteAsInt();
@@ -135,7 +281,14 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
 
             slices &= SectionRenderDataUnsafe.getSliceMask(pMeshData);
 
-            if (slices != 0) {
+            if (slices == 0) {
+                continue;
+            }
+
+            // Welded sections are drawn with their own indices, even when the rest of the pass uses the shared ones
+            if (SectionRenderDataUnsafe.isWelded(pMeshData)) {
+                addDrawCommands(weldedBatch, pMeshData, slices, 0xFFFFFFFF);
+            } else {
                 addDrawCommands(batch, pMeshData, slices, indexPointerMask);
             }
         }
@@ -169,7 +322,7 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
     private static final int MODEL_NEG_Y      = ModelQuadFacing.NEG_Y.ordinal();
     private static final int MODEL_NEG_Z      = ModelQuadFacing.NEG_Z.ordinal();
 
-    private static int getVisibleFaces(int originX, int originY, int originZ, int chunkX, int chunkY, int chunkZ) {
+    static int getVisibleFaces(int originX, int originY, int originZ, int chunkX, int chunkY, int chunkZ) {
         // This is carefully written so that we can keep everything branch-less.
         //
         // Normally, this would be a ridiculous way to handle the problem. But the Hotspot VM's
@@ -211,25 +364,25 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         return planes;
     }
 
-    private static void setModelMatrixUniforms(ChunkShaderInterface shader, RenderRegion region, CameraTransform camera) {
+    private static void setModelMatrixUniforms(RegionOffsetUniform regionOffset, RenderRegion region, CameraTransform camera) {
         float x = getCameraTranslation(region.getOriginX(), camera.intX, camera.fracX);
         float y = getCameraTranslation(region.getOriginY(), camera.intY, camera.fracY);
         float z = getCameraTranslation(region.getOriginZ(), camera.intZ, camera.fracZ);
 
-        shader.setRegionOffset(x, y, z);
+        regionOffset.set(x, y, z);
     }
 
     private static float getCameraTranslation(int chunkBlockPos, int cameraBlockPos, float cameraPos) {
         return (chunkBlockPos - cameraBlockPos) - cameraPos;
     }
 
-    private GlTessellation prepareTessellation(CommandList commandList, RenderRegion region) {
+    private GlTessellation prepareTessellation(CommandList commandList, RenderRegion region, boolean indexed) {
         var resources = region.getResources();
-        var tessellation = this.isIndexedPass ? resources.getIndexedTessellation() : resources.getTessellation();
+        var tessellation = indexed ? resources.getIndexedTessellation() : resources.getTessellation();
 
         if (tessellation == null) {
-            tessellation = this.createRegionTessellation(commandList, resources);
-            if (this.isIndexedPass) {
+            tessellation = this.createRegionTessellation(commandList, resources, indexed);
+            if (indexed) {
                 resources.updateIndexedTessellation(commandList, tessellation);
             } else {
                 resources.updateTessellation(commandList, tessellation);
@@ -251,6 +404,16 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
                     new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_LIGHT_TEXTURE,
                             this.vertexFormat.getAttribute(ChunkMeshAttribute.LIGHT_TEXTURE))
             };
+        } else if(this.vertexType == ChunkMeshFormats.DENSE) {
+            // The light texture coordinates are unpacked from the position attribute by the shader
+            return new GlVertexAttributeBinding[] {
+                    new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_POSITION_ID,
+                            this.vertexFormat.getAttribute(ChunkMeshAttribute.POSITION_MATERIAL_MESH)),
+                    new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_COLOR,
+                            this.vertexFormat.getAttribute(ChunkMeshAttribute.COLOR_SHADE)),
+                    new GlVertexAttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_BLOCK_TEXTURE,
+                            this.vertexFormat.getAttribute(ChunkMeshAttribute.BLOCK_TEXTURE))
+            };
         } else if(this.vertexType == ChunkMeshFormats.VANILLA_LIKE) {
             GlVertexFormat<ChunkMeshAttribute> vanillaFormat = this.vertexFormat;
             return new GlVertexAttributeBinding[] {
@@ -267,24 +430,56 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
             return null; // assume Oculus/Iris will take over
     }
 
-    private GlTessellation createRegionTessellation(CommandList commandList, RenderRegion.DeviceResources resources) {
+    private GlTessellation createRegionTessellation(CommandList commandList, RenderRegion.DeviceResources resources, boolean indexed) {
         return commandList.createTessellation(GlPrimitiveType.TRIANGLES, new TessellationBinding[] {
                 TessellationBinding.forVertexBuffer(resources.getVertexBuffer(), this.vertexAttributeBindings),
-                TessellationBinding.forElementBuffer(this.isIndexedPass ? resources.getIndexBuffer() : this.sharedIndexBuffer.getBufferObject())
+                TessellationBinding.forElementBuffer(indexed ? resources.getIndexBuffer() : this.sharedIndexBuffer.getBufferObject())
         });
     }
 
-    private static void executeDrawBatch(CommandList commandList, GlTessellation tessellation, MultiDrawBatch batch) {
-        try (DrawCommandList drawCommandList = commandList.beginTessellating(tessellation)) {
-            drawCommandList.multiDrawElementsBaseVertex(batch, GlIndexType.UNSIGNED_INT);
+    /**
+     * Binds the given tessellation for drawing, unless it is already bound. When all regions share their buffers, the
+     * tessellation only needs to be bound once for the whole render pass.
+     */
+    private DrawCommandList beginTessellating(CommandList commandList, GlTessellation tessellation) {
+        this.drawnRegionCount++;
+
+        if (this.activeTessellation != tessellation) {
+            this.endTessellating();
+
+            this.activeDrawCommandList = commandList.beginTessellating(tessellation);
+            this.activeTessellation = tessellation;
+
+            this.tessellationBindCount++;
+        }
+
+        return this.activeDrawCommandList;
+    }
+
+    private void endTessellating() {
+        if (this.activeDrawCommandList != null) {
+            this.activeDrawCommandList.flush();
+
+            this.activeDrawCommandList = null;
+            this.activeTessellation = null;
         }
     }
 
+    public String getDebugString() {
+        int regions = 0, binds = 0;
+
+        for (int[] stats : this.passStats.values()) {
+            regions += stats[0];
+            binds += stats[1];
+        }
+
+        return String.format("Chunk Draws: %d regions | %d vertex array binds", regions, binds);
+    }
+
     @Override
     public void delete(CommandList commandList) {
         super.delete(commandList);
 
         this.sharedIndexBuffer.delete(commandList);
-        this.batch.delete();
     }
 }
@@ -1,5 +1,7 @@
 package org.embeddedt.embeddium.impl.render.chunk;
 
+import it.unimi.dsi.fastutil.longs.Long2ReferenceFunction;
+import org.embeddedt.embeddium.impl.model.SectionModelData;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.GraphDirection;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.GraphDirectionSet;
@@ -62,6 +64,13 @@ public class RenderSection {
     private int lastBuiltFrame = -1;
     private int lastSubmittedFrame = -1;
 
+    // The total time which was spent on building the meshes of this section the last time, used to decide whether
+    // the next build should be split between multiple threads
+    private long lastBuildCostNanos;
+
+    // The model data which the last build of this section was given, so that it can be reused if nothing has changed
+    private SectionModelData modelData = SectionModelData.EMPTY;
+
     // Lifetime state
     private boolean disposed;
 
@@ -112,6 +121,38 @@ public class RenderSection {
         }
     }
 
+    /**
+     * Links this section with the loaded sections next to it, in both directions.
+     *
+     * @param sections The loaded sections, keyed by their packed section position
+     */
+    public void connectAdjacentNodes(Long2ReferenceFunction<RenderSection> sections) {
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            RenderSection adj = sections.get(SectionPos.asLong(this.chunkX + GraphDirection.x(direction),
+                    this.chunkY + GraphDirection.y(direction),
+                    this.chunkZ + GraphDirection.z(direction)));
+
+            if (adj != null) {
+                adj.setAdjacentNode(GraphDirection.opposite(direction), this);
+                this.setAdjacentNode(direction, adj);
+            }
+        }
+    }
+
+    /**
+     * Removes the links between this section and the sections next to it, in both directions.
+     */
+    public void disconnectAdjacentNodes() {
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            RenderSection adj = this.getAdjacent(direction);
+
+            if (adj != null) {
+                adj.setAdjacentNode(GraphDirection.opposite(direction), null);
+                this.setAdjacentNode(direction, null);
+            }
+        }
+    }
+
     public int getAdjacentMask() {
         return this.adjacentMask;
     }
@@ -358,6 +399,22 @@ public class RenderSection {
         this.lastBuiltFrame = lastBuiltFrame;
     }
 
+    public long getLastBuildCostNanos() {
+        return this.lastBuildCostNanos;
+    }
+
+    public void setLastBuildCostNanos(long nanos) {
+        this.lastBuildCostNanos = nanos;
+    }
+
+    public SectionModelData getModelData() {
+        return this.modelData;
+    }
+
+    public void setModelData(SectionModelData modelData) {
+        this.modelData = modelData;
+    }
+
     public int getLastSubmittedFrame() {
         return this.lastSubmittedFrame;
     }
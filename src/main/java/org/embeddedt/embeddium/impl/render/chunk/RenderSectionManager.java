@@ -5,15 +5,22 @@ import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMaps;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.*;
+import jdk.jfr.EventType;
 import org.embeddedt.embeddium.impl.Embeddium;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.HitResult;
 import org.embeddedt.embeddium.impl.gl.device.CommandList;
 import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkMeshCompressor;
+import org.embeddedt.embeddium.impl.render.chunk.compile.SectionBuildTimes;
+import org.embeddedt.embeddium.impl.render.chunk.compile.cache.SectionMeshCache;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuilder;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJobResult;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJobCollector;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkJobScheduledEvent;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkSnapshotEvent;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkUploadEvent;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderMeshingTask;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderSortTask;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderTask;
@@ -22,12 +29,13 @@ import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
 import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderList;
 import org.embeddedt.embeddium.impl.render.chunk.lists.SortedRenderLists;
 import org.embeddedt.embeddium.impl.render.chunk.lists.VisibleChunkCollector;
-import org.embeddedt.embeddium.impl.render.chunk.occlusion.GraphDirection;
+import org.embeddedt.embeddium.impl.render.chunk.map.ChunkTrackerHolder;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.OcclusionCuller;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegionManager;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.render.chunk.trace.PipelineTraceRecorder;
 import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
 import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import org.embeddedt.embeddium.api.render.texture.SpriteUtil;
@@ -35,6 +43,8 @@ import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
 import org.embeddedt.embeddium.impl.render.viewport.Viewport;
 import org.embeddedt.embeddium.impl.util.MathUtil;
 import org.embeddedt.embeddium.impl.util.iterator.ByteIterator;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import org.embeddedt.embeddium.impl.world.WorldSlice;
 import org.embeddedt.embeddium.impl.world.cloned.ChunkRenderContext;
 import org.embeddedt.embeddium.impl.world.cloned.ClonedChunkSectionCache;
@@ -59,6 +69,9 @@ import java.util.*;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class RenderSectionManager {
+    private static final EventType UPLOAD_EVENT_TYPE = EventType.getEventType(ChunkUploadEvent.class);
+    private static final Counter BUILT_SECTIONS = MetricsRegistry.GLOBAL.counter("render_section_manager.sections_built");
+
     private final ChunkBuilder builder;
 
     private final Thread renderThread = Thread.currentThread();
@@ -71,6 +84,8 @@ public class RenderSectionManager {
     private final ConcurrentLinkedDeque<ChunkJobResult<ChunkBuildOutput>> buildResults = new ConcurrentLinkedDeque<>();
     private final ConcurrentLinkedDeque<Runnable> asyncSubmittedTasks = new ConcurrentLinkedDeque<>();
 
+    private final ChunkUploadScheduler uploadScheduler = new ChunkUploadScheduler();
+
     private final ChunkRenderer chunkRenderer;
 
     private final ClientLevel world;
@@ -83,6 +98,12 @@ public class RenderSectionManager {
 
     private final ChunkVertexType vertexType;
 
+    private final @Nullable SectionMeshCache meshCache;
+
+    private final @Nullable PipelineTraceRecorder traceRecorder;
+
+    private final SectionBuildTimes buildTimes = new SectionBuildTimes();
+
     @NotNull
     private SortedRenderLists renderLists;
 
@@ -100,7 +121,15 @@ public class RenderSectionManager {
     private final int translucencyBlockRenderDistance;
 
     public RenderSectionManager(ClientLevel world, int renderDistance, CommandList commandList) {
-        ChunkVertexType vertexType = Embeddium.canUseVanillaVertices() ? ChunkMeshFormats.VANILLA_LIKE : ChunkMeshFormats.COMPACT;
+        ChunkVertexType vertexType;
+
+        if (Embeddium.canUseVanillaVertices()) {
+            vertexType = ChunkMeshFormats.VANILLA_LIKE;
+        } else if (Embeddium.canUseDenseVertices()) {
+            vertexType = ChunkMeshFormats.DENSE;
+        } else {
+            vertexType = ChunkMeshFormats.COMPACT;
+        }
 
         this.chunkRenderer = new DefaultChunkRenderer(RenderDevice.INSTANCE, vertexType);
 
@@ -108,6 +137,7 @@ public class RenderSectionManager {
 
         this.world = world;
         this.builder = new ChunkBuilder(world, vertexType);
+        this.meshCache = SectionMeshCache.createIfEnabled(vertexType.getClass().getName(), vertexType.getVertexFormat().getStride());
 
         this.needsUpdate = true;
         this.renderDistance = renderDistance;
@@ -126,6 +156,12 @@ public class RenderSectionManager {
 
         this.translucencySorting = Embeddium.canApplyTranslucencySorting();
         this.translucencyBlockRenderDistance = Math.min(9216, (renderDistance << 4) * (renderDistance << 4));
+
+        this.traceRecorder = PipelineTraceRecorder.createIfEnabled(world, renderDistance, this.builder.getTotalThreadCount());
+
+        if (this.traceRecorder != null) {
+            ChunkTrackerHolder.get(world).setListener(this.traceRecorder);
+        }
     }
 
     public void runAsyncTasks() {
@@ -230,6 +266,10 @@ public class RenderSectionManager {
         this.renderLists = visitor.createRenderLists();
         this.rebuildLists = visitor.getRebuildLists();
 
+        if (this.traceRecorder != null) {
+            this.traceRecorder.recordFrame(frame, viewport, searchDistance, useOcclusionCulling, this.getVisibleChunkCount());
+        }
+
         this.checkTranslucencyChange();
     }
 
@@ -286,13 +326,18 @@ public class RenderSectionManager {
         LevelChunkSection section = chunk.getSections()[this.world.getSectionIndexFromSectionY(y)];
 
         boolean isEmpty = (section == null || section.hasOnlyAir()) && ChunkMeshEvent.post(this.world, SectionPos.of(x, y, z)).isEmpty();
+
+        if (this.traceRecorder != null) {
+            this.traceRecorder.recordSectionAdded(x, y, z, isEmpty);
+        }
+
         if (isEmpty) {
             this.updateSectionInfo(renderSection, BuiltSectionInfo.EMPTY);
         } else {
             renderSection.setPendingUpdate(ChunkUpdateType.INITIAL_BUILD);
         }
 
-        this.connectNeighborNodes(renderSection);
+        renderSection.connectAdjacentNodes(this.sectionByPosition);
 
         this.needsUpdate = true;
     }
@@ -310,7 +355,7 @@ public class RenderSectionManager {
             region.removeSection(section);
         }
 
-        this.disconnectNeighborNodes(section);
+        section.disconnectAdjacentNodes();
         this.updateSectionInfo(section, null);
 
         section.delete();
@@ -377,42 +422,64 @@ public class RenderSectionManager {
         var blockingRebuilds = new ChunkJobCollector(Integer.MAX_VALUE, this.buildResults::add);
         var deferredRebuilds = new ChunkJobCollector(this.builder.getSchedulingBudget(), this.buildResults::add);
 
-        this.submitRebuildTasks(blockingRebuilds, ChunkUpdateType.IMPORTANT_REBUILD);
-        this.submitRebuildTasks(blockingRebuilds, ChunkUpdateType.IMPORTANT_SORT);
-        this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.REBUILD);
-        this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.INITIAL_BUILD);
-
         // Count sort tasks as requiring a quarter of the resources of a mesh task
         var deferredSorts = new ChunkJobCollector(Math.max(4, this.builder.getSchedulingBudget() * 4), this.buildResults::add);
-        this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredSorts, ChunkUpdateType.SORT);
+
+        ChunkRebuildScheduler.submitAll(this.rebuildLists, new CollectorJobSink(blockingRebuilds),
+                new CollectorJobSink(deferredRebuilds), new CollectorJobSink(deferredSorts), updateImmediately);
 
         blockingRebuilds.awaitCompletion(this.builder);
     }
 
     public void uploadChunks() {
-        var results = this.collectChunkBuildResults();
+        this.uploadChunks(false);
+    }
 
-        if (results.isEmpty()) {
-            return;
-        }
+    /**
+     * Uploads the results of finished chunk build tasks. Unless {@code ignoreBudget} is true, only as much data as
+     * the configured upload budget allows is uploaded, and the remaining results are kept for later frames.
+     */
+    public void uploadChunks(boolean ignoreBudget) {
+        this.uploadScheduler.enqueue(this.collectChunkBuildResults());
 
-        this.processChunkBuildResults(results);
+        var settings = Embeddium.options().advanced;
 
-        for (var result : results) {
-            result.delete();
-        }
+        long byteBudget = ignoreBudget ? 0 : settings.chunkUploadBudgetKilobytes * 1024L;
+        long nanoBudget = ignoreBudget ? 0 : settings.chunkUploadBudgetMicroseconds * 1000L;
 
-        this.needsUpdate = true;
+        boolean uploaded = this.uploadScheduler.upload(this::processChunkBuildResults,
+                (float) this.cameraPosition.x, (float) this.cameraPosition.y, (float) this.cameraPosition.z,
+                this.lastUpdatedFrame, byteBudget, nanoBudget);
+
+        ChunkMeshCompressor.updateBacklog(this.uploadScheduler.getPendingBytes());
+
+        if (uploaded) {
+            this.needsUpdate = true;
+        }
     }
 
-    private void processChunkBuildResults(ArrayList<ChunkBuildOutput> results) {
-        var filtered = filterChunkBuildResults(results);
+    private void processChunkBuildResults(List<ChunkBuildOutput> results) {
+        // The sizes are recorded before uploading, since the mesh data is freed once it has been uploaded
+        var uploadEvents = UPLOAD_EVENT_TYPE.isEnabled() ? ChunkUploadEvent.createUploadEvents(results) : null;
 
-        this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), filtered);
+        this.regions.uploadMeshes(RenderDevice.INSTANCE.createCommandList(), results);
+
+        if (uploadEvents != null) {
+            for (var event : uploadEvents) {
+                event.commit();
+            }
+        }
 
-        for (var result : filtered) {
+        for (var result : results) {
             if(result.info != null) {
+                if (this.traceRecorder != null) {
+                    var render = result.render;
+                    this.traceRecorder.recordSectionBuilt(render.getChunkX(), render.getChunkY(), render.getChunkZ(),
+                            result.info.flags, result.info.visibilityData, result.getBuildNanos());
+                }
+
                 this.updateSectionInfo(result.render, result.info);
+                BUILT_SECTIONS.increment();
                 if (this.translucencySorting) {
                     // We only change the translucency info on full rebuilds, as sorts can keep using the same data
                     this.updateTranslucencyInfo(result.render, result.meshes.get(DefaultTerrainRenderPasses.TRANSLUCENT));
@@ -426,6 +493,11 @@ public class RenderSectionManager {
             }
 
             result.render.setLastBuiltFrame(result.buildTime);
+
+            if (result.getBuildNanos() >= 0) {
+                result.render.setLastBuildCostNanos(result.getWorkNanos());
+                this.buildTimes.add(result.getBuildNanos(), result.getSlabCount());
+            }
         }
     }
 
@@ -445,25 +517,6 @@ public class RenderSectionManager {
         }
     }
 
-    private static List<ChunkBuildOutput> filterChunkBuildResults(ArrayList<ChunkBuildOutput> outputs) {
-        var map = new Reference2ReferenceLinkedOpenHashMap<RenderSection, ChunkBuildOutput>();
-
-        for (var output : outputs) {
-            if (output.render.isDisposed() || output.render.getLastBuiltFrame() > output.buildTime) {
-                continue;
-            }
-
-            var render = output.render;
-            var previous = map.get(render);
-
-            if (previous == null || previous.buildTime < output.buildTime) {
-                map.put(render, output);
-            }
-        }
-
-        return new ArrayList<>(map.values());
-    }
-
     private ArrayList<ChunkBuildOutput> collectChunkBuildResults() {
         ArrayList<ChunkBuildOutput> results = new ArrayList<>();
         ChunkJobResult<ChunkBuildOutput> result;
@@ -475,51 +528,65 @@ public class RenderSectionManager {
         return results;
     }
 
-    private void submitRebuildTasks(ChunkJobCollector collector, ChunkUpdateType type) {
-        var queue = this.rebuildLists.get(type);
+    private void submitRebuildTask(ChunkJobCollector collector, RenderSection section, ChunkUpdateType type) {
+        int frame = this.lastUpdatedFrame;
+        ChunkBuilderTask<ChunkBuildOutput> task;
 
-        while (!queue.isEmpty() && collector.canOffer()) {
-            RenderSection section = queue.remove();
+        if (type.isSort()) {
+            task = this.createSortTask(section, frame);
+        } else {
+            var snapshotEvent = new ChunkSnapshotEvent();
+            snapshotEvent.begin();
 
-            if (section.isDisposed()) {
-                continue;
-            }
+            task = this.createRebuildTask(section, frame);
 
-            // Because Sodium creates the update queue on the frame before it's processed,
-            // the update type might no longer match. Filter out such a scenario.
-            if (section.getPendingUpdate() != type) {
-                continue;
+            snapshotEvent.end();
+
+            if (snapshotEvent.shouldCommit()) {
+                snapshotEvent.setSection(section, type);
+                snapshotEvent.empty = task == null;
+                snapshotEvent.commit();
             }
+        }
 
-            int frame = this.lastUpdatedFrame;
-            ChunkBuilderTask<ChunkBuildOutput> task = type.isSort() ? this.createSortTask(section, frame) : this.createRebuildTask(section, frame);
+        if (task == null && type.isSort()) {
+            // Ignore sorts that became invalid
+            section.setPendingUpdate(null);
+            return;
+        }
 
-            if (task == null && type.isSort()) {
-                // Ignore sorts that became invalid
-                section.setPendingUpdate(null);
-                continue;
-            }
+        if (task != null) {
+            task.setUpdateType(type);
 
-            if (task != null) {
-                var job = this.builder.scheduleTask(task, type.isImportant(), collector::onJobFinished);
-                collector.addSubmittedJob(job);
+            var scheduledEvent = new ChunkJobScheduledEvent();
 
-                section.setBuildCancellationToken(job);
+            if (scheduledEvent.shouldCommit()) {
+                scheduledEvent.setSection(section, type);
+                scheduledEvent.important = type.isImportant();
+                scheduledEvent.queuedJobs = this.builder.getScheduledJobCount();
+                scheduledEvent.commit();
+            }
 
-                if (!type.isSort()) {
-                    // Prevent further sorts from being performed on this section
-                    section.setSortState(null);
-                }
-            } else {
-                var result = ChunkJobResult.successfully(new ChunkBuildOutput(section, BuiltSectionInfo.EMPTY, Collections.emptyMap(), frame));
-                this.buildResults.add(result);
+            var job = this.builder.scheduleTask(task, type.isImportant(), collector::onJobFinished);
+            collector.addSubmittedJob(job);
 
-                section.setBuildCancellationToken(null);
+            section.setBuildCancellationToken(job);
+
+            if (!type.isSort()) {
+                // Prevent further sorts from being performed on this section
+                section.setSortState(null);
             }
+        } else {
+            var output = new ChunkBuildOutput(section, BuiltSectionInfo.EMPTY, Collections.emptyMap(), frame);
+            output.setImportant(type.isImportant());
 
-            section.setLastSubmittedFrame(frame);
-            section.setPendingUpdate(null);
+            this.buildResults.add(ChunkJobResult.successfully(output));
+
+            section.setBuildCancellationToken(null);
         }
+
+        section.setLastSubmittedFrame(frame);
+        section.setPendingUpdate(null);
     }
 
     public @Nullable ChunkBuilderMeshingTask createRebuildTask(RenderSection render, int frame) {
@@ -529,7 +596,31 @@ public class RenderSectionManager {
             return null;
         }
 
-        return new ChunkBuilderMeshingTask(render, context, frame).withCameraPosition(this.cameraPosition);
+        return new ChunkBuilderMeshingTask(render, context, frame)
+                .withCameraPosition(this.cameraPosition)
+                .withMeshCache(this.meshCache)
+                .withSlabs(this.builder, this.getSlabCount(render));
+    }
+
+    /**
+     * Decides how many slabs the next build of a section should be split into, based on how long the last build took.
+     * Sections are split into enough slabs that each one takes about as long as the configured threshold.
+     */
+    private int getSlabCount(RenderSection render) {
+        long threshold = Embeddium.options().advanced.sectionSplitThresholdMicroseconds * 1000L;
+        int threads = this.builder.getTotalThreadCount();
+
+        if (threshold <= 0 || threads < 2) {
+            return 1;
+        }
+
+        long cost = render.getLastBuildCostNanos();
+
+        if (cost < threshold) {
+            return 1;
+        }
+
+        return (int) Math.min(Math.min(ChunkBuilderMeshingTask.MAX_SLABS, threads), Math.max(2, cost / threshold));
     }
 
     public ChunkBuilderSortTask createSortTask(RenderSection render, int frame) {
@@ -556,10 +647,21 @@ public class RenderSectionManager {
     public void destroy() {
         this.builder.shutdown(); // stop all the workers, and cancel any tasks
 
+        if (this.meshCache != null) {
+            this.meshCache.shutdown();
+        }
+
+        if (this.traceRecorder != null) {
+            ChunkTrackerHolder.get(this.world).setListener(null);
+            this.traceRecorder.close();
+        }
+
         for (var result : this.collectChunkBuildResults()) {
             result.delete(); // delete resources for any pending tasks (including those that were cancelled)
         }
 
+        this.uploadScheduler.clear();
+
         this.sectionsWithGlobalEntities.clear();
         this.resetRenderLists();
 
@@ -608,6 +710,10 @@ public class RenderSectionManager {
                 pendingUpdate = ChunkUpdateType.REBUILD;
             }
 
+            if (this.traceRecorder != null) {
+                this.traceRecorder.recordSectionDirty(x, y, z, pendingUpdate == ChunkUpdateType.IMPORTANT_REBUILD);
+            }
+
             pendingUpdate = ChunkUpdateType.getPromotionUpdateType(section.getPendingUpdate(), pendingUpdate);
             if (pendingUpdate != null) {
                 section.setPendingUpdate(pendingUpdate);
@@ -645,27 +751,24 @@ public class RenderSectionManager {
         return this.renderDistance * 16.0f;
     }
 
-    private void connectNeighborNodes(RenderSection render) {
-        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
-            RenderSection adj = this.getRenderSection(render.getChunkX() + GraphDirection.x(direction),
-                    render.getChunkY() + GraphDirection.y(direction),
-                    render.getChunkZ() + GraphDirection.z(direction));
+    /**
+     * Submits the jobs which the scheduler hands out to the chunk builder, counting them against a job collector.
+     */
+    private class CollectorJobSink implements ChunkRebuildScheduler.JobSink {
+        private final ChunkJobCollector collector;
 
-            if (adj != null) {
-                adj.setAdjacentNode(GraphDirection.opposite(direction), render);
-                render.setAdjacentNode(direction, adj);
-            }
+        private CollectorJobSink(ChunkJobCollector collector) {
+            this.collector = collector;
         }
-    }
 
-    private void disconnectNeighborNodes(RenderSection render) {
-        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
-            RenderSection adj = render.getAdjacent(direction);
+        @Override
+        public boolean canOffer() {
+            return this.collector.canOffer();
+        }
 
-            if (adj != null) {
-                adj.setAdjacentNode(GraphDirection.opposite(direction), null);
-                render.setAdjacentNode(direction, null);
-            }
+        @Override
+        public void submit(RenderSection section, ChunkUpdateType type) {
+            RenderSectionManager.this.submitRebuildTask(this.collector, section, type);
         }
     }
 
@@ -738,13 +841,7 @@ public class RenderSectionManager {
 
         long indexUsed = 0, indexAllocated = 0;
 
-        for (var region : this.regions.getLoadedRegions()) {
-            var resources = region.getResources();
-
-            if (resources == null) {
-                continue;
-            }
-
+        for (var resources : this.regions.getDeviceResources()) {
             var buffer = resources.getGeometryArena();
 
             deviceUsed += buffer.getDeviceUsedMemoryL();
@@ -766,13 +863,28 @@ public class RenderSectionManager {
             list.add(String.format("Index Pool: %d/%d MiB (%d buffers)", MathUtil.toMib(indexUsed), MathUtil.toMib(indexAllocated), indexCount));
         }
         list.add(String.format("Transfer Queue: %s", this.regions.getStagingBuffer().toString()));
+        list.add(this.uploadScheduler.getDebugString());
+
+        if (Embeddium.options().advanced.meshCompressionBacklogMegabytes > 0) {
+            list.add(ChunkMeshCompressor.getDebugString());
+        }
+
+        if (this.meshCache != null) {
+            list.add(this.meshCache.getDebugString());
+        }
+
+        list.add(this.buildTimes.getDebugString());
+
+        if (this.chunkRenderer instanceof DefaultChunkRenderer defaultRenderer) {
+            list.add(defaultRenderer.getDebugString());
+        }
 
         list.add(String.format("Chunk Builder: Permits=%02d | Busy=%02d | Total=%02d",
                 this.builder.getScheduledJobCount(), this.builder.getBusyThreadCount(), this.builder.getTotalThreadCount())
         );
 
         list.add(String.format("Chunk Queues: U=%02d (P0=%03d | P1=%03d | P2=%03d)",
-                this.buildResults.size(),
+                this.buildResults.size() + this.uploadScheduler.size(),
                 this.rebuildLists.get(ChunkUpdateType.IMPORTANT_REBUILD).size(),
                 this.rebuildLists.get(ChunkUpdateType.REBUILD).size(),
                 this.rebuildLists.get(ChunkUpdateType.INITIAL_BUILD).size())
@@ -42,13 +42,7 @@ public class ChunkBufferSorter {
         return indexBuffer;
     }
 
-    private static NativeBuffer generateIndexBuffer(NativeBuffer indexBuffer, int[] primitiveMapping) {
-        int bufferSize = getIndexBufferSize(primitiveMapping.length);
-        if(indexBuffer.getLength() != bufferSize) {
-            throw new IllegalStateException("Given index buffer has length " + indexBuffer.getLength() + " but we expected " + bufferSize);
-        }
-        long ptr = MemoryUtil.memAddress(indexBuffer.getDirectBuffer());
-
+    private static void generateIndexBuffer(long ptr, int[] primitiveMapping) {
         for (int primitiveIndex = 0; primitiveIndex < primitiveMapping.length; primitiveIndex++) {
             int indexOffset = primitiveIndex * ELEMENTS_PER_PRIMITIVE;
 
@@ -63,8 +57,6 @@ public class ChunkBufferSorter {
             MemoryUtil.memPutInt(ptr + (indexOffset + 4) * 4, vertexOffset + 3);
             MemoryUtil.memPutInt(ptr + (indexOffset + 5) * 4, vertexOffset + 0);
         }
-
-        return indexBuffer;
     }
 
     private static void buildStaticDistanceArray(float[] centers, float[] distanceArray, float x, float y, float z,
@@ -97,10 +89,33 @@ public class ChunkBufferSorter {
     }
 
     public static NativeBuffer sort(NativeBuffer indexBuffer, @Nullable TranslucentQuadAnalyzer.SortState chunkData, float x, float y, float z) {
-        if (chunkData == null || chunkData.level() == TranslucentQuadAnalyzer.Level.NONE || chunkData.centers().length < 3) {
+        if (!needsSorting(chunkData)) {
             return indexBuffer;
         }
 
+        int bufferSize = getIndexBufferSize(chunkData.centers().length / 3);
+        if(indexBuffer.getLength() != bufferSize) {
+            throw new IllegalStateException("Given index buffer has length " + indexBuffer.getLength() + " but we expected " + bufferSize);
+        }
+
+        sort(MemoryUtil.memAddress(indexBuffer.getDirectBuffer()), chunkData, x, y, z);
+
+        return indexBuffer;
+    }
+
+    private static boolean needsSorting(@Nullable TranslucentQuadAnalyzer.SortState chunkData) {
+        return chunkData != null && chunkData.level() != TranslucentQuadAnalyzer.Level.NONE && chunkData.centers().length >= 3;
+    }
+
+    /**
+     * Writes the indices of the quads in back-to-front order to the given pointer, which must have room for
+     * {@link #getIndexBufferSize(int)} bytes. Nothing is written if the quads don't need to be sorted.
+     */
+    public static void sort(long ptr, @Nullable TranslucentQuadAnalyzer.SortState chunkData, float x, float y, float z) {
+        if (!needsSorting(chunkData)) {
+            return;
+        }
+
         float[] centers = chunkData.centers();
         int quadCount = centers.length / 3;
         int[] indicesArray = new int[quadCount];
@@ -126,6 +141,6 @@ public class ChunkBufferSorter {
 
         IntArrays.mergeSort(indicesArray, (a, b) -> Floats.compare(distanceArray[b], distanceArray[a]));
 
-        return generateIndexBuffer(indexBuffer, indicesArray);
+        generateIndexBuffer(ptr, indicesArray);
     }
 }
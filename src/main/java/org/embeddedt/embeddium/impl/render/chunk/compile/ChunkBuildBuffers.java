@@ -1,6 +1,7 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import org.embeddedt.embeddium.impl.Embeddium;
 import org.embeddedt.embeddium.impl.gl.util.VertexRange;
 import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
 import org.embeddedt.embeddium.impl.render.chunk.compile.buffers.BakedChunkModelBuilder;
@@ -14,6 +15,7 @@ import org.embeddedt.embeddium.impl.render.chunk.vertex.builder.ChunkMeshBufferB
 import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import org.embeddedt.embeddium.impl.util.NativeBuffer;
 import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -30,8 +32,11 @@ public class ChunkBuildBuffers {
 
     private final ChunkVertexType vertexType;
 
+    private final ChunkVertexWelder welder;
+
     public ChunkBuildBuffers(ChunkVertexType vertexType) {
         this.vertexType = vertexType;
+        this.welder = Embeddium.canUseVertexWelding() ? new ChunkVertexWelder() : null;
 
         for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
             var vertexBuffers = new ChunkMeshBufferBuilder[ModelQuadFacing.COUNT];
@@ -66,6 +71,15 @@ public class ChunkBuildBuffers {
     public BuiltSectionMeshParts createMesh(TerrainRenderPass pass) {
         var builder = this.builders.get(pass);
 
+        if (this.welder != null && !pass.isSorted()) {
+            var mesh = this.createWeldedMesh(builder);
+
+            // Otherwise, the mesh is smaller without welding, and it is drawn with the shared index buffer instead
+            if (mesh != null) {
+                return mesh;
+            }
+        }
+
         List<ByteBuffer> vertexBuffers = new ArrayList<>();
         VertexRange[] vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
 
@@ -126,6 +140,165 @@ public class ChunkBuildBuffers {
         return new BuiltSectionMeshParts(mergedBuffer, mergedIndexBuffer, sortState, vertexRanges);
     }
 
+    /**
+     * Creates a mesh where identical vertices within each facing are merged, along with an index buffer which refers
+     * to them. The indices of each facing are 16-bit and relative to the first vertex of that facing.
+     *
+     * @return The welded mesh, or null if it would not be smaller than the original mesh
+     */
+    private BuiltSectionMeshParts createWeldedMesh(BakedChunkModelBuilder builder) {
+        int stride = this.vertexType.getVertexFormat().getStride();
+        int vertexCount = 0;
+
+        for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+            var buffer = builder.getVertexBuffer(facing);
+
+            if (!buffer.isEmpty()) {
+                vertexCount += buffer.count();
+            }
+        }
+
+        if (vertexCount == 0) {
+            return null;
+        }
+
+        var scratchBuffer = new NativeBuffer(vertexCount * stride);
+        var indexBuffer = new NativeBuffer(ChunkVertexWelder.getIndexBufferSize(vertexCount));
+
+        long pScratch = MemoryUtil.memAddress(scratchBuffer.getDirectBuffer());
+        long pIndices = MemoryUtil.memAddress(indexBuffer.getDirectBuffer());
+
+        VertexRange[] vertexRanges = new VertexRange[ModelQuadFacing.COUNT];
+        int[] elementCounts = new int[ModelQuadFacing.COUNT];
+
+        int vertexOffset = 0;
+        int indexOffset = 0;
+
+        for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+            var buffer = builder.getVertexBuffer(facing);
+
+            if (buffer.isEmpty()) {
+                continue;
+            }
+
+            int uniqueCount = this.welder.weld(MemoryUtil.memAddress(buffer.slice()), buffer.count(), stride,
+                    pScratch + ((long) vertexOffset * stride), pIndices + indexOffset);
+
+            if (uniqueCount < 0) {
+                // The facing has too many unique vertices to be referenced with 16-bit indices
+                vertexOffset = vertexCount;
+                break;
+            }
+
+            vertexRanges[facing.ordinal()] = new VertexRange(vertexOffset, uniqueCount);
+            elementCounts[facing.ordinal()] = (buffer.count() / 4) * 6;
+
+            vertexOffset += uniqueCount;
+            indexOffset += ChunkVertexWelder.getIndexBufferSize(buffer.count());
+        }
+
+        if (!ChunkVertexWelder.isWorthWelding(vertexCount, vertexOffset, stride)) {
+            ChunkVertexWelder.recordRejectedMesh(vertexCount);
+
+            scratchBuffer.free();
+            indexBuffer.free();
+
+            return null;
+        }
+
+        // Only keep the unique vertices
+        var vertexBuffer = NativeBuffer.copy(MemoryUtil.memByteBuffer(pScratch, vertexOffset * stride));
+        scratchBuffer.free();
+
+        return new BuiltSectionMeshParts(vertexBuffer, indexBuffer, null, vertexRanges, elementCounts);
+    }
+
+    /**
+     * Copies the vertices which have been written to these buffers so far, so that they can be added to the buffers
+     * of another thread with {@link #append(PartialMesh)}. This is used when the blocks of one section are rendered by
+     * several threads.
+     */
+    public PartialMesh copyPartialMesh() {
+        var passes = DefaultTerrainRenderPasses.ALL;
+        var vertexData = new NativeBuffer[passes.length][];
+        var vertexCounts = new int[passes.length][];
+        var captures = new TranslucentQuadAnalyzer.Capture[passes.length];
+
+        for (int i = 0; i < passes.length; i++) {
+            var builder = this.builders.get(passes[i]);
+
+            vertexData[i] = new NativeBuffer[ModelQuadFacing.COUNT];
+            vertexCounts[i] = new int[ModelQuadFacing.COUNT];
+
+            for (ModelQuadFacing facing : passes[i].isSorted() ? ONLY_UNASSIGNED : ModelQuadFacing.VALUES) {
+                var buffer = builder.getVertexBuffer(facing);
+
+                if (buffer.isEmpty()) {
+                    continue;
+                }
+
+                vertexData[i][facing.ordinal()] = NativeBuffer.copy(buffer.slice());
+                vertexCounts[i][facing.ordinal()] = buffer.count();
+            }
+
+            if (passes[i].isSorted()) {
+                captures[i] = builder.getVertexBuffer(ModelQuadFacing.UNASSIGNED).captureQuads();
+            }
+        }
+
+        return new PartialMesh(vertexData, vertexCounts, captures);
+    }
+
+    /**
+     * Adds the vertices of a partial mesh after the vertices which have been written to these buffers so far. The
+     * partial mesh is freed afterward.
+     */
+    public void append(PartialMesh mesh) {
+        var passes = DefaultTerrainRenderPasses.ALL;
+
+        try {
+            for (int i = 0; i < passes.length; i++) {
+                var builder = this.builders.get(passes[i]);
+
+                for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                    var data = mesh.vertexData[i][facing.ordinal()];
+
+                    if (data != null) {
+                        builder.getVertexBuffer(facing).append(data.getDirectBuffer(), mesh.vertexCounts[i][facing.ordinal()], mesh.captures[i]);
+                    }
+                }
+            }
+        } finally {
+            mesh.free();
+        }
+    }
+
+    /**
+     * The vertices written to a set of build buffers, indexed by render pass and facing.
+     */
+    public static class PartialMesh {
+        private final NativeBuffer[][] vertexData;
+        private final int[][] vertexCounts;
+        private final TranslucentQuadAnalyzer.Capture[] captures;
+
+        private PartialMesh(NativeBuffer[][] vertexData, int[][] vertexCounts, TranslucentQuadAnalyzer.Capture[] captures) {
+            this.vertexData = vertexData;
+            this.vertexCounts = vertexCounts;
+            this.captures = captures;
+        }
+
+        public void free() {
+            for (var buffers : this.vertexData) {
+                for (int i = 0; i < buffers.length; i++) {
+                    if (buffers[i] != null) {
+                        buffers[i].free();
+                        buffers[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
     public void destroy() {
         for (var builder : this.builders.values()) {
             builder.destroy();
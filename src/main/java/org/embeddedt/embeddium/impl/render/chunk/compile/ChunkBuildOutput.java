@@ -21,6 +21,13 @@ public class ChunkBuildOutput {
     public final int buildTime;
 
     private boolean partialUpload;
+    private boolean important;
+
+    private final long createdTime = System.nanoTime();
+
+    private long buildNanos = -1;
+    private long workNanos;
+    private int slabCount = 1;
 
     public ChunkBuildOutput(RenderSection render, BuiltSectionInfo info, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, int buildTime) {
         this.render = render;
@@ -52,4 +59,51 @@ public class ChunkBuildOutput {
     public void setIndexOnlyUpload(boolean flag) {
         partialUpload = flag;
     }
+
+    /**
+     * @return True if the result is from an important update, which is uploaded without waiting for the upload budget
+     */
+    public boolean isImportant() {
+        return this.important;
+    }
+
+    public void setImportant(boolean important) {
+        this.important = important;
+    }
+
+    /**
+     * Records how long building the meshes took.
+     *
+     * @param buildNanos The time between the task starting and finishing
+     * @param workNanos The time spent by all threads which worked on the task, which is larger than
+     *                  {@code buildNanos} if the section was split into slabs
+     * @param slabCount The number of slabs the section was split into
+     */
+    public void setBuildStats(long buildNanos, long workNanos, int slabCount) {
+        this.buildNanos = buildNanos;
+        this.workNanos = workNanos;
+        this.slabCount = slabCount;
+    }
+
+    /**
+     * @return The time between the task starting and finishing, or -1 if the meshes weren't built by a task
+     */
+    public long getBuildNanos() {
+        return this.buildNanos;
+    }
+
+    public long getWorkNanos() {
+        return this.workNanos;
+    }
+
+    public int getSlabCount() {
+        return this.slabCount;
+    }
+
+    /**
+     * @return The value of {@link System#nanoTime()} when the result was created
+     */
+    public long getCreatedTime() {
+        return this.createdTime;
+    }
 }
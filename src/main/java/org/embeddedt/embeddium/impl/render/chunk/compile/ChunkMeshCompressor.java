@@ -0,0 +1,260 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compresses the vertex data of finished chunk meshes while they wait to be uploaded, so that a large backlog of
+ * results (such as when a world is first loaded) needs less memory.
+ * <p>
+ * Each byte is first replaced with the difference (XOR) to the same byte of the previous vertex. Neighbouring vertices
+ * usually share their color, light, and most of their position, so this leaves mostly zero bytes. Every group of eight
+ * bytes is then written as a mask of its non-zero bytes followed by those bytes, and runs of groups which are
+ * entirely zero are collapsed into a single count. This is much simpler than a general purpose compressor, but fast
+ * enough to run on every mesh without slowing down the chunk builder threads.
+ * <p>
+ * Compression only happens while the backlog of results is larger than the configured threshold, and stops again
+ * once it drops below half of the threshold.
+ */
+public class ChunkMeshCompressor {
+    private static final int HEADER_SIZE = 4;
+    private static final int GROUP_SIZE = 8;
+    private static final int MAX_ZERO_RUN = 255;
+
+    private static final LongAdder STATS_RAW_BYTES = new LongAdder();
+    private static final LongAdder STATS_COMPRESSED_BYTES = new LongAdder();
+    private static final LongAdder STATS_COMPRESS_NANOS = new LongAdder();
+    private static final LongAdder STATS_DECOMPRESS_NANOS = new LongAdder();
+    private static final LongAdder STATS_COMPRESS_CALLS = new LongAdder();
+    private static final LongAdder STATS_DECOMPRESS_CALLS = new LongAdder();
+
+    private static volatile boolean active;
+
+    /**
+     * Decides whether compression should be used, based on the number of bytes which are waiting to be uploaded.
+     */
+    public static void updateBacklog(long pendingBytes) {
+        long threshold = Embeddium.options().advanced.meshCompressionBacklogMegabytes * 1024L * 1024L;
+
+        if (threshold <= 0) {
+            active = false;
+        } else if (pendingBytes > threshold) {
+            active = true;
+        } else if (pendingBytes < threshold / 2) {
+            active = false;
+        }
+    }
+
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Compresses a buffer of vertices.
+     *
+     * @param src The vertex data
+     * @param stride The size of each vertex in bytes
+     * @return The compressed data, or null if compressing the data would not save enough memory to be worth it
+     */
+    public static NativeBuffer compress(NativeBuffer src, int stride) {
+        long start = System.nanoTime();
+
+        int length = src.getLength();
+
+        var srcBuffer = src.getDirectBuffer();
+        long pSrc = MemoryUtil.memAddress(srcBuffer);
+
+        // In the worst case, every group needs a mask byte in addition to its eight bytes
+        long pScratch = MemoryUtil.nmemAlloc(getMaxCompressedLength(length));
+
+        NativeBuffer result = null;
+
+        try {
+            int compressedLength = encode(pSrc, length, stride, pScratch);
+
+            // Only keep the result if it saves at least a quarter of the memory
+            if (compressedLength < length - (length >> 2)) {
+                result = new NativeBuffer(compressedLength);
+                MemoryUtil.memCopy(pScratch, MemoryUtil.memAddress(result.getDirectBuffer()), compressedLength);
+
+                STATS_RAW_BYTES.add(length);
+                STATS_COMPRESSED_BYTES.add(compressedLength);
+            }
+        } finally {
+            MemoryUtil.nmemFree(pScratch);
+        }
+
+        STATS_COMPRESS_NANOS.add(System.nanoTime() - start);
+        STATS_COMPRESS_CALLS.increment();
+
+        return result;
+    }
+
+    /**
+     * Restores the vertex data which was compressed by {@link #compress(NativeBuffer, int)}.
+     */
+    public static NativeBuffer decompress(NativeBuffer src, int stride) {
+        long start = System.nanoTime();
+
+        long pSrc = MemoryUtil.memAddress(src.getDirectBuffer());
+        int length = MemoryUtil.memGetInt(pSrc);
+
+        var dst = new NativeBuffer(length);
+        decode(pSrc, src.getLength(), stride, MemoryUtil.memAddress(dst.getDirectBuffer()), length);
+
+        STATS_DECOMPRESS_NANOS.add(System.nanoTime() - start);
+        STATS_DECOMPRESS_CALLS.increment();
+
+        return dst;
+    }
+
+    static int getMaxCompressedLength(int length) {
+        return HEADER_SIZE + length + ((length + GROUP_SIZE - 1) / GROUP_SIZE);
+    }
+
+    /**
+     * Encodes the data at {@code src} into {@code dst}, which must have space for
+     * {@link #getMaxCompressedLength(int)} bytes.
+     *
+     * @return The number of bytes which were written
+     */
+    static int encode(long src, int length, int stride, long dst) {
+        MemoryUtil.memPutInt(dst, length);
+
+        long out = dst + HEADER_SIZE;
+        int pos = 0;
+
+        while (pos < length) {
+            long delta = isFullGroup(pos, length, stride) ? fullGroupDelta(src, pos, stride) : partialGroupDelta(src, pos, length, stride);
+
+            int tag = 0;
+            long tagPtr = out++;
+
+            for (int i = 0; i < GROUP_SIZE; i++) {
+                int value = (int) (delta >>> (i * 8)) & 0xFF;
+
+                if (value != 0) {
+                    tag |= 1 << i;
+                    MemoryUtil.memPutByte(out++, (byte) value);
+                }
+            }
+
+            MemoryUtil.memPutByte(tagPtr, (byte) tag);
+
+            pos += GROUP_SIZE;
+
+            if (tag == 0 && isFullGroup(pos - GROUP_SIZE, length, stride)) {
+                // Count the full groups which follow and are also unchanged from the previous vertex
+                int run = 0;
+
+                while (run < MAX_ZERO_RUN && isFullGroup(pos, length, stride) && fullGroupDelta(src, pos, stride) == 0) {
+                    pos += GROUP_SIZE;
+                    run++;
+                }
+
+                MemoryUtil.memPutByte(out++, (byte) run);
+            }
+        }
+
+        return (int) (out - dst);
+    }
+
+    static void decode(long src, int srcLength, int stride, long dst, int length) {
+        long in = src + HEADER_SIZE;
+        long end = src + srcLength;
+
+        int pos = 0;
+
+        while (pos < length) {
+            if (in >= end) {
+                throw new IllegalStateException("Compressed mesh data ended early");
+            }
+
+            int tag = MemoryUtil.memGetByte(in++) & 0xFF;
+            long delta = 0;
+
+            for (int i = 0; i < GROUP_SIZE; i++) {
+                if ((tag & (1 << i)) != 0) {
+                    delta |= (MemoryUtil.memGetByte(in++) & 0xFFL) << (i * 8);
+                }
+            }
+
+            boolean full = isFullGroup(pos, length, stride);
+
+            if (full) {
+                MemoryUtil.memPutLong(dst + pos, delta ^ MemoryUtil.memGetLong(dst + pos - stride));
+            } else {
+                putPartialGroup(dst, pos, length, stride, delta);
+            }
+
+            pos += GROUP_SIZE;
+
+            if (tag == 0 && full) {
+                int run = MemoryUtil.memGetByte(in++) & 0xFF;
+
+                for (int i = 0; i < run; i++) {
+                    MemoryUtil.memPutLong(dst + pos, MemoryUtil.memGetLong(dst + pos - stride));
+                    pos += GROUP_SIZE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups which are entirely within the data and have a previous vertex for every byte are handled eight bytes at
+     * a time. All other groups are handled one byte at a time, as are all groups of vertices which are smaller than a
+     * group, since the previous vertex would overlap with the group itself.
+     */
+    private static boolean isFullGroup(int pos, int length, int stride) {
+        return stride >= GROUP_SIZE && pos >= stride && pos + GROUP_SIZE <= length;
+    }
+
+    private static long fullGroupDelta(long src, int pos, int stride) {
+        return MemoryUtil.memGetLong(src + pos) ^ MemoryUtil.memGetLong(src + pos - stride);
+    }
+
+    private static long partialGroupDelta(long src, int pos, int length, int stride) {
+        long delta = 0;
+
+        for (int i = 0; i < GROUP_SIZE && pos + i < length; i++) {
+            int index = pos + i;
+            int value = MemoryUtil.memGetByte(src + index);
+
+            if (index >= stride) {
+                value ^= MemoryUtil.memGetByte(src + index - stride);
+            }
+
+            delta |= (value & 0xFFL) << (i * 8);
+        }
+
+        return delta;
+    }
+
+    private static void putPartialGroup(long dst, int pos, int length, int stride, long delta) {
+        for (int i = 0; i < GROUP_SIZE && pos + i < length; i++) {
+            int index = pos + i;
+            int value = (int) (delta >>> (i * 8)) & 0xFF;
+
+            if (index >= stride) {
+                value ^= MemoryUtil.memGetByte(dst + index - stride);
+            }
+
+            MemoryUtil.memPutByte(dst + index, (byte) value);
+        }
+    }
+
+    public static String getDebugString() {
+        long raw = STATS_RAW_BYTES.sum();
+        long compressCalls = STATS_COMPRESS_CALLS.sum();
+        long decompressCalls = STATS_DECOMPRESS_CALLS.sum();
+
+        return String.format("Mesh Compression: %s | %d%% size (%d us/mesh, %d us/mesh to restore)",
+                active ? "On" : "Off",
+                raw > 0 ? (STATS_COMPRESSED_BYTES.sum() * 100) / raw : 100,
+                compressCalls > 0 ? (STATS_COMPRESS_NANOS.sum() / compressCalls) / 1000 : 0,
+                decompressCalls > 0 ? (STATS_DECOMPRESS_NANOS.sum() / decompressCalls) / 1000 : 0);
+    }
+}
@@ -0,0 +1,195 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Merges identical vertices within a buffer of quads, and generates an index buffer which refers to the merged
+ * vertices. Adjacent coplanar quads with the same texture, color, and light share their corners, so meshes of flat
+ * terrain usually need far fewer unique vertices than the four per quad which are emitted by the mesher.
+ * <p>
+ * Vertices are compared by their encoded bytes, so only vertices which would be rendered identically are merged. In
+ * practice, neighbouring quads rarely share their texture coordinates since each one maps the corners of its own
+ * sprite, so welding only pays off for some meshes. Callers should use {@link #isWorthWelding(int, int, int)} to
+ * decide whether to keep the result.
+ * <p>
+ * Indices are 16-bit and relative to the first vertex of the buffer, so at most {@link #MAX_VERTICES} unique vertices
+ * can be referenced. Each instance keeps its own hash table and must only be used by one thread at a time.
+ */
+public class ChunkVertexWelder {
+    private static final int ELEMENTS_PER_PRIMITIVE = 6;
+    private static final int VERTICES_PER_PRIMITIVE = 4;
+
+    private static final int INDEX_SIZE = 2;
+
+    /**
+     * The largest number of unique vertices which can be referenced by the 16-bit indices.
+     */
+    public static final int MAX_VERTICES = 1 << 16;
+
+    private static final int EMPTY = -1;
+
+    private static final LongAdder STATS_INPUT_VERTICES = new LongAdder();
+    private static final LongAdder STATS_OUTPUT_VERTICES = new LongAdder();
+    private static final LongAdder STATS_MESHES = new LongAdder();
+    private static final LongAdder STATS_REJECTED_VERTICES = new LongAdder();
+    private static final LongAdder STATS_NANOS = new LongAdder();
+
+    // Open-addressed table which maps vertex hashes to the index of the first output vertex with that hash
+    private int[] table = new int[4096];
+
+    // Maps each input vertex to its output vertex
+    private int[] remap = new int[1024];
+
+    public static int getIndexBufferSize(int vertexCount) {
+        return (vertexCount / VERTICES_PER_PRIMITIVE) * ELEMENTS_PER_PRIMITIVE * INDEX_SIZE;
+    }
+
+    /**
+     * @return True if the unique vertices and their index buffer take up less memory than the vertices of the
+     * original quads, which are drawn with a shared index buffer
+     */
+    public static boolean isWorthWelding(int vertexCount, int uniqueCount, int stride) {
+        long weldedSize = ((long) uniqueCount * stride) + getIndexBufferSize(vertexCount);
+        long originalSize = (long) vertexCount * stride;
+
+        return weldedSize < originalSize;
+    }
+
+    /**
+     * Records that a welded mesh was thrown away, because it was not smaller than the original mesh.
+     */
+    public static void recordRejectedMesh(int vertexCount) {
+        STATS_REJECTED_VERTICES.add(vertexCount);
+    }
+
+    /**
+     * Merges the vertices of a buffer of quads.
+     *
+     * @param src The pointer to the first vertex of the input
+     * @param vertexCount The number of vertices in the input, which must be a multiple of four
+     * @param stride The size of each vertex in bytes, which must be a multiple of four
+     * @param dst The pointer which the unique vertices will be written to, with space for every input vertex
+     * @param indices The pointer which the indices will be written to, with space for
+     *                {@link #getIndexBufferSize(int)} bytes
+     * @return The number of unique vertices which were written, or -1 if there are more than {@link #MAX_VERTICES}
+     */
+    public int weld(long src, int vertexCount, int stride, long dst, long indices) {
+        long start = System.nanoTime();
+
+        int tableSize = this.prepare(vertexCount);
+
+        int[] table = this.table;
+        int[] remap = this.remap;
+        int mask = tableSize - 1;
+
+        int uniqueCount = 0;
+
+        for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+            long vertex = src + ((long) vertexIndex * stride);
+            int slot = hash(vertex, stride) & mask;
+
+            int match;
+
+            while (true) {
+                match = table[slot];
+
+                if (match == EMPTY || equals(vertex, dst + ((long) match * stride), stride)) {
+                    break;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            if (match == EMPTY) {
+                if (uniqueCount == MAX_VERTICES) {
+                    return -1;
+                }
+
+                match = uniqueCount++;
+                table[slot] = match;
+
+                MemoryUtil.memCopy(vertex, dst + ((long) match * stride), stride);
+            }
+
+            remap[vertexIndex] = match;
+        }
+
+        writeIndices(indices, remap, vertexCount / VERTICES_PER_PRIMITIVE);
+
+        STATS_INPUT_VERTICES.add(vertexCount);
+        STATS_OUTPUT_VERTICES.add(uniqueCount);
+        STATS_MESHES.increment();
+        STATS_NANOS.add(System.nanoTime() - start);
+
+        return uniqueCount;
+    }
+
+    private int prepare(int vertexCount) {
+        // Keep the load factor at or below 50% so that probe sequences stay short
+        int tableSize = Math.max(16, Integer.highestOneBit(Math.max(1, vertexCount - 1)) << 2);
+
+        if (this.table.length < tableSize) {
+            this.table = new int[tableSize];
+        }
+
+        // Only the part of the table which is used by this mesh needs to be cleared
+        Arrays.fill(this.table, 0, tableSize, EMPTY);
+
+        if (this.remap.length < vertexCount) {
+            this.remap = new int[Math.max(vertexCount, this.remap.length * 2)];
+        }
+
+        return tableSize;
+    }
+
+    private static void writeIndices(long ptr, int[] remap, int numPrimitives) {
+        // Uses the same winding as the shared quad index buffer
+        for (int primitiveIndex = 0; primitiveIndex < numPrimitives; primitiveIndex++) {
+            long indexPtr = ptr + ((long) primitiveIndex * ELEMENTS_PER_PRIMITIVE * INDEX_SIZE);
+            int vertexOffset = primitiveIndex * VERTICES_PER_PRIMITIVE;
+
+            MemoryUtil.memPutShort(indexPtr + 0, (short) remap[vertexOffset + 0]);
+            MemoryUtil.memPutShort(indexPtr + 2, (short) remap[vertexOffset + 1]);
+            MemoryUtil.memPutShort(indexPtr + 4, (short) remap[vertexOffset + 2]);
+
+            MemoryUtil.memPutShort(indexPtr + 6, (short) remap[vertexOffset + 2]);
+            MemoryUtil.memPutShort(indexPtr + 8, (short) remap[vertexOffset + 3]);
+            MemoryUtil.memPutShort(indexPtr + 10, (short) remap[vertexOffset + 0]);
+        }
+    }
+
+    private static int hash(long ptr, int stride) {
+        int hash = 0;
+
+        for (int offset = 0; offset < stride; offset += 4) {
+            hash = (hash * 0x9E3779B1) + MemoryUtil.memGetInt(ptr + offset);
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(long a, long b, int stride) {
+        for (int offset = 0; offset < stride; offset += 4) {
+            if (MemoryUtil.memGetInt(a + offset) != MemoryUtil.memGetInt(b + offset)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static String getDebugString() {
+        long input = STATS_INPUT_VERTICES.sum();
+        long output = STATS_OUTPUT_VERTICES.sum();
+        long meshes = STATS_MESHES.sum();
+        long rejected = STATS_REJECTED_VERTICES.sum();
+
+        return String.format("Vertex Welding: %d%% vertices kept, %d%% not worth welding (%d us/mesh)",
+                input > 0 ? (output * 100) / input : 100,
+                input > 0 ? (rejected * 100) / input : 0,
+                meshes > 0 ? (STATS_NANOS.sum() / meshes) / 1000 : 0);
+    }
+}
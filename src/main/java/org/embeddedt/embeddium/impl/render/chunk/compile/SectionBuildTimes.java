@@ -0,0 +1,55 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of how long the most recent section builds took, so that the median and tail latency can be shown on
+ * the debug screen. This is only used from the main thread.
+ */
+public class SectionBuildTimes {
+    private static final int SAMPLE_COUNT = 1024;
+
+    private final long[] samples = new long[SAMPLE_COUNT];
+    private final long[] sorted = new long[SAMPLE_COUNT];
+    private int sampleCount;
+    private int nextSample;
+
+    private long totalBuilds;
+    private long splitBuilds;
+
+    public void add(long buildNanos, int slabCount) {
+        this.samples[this.nextSample] = buildNanos;
+        this.nextSample = (this.nextSample + 1) % SAMPLE_COUNT;
+        this.sampleCount = Math.min(this.sampleCount + 1, SAMPLE_COUNT);
+
+        this.totalBuilds++;
+
+        if (slabCount > 1) {
+            this.splitBuilds++;
+        }
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 1
+     * @return The build time at the given percentile of the recent builds, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        if (this.sampleCount == 0) {
+            return 0;
+        }
+
+        System.arraycopy(this.samples, 0, this.sorted, 0, this.sampleCount);
+        Arrays.sort(this.sorted, 0, this.sampleCount);
+
+        int index = (int) Math.ceil(percentile * this.sampleCount) - 1;
+
+        return this.sorted[Math.max(0, Math.min(index, this.sampleCount - 1))];
+    }
+
+    public String getDebugString() {
+        return String.format("Section Builds: p50 %.2f ms, p99 %.2f ms (%d/%d split)",
+                this.getPercentile(0.50) / 1_000_000.0,
+                this.getPercentile(0.99) / 1_000_000.0,
+                this.splitBuilds, this.totalBuilds);
+    }
+}
@@ -0,0 +1,142 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.cache;
+
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.embeddedt.embeddium.impl.world.WorldSlice;
+import org.embeddedt.embeddium.impl.world.cloned.ChunkRenderContext;
+import org.embeddedt.embeddium.impl.world.cloned.ClonedChunkSection;
+
+/**
+ * Computes a 64-bit hash of everything in the world which the mesh of a section depends on. Two sections with the
+ * same hash (and the same {@link SectionMeshCache#computeFingerprint(String) fingerprint}) produce the same meshes.
+ * <p>
+ * The hash covers the block states within the volume which is read by the chunk mesher, the light data and biomes of
+ * the section and all of its neighbours, and the position of the section in the world, since models choose their
+ * random variants and offsets based on the position of each block.
+ * <p>
+ * The hashing functions themselves don't depend on the game, so that they can be checked without a running client.
+ */
+public class SectionContentHash {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+    private long hash;
+
+    public SectionContentHash(long seed) {
+        this.hash = seed ^ PRIME_3;
+    }
+
+    public SectionContentHash putLong(long value) {
+        this.hash = Long.rotateLeft(this.hash ^ (value * PRIME_2), 31) * PRIME_1;
+        return this;
+    }
+
+    public SectionContentHash putInt(int value) {
+        return this.putLong(Integer.toUnsignedLong(value));
+    }
+
+    public SectionContentHash putBytes(byte[] bytes) {
+        int i = 0;
+
+        for (; i + 8 <= bytes.length; i += 8) {
+            this.putLong(getLong(bytes, i));
+        }
+
+        long tail = 0;
+
+        for (int shift = 0; i < bytes.length; i++, shift += 8) {
+            tail |= (bytes[i] & 0xFFL) << shift;
+        }
+
+        // The length is included so that trailing zero bytes still change the hash
+        return this.putLong(tail).putInt(bytes.length);
+    }
+
+    public long getValue() {
+        long h = this.hash;
+        h ^= h >>> 33;
+        h *= PRIME_2;
+        h ^= h >>> 29;
+        h *= PRIME_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+
+        for (int i = 0; i < 8; i++) {
+            value |= (bytes[offset + i] & 0xFFL) << (i * 8);
+        }
+
+        return value;
+    }
+
+    /**
+     * Computes the content hash of the section which is being built from the given context.
+     *
+     * @param context The context of the build task
+     * @param slice The world slice which has been filled with the data of the context
+     * @param fingerprint The fingerprint of the resources and options which are in use
+     */
+    public static long compute(ChunkRenderContext context, WorldSlice slice, long fingerprint) {
+        var hash = new SectionContentHash(fingerprint);
+
+        var volume = context.getVolume();
+
+        var origin = context.getOrigin();
+
+        hash.putInt(origin.getX());
+        hash.putInt(origin.getY());
+        hash.putInt(origin.getZ());
+
+        for (int y = volume.minY(); y <= volume.maxY(); y++) {
+            for (int z = volume.minZ(); z <= volume.maxZ(); z++) {
+                for (int x = volume.minX(); x <= volume.maxX(); x++) {
+                    hash.putInt(Block.getId(slice.getBlockState(x, y, z)));
+                }
+            }
+        }
+
+        for (ClonedChunkSection section : context.getSections()) {
+            putLight(hash, section.getLightArray(LightLayer.BLOCK));
+            putLight(hash, section.getLightArray(LightLayer.SKY));
+            putBiomes(hash, section.getBiomeData());
+        }
+
+        return hash.getValue();
+    }
+
+    private static void putLight(SectionContentHash hash, DataLayer layer) {
+        if (layer == null) {
+            hash.putInt(-1);
+        } else if (layer.isDefinitelyHomogenous()) {
+            // Reading the data of a homogenous layer would allocate it, so only the single value is used
+            hash.putInt(layer.get(0, 0, 0));
+        } else {
+            hash.putBytes(layer.getData());
+        }
+    }
+
+    private static void putBiomes(SectionContentHash hash, PalettedContainerRO<Holder<Biome>> biomes) {
+        if (biomes == null) {
+            hash.putInt(-1);
+            return;
+        }
+
+        for (int y = 0; y < 4; y++) {
+            for (int z = 0; z < 4; z++) {
+                for (int x = 0; x < 4; x++) {
+                    hash.putInt(biomes.get(x, y, z).unwrapKey()
+                            .map(key -> key.location().hashCode())
+                            .orElse(0));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.cache;
+
+import com.google.gson.Gson;
+import it.unimi.dsi.fastutil.longs.Long2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.block.BlockModelShaper;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.texture.TextureAtlas;
+import net.minecraft.core.Direction;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.FoliageColor;
+import net.minecraft.world.level.GrassColor;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.client.model.data.ModelData;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.mixin.features.textures.TextureAtlasAccessor;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.util.FileUtil;
+import org.embeddedt.embeddium.impl.util.MathUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Stores the meshes of sections on disk, so that sections which haven't changed since they were last built (such as
+ * when rejoining a world or returning to a dimension) don't need to be meshed again.
+ * <p>
+ * Entries are keyed by the {@link SectionContentHash content hash} of a section, which is seeded with a fingerprint of
+ * the loaded mods, the options, and the models, block atlas, and colormaps which the resource packs provide. Changing
+ * any of these therefore makes every existing entry unreachable, and they are eventually removed when the cache is
+ * full. The least recently used entries are removed first.
+ * <p>
+ * Entries are read on the chunk builder threads, while writing entries and removing old ones happens on a separate
+ * thread, so that slow disks don't hold up chunk building.
+ */
+public class SectionMeshCache {
+    private static final String THREAD_NAME = "Embeddium Mesh Cache";
+
+    private static final long MODEL_SEED = 42L;
+    private static final int COLORMAP_SAMPLES = 64;
+
+    private static final Direction[] CULL_FACES = { null, Direction.DOWN, Direction.UP, Direction.NORTH, Direction.SOUTH,
+            Direction.WEST, Direction.EAST };
+
+    private final Path directory;
+    private final long fingerprint;
+    private final int stride;
+    private final long maxSize;
+
+    private final ExecutorService writer;
+
+    // The size of every entry on disk, in the order they were last used
+    private final Long2IntLinkedOpenHashMap entries = new Long2IntLinkedOpenHashMap();
+    private long totalSize;
+    private volatile boolean indexed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    private boolean loggedError;
+
+    private SectionMeshCache(Path directory, long fingerprint, int stride, long maxSize) {
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+        this.stride = stride;
+        this.maxSize = maxSize;
+
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        this.writer.execute(this::buildIndex);
+    }
+
+    /**
+     * Creates the cache if it is enabled in the options. This must be called on the main thread.
+     *
+     * @param vertexFormatName The name of the vertex format which meshes are built with
+     * @param stride The size of each vertex
+     * @return The cache, or null if it is disabled
+     */
+    public static SectionMeshCache createIfEnabled(String vertexFormatName, int stride) {
+        int maxSizeMb = Embeddium.options().advanced.meshCacheMegabytes;
+
+        if (maxSizeMb <= 0) {
+            return null;
+        }
+
+        var directory = FMLPaths.GAMEDIR.get().resolve("embeddium").resolve("mesh-cache");
+
+        return new SectionMeshCache(directory, computeFingerprint(vertexFormatName), stride, maxSizeMb * 1024L * 1024L);
+    }
+
+    /**
+     * Computes a fingerprint of everything other than the contents of the world which the meshes of a section depend
+     * on. This must be called on the main thread.
+     */
+    public static long computeFingerprint(String vertexFormatName) {
+        var hash = new SectionContentHash(0);
+
+        putString(hash, vertexFormatName);
+        putString(hash, Embeddium.getVersion());
+        putString(hash, new Gson().toJson(Embeddium.options()));
+
+        for (var mod : ModList.get().getMods()) {
+            putString(hash, mod.getModId());
+            putString(hash, mod.getVersion().toString());
+        }
+
+        for (var pack : Minecraft.getInstance().getResourcePackRepository().getSelectedIds()) {
+            putString(hash, pack);
+        }
+
+        var options = Minecraft.getInstance().options;
+
+        hash.putInt(options.ambientOcclusion().get() ? 1 : 0);
+        hash.putInt(options.graphicsMode().get().getId());
+        hash.putInt(options.biomeBlendRadius().get());
+        hash.putLong(computeStateMappingHash(Block.BLOCK_STATE_REGISTRY));
+
+        // Only the IDs of resource packs are known before they are loaded, and the contents of a pack can change
+        // without its ID changing, so everything which the packs provide to meshes is hashed as well
+        hash.putLong(computeAtlasLayoutHash(Minecraft.getInstance().getModelManager().getAtlas(TextureAtlas.LOCATION_BLOCKS)));
+        hash.putLong(computeModelHash(Minecraft.getInstance().getModelManager().getBlockModelShaper()));
+        hash.putLong(computeColormapHash());
+
+        return hash.getValue();
+    }
+
+    /**
+     * Hashes the name and texture coordinates of every sprite on the given atlas. Meshes contain the coordinates of
+     * the sprites they use, which move whenever a resource pack adds, removes, or resizes any texture on the atlas.
+     */
+    private static long computeAtlasLayoutHash(TextureAtlas atlas) {
+        var hash = new SectionContentHash(0);
+
+        var sprites = new ArrayList<>(((TextureAtlasAccessor) atlas).getTexturesByName().values());
+        sprites.sort(Comparator.comparing(sprite -> sprite.contents().name()));
+
+        for (var sprite : sprites) {
+            putString(hash, sprite.contents().name().toString());
+
+            hash.putInt(Float.floatToIntBits(sprite.getU0()));
+            hash.putInt(Float.floatToIntBits(sprite.getV0()));
+            hash.putInt(Float.floatToIntBits(sprite.getU1()));
+            hash.putInt(Float.floatToIntBits(sprite.getV1()));
+        }
+
+        return hash.getValue();
+    }
+
+    /**
+     * Hashes the render types and quads of the model of every block state, in the order of their IDs. Resource packs
+     * can change the shape, texture, tinting, and layer of any model without changing any block state. Models are
+     * queried the same way as for a block without model data, so models which depend on the world are only covered as
+     * far as their static geometry goes.
+     */
+    private static long computeModelHash(BlockModelShaper models) {
+        var hash = new SectionContentHash(0);
+        var random = RandomSource.create();
+
+        // Most models return the same list of quads every time, which only needs to be hashed once
+        var quadHashes = new Reference2LongOpenHashMap<List<BakedQuad>>();
+
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            var model = models.getBlockModel(state);
+
+            try {
+                random.setSeed(MODEL_SEED);
+
+                for (RenderType renderType : model.getRenderTypes(state, random, ModelData.EMPTY)) {
+                    hash.putInt(RenderType.chunkBufferLayers().indexOf(renderType));
+                }
+
+                for (Direction side : CULL_FACES) {
+                    random.setSeed(MODEL_SEED);
+
+                    var quads = model.getQuads(state, side, random, ModelData.EMPTY, null);
+                    long quadHash = quadHashes.getOrDefault(quads, 0L);
+
+                    if (quadHash == 0L) {
+                        quadHash = computeQuadHash(quads);
+                        quadHashes.put(quads, quadHash);
+                    }
+
+                    hash.putLong(quadHash);
+                }
+            } catch (RuntimeException e) {
+                // Some models can't be queried without a world, which only needs to be consistent between runs
+                putString(hash, e.getClass().getName());
+            }
+        }
+
+        return hash.getValue();
+    }
+
+    private static long computeQuadHash(List<BakedQuad> quads) {
+        var hash = new SectionContentHash(quads.size());
+
+        for (BakedQuad quad : quads) {
+            for (int value : quad.getVertices()) {
+                hash.putInt(value);
+            }
+
+            hash.putInt(quad.getTintIndex());
+            hash.putInt(quad.getDirection().ordinal());
+            hash.putInt(quad.isShade() ? 1 : 0);
+        }
+
+        // Zero marks a list which hasn't been hashed yet
+        return hash.getValue() | 1L;
+    }
+
+    /**
+     * Samples the grass and foliage colormaps, which resource packs can replace, and which the colors of most plants
+     * are taken from.
+     */
+    private static long computeColormapHash() {
+        var hash = new SectionContentHash(0);
+
+        for (int x = 0; x <= COLORMAP_SAMPLES; x++) {
+            for (int y = 0; y <= COLORMAP_SAMPLES; y++) {
+                double temperature = (double) x / COLORMAP_SAMPLES;
+                double downfall = (double) y / COLORMAP_SAMPLES;
+
+                hash.putInt(GrassColor.get(temperature, downfall));
+                hash.putInt(FoliageColor.get(temperature, downfall));
+            }
+        }
+
+        return hash.getValue();
+    }
+
+    /**
+     * Hashes the description of every block state (its block and property values) in the order of their IDs. Content
+     * hashes only contain the IDs of block states, so entries must not be used once an ID refers to a different state,
+     * even if the number of states is unchanged.
+     */
+    static long computeStateMappingHash(Iterable<?> states) {
+        var hash = new SectionContentHash(0);
+
+        for (var state : states) {
+            putString(hash, state.toString());
+        }
+
+        return hash.getValue();
+    }
+
+    private static void putString(SectionContentHash hash, String string) {
+        hash.putBytes(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Reads the entry with the given key.
+     *
+     * @param key The content hash of the section
+     * @param renderData The builder which the information about the meshes is added to
+     * @param meshes The map which the meshes are added to
+     * @return True if the entry was found and could be used
+     */
+    public boolean load(long key, BuiltSectionInfo.Builder renderData, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) {
+        if (this.indexed && !this.contains(key)) {
+            this.misses.increment();
+            return false;
+        }
+
+        var path = this.getPath(key);
+        byte[] bytes;
+
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            this.misses.increment();
+            return false;
+        } catch (IOException e) {
+            this.logError("Failed to read mesh cache entry", e);
+            this.misses.increment();
+            return false;
+        }
+
+        boolean found;
+
+        try {
+            found = SectionMeshSerializer.fromBytes(bytes, key, this.stride, renderData, meshes);
+        } catch (IOException | RuntimeException e) {
+            // The entry is damaged, so it can't be used and should be replaced
+            found = false;
+        }
+
+        if (found) {
+            this.hits.increment();
+            this.writer.execute(() -> this.touch(key, path));
+        } else {
+            this.misses.increment();
+            this.writer.execute(() -> this.remove(key));
+        }
+
+        return found;
+    }
+
+    /**
+     * Writes an entry with the given key. The meshes are copied before this returns, so they can be freed afterward.
+     */
+    public void store(long key, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, BuiltSectionInfo info) {
+        byte[] data;
+
+        try {
+            data = SectionMeshSerializer.toBytes(key, this.stride, meshes, info);
+        } catch (IOException e) {
+            this.logError("Failed to serialize mesh cache entry", e);
+            return;
+        }
+
+        this.writer.execute(() -> this.write(key, data));
+    }
+
+    private void write(long key, byte[] data) {
+        var path = this.getPath(key);
+
+        try {
+            Files.createDirectories(path.getParent());
+            FileUtil.writeBytesRobustly(data, path);
+        } catch (IOException e) {
+            this.logError("Failed to write mesh cache entry", e);
+            return;
+        }
+
+        this.writes.increment();
+
+        synchronized (this.entries) {
+            this.totalSize += data.length - this.entries.getAndMoveToLast(key);
+            this.entries.put(key, data.length);
+        }
+
+        this.evict();
+    }
+
+    private void touch(long key, Path path) {
+        synchronized (this.entries) {
+            this.entries.getAndMoveToLast(key);
+        }
+
+        // The modification time is used as the order of the entries when the cache is next opened
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    private void remove(long key) {
+        synchronized (this.entries) {
+            this.totalSize -= this.entries.remove(key);
+        }
+
+        this.delete(this.getPath(key));
+    }
+
+    private void evict() {
+        while (true) {
+            long key;
+
+            synchronized (this.entries) {
+                if (this.totalSize <= this.maxSize || this.entries.isEmpty()) {
+                    return;
+                }
+
+                key = this.entries.firstLongKey();
+                this.totalSize -= this.entries.removeFirstInt();
+            }
+
+            this.delete(this.getPath(key));
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            this.logError("Failed to delete mesh cache entry", e);
+        }
+    }
+
+    private boolean contains(long key) {
+        synchronized (this.entries) {
+            return this.entries.containsKey(key);
+        }
+    }
+
+    /**
+     * Finds all entries which already exist on disk, from the least to the most recently used.
+     */
+    private void buildIndex() {
+        record Entry(long key, int size, long lastModified) { }
+
+        var found = new ArrayList<Entry>();
+
+        if (Files.isDirectory(this.directory)) {
+            try (Stream<Path> stream = Files.walk(this.directory, 2)) {
+                stream.filter(Files::isRegularFile).forEach(path -> {
+                    var name = path.getFileName().toString();
+
+                    if (!name.endsWith(".bin")) {
+                        this.delete(path); // leftover temporary file
+                        return;
+                    }
+
+                    try {
+                        long key = Long.parseUnsignedLong(name.substring(0, name.length() - 4), 16);
+                        found.add(new Entry(key, (int) Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+                    } catch (NumberFormatException | IOException e) {
+                        this.delete(path);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                this.logError("Failed to index mesh cache", e);
+            }
+        }
+
+        found.sort(Comparator.comparingLong(Entry::lastModified));
+
+        synchronized (this.entries) {
+            for (var entry : found) {
+                // Entries which were written while the index was being built are newer
+                if (!this.entries.containsKey(entry.key())) {
+                    this.entries.putAndMoveToFirst(entry.key(), entry.size());
+                    this.totalSize += entry.size();
+                }
+            }
+        }
+
+        this.indexed = true;
+
+        this.evict();
+    }
+
+    private Path getPath(long key) {
+        var name = String.format("%016x", key);
+
+        // Spread the entries over many directories, since some file systems slow down with many files in one directory
+        return this.directory.resolve(name.substring(0, 2)).resolve(name + ".bin");
+    }
+
+    private void logError(String message, Exception e) {
+        if (!this.loggedError) {
+            this.loggedError = true;
+            Embeddium.logger().warn(message + " (further errors will not be logged)", e);
+        }
+    }
+
+    /**
+     * Stops writing new entries once all entries which are already queued have been written.
+     */
+    public void shutdown() {
+        this.writer.shutdown();
+    }
+
+    public String getDebugString() {
+        long size;
+
+        synchronized (this.entries) {
+            size = this.totalSize;
+        }
+
+        return String.format("Mesh Cache: %d hits, %d misses, %d writes (%d/%d MiB)",
+                this.hits.sum(), this.misses.sum(), this.writes.sum(),
+                MathUtil.toMib(size), MathUtil.toMib(this.maxSize));
+    }
+}
@@ -0,0 +1,409 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.cache;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.resources.ResourceLocation;
+import org.embeddedt.embeddium.impl.gl.util.VertexRange;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkMeshCompressor;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.VisibilityEncoding;
+import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Vector3f;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Converts the meshes of a section and the information which is needed to render them to and from the format which
+ * is stored in the {@link SectionMeshCache}.
+ * <p>
+ * Every entry ends with a checksum of everything before it, which is checked before anything else is read. Compressed
+ * vertex data is decoded without bounds checks on every byte, so an entry which was only partially written or was
+ * damaged on disk must never reach the decoder.
+ */
+class SectionMeshSerializer {
+    private static final int MAGIC = 0x454D4348; // "EMCH"
+    private static final int VERSION = 2;
+
+    private static final int CHECKSUM_SIZE = Long.BYTES;
+
+    /**
+     * Serializes the meshes of a section into a new entry.
+     */
+    static byte[] toBytes(long key, int stride, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, BuiltSectionInfo info) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        write(out, key, stride, meshes, info);
+
+        out.writeLong(computeChecksum(bytes.toByteArray(), key));
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the meshes of a section from an entry into the given map, and adds the information about them to the given
+     * builder.
+     *
+     * @return False if the entry can't be used, either because it was written for a different section or vertex format,
+     * or because it is damaged, in which case nothing is added to the map or builder
+     * @throws IOException If the entry ends early despite its checksum, which should never happen in practice
+     */
+    static boolean fromBytes(byte[] bytes, long key, int stride, BuiltSectionInfo.Builder renderData,
+                             Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) throws IOException {
+        if (bytes.length < CHECKSUM_SIZE) {
+            return false;
+        }
+
+        var body = Arrays.copyOf(bytes, bytes.length - CHECKSUM_SIZE);
+        long checksum = ByteBuffer.wrap(bytes, body.length, CHECKSUM_SIZE).getLong();
+
+        if (checksum != computeChecksum(body, key)) {
+            return false;
+        }
+
+        return read(new DataInputStream(new ByteArrayInputStream(body)), key, stride, renderData, meshes);
+    }
+
+    private static long computeChecksum(byte[] body, long key) {
+        return new SectionContentHash(key).putBytes(body).getValue();
+    }
+
+    private static void write(DataOutput out, long key, int stride, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes, BuiltSectionInfo info) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(key);
+        out.writeInt(stride);
+
+        out.writeLong(info.visibilityData);
+
+        var sprites = info.animatedSprites;
+
+        out.writeInt(sprites != null ? sprites.length : 0);
+
+        if (sprites != null) {
+            for (TextureAtlasSprite sprite : sprites) {
+                out.writeUTF(sprite.atlasLocation().toString());
+                out.writeUTF(sprite.contents().name().toString());
+            }
+        }
+
+        int passMask = 0;
+
+        for (int i = 0; i < DefaultTerrainRenderPasses.ALL.length; i++) {
+            if (meshes.containsKey(DefaultTerrainRenderPasses.ALL[i])) {
+                passMask |= 1 << i;
+            }
+        }
+
+        out.writeInt(passMask);
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            var mesh = meshes.get(pass);
+
+            if (mesh != null) {
+                writeMesh(out, stride, mesh);
+            }
+        }
+    }
+
+    private static void writeMesh(DataOutput out, int stride, BuiltSectionMeshParts mesh) throws IOException {
+        if (mesh.isVertexDataCompressed()) {
+            out.writeBoolean(true);
+            writeBuffer(out, mesh.getVertexData());
+        } else {
+            // Vertex data compresses well, so it is always stored compressed if it helps
+            var compressed = ChunkMeshCompressor.compress(mesh.getVertexData(), stride);
+
+            out.writeBoolean(compressed != null);
+
+            if (compressed != null) {
+                try {
+                    writeBuffer(out, compressed);
+                } finally {
+                    compressed.free();
+                }
+            } else {
+                writeBuffer(out, mesh.getVertexData());
+            }
+        }
+
+        var indexData = mesh.getIndexData();
+
+        out.writeBoolean(indexData != null);
+
+        if (indexData != null) {
+            writeBuffer(out, indexData);
+        }
+
+        var ranges = mesh.getVertexRanges();
+
+        out.writeInt(ranges.length);
+
+        for (VertexRange range : ranges) {
+            out.writeBoolean(range != null);
+
+            if (range != null) {
+                out.writeInt(range.vertexStart());
+                out.writeInt(range.vertexCount());
+            }
+        }
+
+        var elementCounts = mesh.getElementCounts();
+
+        out.writeBoolean(elementCounts != null);
+
+        if (elementCounts != null) {
+            writeInts(out, elementCounts);
+        }
+
+        writeSortState(out, mesh.getSortState());
+    }
+
+    private static void writeSortState(DataOutput out, @Nullable TranslucentQuadAnalyzer.SortState state) throws IOException {
+        out.writeBoolean(state != null);
+
+        if (state == null) {
+            return;
+        }
+
+        out.writeByte(state.level().ordinal());
+
+        out.writeBoolean(state.centers() != null);
+
+        if (state.centers() != null) {
+            out.writeInt(state.centers().length);
+
+            for (float center : state.centers()) {
+                out.writeFloat(center);
+            }
+        }
+
+        out.writeBoolean(state.normalSigns() != null);
+
+        if (state.normalSigns() != null) {
+            long[] words = state.normalSigns().toLongArray();
+            out.writeInt(words.length);
+
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+
+        out.writeBoolean(state.sharedNormal() != null);
+
+        if (state.sharedNormal() != null) {
+            out.writeFloat(state.sharedNormal().x);
+            out.writeFloat(state.sharedNormal().y);
+            out.writeFloat(state.sharedNormal().z);
+        }
+    }
+
+    private static void writeBuffer(DataOutput out, NativeBuffer buffer) throws IOException {
+        var data = buffer.getDirectBuffer();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static boolean read(DataInput in, long key, int stride, BuiltSectionInfo.Builder renderData,
+                                Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) throws IOException {
+        // Vertex data of a different size can't be decompressed or uploaded with the current vertex format
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != key || in.readInt() != stride) {
+            return false;
+        }
+
+        long visibilityData = in.readLong();
+
+        int spriteCount = in.readInt();
+        var sprites = new TextureAtlasSprite[spriteCount];
+
+        for (int i = 0; i < spriteCount; i++) {
+            var sprite = findSprite(ResourceLocation.parse(in.readUTF()), ResourceLocation.parse(in.readUTF()));
+
+            // The sprite has been removed, so the meshes can't refer to it correctly anymore
+            if (sprite == null) {
+                return false;
+            }
+
+            sprites[i] = sprite;
+        }
+
+        int passMask = in.readInt();
+
+        try {
+            for (int i = 0; i < DefaultTerrainRenderPasses.ALL.length; i++) {
+                if ((passMask & (1 << i)) != 0) {
+                    meshes.put(DefaultTerrainRenderPasses.ALL[i], readMesh(in, stride));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            freeMeshes(meshes);
+            throw e;
+        }
+
+        for (var sprite : sprites) {
+            renderData.addSprite(sprite);
+        }
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            if (meshes.containsKey(pass)) {
+                renderData.addRenderPass(pass);
+            }
+        }
+
+        renderData.setOcclusionData(VisibilityEncoding.decode(visibilityData));
+
+        return true;
+    }
+
+    private static BuiltSectionMeshParts readMesh(DataInput in, int stride) throws IOException {
+        NativeBuffer vertexData = null, indexData = null;
+
+        try {
+            boolean compressed = in.readBoolean();
+            vertexData = readBuffer(in);
+
+            if (compressed) {
+                var decompressed = ChunkMeshCompressor.decompress(vertexData, stride);
+                vertexData.free();
+                vertexData = decompressed;
+            }
+
+            if (in.readBoolean()) {
+                indexData = readBuffer(in);
+            }
+
+            var ranges = new VertexRange[in.readInt()];
+
+            for (int i = 0; i < ranges.length; i++) {
+                if (in.readBoolean()) {
+                    ranges[i] = new VertexRange(in.readInt(), in.readInt());
+                }
+            }
+
+            int[] elementCounts = in.readBoolean() ? readInts(in) : null;
+
+            var sortState = readSortState(in);
+
+            return new BuiltSectionMeshParts(vertexData, indexData, sortState, ranges, elementCounts);
+        } catch (IOException | RuntimeException e) {
+            if (vertexData != null) {
+                vertexData.free();
+            }
+
+            if (indexData != null) {
+                indexData.free();
+            }
+
+            throw e;
+        }
+    }
+
+    private static @Nullable TranslucentQuadAnalyzer.SortState readSortState(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        var level = TranslucentQuadAnalyzer.Level.VALUES[in.readByte()];
+
+        float[] centers = null;
+
+        if (in.readBoolean()) {
+            centers = new float[in.readInt()];
+
+            for (int i = 0; i < centers.length; i++) {
+                centers[i] = in.readFloat();
+            }
+        }
+
+        BitSet normalSigns = null;
+
+        if (in.readBoolean()) {
+            long[] words = new long[in.readInt()];
+
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+
+            normalSigns = BitSet.valueOf(words);
+        }
+
+        Vector3f sharedNormal = null;
+
+        if (in.readBoolean()) {
+            sharedNormal = new Vector3f(in.readFloat(), in.readFloat(), in.readFloat());
+        }
+
+        if (level == TranslucentQuadAnalyzer.Level.NONE && centers == null) {
+            return TranslucentQuadAnalyzer.SortState.NONE;
+        }
+
+        return new TranslucentQuadAnalyzer.SortState(level, centers, normalSigns, sharedNormal);
+    }
+
+    private static NativeBuffer readBuffer(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        var buffer = new NativeBuffer(bytes.length);
+        buffer.getDirectBuffer().put(bytes);
+
+        return buffer;
+    }
+
+    private static int[] readInts(DataInput in) throws IOException {
+        int[] values = new int[in.readInt()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+
+        return values;
+    }
+
+    private static @Nullable TextureAtlasSprite findSprite(ResourceLocation atlasLocation, ResourceLocation name) {
+        var sprite = Minecraft.getInstance().getModelManager().getAtlas(atlasLocation).getSprite(name);
+
+        // Missing sprites are replaced with the placeholder texture, which has a different name
+        return sprite.contents().name().equals(name) ? sprite : null;
+    }
+
+    static void freeMeshes(Map<TerrainRenderPass, BuiltSectionMeshParts> meshes) {
+        for (var mesh : meshes.values()) {
+            if (mesh.getVertexData() != null) {
+                mesh.getVertexData().free();
+            }
+
+            if (mesh.getIndexData() != null) {
+                mesh.getIndexData().free();
+            }
+        }
+
+        meshes.clear();
+    }
+}
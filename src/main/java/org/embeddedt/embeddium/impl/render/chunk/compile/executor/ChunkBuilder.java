@@ -9,12 +9,15 @@ import net.minecraft.util.Mth;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 import org.embeddedt.embeddium.impl.render.chunk.compile.GlobalChunkBuildContext;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ChunkBuilder {
     static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
@@ -65,7 +68,16 @@ public class ChunkBuilder {
      * spawn more tasks than the budget allows, it will block until resources become available.
      */
     public int getSchedulingBudget() {
-        return Math.max(0, (this.threads.size() * TASK_QUEUE_LIMIT_PER_WORKER) - this.queue.size());
+        return getSchedulingBudget(this.threads.size(), this.queue.size());
+    }
+
+    /**
+     * @param workers The number of worker threads
+     * @param queuedJobs The number of jobs which are waiting for a worker
+     * @return The number of non-important jobs which may be scheduled
+     */
+    public static int getSchedulingBudget(int workers, int queuedJobs) {
+        return Math.max(0, (workers * TASK_QUEUE_LIMIT_PER_WORKER) - queuedJobs);
     }
 
     /**
@@ -120,6 +132,65 @@ public class ChunkBuilder {
         return job;
     }
 
+    /**
+     * Schedules a part of a build task to be run by another worker thread. The job is placed at the front of the
+     * queue, since the task which created it is already running and waiting on it.
+     *
+     * @return The job, or null if the builder is shutting down and the caller should do the work itself
+     */
+    public <T> @Nullable ChunkForkJob<T> fork(Function<ChunkBuildContext, T> body) {
+        if (!this.queue.isRunning()) {
+            return null;
+        }
+
+        var job = new ChunkForkJob<>(body);
+
+        try {
+            this.queue.add(job, true);
+        } catch (IllegalArgumentException e) {
+            // The builder was shut down in the meantime
+            return null;
+        }
+
+        return job;
+    }
+
+    /**
+     * Removes a forked job from the queue if no worker thread has taken it yet, so that the calling thread can do the
+     * work itself instead of waiting.
+     *
+     * @return True if the job was removed, in which case it will never run
+     */
+    public boolean tryUnfork(ChunkForkJob<?> job) {
+        if (this.queue.stealJob(job)) {
+            job.setCancelled();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Waits for a forked job which has been taken by another worker thread to finish.
+     *
+     * @return The result of the job, or null if it was cancelled because the builder shut down before it started
+     */
+    public <T> @Nullable T join(ChunkForkJob<T> job) {
+        try {
+            while (!job.awaitDone(10, TimeUnit.MILLISECONDS)) {
+                // Jobs which were queued after the workers were told to stop will never be taken
+                if (!this.queue.isRunning()) {
+                    job.setCancelled();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for forked chunk job", e);
+        }
+
+        return job.getResult();
+    }
+
     /**
      * Returns the "optimal" number of threads to be used for chunk build tasks. This will always return at least one
      * thread.
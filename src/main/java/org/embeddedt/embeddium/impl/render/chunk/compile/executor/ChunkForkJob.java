@@ -0,0 +1,94 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A part of a build task which has been split off so that another worker thread can run it at the same time. The
+ * task which created it waits for the result with {@link ChunkBuilder#join(ChunkForkJob)}, or takes the work back with
+ * {@link ChunkBuilder#tryUnfork(ChunkForkJob)} if no worker has started it yet.
+ * <p>
+ * Unlike other jobs, this never waits on other jobs itself, so waiting for it can't cause the worker threads to
+ * deadlock.
+ */
+public class ChunkForkJob<T> implements ChunkJob {
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_RUNNING = 1;
+    private static final int STATE_CANCELLED = 2;
+
+    private final Function<ChunkBuildContext, T> body;
+
+    private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile T result;
+    private volatile Throwable failure;
+
+    ChunkForkJob(Function<ChunkBuildContext, T> body) {
+        this.body = body;
+    }
+
+    @Override
+    public void execute(ChunkBuildContext context) {
+        if (!this.state.compareAndSet(STATE_PENDING, STATE_RUNNING)) {
+            return;
+        }
+
+        try {
+            this.result = this.body.apply(context);
+        } catch (Throwable t) {
+            this.failure = t;
+        } finally {
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * Waits until the job has finished or was cancelled, for at most the given time.
+     *
+     * @return True if the job is done
+     */
+    boolean awaitDone(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.done.await(timeout, unit);
+    }
+
+    /**
+     * @return The result of the job, or null if it was cancelled before it started
+     */
+    @Nullable T getResult() {
+        var failure = this.failure;
+
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        } else if (failure instanceof Error e) {
+            throw e;
+        } else if (failure != null) {
+            throw new RuntimeException("Forked chunk job failed", failure);
+        }
+
+        return this.result;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.state.get() == STATE_CANCELLED;
+    }
+
+    @Override
+    public void setCancelled() {
+        // Jobs which are already running are left to finish, since the task waiting on them needs their result
+        if (this.state.compareAndSet(STATE_PENDING, STATE_CANCELLED)) {
+            this.done.countDown();
+        }
+    }
+
+    @Override
+    public boolean isStarted() {
+        return this.state.get() == STATE_RUNNING;
+    }
+}
@@ -1,16 +1,25 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
 
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkJobDequeuedEvent;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkJobResultEvent;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderTask;
+import org.embeddedt.embeddium.impl.util.metrics.LatencyHistogram;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 
 import java.util.function.Consumer;
 
 public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
         implements ChunkJob
 {
+    private static final LatencyHistogram QUEUE_TIME = MetricsRegistry.GLOBAL.histogram("chunk_builder.queue_wait");
+    private static final LatencyHistogram EXECUTE_TIME = MetricsRegistry.GLOBAL.histogram("chunk_builder.job");
+
     private final TASK task;
     private final Consumer<ChunkJobResult<OUTPUT>> consumer;
 
+    private final long scheduledTime = System.nanoTime();
+
     private volatile boolean cancelled;
     private volatile boolean started;
 
@@ -38,22 +47,49 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
 
         this.started = true;
 
+        if (QUEUE_TIME.isEnabled()) {
+            QUEUE_TIME.record(System.nanoTime() - this.scheduledTime);
+        }
+
+        var dequeuedEvent = new ChunkJobDequeuedEvent();
+
+        if (dequeuedEvent.shouldCommit()) {
+            dequeuedEvent.setSection(this.task.getSection(), this.task.getUpdateType());
+            dequeuedEvent.queueTime = System.nanoTime() - this.scheduledTime;
+            dequeuedEvent.commit();
+        }
+
         ChunkJobResult<OUTPUT> result;
+        boolean successful = false;
+
+        long startTime = EXECUTE_TIME.startTime();
 
         try {
             var output = this.task.execute(context, this);
 
+            EXECUTE_TIME.recordSince(startTime);
+
             // Task was cancelled while executing
             if (output == null) {
                 return;
             }
 
             result = ChunkJobResult.successfully(output);
+            successful = true;
         } catch (Throwable throwable) {
             result = ChunkJobResult.exceptionally(throwable);
             ChunkBuilder.LOGGER.error("Chunk build failed", throwable);
         }
 
+        var resultEvent = new ChunkJobResultEvent();
+
+        if (resultEvent.shouldCommit()) {
+            resultEvent.setSection(this.task.getSection(), this.task.getUpdateType());
+            resultEvent.successful = successful;
+            resultEvent.totalTime = System.nanoTime() - this.scheduledTime;
+            resultEvent.commit();
+        }
+
         try {
             this.consumer.accept(result);
         } catch (Throwable throwable) {
@@ -0,0 +1,16 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("embeddium.ChunkJobDequeued")
+@Label("Chunk Job Dequeued")
+@Description("A worker thread took a job from the queue of the chunk builder")
+public class ChunkJobDequeuedEvent extends ChunkPipelineEvent {
+    @Label("Queue Time")
+    @Description("The time the job spent waiting in the queue")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueTime;
+}
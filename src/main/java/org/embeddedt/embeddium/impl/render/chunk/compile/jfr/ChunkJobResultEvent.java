@@ -0,0 +1,20 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("embeddium.ChunkJobResult")
+@Label("Chunk Job Result")
+@Description("A job finished and its result was handed back to the main thread")
+public class ChunkJobResultEvent extends ChunkPipelineEvent {
+    @Label("Successful")
+    @Description("Whether the job finished without throwing an exception")
+    public boolean successful;
+
+    @Label("Total Time")
+    @Description("The time between the job being scheduled and its result being available")
+    @Timespan(Timespan.NANOSECONDS)
+    public long totalTime;
+}
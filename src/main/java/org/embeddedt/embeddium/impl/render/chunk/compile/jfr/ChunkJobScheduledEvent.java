@@ -0,0 +1,18 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("embeddium.ChunkJobScheduled")
+@Label("Chunk Job Scheduled")
+@Description("A build or sort task was added to the queue of the chunk builder")
+public class ChunkJobScheduledEvent extends ChunkPipelineEvent {
+    @Label("Important")
+    @Description("Whether the job was placed at the front of the queue")
+    public boolean important;
+
+    @Label("Queued Jobs")
+    @Description("The number of jobs in the queue before this one was added")
+    public int queuedJobs;
+}
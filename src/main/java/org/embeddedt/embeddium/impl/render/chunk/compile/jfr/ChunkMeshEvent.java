@@ -0,0 +1,36 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("embeddium.ChunkMesh")
+@Label("Chunk Mesh")
+@Description("The meshes of a section were built by a worker thread")
+public class ChunkMeshEvent extends ChunkPipelineEvent {
+    @Label("World Slice Copy Time")
+    @Description("The time spent copying the snapshot of the world into the world slice of the worker thread")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sliceCopyTime;
+
+    @Label("Vertex Data")
+    @DataAmount
+    public long vertexBytes;
+
+    @Label("Index Data")
+    @DataAmount
+    public long indexBytes;
+
+    @Label("Slabs")
+    @Description("The number of slabs the section was split into")
+    public int slabCount;
+
+    @Label("Cache Hit")
+    @Description("Whether the meshes were read from the mesh cache instead of being built")
+    public boolean cacheHit;
+
+    @Label("Cancelled")
+    public boolean cancelled;
+}
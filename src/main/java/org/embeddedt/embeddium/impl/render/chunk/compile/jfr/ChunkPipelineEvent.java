@@ -0,0 +1,40 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The fields which are shared by all flight recorder events of the chunk pipeline. Together with the thread and
+ * start time which are recorded for every event, these make it possible to follow a single section from the moment
+ * its rebuild is scheduled until its meshes are uploaded.
+ * <p>
+ * Events are only written while a recording which enables them is running. Otherwise, creating and committing them
+ * does nothing, and the JIT removes them entirely, so the fields should only be filled in after checking
+ * {@link #shouldCommit()}.
+ */
+@Category({ "Embeddium", "Chunk Pipeline" })
+@StackTrace(false)
+public abstract class ChunkPipelineEvent extends jdk.jfr.Event {
+    @Label("Section X")
+    public int sectionX;
+
+    @Label("Section Y")
+    public int sectionY;
+
+    @Label("Section Z")
+    public int sectionZ;
+
+    @Label("Update Type")
+    public String updateType;
+
+    public void setSection(RenderSection section, @Nullable ChunkUpdateType type) {
+        this.sectionX = section.getChunkX();
+        this.sectionY = section.getChunkY();
+        this.sectionZ = section.getChunkZ();
+        this.updateType = type != null ? type.name() : null;
+    }
+}
@@ -0,0 +1,14 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("embeddium.ChunkSnapshot")
+@Label("Chunk Snapshot")
+@Description("The blocks, light, and biomes around a section were copied from the world for a rebuild")
+public class ChunkSnapshotEvent extends ChunkPipelineEvent {
+    @Label("Empty")
+    @Description("Whether the section was empty, in which case nothing was copied and no task is scheduled")
+    public boolean empty;
+}
@@ -0,0 +1,15 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("embeddium.ChunkSort")
+@Label("Chunk Sort")
+@Description("The translucent geometry of a section was sorted for a new camera position by a worker thread")
+public class ChunkSortEvent extends ChunkPipelineEvent {
+    @Label("Index Data")
+    @DataAmount
+    public long indexBytes;
+}
@@ -0,0 +1,64 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Name("embeddium.ChunkUpload")
+@Label("Chunk Upload")
+@Description("The meshes of a section were uploaded to graphics memory")
+public class ChunkUploadEvent extends ChunkPipelineEvent {
+    @Label("Vertex Data")
+    @DataAmount
+    public long vertexBytes;
+
+    @Label("Index Data")
+    @DataAmount
+    public long indexBytes;
+
+    @Label("Upload Wait")
+    @Description("The time between the result being available and it being uploaded")
+    @Timespan(Timespan.NANOSECONDS)
+    public long uploadWait;
+
+    @Label("Index Only")
+    @Description("Whether only the index data was uploaded, after sorting")
+    public boolean indexOnly;
+
+    /**
+     * Creates an event for each of the given results. The events begin now, and should be committed once the results
+     * have been uploaded. The sizes are recorded here, since the mesh data is freed once it has been uploaded.
+     */
+    public static List<ChunkUploadEvent> createUploadEvents(List<ChunkBuildOutput> results) {
+        var events = new ArrayList<ChunkUploadEvent>(results.size());
+        long now = System.nanoTime();
+
+        for (var result : results) {
+            var event = new ChunkUploadEvent();
+            event.begin();
+            event.setSection(result.render, null);
+            event.uploadWait = now - result.getCreatedTime();
+            event.indexOnly = result.isIndexOnlyUpload();
+
+            for (var mesh : result.meshes.values()) {
+                if (mesh.getVertexData() != null) {
+                    event.vertexBytes += mesh.getVertexDataLength();
+                }
+
+                if (mesh.getIndexData() != null) {
+                    event.indexBytes += mesh.getIndexData().getLength();
+                }
+            }
+
+            events.add(event);
+        }
+
+        return events;
+    }
+}
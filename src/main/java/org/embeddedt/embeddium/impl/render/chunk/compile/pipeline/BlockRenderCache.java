@@ -49,6 +49,7 @@ public class BlockRenderCache {
     public void init(ChunkRenderContext context) {
         this.lightDataCache.reset(context.getOrigin());
         this.lightPipelineProvider.reset();
+        this.fluidRenderer.prepare(context.getOrigin());
         this.worldSlice.copyData(context);
     }
 
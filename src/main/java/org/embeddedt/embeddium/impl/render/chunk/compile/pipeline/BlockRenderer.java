@@ -4,6 +4,8 @@ import com.mojang.blaze3d.vertex.PoseStack;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.fabricmc.fabric.api.util.TriState;
 import org.embeddedt.embeddium.api.render.chunk.BlockRenderContext;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.model.UnwrappableBakedModel;
 import org.embeddedt.embeddium.impl.model.color.ColorProvider;
 import org.embeddedt.embeddium.impl.model.color.ColorProviderRegistry;
 import org.embeddedt.embeddium.impl.model.light.LightMode;
@@ -11,6 +13,8 @@ import org.embeddedt.embeddium.impl.model.light.LightPipeline;
 import org.embeddedt.embeddium.impl.model.light.LightPipelineProvider;
 import org.embeddedt.embeddium.impl.model.light.data.QuadLightData;
 import org.embeddedt.embeddium.impl.model.quad.BakedQuadView;
+import org.embeddedt.embeddium.impl.model.quad.cache.BakedGeometry;
+import org.embeddedt.embeddium.impl.model.quad.cache.StaticGeometryModel;
 import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
 import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadOrientation;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildBuffers;
@@ -20,8 +24,11 @@ import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
 import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
 import org.embeddedt.embeddium.impl.util.DirectionUtil;
 import org.embeddedt.embeddium.impl.util.ModelQuadUtil;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.resources.model.BakedModel;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.core.Direction;
 import net.minecraft.util.RandomSource;
@@ -33,6 +40,7 @@ import org.embeddedt.embeddium.impl.render.chunk.ChunkColorWriter;
 import org.embeddedt.embeddium.impl.render.frapi.FRAPIModelUtils;
 import org.embeddedt.embeddium.impl.render.frapi.FRAPIRenderHandler;
 import org.embeddedt.embeddium.impl.render.frapi.IndigoBlockRenderContext;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.List;
@@ -42,6 +50,10 @@ import static java.lang.Boolean.TRUE;
 
 public class BlockRenderer {
     private static final PoseStack EMPTY_STACK = new PoseStack();
+
+    private static final Counter QUAD_CACHE_LOOKUPS = MetricsRegistry.GLOBAL.counter("block_renderer.quad_cache.lookups");
+    private static final Counter QUAD_CACHE_BYPASSED = MetricsRegistry.GLOBAL.counter("block_renderer.quad_cache.bypassed");
+
     private final RandomSource random = new SingleThreadedRandomSource(42L);
 
     private final ColorProviderRegistry colorProviderRegistry;
@@ -54,6 +66,7 @@ public class BlockRenderer {
     private final ChunkVertexEncoder.Vertex[] vertices = ChunkVertexEncoder.Vertex.uninitializedQuad();
 
     private final boolean useAmbientOcclusion;
+    private final boolean useQuadCache;
 
     private final int[] quadColors = new int[4];
 
@@ -71,6 +84,7 @@ public class BlockRenderer {
 
         this.occlusionCache = new BlockOcclusionCache();
         this.useAmbientOcclusion = Minecraft.useAmbientOcclusion();
+        this.useQuadCache = Embeddium.options().advanced.useBakedQuadCache;
         this.fabricModelRenderingHandler = FRAPIRenderHandler.INDIGO_PRESENT ? new IndigoBlockRenderContext(this.occlusionCache, lighters.getLightData()) : null;
     }
 
@@ -113,13 +127,19 @@ public class BlockRenderer {
             return;
         }
 
+        BakedGeometry cachedGeometry = this.useQuadCache ? getCachedGeometry(ctx.model(), ctx.state(), ctx.seed(), this.random) : null;
+
+        // We disable Sodium's quad orientation detection if a quad opts out of AO. This is
+        // because some mods place non-AO quads below/above AO quads with identical coordinates.
+        // This won't z-fight as-is, but if the AO quad gets reoriented it can be triangulated
+        // differently from the non-AO quad, and that will cause z-fighting.
         boolean canReorientNullCullface = true;
 
         for (Direction face : DirectionUtil.ALL_DIRECTIONS) {
-            List<BakedQuad> quads = this.getGeometry(ctx, face);
+            List<BakedQuad> quads = cachedGeometry != null ? cachedGeometry.getQuads(face) : this.getGeometry(ctx, face);
 
             if (!quads.isEmpty() && this.isFaceVisible(ctx, face)) {
-                this.useReorienting = true;
+                this.useReorienting = cachedGeometry != null ? cachedGeometry.hasAmbientOcclusion(face) : BakedGeometry.allHaveAmbientOcclusion(quads);
                 this.renderQuadList(ctx, material, lighter, colorizer, renderOffset, meshBuilder, quads, face);
                 if (!this.useReorienting) {
                     // Reorienting was disabled on this side, make sure it's disabled for the null cullface too, in case
@@ -129,14 +149,37 @@ public class BlockRenderer {
             }
         }
 
-        List<BakedQuad> all = this.getGeometry(ctx, null);
+        List<BakedQuad> all = cachedGeometry != null ? cachedGeometry.getQuads(null) : this.getGeometry(ctx, null);
 
         if (!all.isEmpty()) {
-            this.useReorienting = canReorientNullCullface;
+            this.useReorienting = canReorientNullCullface && (cachedGeometry != null ? cachedGeometry.hasAmbientOcclusion(null) : BakedGeometry.allHaveAmbientOcclusion(all));
             this.renderQuadList(ctx, material, lighter, colorizer, renderOffset, meshBuilder, all, null);
         }
     }
 
+    /**
+     * Finds the cached quads of the model for a block, if its quads are known to only depend on the block state.
+     * Weighted models are unwrapped first, since the variant which the seed selects is what needs to be cached. This
+     * doesn't need a renderer, so that the benchmarks can measure it without a client.
+     */
+    public static @Nullable BakedGeometry getCachedGeometry(BakedModel model, BlockState state, long seed, RandomSource random) {
+        random.setSeed(seed);
+
+        model = UnwrappableBakedModel.unwrapIfPossible(model, random);
+
+        if (model instanceof StaticGeometryModel staticModel) {
+            var geometry = staticModel.embeddium$getStaticGeometry(state);
+
+            if (geometry != null) {
+                QUAD_CACHE_LOOKUPS.increment();
+                return geometry;
+            }
+        }
+
+        QUAD_CACHE_BYPASSED.increment();
+        return null;
+    }
+
     private List<BakedQuad> getGeometry(BlockRenderContext ctx, Direction face) {
         var random = this.random;
         random.setSeed(ctx.seed());
@@ -150,19 +193,6 @@ public class BlockRenderer {
 
     private void renderQuadList(BlockRenderContext ctx, Material material, LightPipeline lighter, ColorProvider<BlockState> colorizer, Vec3 offset,
                                 ChunkModelBuilder builder, List<BakedQuad> quads, Direction cullFace) {
-
-        // noinspection ForLoopReplaceableByForEach
-        for (int i = 0, quadsSize = quads.size(); i < quadsSize; i++) {
-            if (!quads.get(i).hasAmbientOcclusion()) {
-                // We disable Sodium's quad orientation detection if a quad opts out of AO. This is
-                // because some mods place non-AO quads below/above AO quads with identical coordinates.
-                // This won't z-fight as-is, but if the AO quad gets reoriented it can be triangulated
-                // differently from the non-AO quad, and that will cause z-fighting.
-                this.useReorienting = false;
-                break;
-            }
-        }
-
         // This is a very hot allocation, iterate over it manually
         // noinspection ForLoopReplaceableByForEach
         for (int i = 0, quadsSize = quads.size(); i < quadsSize; i++) {
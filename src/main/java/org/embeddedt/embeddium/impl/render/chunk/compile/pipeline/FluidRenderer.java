@@ -26,6 +26,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
 import net.minecraft.tags.FluidTags;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.BlockAndTintGetter;
@@ -43,6 +44,7 @@ import org.apache.commons.lang3.mutable.MutableInt;
 import org.embeddedt.embeddium.impl.render.chunk.compile.GlobalChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.fluid.EmbeddiumFluidSpriteCache;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 public class FluidRenderer {
@@ -51,10 +53,24 @@ public class FluidRenderer {
     private static final float EPSILON = 0.001f;
     private static final float ALIGNED_EQUALS_EPSILON = 0.011f;
 
+    // The section being built, plus a border of one block on each side for the neighbors of its edges
+    private static final int HEIGHT_CACHE_WIDTH = 18;
+
     private final BlockPos.MutableBlockPos scratchPos = new BlockPos.MutableBlockPos();
     private final MutableFloat scratchHeight = new MutableFloat(0);
     private final MutableInt scratchSamples = new MutableInt();
 
+    // The fluid height of each column around the section being built. Every fluid block reads the heights of its eight
+    // neighbors, so each height would otherwise be computed up to nine times. An entry is only valid for the layer and
+    // fluid it was computed for, which are stored alongside it, so nothing needs to be cleared when moving to the next
+    // layer of the section.
+    private final float[] heightCache = new float[HEIGHT_CACHE_WIDTH * HEIGHT_CACHE_WIDTH];
+    private final int[] heightCacheLayers = new int[HEIGHT_CACHE_WIDTH * HEIGHT_CACHE_WIDTH];
+    private final Fluid[] heightCacheFluids = new Fluid[HEIGHT_CACHE_WIDTH * HEIGHT_CACHE_WIDTH];
+
+    private int heightCacheOriginX, heightCacheOriginZ;
+    private boolean heightCacheEnabled = true;
+
     private final ModelQuadViewMutable quad = new ModelQuad();
 
     private final LightPipelineProvider lighters;
@@ -76,6 +92,25 @@ public class FluidRenderer {
         this.colorProviderRegistry = colorProviderRegistry;
     }
 
+    /**
+     * Prepares the renderer for building the given section, throwing away any fluid heights cached from the previous
+     * one.
+     */
+    public void prepare(SectionPos origin) {
+        this.heightCacheOriginX = origin.minBlockX() - 1;
+        this.heightCacheOriginZ = origin.minBlockZ() - 1;
+
+        Arrays.fill(this.heightCacheFluids, null);
+    }
+
+    /**
+     * Enables or disables the fluid height cache. It is always enabled while building sections, and is only disabled by
+     * tests which compare the output and speed of the renderer with and without it.
+     */
+    public void setHeightCacheEnabled(boolean enabled) {
+        this.heightCacheEnabled = enabled;
+    }
+
     private boolean isFluidOccluded(BlockAndTintGetter world, int x, int y, int z, Direction dir, Fluid fluid) {
         // Check if the fluid adjacent to us in the given direction is the same
         if (world.getFluidState(this.scratchPos.set(x + dir.getStepX(), y + dir.getStepY(), z + dir.getStepZ())).getType().isSame(fluid)) {
@@ -174,7 +209,7 @@ public class FluidRenderer {
 
         TextureAtlasSprite[] sprites = fluidSpriteCache.getSprites(world, blockPos, fluidState);
 
-        float fluidHeight = this.fluidHeight(world, fluid, blockPos, Direction.UP);
+        float fluidHeight = this.getCachedFluidHeight(world, fluid, posX, posY, posZ);
         float northWestHeight, southWestHeight, southEastHeight, northEastHeight;
         if (fluidHeight >= 1.0f) {
             northWestHeight = 1.0f;
@@ -182,23 +217,14 @@ public class FluidRenderer {
             southEastHeight = 1.0f;
             northEastHeight = 1.0f;
         } else {
-            var scratchPos = new BlockPos.MutableBlockPos();
-            float heightNorth = this.fluidHeight(world, fluid, scratchPos.setWithOffset(blockPos, Direction.NORTH), Direction.NORTH);
-            float heightSouth = this.fluidHeight(world, fluid, scratchPos.setWithOffset(blockPos, Direction.SOUTH), Direction.SOUTH);
-            float heightEast = this.fluidHeight(world, fluid, scratchPos.setWithOffset(blockPos, Direction.EAST), Direction.EAST);
-            float heightWest = this.fluidHeight(world, fluid, scratchPos.setWithOffset(blockPos, Direction.WEST), Direction.WEST);
-            northWestHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightNorth, heightWest, scratchPos.set(blockPos)
-                    .move(Direction.NORTH)
-                    .move(Direction.WEST));
-            southWestHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightSouth, heightWest, scratchPos.set(blockPos)
-                    .move(Direction.SOUTH)
-                    .move(Direction.WEST));
-            southEastHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightSouth, heightEast, scratchPos.set(blockPos)
-                    .move(Direction.SOUTH)
-                    .move(Direction.EAST));
-            northEastHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightNorth, heightEast, scratchPos.set(blockPos)
-                    .move(Direction.NORTH)
-                    .move(Direction.EAST));
+            float heightNorth = this.getCachedFluidHeight(world, fluid, posX, posY, posZ - 1);
+            float heightSouth = this.getCachedFluidHeight(world, fluid, posX, posY, posZ + 1);
+            float heightEast = this.getCachedFluidHeight(world, fluid, posX + 1, posY, posZ);
+            float heightWest = this.getCachedFluidHeight(world, fluid, posX - 1, posY, posZ);
+            northWestHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightNorth, heightWest, posX - 1, posY, posZ - 1);
+            southWestHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightSouth, heightWest, posX - 1, posY, posZ + 1);
+            southEastHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightSouth, heightEast, posX + 1, posY, posZ + 1);
+            northEastHeight = this.fluidCornerHeight(world, fluid, fluidHeight, heightNorth, heightEast, posX + 1, posY, posZ - 1);
         }
         float yOffset = sfDown ? 0.0F : EPSILON;
 
@@ -483,13 +509,15 @@ public class FluidRenderer {
         quad.setTexV(i, v);
     }
 
-    private float fluidCornerHeight(BlockAndTintGetter world, Fluid fluid, float fluidHeight, float fluidHeightX, float fluidHeightY, BlockPos blockPos) {
+    // The corners themselves aren't cached, since the heights of a corner are summed in a different order by each of
+    // the blocks sharing it, which can round differently
+    private float fluidCornerHeight(BlockAndTintGetter world, Fluid fluid, float fluidHeight, float fluidHeightX, float fluidHeightY, int x, int y, int z) {
         if (fluidHeightY >= 1.0f || fluidHeightX >= 1.0f) {
             return 1.0f;
         }
 
         if (fluidHeightY > 0.0f || fluidHeightX > 0.0f) {
-            float height = this.fluidHeight(world, fluid, blockPos, Direction.UP);
+            float height = this.getCachedFluidHeight(world, fluid, x, y, z);
 
             if (height >= 1.0f) {
                 return 1.0f;
@@ -519,6 +547,29 @@ public class FluidRenderer {
         }
     }
 
+    private float getCachedFluidHeight(BlockAndTintGetter world, Fluid fluid, int x, int y, int z) {
+        int relX = x - this.heightCacheOriginX;
+        int relZ = z - this.heightCacheOriginZ;
+
+        if (!this.heightCacheEnabled || relX < 0 || relZ < 0 || relX >= HEIGHT_CACHE_WIDTH || relZ >= HEIGHT_CACHE_WIDTH) {
+            return this.fluidHeight(world, fluid, this.scratchPos.set(x, y, z), Direction.UP);
+        }
+
+        int index = relX + (relZ * HEIGHT_CACHE_WIDTH);
+
+        if (this.heightCacheFluids[index] == fluid && this.heightCacheLayers[index] == y) {
+            return this.heightCache[index];
+        }
+
+        float height = this.fluidHeight(world, fluid, this.scratchPos.set(x, y, z), Direction.UP);
+
+        this.heightCache[index] = height;
+        this.heightCacheLayers[index] = y;
+        this.heightCacheFluids[index] = fluid;
+
+        return height;
+    }
+
     private float fluidHeight(BlockAndTintGetter world, Fluid fluid, BlockPos blockPos, Direction direction) {
         BlockState blockState = world.getBlockState(blockPos);
         FluidState fluidState = blockState.getFluidState();
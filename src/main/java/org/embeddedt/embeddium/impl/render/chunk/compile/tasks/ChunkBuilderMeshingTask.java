@@ -2,11 +2,18 @@ package org.embeddedt.embeddium.impl.render.chunk.compile.tasks;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import org.embeddedt.embeddium.impl.model.ModelDataSnapshotter;
+import org.embeddedt.embeddium.impl.model.SectionModelData;
 import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBufferSorter;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildBuffers;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkMeshCompressor;
+import org.embeddedt.embeddium.impl.render.chunk.compile.cache.SectionContentHash;
+import org.embeddedt.embeddium.impl.render.chunk.compile.cache.SectionMeshCache;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuilder;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkForkJob;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkMeshEvent;
 import org.embeddedt.embeddium.impl.render.chunk.compile.pipeline.BlockRenderCache;
 import org.embeddedt.embeddium.api.render.chunk.BlockRenderContext;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
@@ -36,7 +43,11 @@ import net.minecraftforge.client.model.data.ModelData;
 import org.embeddedt.embeddium.api.ChunkDataBuiltEvent;
 import org.embeddedt.embeddium.impl.chunk.MeshAppenderRenderer;
 import org.embeddedt.embeddium.impl.model.UnwrappableBakedModel;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -48,6 +59,11 @@ import java.util.Objects;
  * array allocations, they are pooled to ensure that the garbage collector doesn't become overloaded.
  */
 public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput> {
+    /**
+     * The largest number of slabs a section can be split into. Smaller slabs wouldn't contain enough work to be worth
+     * the cost of handing them to another thread.
+     */
+    public static final int MAX_SLABS = 4;
 
     private final RandomSource random = new SingleThreadedRandomSource(42L);
 
@@ -56,16 +72,22 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
     private final int buildTime;
 
-    private final Map<BlockPos, ModelData> modelDataMap;
+    private final SectionModelData modelData;
 
     private Vec3 camera = Vec3.ZERO;
 
+    private SectionMeshCache meshCache;
+
+    private ChunkBuilder builder;
+    private int slabCount = 1;
+
     public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, int time) {
         this.render = render;
         this.renderContext = renderContext;
         this.buildTime = time;
 
-        this.modelDataMap = ModelDataSnapshotter.getModelDataForSection(Minecraft.getInstance().level, this.renderContext.getOrigin());
+        this.modelData = ModelDataSnapshotter.getModelDataForSection(Minecraft.getInstance().level, this.renderContext.getOrigin(), render.getModelData());
+        render.setModelData(this.modelData);
     }
 
     public ChunkBuilderMeshingTask withCameraPosition(Vec3 camera) {
@@ -73,8 +95,28 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
         return this;
     }
 
+    public ChunkBuilderMeshingTask withMeshCache(@Nullable SectionMeshCache meshCache) {
+        this.meshCache = meshCache;
+        return this;
+    }
+
+    /**
+     * Splits the blocks of the section into the given number of slabs along the Y axis, which are rendered by
+     * multiple worker threads if any of them are idle.
+     */
+    public ChunkBuilderMeshingTask withSlabs(ChunkBuilder builder, int slabCount) {
+        this.builder = builder;
+        this.slabCount = Math.max(1, Math.min(slabCount, MAX_SLABS));
+        return this;
+    }
+
     @Override
     public ChunkBuildOutput execute(ChunkBuildContext buildContext, CancellationToken cancellationToken) {
+        var event = new ChunkMeshEvent();
+        event.begin();
+
+        long startTime = System.nanoTime();
+
         BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
         VisGraph occluder = new VisGraph();
 
@@ -84,121 +126,421 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
         BlockRenderCache cache = buildContext.cache;
         cache.init(this.renderContext);
 
+        long sliceCopyTime = System.nanoTime() - startTime;
+
         WorldSlice slice = cache.getWorldSlice();
 
         int minX = this.render.getOriginX();
         int minY = this.render.getOriginY();
         int minZ = this.render.getOriginZ();
 
-        int maxX = minX + 16;
-        int maxY = minY + 16;
-        int maxZ = minZ + 16;
+        boolean useMeshCache = this.meshCache != null && this.isCacheable();
+        long cacheKey = 0;
+
+        if (useMeshCache) {
+            cacheKey = SectionContentHash.compute(this.renderContext, slice, this.meshCache.getFingerprint());
+
+            Map<TerrainRenderPass, BuiltSectionMeshParts> cachedMeshes = new Reference2ReferenceOpenHashMap<>();
+
+            if (this.meshCache.load(cacheKey, renderData, cachedMeshes)) {
+                var output = this.createOutput(renderData, cachedMeshes, buffers, false, cacheKey);
+                long elapsed = System.nanoTime() - startTime;
+                output.setBuildStats(elapsed, elapsed, 1);
+                this.commitEvent(event, output, sliceCopyTime, true);
+                return output;
+            }
+        }
 
         // Initialise with minX/minY/minZ so initial getBlockState crash context is correct
         BlockPos.MutableBlockPos blockPos = new BlockPos.MutableBlockPos(minX, minY, minZ);
-        BlockPos.MutableBlockPos modelOffset = new BlockPos.MutableBlockPos();
+        BitSet opaqueBlocks = new BitSet(16 * 16 * 16);
 
-        BlockRenderContext context = new BlockRenderContext(slice);
+        // The time spent by other threads on this section, minus the time this thread spent waiting for them
+        long[] extraWorkNanos = new long[1];
 
         try {
-            for (int y = minY; y < maxY; y++) {
-                if (cancellationToken.isCancelled()) {
-                    return null;
+            boolean finished;
+
+            if (this.slabCount > 1) {
+                finished = this.renderSlabs(buildContext, renderData, opaqueBlocks, blockPos, cancellationToken, extraWorkNanos);
+            } else {
+                finished = this.renderBlocks(buildContext, renderData, opaqueBlocks, minY, minY + 16, this.random, blockPos, cancellationToken);
+            }
+
+            if (!finished) {
+                this.commitEvent(event, null, sliceCopyTime, false);
+                return null;
+            }
+
+            BlockRenderContext context = new BlockRenderContext(slice);
+            MeshAppenderRenderer.renderMeshAppenders(renderContext.getMeshAppenders(), context.localSlice(), renderContext.getOrigin(), buffers);
+        } catch (SlabFailedException ex) {
+            throw ex.report;
+        } catch (ReportedException ex) {
+            // Propagate existing crashes (add context)
+            throw fillCrashInfo(ex.getReport(), slice, blockPos);
+        } catch (Throwable ex) {
+            // Create a new crash report for other exceptions (e.g. thrown in getQuads)
+            throw fillCrashInfo(CrashReport.forThrowable(ex, "Encountered exception while building chunk meshes"), slice, blockPos);
+        }
+
+        for (int i = opaqueBlocks.nextSetBit(0); i >= 0; i = opaqueBlocks.nextSetBit(i + 1)) {
+            occluder.setOpaque(blockPos.set(minX + (i & 15), minY + (i >> 8), minZ + ((i >> 4) & 15)));
+        }
+
+        Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            BuiltSectionMeshParts mesh = buffers.createMesh(pass);
+
+            if (mesh != null) {
+                meshes.put(pass, mesh);
+                renderData.addRenderPass(pass);
+            }
+        }
+
+        renderData.setOcclusionData(occluder.resolve());
+
+        var output = this.createOutput(renderData, meshes, buffers, useMeshCache, cacheKey);
+
+        long elapsed = System.nanoTime() - startTime;
+        output.setBuildStats(elapsed, elapsed + extraWorkNanos[0], this.slabCount);
+
+        this.commitEvent(event, output, sliceCopyTime, false);
+
+        return output;
+    }
+
+    private void commitEvent(ChunkMeshEvent event, @Nullable ChunkBuildOutput output, long sliceCopyTime, boolean cacheHit) {
+        event.end();
+
+        if (!event.shouldCommit()) {
+            return;
+        }
+
+        event.setSection(this.render, this.getUpdateType());
+        event.sliceCopyTime = sliceCopyTime;
+        event.slabCount = this.slabCount;
+        event.cacheHit = cacheHit;
+        event.cancelled = output == null;
+
+        if (output != null) {
+            for (var mesh : output.meshes.values()) {
+                event.vertexBytes += mesh.getVertexDataLength();
+
+                if (mesh.getIndexData() != null) {
+                    event.indexBytes += mesh.getIndexData().getLength();
                 }
+            }
+        }
 
-                for (int z = minZ; z < maxZ; z++) {
-                    for (int x = minX; x < maxX; x++) {
-                        BlockState blockState = slice.getBlockState(x, y, z);
+        event.commit();
+    }
 
-                        // Fast path - skip blocks that are air and don't have any custom logic
-                        if (blockState.isAir() && blockState.getRenderShape() == RenderShape.INVISIBLE && !blockState.hasBlockEntity()) {
-                            continue;
-                        }
+    @Override
+    public RenderSection getSection() {
+        return this.render;
+    }
+
+    /**
+     * Renders all blocks in the given range of Y coordinates into the buffers of the given context.
+     *
+     * @param opaqueBlocks The set which the index of every opaque block is added to, in YZX order
+     * @param blockPos The position which is updated with every block, so that it can be used in crash reports
+     * @return False if the task was cancelled
+     */
+    private boolean renderBlocks(ChunkBuildContext buildContext, BuiltSectionInfo.Builder renderData, BitSet opaqueBlocks,
+                                 int minY, int maxY, RandomSource random, BlockPos.MutableBlockPos blockPos,
+                                 CancellationToken cancellationToken) {
+        BlockRenderCache cache = buildContext.cache;
+        ChunkBuildBuffers buffers = buildContext.buffers;
+        WorldSlice slice = cache.getWorldSlice();
 
-                        blockPos.set(x, y, z);
-                        modelOffset.set(x & 15, y & 15, z & 15);
+        int minX = this.render.getOriginX();
+        int minZ = this.render.getOriginZ();
 
-                        if (blockState.getRenderShape() == RenderShape.MODEL) {
-                            BakedModel model = cache.getBlockModels()
-                                .getBlockModel(blockState);
-                            ModelData modelData = model.getModelData(context.localSlice(), blockPos, blockState, modelDataMap.getOrDefault(blockPos, ModelData.EMPTY));
+        int maxX = minX + 16;
+        int maxZ = minZ + 16;
 
-                            long seed = blockState.getSeed(blockPos);
-                            random.setSeed(seed);
+        BlockPos.MutableBlockPos modelOffset = new BlockPos.MutableBlockPos();
 
-                            // Embeddium: Ideally we'd do this before the call to getModelData, but that requires an
-                            // LVT reordering to move "long seed" further up. We will have to do this in 21.
-                            model = UnwrappableBakedModel.unwrapIfPossible(model, random);
+        BlockRenderContext context = new BlockRenderContext(slice);
 
-                            random.setSeed(seed);
+        for (int y = minY; y < maxY; y++) {
+            if (cancellationToken.isCancelled()) {
+                return false;
+            }
 
-                            for (RenderType layer : model.getRenderTypes(blockState, random, modelData)) {
-                                context.update(blockPos, modelOffset, blockState, model, seed, modelData, layer);
-                                cache.getBlockRenderer()
-                                        .renderModel(context, buffers);
-                            }
-                        }
+            for (int z = minZ; z < maxZ; z++) {
+                for (int x = minX; x < maxX; x++) {
+                    BlockState blockState = slice.getBlockState(x, y, z);
+
+                    // Fast path - skip blocks that are air and don't have any custom logic
+                    if (blockState.isAir() && blockState.getRenderShape() == RenderShape.INVISIBLE && !blockState.hasBlockEntity()) {
+                        continue;
+                    }
+
+                    blockPos.set(x, y, z);
+                    modelOffset.set(x & 15, y & 15, z & 15);
+
+                    if (blockState.getRenderShape() == RenderShape.MODEL) {
+                        BakedModel model = cache.getBlockModels()
+                            .getBlockModel(blockState);
+                        ModelData modelData = model.getModelData(context.localSlice(), blockPos, blockState, this.modelData.get(blockPos));
+
+                        long seed = blockState.getSeed(blockPos);
+                        random.setSeed(seed);
 
-                        FluidState fluidState = blockState.getFluidState();
+                        // Embeddium: Ideally we'd do this before the call to getModelData, but that requires an
+                        // LVT reordering to move "long seed" further up. We will have to do this in 21.
+                        model = UnwrappableBakedModel.unwrapIfPossible(model, random);
 
-                        if (!fluidState.isEmpty()) {
-                            cache.getFluidRenderer().render(slice, fluidState, blockPos, modelOffset, buffers);
+                        random.setSeed(seed);
+
+                        for (RenderType layer : model.getRenderTypes(blockState, random, modelData)) {
+                            context.update(blockPos, modelOffset, blockState, model, seed, modelData, layer);
+                            cache.getBlockRenderer()
+                                    .renderModel(context, buffers);
                         }
+                    }
+
+                    FluidState fluidState = blockState.getFluidState();
+
+                    if (!fluidState.isEmpty()) {
+                        cache.getFluidRenderer().render(slice, fluidState, blockPos, modelOffset, buffers);
+                    }
 
-                        if (blockState.hasBlockEntity()) {
-                            BlockEntity entity = slice.getBlockEntity(blockPos);
+                    if (blockState.hasBlockEntity()) {
+                        BlockEntity entity = slice.getBlockEntity(blockPos);
 
-                            if (entity != null) {
-                                BlockEntityRenderer<BlockEntity> renderer = Minecraft.getInstance().getBlockEntityRenderDispatcher().getRenderer(entity);
+                        if (entity != null) {
+                            BlockEntityRenderer<BlockEntity> renderer = Minecraft.getInstance().getBlockEntityRenderDispatcher().getRenderer(entity);
 
-                                if (renderer != null) {
-                                    renderData.addBlockEntity(entity, !renderer.shouldRenderOffScreen(entity));
-                                }
+                            if (renderer != null) {
+                                renderData.addBlockEntity(entity, !renderer.shouldRenderOffScreen(entity));
                             }
                         }
+                    }
 
-                        if (blockState.isSolidRender(slice, blockPos)) {
-                            occluder.setOpaque(blockPos);
-                        }
+                    if (blockState.isSolidRender(slice, blockPos)) {
+                        opaqueBlocks.set(((y & 15) << 8) | ((z & 15) << 4) | (x & 15));
                     }
                 }
             }
+        }
 
-            MeshAppenderRenderer.renderMeshAppenders(renderContext.getMeshAppenders(), context.localSlice(), renderContext.getOrigin(), buffers);
+        return true;
+    }
+
+    /**
+     * The blocks of one slab which were rendered by another worker thread.
+     */
+    private record SlabOutput(ChunkBuildBuffers.PartialMesh mesh, BuiltSectionInfo.Builder renderData, BitSet opaqueBlocks, long workNanos) { }
+
+    /**
+     * Renders the blocks of the section in slabs. The first slab is rendered by this thread, and the others are
+     * offered to the other worker threads. Any slabs which haven't been taken by the time this thread is done with its
+     * own are rendered by this thread too, so the section is never slower to build than it would be on one thread
+     * when all workers are busy.
+     * <p>
+     * Every slab is rendered into the buffers of the thread that renders it, and the vertices of slabs rendered by
+     * other threads are appended to the buffers of this thread afterward. The order of the quads therefore depends
+     * on which thread rendered each slab, which only matters for translucent geometry, and that is sorted anyway.
+     */
+    private boolean renderSlabs(ChunkBuildContext buildContext, BuiltSectionInfo.Builder renderData, BitSet opaqueBlocks,
+                                BlockPos.MutableBlockPos blockPos, CancellationToken cancellationToken, long[] extraWorkNanos) {
+        int minY = this.render.getOriginY();
+        int slabHeight = 16 / this.slabCount;
+
+        List<ChunkForkJob<SlabOutput>> forks = new ArrayList<>(this.slabCount - 1);
+
+        for (int slab = 1; slab < this.slabCount; slab++) {
+            int slabMinY = minY + (slab * slabHeight);
+            int slabMaxY = slab == this.slabCount - 1 ? minY + 16 : slabMinY + slabHeight;
+
+            forks.add(this.builder.fork(context -> this.renderRemoteSlab(context, slabMinY, slabMaxY, cancellationToken)));
+        }
+
+        boolean finished = false;
+
+        try {
+            if (!this.renderBlocks(buildContext, renderData, opaqueBlocks, minY, minY + slabHeight, this.random, blockPos, cancellationToken)) {
+                return false;
+            }
+
+            // Take back every slab which no other thread has started yet
+            for (int i = 0; i < forks.size(); i++) {
+                var fork = forks.get(i);
+
+                if (fork == null || this.builder.tryUnfork(fork)) {
+                    forks.set(i, null);
+
+                    int slabMinY = minY + ((i + 1) * slabHeight);
+                    int slabMaxY = i == forks.size() - 1 ? minY + 16 : slabMinY + slabHeight;
+
+                    if (!this.renderBlocks(buildContext, renderData, opaqueBlocks, slabMinY, slabMaxY, this.random, blockPos, cancellationToken)) {
+                        return false;
+                    }
+                }
+            }
+
+            // Wait for the slabs which other threads are working on
+            for (int i = 0; i < forks.size(); i++) {
+                var fork = forks.get(i);
+
+                if (fork == null) {
+                    continue;
+                }
+
+                forks.set(i, null);
+
+                long waitStart = System.nanoTime();
+                SlabOutput output;
+
+                try {
+                    output = this.builder.join(fork);
+                } catch (ReportedException ex) {
+                    // The crash report already describes the block in the other slab
+                    throw new SlabFailedException(ex);
+                }
+
+                extraWorkNanos[0] -= System.nanoTime() - waitStart;
+
+                if (output == null) {
+                    // The slab was cancelled, so the whole section is incomplete
+                    return false;
+                }
+
+                extraWorkNanos[0] += output.workNanos();
+
+                buildContext.buffers.append(output.mesh());
+                renderData.addAll(output.renderData());
+                opaqueBlocks.or(output.opaqueBlocks());
+            }
+
+            finished = true;
+        } finally {
+            if (!finished) {
+                this.abandonSlabs(forks);
+            }
+        }
+
+        return true;
+    }
+
+    private @Nullable SlabOutput renderRemoteSlab(ChunkBuildContext buildContext, int minY, int maxY, CancellationToken cancellationToken) {
+        long startTime = System.nanoTime();
+
+        BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
+
+        buildContext.buffers.init(renderData, this.render.getSectionIndex());
+        buildContext.cache.init(this.renderContext);
+
+        BlockPos.MutableBlockPos blockPos = new BlockPos.MutableBlockPos(this.render.getOriginX(), minY, this.render.getOriginZ());
+        BitSet opaqueBlocks = new BitSet(16 * 16 * 16);
+
+        try {
+            if (!this.renderBlocks(buildContext, renderData, opaqueBlocks, minY, maxY, new SingleThreadedRandomSource(42L), blockPos, cancellationToken)) {
+                return null;
+            }
         } catch (ReportedException ex) {
-            // Propagate existing crashes (add context)
-            throw fillCrashInfo(ex.getReport(), slice, blockPos);
+            throw fillCrashInfo(ex.getReport(), buildContext.cache.getWorldSlice(), blockPos);
         } catch (Throwable ex) {
-            // Create a new crash report for other exceptions (e.g. thrown in getQuads)
-            throw fillCrashInfo(CrashReport.forThrowable(ex, "Encountered exception while building chunk meshes"), slice, blockPos);
+            throw fillCrashInfo(CrashReport.forThrowable(ex, "Encountered exception while building chunk meshes"), buildContext.cache.getWorldSlice(), blockPos);
         }
 
-        Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
+        // The buffers of this thread are reset once the job is done, so the vertices need to be copied
+        return new SlabOutput(buildContext.buffers.copyPartialMesh(), renderData, opaqueBlocks, System.nanoTime() - startTime);
+    }
 
-        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
-            BuiltSectionMeshParts mesh = buffers.createMesh(pass);
+    private static class SlabFailedException extends RuntimeException {
+        private final ReportedException report;
 
-            if (mesh != null) {
-                if(pass.isSorted()) {
-                    Objects.requireNonNull(mesh.getIndexData());
-                    ChunkBufferSorter.sort(
-                            mesh.getIndexData(),
-                            mesh.getSortState(),
-                            (float)camera.x - minX,
-                            (float)camera.y - minY,
-                            (float)camera.z - minZ
-                    );
+        private SlabFailedException(ReportedException report) {
+            super(report);
+            this.report = report;
+        }
+    }
+
+    /**
+     * Makes sure no slab is left running or holding memory after the section failed to build.
+     */
+    private void abandonSlabs(List<ChunkForkJob<SlabOutput>> forks) {
+        for (var fork : forks) {
+            if (fork == null || this.builder.tryUnfork(fork)) {
+                continue;
+            }
+
+            try {
+                var output = this.builder.join(fork);
+
+                if (output != null) {
+                    output.mesh().free();
                 }
-                meshes.put(pass, mesh);
-                renderData.addRenderPass(pass);
+            } catch (RuntimeException ignored) {
+                // The slab failed as well, and the first failure is the one which is reported
             }
         }
+    }
 
-        renderData.setOcclusionData(occluder.resolve());
+    private ChunkBuildOutput createOutput(BuiltSectionInfo.Builder renderData, Map<TerrainRenderPass, BuiltSectionMeshParts> meshes,
+                                          ChunkBuildBuffers buffers, boolean storeInCache, long cacheKey) {
+        int minX = this.render.getOriginX();
+        int minY = this.render.getOriginY();
+        int minZ = this.render.getOriginZ();
+
+        for (var entry : meshes.entrySet()) {
+            var mesh = entry.getValue();
+
+            if(entry.getKey().isSorted()) {
+                Objects.requireNonNull(mesh.getIndexData());
+                ChunkBufferSorter.sort(
+                        mesh.getIndexData(),
+                        mesh.getSortState(),
+                        (float)camera.x - minX,
+                        (float)camera.y - minY,
+                        (float)camera.z - minZ
+                );
+            }
+        }
 
         ChunkDataBuiltEvent.BUS.post(new ChunkDataBuiltEvent(renderData));
 
-        return new ChunkBuildOutput(this.render, renderData.build(), meshes, this.buildTime);
+        var info = renderData.build();
+
+        if (storeInCache) {
+            this.meshCache.store(cacheKey, meshes, info);
+        }
+
+        // Only compress the meshes if the results which are waiting to be uploaded are using a lot of memory
+        if (ChunkMeshCompressor.isActive()) {
+            for (var mesh : meshes.values()) {
+                mesh.compressVertexData(buffers.getVertexType().getVertexFormat().getStride());
+            }
+        }
+
+        var output = new ChunkBuildOutput(this.render, info, meshes, this.buildTime);
+        output.setImportant(this.isImportant());
+
+        return output;
+    }
+
+    /**
+     * Sections can only be cached if their meshes only depend on the blocks, light, and biomes around them. Block
+     * entities, model data, and mesh appenders can all change the meshes in ways which aren't part of the cache key.
+     */
+    private boolean isCacheable() {
+        if (!this.modelData.isEmpty() || !this.renderContext.getMeshAppenders().isEmpty()) {
+            return false;
+        }
+
+        for (var section : this.renderContext.getSections()) {
+            if (section.getPosition().equals(this.renderContext.getOrigin())) {
+                return section.getBlockEntityMap() == null;
+            }
+        }
+
+        return false;
     }
 
     private ReportedException fillCrashInfo(CrashReport report, WorldSlice slice, BlockPos pos) {
@@ -5,6 +5,7 @@ import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBufferSorter;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.ChunkSortEvent;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
 import org.embeddedt.embeddium.impl.util.NativeBuffer;
@@ -38,6 +39,11 @@ public class ChunkBuilderSortTask extends ChunkBuilderTask<ChunkBuildOutput> {
 
     @Override
     public ChunkBuildOutput execute(ChunkBuildContext context, CancellationToken cancellationSource) {
+        var event = new ChunkSortEvent();
+        event.begin();
+
+        long indexBytes = 0;
+
         Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
         for(Map.Entry<TerrainRenderPass, TranslucentQuadAnalyzer.SortState> entry : translucentMeshes.entrySet()) {
             var sortBuffer = entry.getValue();
@@ -49,9 +55,25 @@ public class ChunkBuilderSortTask extends ChunkBuilderTask<ChunkBuildOutput> {
                     sortBuffer,
                     null
             ));
+            indexBytes += newIndexBuffer.getLength();
         }
         ChunkBuildOutput result = new ChunkBuildOutput(render, null, meshes, this.frame);
         result.setIndexOnlyUpload(true);
+        result.setImportant(this.isImportant());
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setSection(this.render, this.getUpdateType());
+            event.indexBytes = indexBytes;
+            event.commit();
+        }
+
         return result;
     }
+
+    @Override
+    public RenderSection getSection() {
+        return this.render;
+    }
 }
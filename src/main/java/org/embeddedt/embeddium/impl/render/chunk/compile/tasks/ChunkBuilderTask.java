@@ -1,7 +1,10 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile.tasks;
 
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.util.task.CancellationToken;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Build tasks are immutable jobs (with optional prioritization) which contain all the necessary state to perform
@@ -14,6 +17,8 @@ import org.embeddedt.embeddium.impl.util.task.CancellationToken;
  * on the main thread.
  */
 public abstract class ChunkBuilderTask<OUTPUT> {
+    private ChunkUpdateType updateType;
+
     /**
      * Executes the given build task asynchronously from the calling thread. The implementation should be careful not
      * to access or modify global mutable state.
@@ -24,4 +29,27 @@ public abstract class ChunkBuilderTask<OUTPUT> {
      *         if the task was cancelled.
      */
     public abstract OUTPUT execute(ChunkBuildContext context, CancellationToken cancellationToken);
+
+    /**
+     * @return The section which this task builds or sorts
+     */
+    public abstract RenderSection getSection();
+
+    /**
+     * @return The kind of update which this task was scheduled for
+     */
+    public @Nullable ChunkUpdateType getUpdateType() {
+        return this.updateType;
+    }
+
+    public void setUpdateType(ChunkUpdateType updateType) {
+        this.updateType = updateType;
+    }
+
+    /**
+     * @return True if the task was scheduled for an important update, whose result should be shown as soon as possible
+     */
+    protected boolean isImportant() {
+        return this.updateType != null && this.updateType.isImportant();
+    }
 }
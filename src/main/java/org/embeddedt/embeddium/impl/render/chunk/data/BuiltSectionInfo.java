@@ -63,6 +63,23 @@ public class BuiltSectionInfo {
         this.visibilityData = VisibilityEncoding.encode(occlusionData);
     }
 
+    private BuiltSectionInfo(int flags, long visibilityData) {
+        this.globalBlockEntities = null;
+        this.culledBlockEntities = null;
+        this.animatedSprites = null;
+
+        this.flags = flags;
+        this.visibilityData = visibilityData;
+    }
+
+    /**
+     * Creates render data which only contains the flags and occlusion data of a section, without any block entities or
+     * sprites. This is used when replaying recorded traces, where nothing else about the section is known.
+     */
+    public static BuiltSectionInfo createPlaceholder(int flags, long visibilityData) {
+        return new BuiltSectionInfo(flags, visibilityData);
+    }
+
     public static class Builder implements SectionInfoBuilder {
         private final List<TerrainRenderPass> blockRenderPasses = new ArrayList<>();
         private final List<BlockEntity> globalBlockEntities = new ArrayList<>();
@@ -97,6 +114,15 @@ public class BuiltSectionInfo {
             this.globalBlockEntities.removeIf(filter);
         }
 
+        /**
+         * Adds the block entities and sprites which were collected by another builder for a part of the same section.
+         */
+        public void addAll(Builder other) {
+            this.globalBlockEntities.addAll(other.globalBlockEntities);
+            this.culledBlockEntities.addAll(other.culledBlockEntities);
+            this.animatedSprites.addAll(other.animatedSprites);
+        }
+
         public BuiltSectionInfo build() {
             return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.occlusionData);
         }
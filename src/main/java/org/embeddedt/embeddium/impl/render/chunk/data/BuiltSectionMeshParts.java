@@ -1,27 +1,87 @@
 package org.embeddedt.embeddium.impl.render.chunk.data;
 
 import org.embeddedt.embeddium.impl.gl.util.VertexRange;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkMeshCompressor;
 import org.embeddedt.embeddium.impl.util.NativeBuffer;
 import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
 import org.jetbrains.annotations.Nullable;
 
 public class BuiltSectionMeshParts {
     private final VertexRange[] ranges;
-    private final NativeBuffer buffer;
+    private NativeBuffer buffer;
     private final NativeBuffer indexBuffer;
     private final TranslucentQuadAnalyzer.SortState sortState;
+    private final int[] elementCounts;
+
+    // The size of each vertex if the vertex data is compressed, or zero if it isn't
+    private int compressedStride;
+    private int vertexDataLength;
 
     public BuiltSectionMeshParts(NativeBuffer buffer, @Nullable NativeBuffer indexBuffer, TranslucentQuadAnalyzer.SortState sortState, VertexRange[] ranges) {
+        this(buffer, indexBuffer, sortState, ranges, null);
+    }
+
+    public BuiltSectionMeshParts(NativeBuffer buffer, @Nullable NativeBuffer indexBuffer, TranslucentQuadAnalyzer.SortState sortState, VertexRange[] ranges,
+                                 @Nullable int[] elementCounts) {
         this.ranges = ranges;
         this.buffer = buffer;
         this.indexBuffer = indexBuffer;
         this.sortState = sortState;
+        this.elementCounts = elementCounts;
+        this.vertexDataLength = buffer != null ? buffer.getLength() : 0;
     }
 
+    /**
+     * @return The vertex data, which must not be uploaded while it is compressed
+     */
     public NativeBuffer getVertexData() {
         return this.buffer;
     }
 
+    /**
+     * @return The size of the vertex data in bytes once it is decompressed
+     */
+    public int getVertexDataLength() {
+        return this.vertexDataLength;
+    }
+
+    public boolean isVertexDataCompressed() {
+        return this.compressedStride != 0;
+    }
+
+    /**
+     * Compresses the vertex data to save memory while it waits to be uploaded. If the data doesn't compress well, it
+     * is kept as it is.
+     */
+    public void compressVertexData(int stride) {
+        if (this.buffer == null || this.isVertexDataCompressed()) {
+            return;
+        }
+
+        var compressed = ChunkMeshCompressor.compress(this.buffer, stride);
+
+        if (compressed != null) {
+            this.buffer.free();
+            this.buffer = compressed;
+            this.compressedStride = stride;
+        }
+    }
+
+    /**
+     * Restores the vertex data if it was compressed by {@link #compressVertexData(int)}.
+     */
+    public void decompressVertexData() {
+        if (!this.isVertexDataCompressed()) {
+            return;
+        }
+
+        var decompressed = ChunkMeshCompressor.decompress(this.buffer, this.compressedStride);
+
+        this.buffer.free();
+        this.buffer = decompressed;
+        this.compressedStride = 0;
+    }
+
     @Nullable
     public NativeBuffer getIndexData() {
         return this.indexBuffer;
@@ -31,6 +91,15 @@ public class BuiltSectionMeshParts {
         return this.ranges;
     }
 
+    /**
+     * @return The number of elements in the index buffer for each facing, or null if every quad uses four unique
+     * vertices. If present, the vertices are welded and the index buffer holds 16-bit indices.
+     */
+    @Nullable
+    public int[] getElementCounts() {
+        return this.elementCounts;
+    }
+
     public TranslucentQuadAnalyzer.SortState getSortState() {
         return this.sortState;
     }
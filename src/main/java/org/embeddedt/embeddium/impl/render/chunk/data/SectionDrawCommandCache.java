@@ -0,0 +1,152 @@
+package org.embeddedt.embeddium.impl.render.chunk.data;
+
+import org.embeddedt.embeddium.impl.gl.device.CommandList;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawIndirectBuffer;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
+import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderList;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
+
+/**
+ * Holds the draw commands which were last generated for the sections of a region in one render pass, along with
+ * everything they were generated from. As long as the visible sections, their render data, and the visible faces of
+ * those sections are unchanged, the same commands can be drawn again without rebuilding them. The visible faces are
+ * described by a key which only changes when the camera crosses a plane that culls the faces of a section in the
+ * region, so moving around inside a section does not rebuild the commands.
+ * <p>
+ * Sections with welded vertices come with their own 16-bit index buffer, so their commands are kept in a separate batch
+ * from the commands of other sections.
+ * <p>
+ * When indirect draws are used, the commands are also kept on the graphics device, and are only uploaded again after
+ * they were rebuilt.
+ */
+public class SectionDrawCommandCache {
+    private static final int MAX_CAPACITY = (ModelQuadFacing.COUNT * RenderRegion.REGION_SIZE) + 1;
+
+    private final byte[] sections = new byte[RenderRegion.REGION_SIZE];
+    private int sectionCount = -1;
+
+    private int storageVersion;
+    private int visibleFacesKey;
+    private int flags;
+
+    private int maxElementCount;
+
+    private MultiDrawBatch batch;
+    private MultiDrawBatch weldedBatch;
+
+    private MultiDrawIndirectBuffer indirectCommands;
+    private boolean indirectCommandsStale;
+
+    /**
+     * @return True if the cached commands were generated from the same inputs
+     */
+    public boolean isValid(ChunkRenderList renderList, int storageVersion, int visibleFacesKey, int flags) {
+        return this.batch != null &&
+                this.storageVersion == storageVersion &&
+                this.visibleFacesKey == visibleFacesKey &&
+                this.flags == flags &&
+                renderList.hasSameSectionsWithGeometry(this.sections, this.sectionCount);
+    }
+
+    /**
+     * Prepares empty batches which can each hold the draw commands for every section with geometry in the render list.
+     * The cache is invalid until {@link #update(ChunkRenderList, int, int, int)} is called.
+     */
+    public void prepare(ChunkRenderList renderList) {
+        int capacity = Math.min(MAX_CAPACITY, (renderList.getSectionsWithGeometryCount() * ModelQuadFacing.COUNT) + 1);
+
+        this.batch = prepareBatch(this.batch, capacity);
+        this.weldedBatch = prepareBatch(this.weldedBatch, capacity);
+
+        this.sectionCount = -1;
+        this.indirectCommandsStale = true;
+    }
+
+    private static MultiDrawBatch prepareBatch(MultiDrawBatch batch, int capacity) {
+        if (batch == null || batch.capacity() < capacity) {
+            if (batch != null) {
+                batch.delete();
+            }
+
+            // Leave some headroom so that small changes to the visible sections don't cause a re-allocation
+            batch = new MultiDrawBatch(Math.min(MAX_CAPACITY, capacity + (capacity >> 1)));
+        }
+
+        batch.clear();
+
+        return batch;
+    }
+
+    public void update(ChunkRenderList renderList, int storageVersion, int visibleFacesKey, int flags) {
+        this.sectionCount = renderList.copySectionsWithGeometry(this.sections);
+
+        this.storageVersion = storageVersion;
+        this.visibleFacesKey = visibleFacesKey;
+        this.flags = flags;
+
+        this.maxElementCount = this.batch.getIndexBufferSize();
+    }
+
+    public MultiDrawBatch getBatch() {
+        return this.batch;
+    }
+
+    /**
+     * @return The draw commands for sections with welded vertices, which use 16-bit indices from the region's index
+     * buffer
+     */
+    public MultiDrawBatch getWeldedBatch() {
+        return this.weldedBatch;
+    }
+
+    /**
+     * @return The largest element count of any command in the batch of sections without welded vertices
+     */
+    public int getMaxElementCount() {
+        return this.maxElementCount;
+    }
+
+    /**
+     * Returns the cached commands as indirect draw commands on the graphics device, which are those of the batch
+     * followed by those of the welded batch. If the commands were rebuilt since the last call, the indirect commands
+     * are updated first, which only uploads the commands that changed.
+     */
+    public MultiDrawIndirectBuffer getIndirectCommands(CommandList commandList) {
+        if (this.indirectCommands == null) {
+            this.indirectCommands = new MultiDrawIndirectBuffer(commandList, this.batch.capacity() + this.weldedBatch.capacity());
+            this.indirectCommandsStale = true;
+        }
+
+        if (this.indirectCommandsStale) {
+            this.indirectCommands.clear();
+            this.indirectCommands.append(this.batch, GlIndexType.UNSIGNED_INT);
+            this.indirectCommands.append(this.weldedBatch, GlIndexType.UNSIGNED_SHORT);
+            this.indirectCommands.upload(commandList);
+
+            this.indirectCommandsStale = false;
+        }
+
+        return this.indirectCommands;
+    }
+
+    public void delete(CommandList commandList) {
+        if (this.batch != null) {
+            this.batch.delete();
+            this.batch = null;
+        }
+
+        if (this.weldedBatch != null) {
+            this.weldedBatch.delete();
+            this.weldedBatch = null;
+        }
+
+        if (this.indirectCommands != null) {
+            this.indirectCommands.delete(commandList);
+            this.indirectCommands = null;
+        }
+
+        this.sectionCount = -1;
+    }
+}
@@ -1,6 +1,7 @@
 package org.embeddedt.embeddium.impl.render.chunk.data;
 
 import org.embeddedt.embeddium.impl.gl.arena.GlBufferSegment;
+import org.embeddedt.embeddium.impl.gl.device.CommandList;
 import org.embeddedt.embeddium.impl.gl.util.VertexRange;
 import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
@@ -14,12 +15,20 @@ public class SectionRenderDataStorage {
 
     private final long pMeshDataArray;
 
+    private final SectionDrawCommandCache drawCommandCache = new SectionDrawCommandCache();
+
+    // Incremented whenever the render data of any section changes
+    private int version;
+
     public SectionRenderDataStorage() {
         this.pMeshDataArray = SectionRenderDataUnsafe.allocateHeap(RenderRegion.REGION_SIZE);
     }
 
     public void setMeshes(int localSectionIndex,
-                          GlBufferSegment allocation, @Nullable GlBufferSegment indexAllocation, VertexRange[] ranges) {
+                          GlBufferSegment allocation, @Nullable GlBufferSegment indexAllocation, VertexRange[] ranges,
+                          @Nullable int[] elementCounts) {
+        this.version++;
+
         if (this.allocations[localSectionIndex] != null) {
             this.allocations[localSectionIndex].delete();
             this.allocations[localSectionIndex] = null;
@@ -35,6 +44,10 @@ public class SectionRenderDataStorage {
 
         var pMeshData = this.getDataPointer(localSectionIndex);
 
+        // Welded meshes use 16-bit indices, while the indices of sorted meshes are 32-bit
+        boolean welded = elementCounts != null;
+        int indexSize = welded ? 2 : 4;
+
         int sliceMask = 0;
         int vertexOffset = allocation.getOffset();
         int indexOffset = indexAllocation != null ? indexAllocation.getOffset() * 4 : 0;
@@ -49,7 +62,7 @@ public class SectionRenderDataStorage {
                 vertexCount = 0;
             }
 
-            int indexCount = (vertexCount >> 2) * 6;
+            int indexCount = elementCounts != null ? elementCounts[facingIndex] : (vertexCount >> 2) * 6;
 
             SectionRenderDataUnsafe.setVertexOffset(pMeshData, facingIndex, vertexOffset);
             SectionRenderDataUnsafe.setElementCount(pMeshData, facingIndex, indexCount);
@@ -60,14 +73,17 @@ public class SectionRenderDataStorage {
             }
 
             vertexOffset += vertexCount;
-            indexOffset += indexCount * 4;
+            indexOffset += indexCount * indexSize;
         }
 
         SectionRenderDataUnsafe.setSliceMask(pMeshData, sliceMask);
+        SectionRenderDataUnsafe.setWelded(pMeshData, welded);
     }
 
     public void removeMeshes(int localSectionIndex) {
         if (this.allocations[localSectionIndex] != null) {
+            this.version++;
+
             this.allocations[localSectionIndex].delete();
             this.allocations[localSectionIndex] = null;
 
@@ -87,6 +103,8 @@ public class SectionRenderDataStorage {
     public void replaceIndexBuffer(int localSectionIndex, GlBufferSegment indexAllocation) {
         removeIndexBuffer(localSectionIndex);
 
+        this.version++;
+
         this.indexAllocations[localSectionIndex] = indexAllocation;
 
         var pMeshData = this.getDataPointer(localSectionIndex);
@@ -101,6 +119,8 @@ public class SectionRenderDataStorage {
     }
 
     public void onBufferResized() {
+        this.version++;
+
         for (int sectionIndex = 0; sectionIndex < RenderRegion.REGION_SIZE; sectionIndex++) {
             this.updateMeshes(sectionIndex);
         }
@@ -115,26 +135,33 @@ public class SectionRenderDataStorage {
 
         var indexAllocation = this.indexAllocations[sectionIndex];
 
-        var vertexOffset = allocation.getOffset();
-        var indexOffset = indexAllocation != null ? indexAllocation.getOffset() * 4 : 0;
-
         var data = this.getDataPointer(sectionIndex);
 
-        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
-            SectionRenderDataUnsafe.setVertexOffset(data, facing, vertexOffset);
-            SectionRenderDataUnsafe.setIndexOffset(data, facing, indexOffset);
+        // The first facing always starts at the beginning of the allocation, so every facing can be moved by the same
+        // amount. This also works for meshes with welded vertices, where the vertex count can't be derived from the
+        // element count.
+        var vertexShift = allocation.getOffset() - SectionRenderDataUnsafe.getVertexOffset(data, 0);
+        var indexShift = indexAllocation != null ? (indexAllocation.getOffset() * 4) - SectionRenderDataUnsafe.getIndexOffset(data, 0) : 0;
 
-            var indexCount = SectionRenderDataUnsafe.getElementCount(data, facing);
-            vertexOffset += (indexCount / 6) * 4; // convert elements back into vertices
-            indexOffset += indexCount * 4;
+        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+            SectionRenderDataUnsafe.setVertexOffset(data, facing, SectionRenderDataUnsafe.getVertexOffset(data, facing) + vertexShift);
+            SectionRenderDataUnsafe.setIndexOffset(data, facing, SectionRenderDataUnsafe.getIndexOffset(data, facing) + indexShift);
         }
     }
 
+    public int getVersion() {
+        return this.version;
+    }
+
+    public SectionDrawCommandCache getDrawCommandCache() {
+        return this.drawCommandCache;
+    }
+
     public long getDataPointer(int sectionIndex) {
         return SectionRenderDataUnsafe.heapPointer(this.pMeshDataArray, sectionIndex);
     }
 
-    public void delete() {
+    public void delete(CommandList commandList) {
         for (var allocation : this.allocations) {
             if (allocation != null) {
                 allocation.delete();
@@ -151,5 +178,7 @@ public class SectionRenderDataStorage {
         Arrays.fill(this.indexAllocations, null);
 
         SectionRenderDataUnsafe.freeHeap(this.pMeshDataArray);
+
+        this.drawCommandCache.delete(commandList);
     }
 }
\ No newline at end of file
@@ -17,12 +17,14 @@ import org.lwjgl.system.MemoryUtil;
 // three times slower than the most naive solution in literally any other language that LLVM can compile.
 //
 // Memory layout:
-// u64 slice_mask;
+// u32 slice_mask;
+// u32 welded; (1 if the section has its own 16-bit indices for welded vertices, otherwise 0)
 // u32 vertex_offset;
 // u32 element_count;
 // u32 index_offset;
 public class SectionRenderDataUnsafe {
     private static final long OFFSET_SLICE_MASK = 0;
+    private static final long OFFSET_WELDED = 4;
     private static final long OFFSET_SLICE_RANGES = 8;
 
     private static final long DATA_PER_FACING_SIZE = 12;
@@ -54,6 +56,14 @@ public class SectionRenderDataUnsafe {
         return MemoryUtil.memGetInt(ptr + OFFSET_SLICE_MASK);
     }
 
+    public static void setWelded(long ptr, boolean value) {
+        MemoryUtil.memPutInt(ptr + OFFSET_WELDED, value ? 1 : 0);
+    }
+
+    public static boolean isWelded(long ptr) {
+        return MemoryUtil.memGetInt(ptr + OFFSET_WELDED) != 0;
+    }
+
     public static void setVertexOffset(long ptr, int facing, int value) {
         MemoryUtil.memPutInt(ptr + OFFSET_SLICE_RANGES + (facing * DATA_PER_FACING_SIZE) + 0L, value);
     }
@@ -2,6 +2,7 @@ package org.embeddedt.embeddium.impl.render.chunk.map;
 
 import it.unimi.dsi.fastutil.longs.*;
 import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
 
 public class ChunkTracker implements ClientChunkEventListener {
     private final Long2IntOpenHashMap chunkStatus = new Long2IntOpenHashMap();
@@ -10,6 +11,8 @@ public class ChunkTracker implements ClientChunkEventListener {
     private final LongSet unloadQueue = new LongOpenHashSet();
     private final LongSet loadQueue = new LongOpenHashSet();
 
+    private @Nullable ClientChunkEventListener listener;
+
     public ChunkTracker() {
 
     }
@@ -26,6 +29,10 @@ public class ChunkTracker implements ClientChunkEventListener {
 
     @Override
     public void onChunkStatusAdded(int x, int z, int flags) {
+        if (this.listener != null) {
+            this.listener.onChunkStatusAdded(x, z, flags);
+        }
+
         var key = ChunkPos.asLong(x, z);
 
         var prev = this.chunkStatus.get(key);
@@ -42,6 +49,10 @@ public class ChunkTracker implements ClientChunkEventListener {
 
     @Override
     public void onChunkStatusRemoved(int x, int z, int flags) {
+        if (this.listener != null) {
+            this.listener.onChunkStatusRemoved(x, z, flags);
+        }
+
         var key = ChunkPos.asLong(x, z);
 
         var prev = this.chunkStatus.get(key);
@@ -90,6 +101,21 @@ public class ChunkTracker implements ClientChunkEventListener {
         }
     }
 
+    /**
+     * Sets a listener which is notified of every status change that this tracker receives, before it is processed.
+     * The listener is first notified of the current status of every chunk, as if they had just been added.
+     */
+    public void setListener(@Nullable ClientChunkEventListener listener) {
+        this.listener = listener;
+
+        if (listener != null) {
+            for (var entry : Long2IntMaps.fastIterable(this.chunkStatus)) {
+                long key = entry.getLongKey();
+                listener.onChunkStatusAdded(ChunkPos.getX(key), ChunkPos.getZ(key), entry.getIntValue());
+            }
+        }
+    }
+
     public LongCollection getReadyChunks() {
         return LongSets.unmodifiable(this.chunkReady);
     }
@@ -7,6 +7,8 @@ import org.embeddedt.embeddium.impl.render.viewport.Viewport;
 import org.embeddedt.embeddium.impl.util.collections.DoubleBufferedQueue;
 import org.embeddedt.embeddium.impl.util.collections.ReadQueue;
 import org.embeddedt.embeddium.impl.util.collections.WriteQueue;
+import org.embeddedt.embeddium.impl.util.metrics.LatencyHistogram;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import net.minecraft.core.SectionPos;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.Level;
@@ -17,16 +19,27 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Objects;
 
 public class OcclusionCuller {
+    private static final LatencyHistogram FIND_VISIBLE_TIME = MetricsRegistry.GLOBAL.histogram("occlusion.find_visible");
+
     private final Long2ReferenceMap<RenderSection> sections;
-    private final Level world;
+    private final int minSection, maxSection;
 
     private final DoubleBufferedQueue<RenderSection> queue = new DoubleBufferedQueue<>();
 
     private boolean isCameraInUnloadedSection;
 
     public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, Level world) {
+        this(sections, world.getMinSection(), world.getMaxSection());
+    }
+
+    /**
+     * @param minSection The lowest section coordinate of the world
+     * @param maxSection The section coordinate above the highest section of the world
+     */
+    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, int minSection, int maxSection) {
         this.sections = sections;
-        this.world = world;
+        this.minSection = minSection;
+        this.maxSection = maxSection;
     }
 
     public void findVisible(Visitor visitor,
@@ -35,6 +48,8 @@ public class OcclusionCuller {
                             boolean useOcclusionCulling,
                             int frame)
     {
+        long startTime = FIND_VISIBLE_TIME.startTime();
+
         final var queues = this.queue;
         queues.reset();
 
@@ -47,6 +62,8 @@ public class OcclusionCuller {
         while (queues.flip()) {
             processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
         }
+
+        FIND_VISIBLE_TIME.recordSince(startTime);
     }
 
     private static void processQueue(Visitor visitor,
@@ -202,14 +219,14 @@ public class OcclusionCuller {
     {
         var origin = viewport.getChunkCoord();
 
-        if (origin.getY() < this.world.getMinSection()) {
+        if (origin.getY() < this.minSection) {
             // below the world
             this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
-                    this.world.getMinSection(), GraphDirectionSet.of(GraphDirection.DOWN));
-        } else if (origin.getY() >= this.world.getMaxSection()) {
+                    this.minSection, GraphDirectionSet.of(GraphDirection.DOWN));
+        } else if (origin.getY() >= this.maxSection) {
             // above the world
             this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
-                    this.world.getMaxSection() - 1, GraphDirectionSet.of(GraphDirection.UP));
+                    this.maxSection - 1, GraphDirectionSet.of(GraphDirection.UP));
         } else if(this.getRenderSection(origin.getX(), origin.getY(), origin.getZ()) == null) {
             // inside the world height-wise, but in an unloaded section
             this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
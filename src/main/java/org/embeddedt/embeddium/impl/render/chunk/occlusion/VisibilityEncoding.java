@@ -21,6 +21,20 @@ public class VisibilityEncoding {
         return visibilityData;
     }
 
+    public static VisibilitySet decode(long visibilityData) {
+        var occlusionData = new VisibilitySet();
+
+        for (int from = 0; from < GraphDirection.COUNT; from++) {
+            for (int to = 0; to < GraphDirection.COUNT; to++) {
+                if ((visibilityData & (1L << bit(from, to))) != 0) {
+                    occlusionData.set(GraphDirection.toEnum(from), GraphDirection.toEnum(to), true);
+                }
+            }
+        }
+
+        return occlusionData;
+    }
+
     private static int bit(int from, int to) {
         return (from * 8) + to;
     }
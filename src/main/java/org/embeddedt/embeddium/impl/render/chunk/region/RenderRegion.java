@@ -15,6 +15,7 @@ import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
 import org.embeddedt.embeddium.impl.util.MathUtil;
 import net.minecraft.core.SectionPos;
 import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -51,13 +52,24 @@ public class RenderRegion {
     private final Map<TerrainRenderPass, SectionRenderDataStorage> sectionRenderData = new Reference2ReferenceOpenHashMap<>();
     private DeviceResources resources;
 
+    // The resources which are shared by all regions, or null if each region owns its own resources
+    private final DeviceResources sharedResources;
+    private final int poolGroup;
+
     public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer) {
+        this(x, y, z, stagingBuffer, null, GlBufferArena.NO_GROUP);
+    }
+
+    public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer, @Nullable DeviceResources sharedResources, int poolGroup) {
         this.x = x;
         this.y = y;
         this.z = z;
 
         this.stagingBuffer = stagingBuffer;
         this.renderList = new ChunkRenderList(this);
+
+        this.sharedResources = sharedResources;
+        this.poolGroup = poolGroup;
     }
 
     public static long key(int x, int y, int z) {
@@ -102,16 +114,17 @@ public class RenderRegion {
 
     public void delete(CommandList commandList) {
         for (var storage : this.sectionRenderData.values()) {
-            storage.delete();
+            storage.delete(commandList);
         }
 
         this.sectionRenderData.clear();
 
-        if (this.resources != null) {
+        if (this.resources != null && this.resources != this.sharedResources) {
             this.resources.delete(commandList);
-            this.resources = null;
         }
 
+        this.resources = null;
+
         Arrays.fill(this.sections, null);
     }
 
@@ -183,14 +196,29 @@ public class RenderRegion {
 
     public DeviceResources createResources(CommandList commandList) {
         if (this.resources == null) {
-            this.resources = new DeviceResources(commandList, this.stagingBuffer);
+            this.resources = this.sharedResources != null ? this.sharedResources : new DeviceResources(commandList, this.stagingBuffer);
         }
 
         return this.resources;
     }
 
+    /**
+     * @return True if the resources of this region are shared with every other region
+     */
+    public boolean hasSharedResources() {
+        return this.sharedResources != null;
+    }
+
+    /**
+     * @return The group which the allocations of this region use within the resources, which keeps the geometry of
+     * each region close together if the resources are shared
+     */
+    public int getPoolGroup() {
+        return this.poolGroup;
+    }
+
     public void update(CommandList commandList) {
-        if (this.resources != null && this.resources.shouldDelete()) {
+        if (this.resources != null && this.resources != this.sharedResources && this.resources.shouldDelete()) {
             this.resources.delete(commandList);
             this.resources = null;
         }
@@ -214,6 +242,17 @@ public class RenderRegion {
             } else {
                 stride = ChunkMeshFormats.VANILLA_LIKE.getVertexFormat().getStride();
             }
+            if(Embeddium.canUseDenseVertices()) {
+                stride = ChunkMeshFormats.DENSE.getVertexFormat().getStride();
+            }
+            this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * 756, stride, stagingBuffer);
+            this.indexArena = new GlBufferArena(commandList, (REGION_SIZE * 378) / 4 * 6, 4, stagingBuffer);
+        }
+
+        /**
+         * Creates the resources for vertices of the given stride, instead of the stride of the vertex format in use.
+         */
+        public DeviceResources(CommandList commandList, StagingBuffer stagingBuffer, int stride) {
             this.geometryArena = new GlBufferArena(commandList, REGION_SIZE * 756, stride, stagingBuffer);
             this.indexArena = new GlBufferArena(commandList, (REGION_SIZE * 378) / 4 * 6, 4, stagingBuffer);
         }
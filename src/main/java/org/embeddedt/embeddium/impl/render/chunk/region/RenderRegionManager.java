@@ -4,6 +4,7 @@ import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceMap;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.gl.arena.GlBufferArena;
 import org.embeddedt.embeddium.impl.gl.arena.PendingUpload;
 import org.embeddedt.embeddium.impl.gl.arena.staging.FallbackStagingBuffer;
 import org.embeddedt.embeddium.impl.gl.arena.staging.MappedStagingBuffer;
@@ -15,17 +16,33 @@ import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.util.metrics.Counter;
+import org.embeddedt.embeddium.impl.util.metrics.LatencyHistogram;
+import org.embeddedt.embeddium.impl.util.metrics.MetricsRegistry;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 
 public class RenderRegionManager {
+    private static final LatencyHistogram UPLOAD_TIME = MetricsRegistry.GLOBAL.histogram("region_manager.upload");
+    private static final Counter UPLOADED_BYTES = MetricsRegistry.GLOBAL.counter("region_manager.uploaded_bytes");
+
     private final Long2ReferenceOpenHashMap<RenderRegion> regions = new Long2ReferenceOpenHashMap<>();
 
     private final StagingBuffer stagingBuffer;
 
+    // The geometry pool which is shared by every region, or null if each region has its own
+    private final RenderRegion.DeviceResources sharedResources;
+    private int nextPoolGroup = GlBufferArena.NO_GROUP + 1;
+
     public RenderRegionManager(CommandList commandList) {
         this.stagingBuffer = createStagingBuffer(commandList);
+
+        if (Embeddium.options().advanced.useSharedGeometryPool) {
+            this.sharedResources = new RenderRegion.DeviceResources(commandList, this.stagingBuffer);
+        } else {
+            this.sharedResources = null;
+        }
     }
 
     public void update() {
@@ -49,10 +66,14 @@ public class RenderRegionManager {
     }
 
     public void uploadMeshes(CommandList commandList, Collection<ChunkBuildOutput> results) {
+        long startTime = UPLOAD_TIME.startTime();
+
         for (var entry : this.createMeshUploadQueues(results)) {
             this.uploadMeshes(commandList, entry.getKey(), entry.getValue().stream().filter(o -> !o.isIndexOnlyUpload()).toList());
             this.uploadResorts(commandList, entry.getKey(), entry.getValue().stream().filter(ChunkBuildOutput::isIndexOnlyUpload).toList());
         }
+
+        UPLOAD_TIME.recordSince(startTime);
     }
 
     private void uploadMeshes(CommandList commandList, RenderRegion region, Collection<ChunkBuildOutput> results) {
@@ -69,6 +90,10 @@ public class RenderRegionManager {
                 BuiltSectionMeshParts mesh = result.getMesh(pass);
 
                 if (mesh != null) {
+                    mesh.decompressVertexData();
+
+                    UPLOADED_BYTES.add(mesh.getVertexDataLength() + (mesh.getIndexData() != null ? mesh.getIndexData().getLength() : 0));
+
                     uploads.add(new PendingSectionUpload(result.render, mesh, pass,
                             new PendingUpload(mesh.getVertexData()), mesh.getIndexData() != null ? new PendingUpload(mesh.getIndexData()) : null));
                 }
@@ -84,22 +109,23 @@ public class RenderRegionManager {
         var geometryArena = resources.getGeometryArena();
 
         boolean bufferChanged = geometryArena.upload(commandList, uploads.stream()
-                .map(upload -> upload.vertexUpload));
+                .map(upload -> upload.vertexUpload), region.getPoolGroup());
 
         bufferChanged |= resources.getIndexArena().upload(commandList, uploads.stream()
-                .map(upload -> upload.indexUpload).filter(Objects::nonNull));
+                .map(upload -> upload.indexUpload).filter(Objects::nonNull), region.getPoolGroup());
 
         // If any of the buffers changed, the tessellation will need to be updated
         // Once invalidated the tessellation will be re-created on the next attempted use
         if (bufferChanged) {
-            region.refresh(commandList);
+            this.refresh(commandList, region);
         }
 
         // Collect the upload results
         for (PendingSectionUpload upload : uploads) {
             var storage = region.createStorage(upload.pass);
             storage.setMeshes(upload.section.getSectionIndex(),
-                    upload.vertexUpload.getResult(), upload.indexUpload != null ? upload.indexUpload.getResult() : null, upload.meshData.getVertexRanges());
+                    upload.vertexUpload.getResult(), upload.indexUpload != null ? upload.indexUpload.getResult() : null, upload.meshData.getVertexRanges(),
+                    upload.meshData.getElementCounts());
         }
     }
 
@@ -134,12 +160,12 @@ public class RenderRegionManager {
         var resources = region.createResources(commandList);
 
         boolean bufferChanged = resources.getIndexArena().upload(commandList, uploads.stream()
-                .map(upload -> upload.indexUpload).filter(Objects::nonNull));
+                .map(upload -> upload.indexUpload).filter(Objects::nonNull), region.getPoolGroup());
 
         // If any of the buffers changed, the tessellation will need to be updated
         // Once invalidated the tessellation will be re-created on the next attempted use
         if (bufferChanged) {
-            region.refresh(commandList);
+            this.refresh(commandList, region);
         }
 
         // Collect the upload results
@@ -149,6 +175,17 @@ public class RenderRegionManager {
         }
     }
 
+    private void refresh(CommandList commandList, RenderRegion region) {
+        if (region.hasSharedResources()) {
+            // Re-allocating the shared buffers moves the geometry of every region
+            for (RenderRegion other : this.regions.values()) {
+                other.refresh(commandList);
+            }
+        } else {
+            region.refresh(commandList);
+        }
+    }
+
     private Reference2ReferenceMap.FastEntrySet<RenderRegion, List<ChunkBuildOutput>> createMeshUploadQueues(Collection<ChunkBuildOutput> results) {
         var map = new Reference2ReferenceOpenHashMap<RenderRegion, List<ChunkBuildOutput>>();
 
@@ -166,6 +203,11 @@ public class RenderRegionManager {
         }
 
         this.regions.clear();
+
+        if (this.sharedResources != null) {
+            this.sharedResources.delete(commandList);
+        }
+
         this.stagingBuffer.delete(commandList);
     }
 
@@ -173,6 +215,26 @@ public class RenderRegionManager {
         return this.regions.values();
     }
 
+    /**
+     * @return The device resources of every loaded region, with resources that are shared by many regions only
+     * being listed once
+     */
+    public Collection<RenderRegion.DeviceResources> getDeviceResources() {
+        if (this.sharedResources != null) {
+            return List.of(this.sharedResources);
+        }
+
+        var resources = new ArrayList<RenderRegion.DeviceResources>(this.regions.size());
+
+        for (RenderRegion region : this.regions.values()) {
+            if (region.getResources() != null) {
+                resources.add(region.getResources());
+            }
+        }
+
+        return resources;
+    }
+
     public StagingBuffer getStagingBuffer() {
         return this.stagingBuffer;
     }
@@ -189,7 +251,13 @@ public class RenderRegionManager {
         var instance = this.regions.get(key);
 
         if (instance == null) {
-            this.regions.put(key, instance = new RenderRegion(x, y, z, this.stagingBuffer));
+            if (this.sharedResources != null) {
+                instance = new RenderRegion(x, y, z, this.stagingBuffer, this.sharedResources, this.nextPoolGroup++);
+            } else {
+                instance = new RenderRegion(x, y, z, this.stagingBuffer);
+            }
+
+            this.regions.put(key, instance);
         }
 
         return instance;
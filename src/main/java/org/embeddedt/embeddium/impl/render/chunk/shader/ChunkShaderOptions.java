@@ -20,6 +20,10 @@ public record ChunkShaderOptions(ChunkFogMode fog, TerrainRenderPass pass, Chunk
             constants.add("USE_VERTEX_COMPRESSION");
         }
 
+        if(this.vertexType == ChunkMeshFormats.DENSE) {
+            constants.add("USE_VERTEX_DENSE_PACKING");
+        }
+
         constants.add("VERT_POS_SCALE", String.valueOf(this.vertexType.getPositionScale()));
         constants.add("VERT_POS_OFFSET", String.valueOf(this.vertexType.getPositionOffset()));
         constants.add("VERT_TEX_SCALE", String.valueOf(this.vertexType.getTextureScale()));
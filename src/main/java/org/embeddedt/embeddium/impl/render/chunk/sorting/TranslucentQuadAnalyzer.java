@@ -119,6 +119,67 @@ public class TranslucentQuadAnalyzer {
         }
     }
 
+    /**
+     * The quads which have been captured so far, before they are turned into a {@link SortState}. This allows the
+     * quads of one part of a section to be added to the quads of another part.
+     */
+    public record Capture(float[] centers, BitSet normalSigns, Vector3f globalNormal, boolean hasDistinctNormals) { }
+
+    public Capture capture() {
+        return new Capture(quadCenters.toFloatArray(), cloneBits(normalSigns), new Vector3f(globalNormal), hasDistinctNormals);
+    }
+
+    /**
+     * Adds previously captured quads after the quads which have been captured by this analyzer, as if they had been
+     * captured one at a time.
+     */
+    public void append(Capture other) {
+        int quadOffset = quadCenters.size() / 3;
+        int otherQuads = other.centers().length / 3;
+
+        if (otherQuads == 0) {
+            return;
+        }
+
+        quadCenters.addElements(quadCenters.size(), other.centers());
+
+        if (hasDistinctNormals) {
+            return;
+        }
+
+        if (other.hasDistinctNormals()) {
+            hasDistinctNormals = true;
+            return;
+        }
+
+        var otherNormal = other.globalNormal();
+
+        if (globalNormal.x == 0 && globalNormal.y == 0 && globalNormal.z == 0) {
+            globalNormal.set(otherNormal);
+
+            for (int i = other.normalSigns().nextSetBit(0); i >= 0; i = other.normalSigns().nextSetBit(i + 1)) {
+                normalSigns.set(quadOffset + i);
+            }
+
+            return;
+        }
+
+        // The same approximation as in captureQuad applies here
+        float dotProduct = globalNormal.dot(otherNormal);
+
+        if (Math.abs(dotProduct) >= 0.98) {
+            boolean flipped = dotProduct < 0;
+
+            for (int i = 0; i < otherQuads; i++) {
+                if (other.normalSigns().get(i) != flipped) {
+                    normalSigns.set(quadOffset + i);
+                }
+            }
+        } else {
+            hasDistinctNormals = true;
+        }
+    }
+
     public void clear() {
         quadCenters.clear();
         currentVertex = 0;
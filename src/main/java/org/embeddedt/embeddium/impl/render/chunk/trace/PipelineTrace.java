@@ -0,0 +1,195 @@
+package org.embeddedt.embeddium.impl.render.chunk.trace;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A recording of everything outside the chunk pipeline which decides what the pipeline does: which chunks the server
+ * sent, how the camera moved, which sections were changed, and what the meshing of each section produced. Replaying
+ * it feeds the same inputs to the chunk tracker, occlusion culler, and scheduler regardless of timing, which makes
+ * changes to them comparable.
+ * <p>
+ * The file is a gzip-compressed stream with a header, followed by events which each start with a tag byte.
+ */
+public record PipelineTrace(Header header, List<Event> events) {
+    static final int MAGIC = 0x454D5452; // "EMTR"
+    static final int VERSION = 1;
+
+    static final int TAG_END = 0;
+    static final int TAG_CHUNK_STATUS = 1;
+    static final int TAG_SECTION_ADDED = 2;
+    static final int TAG_SECTION_DIRTY = 3;
+    static final int TAG_SECTION_BUILT = 4;
+    static final int TAG_FRAME = 5;
+
+    /**
+     * @param minSection The lowest section coordinate of the world
+     * @param maxSection The section coordinate above the highest section of the world
+     * @param renderDistance The render distance in chunks
+     * @param workerCount The number of chunk builder threads
+     */
+    public record Header(int minSection, int maxSection, int renderDistance, int workerCount) {
+        void write(DataOutput out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.minSection);
+            out.writeInt(this.maxSection);
+            out.writeInt(this.renderDistance);
+            out.writeInt(this.workerCount);
+        }
+
+        static Header read(DataInput in) throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a pipeline trace");
+            }
+
+            int version = in.readInt();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported pipeline trace version " + version);
+            }
+
+            return new Header(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+    }
+
+    public sealed interface Event permits ChunkStatus, SectionAdded, SectionDirty, SectionBuilt, Frame { }
+
+    /**
+     * The server added or removed data for a chunk.
+     *
+     * @param flags The {@link org.embeddedt.embeddium.impl.render.chunk.map.ChunkStatus} flags which changed
+     */
+    public record ChunkStatus(int x, int z, int flags, boolean added) implements Event { }
+
+    /**
+     * A section was created by the renderer.
+     *
+     * @param empty True if the section contained nothing to mesh, in which case it is never built
+     */
+    public record SectionAdded(int x, int y, int z, boolean empty) implements Event { }
+
+    /**
+     * The contents of a section changed, and it needs to be built again.
+     */
+    public record SectionDirty(int x, int y, int z, boolean important) implements Event { }
+
+    /**
+     * The result of building a section was uploaded.
+     *
+     * @param flags The {@link org.embeddedt.embeddium.impl.render.chunk.RenderSectionFlags} of the result
+     * @param visibilityData The encoded occlusion data of the result
+     * @param buildNanos The time which the build task took, or -1 if it is not known
+     */
+    public record SectionBuilt(int x, int y, int z, int flags, long visibilityData, long buildNanos) implements Event { }
+
+    /**
+     * The list of visible sections was updated.
+     *
+     * @param time The time of the frame in nanoseconds, relative to an arbitrary origin
+     * @param matrix The combined projection and view matrix of the frustum, or null if it is not known
+     * @param visibleSections The number of visible sections with geometry which were found during recording
+     */
+    public record Frame(int frame, long time, double cameraX, double cameraY, double cameraZ, @Nullable Matrix4fc matrix,
+                        float searchDistance, boolean useOcclusionCulling, int visibleSections) implements Event { }
+
+    public static PipelineTrace read(Path path) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            var header = Header.read(in);
+            var events = new ArrayList<Event>();
+
+            Event event;
+
+            while ((event = readEvent(in)) != null) {
+                events.add(event);
+            }
+
+            return new PipelineTrace(header, events);
+        }
+    }
+
+    private static @Nullable Event readEvent(DataInput in) throws IOException {
+        int tag;
+
+        try {
+            tag = in.readUnsignedByte();
+        } catch (EOFException e) {
+            // The game was closed without the trace being finished, so everything up to here is still usable
+            return null;
+        }
+
+        try {
+            return switch (tag) {
+                case TAG_END -> null;
+                case TAG_CHUNK_STATUS -> new ChunkStatus(in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+                case TAG_SECTION_ADDED -> new SectionAdded(in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+                case TAG_SECTION_DIRTY -> new SectionDirty(in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+                case TAG_SECTION_BUILT -> new SectionBuilt(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readLong());
+                case TAG_FRAME -> readFrame(in);
+                default -> throw new IOException("Unknown event tag " + tag);
+            };
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static Frame readFrame(DataInput in) throws IOException {
+        int frame = in.readInt();
+        long time = in.readLong();
+
+        double x = in.readDouble();
+        double y = in.readDouble();
+        double z = in.readDouble();
+
+        Matrix4f matrix = null;
+
+        if (in.readBoolean()) {
+            float[] values = new float[16];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readFloat();
+            }
+
+            matrix = new Matrix4f().set(values);
+        }
+
+        return new Frame(frame, time, x, y, z, matrix, in.readFloat(), in.readBoolean(), in.readInt());
+    }
+
+    static void writeFrame(DataOutput out, Frame frame) throws IOException {
+        out.writeByte(TAG_FRAME);
+        out.writeInt(frame.frame());
+        out.writeLong(frame.time());
+
+        out.writeDouble(frame.cameraX());
+        out.writeDouble(frame.cameraY());
+        out.writeDouble(frame.cameraZ());
+
+        out.writeBoolean(frame.matrix() != null);
+
+        if (frame.matrix() != null) {
+            float[] values = frame.matrix().get(new float[16]);
+
+            for (float value : values) {
+                out.writeFloat(value);
+            }
+        }
+
+        out.writeFloat(frame.searchDistance());
+        out.writeBoolean(frame.useOcclusionCulling());
+        out.writeInt(frame.visibleSections());
+    }
+}
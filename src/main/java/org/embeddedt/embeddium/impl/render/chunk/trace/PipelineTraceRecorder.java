@@ -0,0 +1,206 @@
+package org.embeddedt.embeddium.impl.render.chunk.trace;
+
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.render.chunk.map.ClientChunkEventListener;
+import org.embeddedt.embeddium.impl.render.viewport.Viewport;
+import org.embeddedt.embeddium.impl.render.viewport.frustum.SimpleFrustum;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a {@link PipelineTrace} while the world is being rendered. This must only be used from the main thread.
+ * <p>
+ * If writing fails, the error is logged and the rest of the session is not recorded, since a trace with missing
+ * events can't be replayed correctly anyway.
+ */
+public class PipelineTraceRecorder implements ClientChunkEventListener {
+    private final Path path;
+    private @Nullable DataOutputStream out;
+
+    private PipelineTraceRecorder(Path path, DataOutputStream out) {
+        this.path = path;
+        this.out = out;
+    }
+
+    /**
+     * Starts recording a trace if it is enabled in the options.
+     *
+     * @return The recorder, or null if recording is disabled or the file could not be created
+     */
+    public static @Nullable PipelineTraceRecorder createIfEnabled(ClientLevel world, int renderDistance, int workerCount) {
+        if (!Embeddium.options().advanced.recordPipelineTrace) {
+            return null;
+        }
+
+        var name = "trace-" + DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss").format(LocalDateTime.now()) + ".bin.gz";
+        var path = FMLPaths.GAMEDIR.get().resolve("embeddium").resolve("traces").resolve(name);
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            var out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))));
+            new PipelineTrace.Header(world.getMinSection(), world.getMaxSection(), renderDistance, workerCount).write(out);
+
+            Embeddium.logger().info("Recording chunk pipeline trace to {}", path);
+
+            return new PipelineTraceRecorder(path, out);
+        } catch (IOException e) {
+            Embeddium.logger().warn("Failed to start recording chunk pipeline trace", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void updateMapCenter(int chunkX, int chunkZ) {
+
+    }
+
+    @Override
+    public void updateLoadDistance(int loadDistance) {
+
+    }
+
+    @Override
+    public void onChunkStatusAdded(int x, int z, int flags) {
+        this.writeChunkStatus(x, z, flags, true);
+    }
+
+    @Override
+    public void onChunkStatusRemoved(int x, int z, int flags) {
+        this.writeChunkStatus(x, z, flags, false);
+    }
+
+    private void writeChunkStatus(int x, int z, int flags, boolean added) {
+        var out = this.out;
+
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.writeByte(PipelineTrace.TAG_CHUNK_STATUS);
+            out.writeInt(x);
+            out.writeInt(z);
+            out.writeInt(flags);
+            out.writeBoolean(added);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    public void recordSectionAdded(int x, int y, int z, boolean empty) {
+        this.writeSectionEvent(PipelineTrace.TAG_SECTION_ADDED, x, y, z, empty);
+    }
+
+    public void recordSectionDirty(int x, int y, int z, boolean important) {
+        this.writeSectionEvent(PipelineTrace.TAG_SECTION_DIRTY, x, y, z, important);
+    }
+
+    private void writeSectionEvent(int tag, int x, int y, int z, boolean flag) {
+        var out = this.out;
+
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.writeByte(tag);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeInt(z);
+            out.writeBoolean(flag);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    public void recordSectionBuilt(int x, int y, int z, int flags, long visibilityData, long buildNanos) {
+        var out = this.out;
+
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.writeByte(PipelineTrace.TAG_SECTION_BUILT);
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeInt(z);
+            out.writeInt(flags);
+            out.writeLong(visibilityData);
+            out.writeLong(buildNanos);
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    public void recordFrame(int frame, Viewport viewport, float searchDistance, boolean useOcclusionCulling, int visibleSections) {
+        var out = this.out;
+
+        if (out == null) {
+            return;
+        }
+
+        var transform = viewport.getTransform();
+        var matrix = viewport.getFrustum() instanceof SimpleFrustum frustum ? frustum.getMatrix() : null;
+
+        try {
+            PipelineTrace.writeFrame(out, new PipelineTrace.Frame(frame, System.nanoTime(),
+                    transform.x, transform.y, transform.z, matrix,
+                    searchDistance, useOcclusionCulling, visibleSections));
+        } catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        Embeddium.logger().warn("Failed to write chunk pipeline trace, recording has stopped", e);
+
+        this.closeQuietly();
+    }
+
+    /**
+     * Finishes the trace and closes the file.
+     */
+    public void close() {
+        var out = this.out;
+
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.writeByte(PipelineTrace.TAG_END);
+            out.close();
+
+            Embeddium.logger().info("Finished recording chunk pipeline trace to {}", this.path);
+        } catch (IOException e) {
+            Embeddium.logger().warn("Failed to finish chunk pipeline trace", e);
+        }
+
+        this.out = null;
+    }
+
+    private void closeQuietly() {
+        var out = this.out;
+        this.out = null;
+
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+
+            }
+        }
+    }
+}
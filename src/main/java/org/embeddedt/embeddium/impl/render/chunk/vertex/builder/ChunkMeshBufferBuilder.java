@@ -55,6 +55,32 @@ public class ChunkMeshBufferBuilder {
         this.count += vertexCount;
     }
 
+    /**
+     * Adds vertices which have already been encoded by another builder with the same vertex type and section index.
+     *
+     * @param data The encoded vertices
+     * @param vertexCount The number of vertices in {@code data}
+     * @param capture The quads captured for sorting by the other builder, if this builder collects them
+     */
+    public void append(ByteBuffer data, int vertexCount, @Nullable TranslucentQuadAnalyzer.Capture capture) {
+        if (this.count + vertexCount >= this.capacity) {
+            this.grow(vertexCount);
+        }
+
+        MemoryUtil.memCopy(MemoryUtil.memAddress(data), MemoryUtil.memAddress(this.buffer, this.count * this.stride),
+                (long) vertexCount * this.stride);
+
+        if (this.analyzer != null && capture != null) {
+            this.analyzer.append(capture);
+        }
+
+        this.count += vertexCount;
+    }
+
+    public @Nullable TranslucentQuadAnalyzer.Capture captureQuads() {
+        return this.analyzer != null ? this.analyzer.capture() : null;
+    }
+
     private void grow(int len) {
         // The new capacity will at least as large as the write it needs to service
         int cap = Math.max(this.capacity * 2, this.capacity + len);
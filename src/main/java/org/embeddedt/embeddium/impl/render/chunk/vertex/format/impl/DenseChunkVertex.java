@@ -0,0 +1,166 @@
+package org.embeddedt.embeddium.impl.render.chunk.vertex.format.impl;
+
+import org.embeddedt.embeddium.impl.gl.attribute.GlVertexAttributeFormat;
+import org.embeddedt.embeddium.impl.gl.attribute.GlVertexFormat;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshAttribute;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * A 16-byte vertex format which uses less VRAM and memory bandwidth than {@link CompactChunkVertex}, at the cost of
+ * lower position precision: positions are stored in steps of 1/256th of a block, instead of the 1/2048th of a block
+ * of the compact format.
+ * <p>
+ * The first 8 bytes hold a packed 64-bit word containing the position (13 bits per axis over a 32 block range), the
+ * section index, the material bits, and the upper 7 bits of the block/sky light. The remaining bytes hold the color
+ * and the texture coordinates, which use the lower 15 bits of each component. The top bit of the U and V components
+ * holds the lowest bit of the block and sky light respectively, so light is stored at full precision.
+ * <p>
+ * Texture coordinates are stored the same way as {@link CompactChunkVertex}, except that a coordinate of exactly 1.0
+ * is stored as the largest value below it. That is less than half a texel away for atlases up to 16384 texels wide, so
+ * it still samples the same texel.
+ */
+public class DenseChunkVertex implements ChunkVertexType {
+    public static final int STRIDE = 16;
+
+    // The light texture coordinates are split across the packed word and the texture coordinates, so there is no
+    // separate attribute for them
+    public static final GlVertexFormat<ChunkMeshAttribute> VERTEX_FORMAT = GlVertexFormat.builder(ChunkMeshAttribute.class, STRIDE)
+            .addElement(ChunkMeshAttribute.POSITION_MATERIAL_MESH, 0, GlVertexAttributeFormat.UNSIGNED_INT, 2, false, true)
+            .addElement(ChunkMeshAttribute.COLOR_SHADE, 8, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, true, false)
+            .addElement(ChunkMeshAttribute.BLOCK_TEXTURE, 12, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false, true)
+            .build();
+
+    private static final int POSITION_BITS = 13;
+    private static final int POSITION_MAX_VALUE = (1 << POSITION_BITS) - 1;
+    private static final int TEXTURE_MAX_VALUE = 32768;
+    private static final int TEXTURE_MASK = TEXTURE_MAX_VALUE - 1;
+
+    private static final float MODEL_ORIGIN = 8.0f;
+    private static final float MODEL_RANGE = 32.0f;
+    private static final float MODEL_SCALE = MODEL_RANGE / (1 << POSITION_BITS);
+    private static final float MODEL_SCALE_INV = (1 << POSITION_BITS) / MODEL_RANGE;
+
+    private static final float TEXTURE_SCALE = (1.0f / TEXTURE_MAX_VALUE);
+
+    private static final int SHIFT_POSITION_Y = 13;
+    private static final int SHIFT_POSITION_Z = 26;
+    private static final int SHIFT_SECTION_INDEX = 39;
+    private static final int SHIFT_MATERIAL = 47;
+    private static final int SHIFT_BLOCK_LIGHT = 50;
+    private static final int SHIFT_SKY_LIGHT = 57;
+
+    @Override
+    public float getTextureScale() {
+        return TEXTURE_SCALE;
+    }
+
+    @Override
+    public float getPositionScale() {
+        return MODEL_SCALE;
+    }
+
+    @Override
+    public float getPositionOffset() {
+        return -MODEL_ORIGIN;
+    }
+
+    @Override
+    public GlVertexFormat<ChunkMeshAttribute> getVertexFormat() {
+        return VERTEX_FORMAT;
+    }
+
+    @Override
+    public ChunkVertexEncoder getEncoder() {
+        return (ptr, material, vertex, sectionIndex) -> {
+            int blockLight = encodeLight(vertex.light & 0xFFFF);
+            int skyLight = encodeLight((vertex.light >>> 16) & 0xFFFF);
+
+            long packed = ((long) encodePosition(vertex.x)) |
+                    ((long) encodePosition(vertex.y) << SHIFT_POSITION_Y) |
+                    ((long) encodePosition(vertex.z) << SHIFT_POSITION_Z) |
+                    ((long) (sectionIndex & 0xFF) << SHIFT_SECTION_INDEX) |
+                    ((long) (material.bits() & 0x7) << SHIFT_MATERIAL) |
+                    ((long) (blockLight >> 1) << SHIFT_BLOCK_LIGHT) |
+                    ((long) (skyLight >> 1) << SHIFT_SKY_LIGHT);
+
+            MemoryUtil.memPutInt(ptr + 0, (int) packed);
+            MemoryUtil.memPutInt(ptr + 4, (int) (packed >>> 32));
+
+            MemoryUtil.memPutInt(ptr + 8, vertex.color);
+
+            MemoryUtil.memPutShort(ptr + 12, encodeTexture(vertex.u, blockLight));
+            MemoryUtil.memPutShort(ptr + 14, encodeTexture(vertex.v, skyLight));
+
+            return ptr + STRIDE;
+        };
+    }
+
+    private static int encodePosition(float value) {
+        return Math.max(0, Math.min(POSITION_MAX_VALUE, Math.round((MODEL_ORIGIN + value) * MODEL_SCALE_INV)));
+    }
+
+    private static int encodeLight(int value) {
+        return Math.min(value, 0xFF);
+    }
+
+    private static short encodeTexture(float value, int light) {
+        int texture = Math.max(0, Math.min(TEXTURE_MASK, Math.round(value * TEXTURE_MAX_VALUE)));
+
+        return (short) (texture | ((light & 0x1) << 15));
+    }
+
+    /**
+     * Decodes one position component of a vertex, where {@code axis} is 0, 1, or 2 for X, Y, or Z respectively.
+     */
+    public static float decodePosition(long ptr, int axis) {
+        int value = (int) ((readPackedWord(ptr) >>> (axis * SHIFT_POSITION_Y)) & POSITION_MAX_VALUE);
+
+        return (value * MODEL_SCALE) - MODEL_ORIGIN;
+    }
+
+    /**
+     * Decodes the light of a vertex into the same layout as {@link ChunkVertexEncoder.Vertex#light}.
+     */
+    public static int decodeLight(long ptr) {
+        long packed = readPackedWord(ptr);
+
+        int block = ((int) ((packed >>> SHIFT_BLOCK_LIGHT) & 0x7F) << 1) | ((MemoryUtil.memGetShort(ptr + 12) >>> 15) & 0x1);
+        int sky = ((int) ((packed >>> SHIFT_SKY_LIGHT) & 0x7F) << 1) | ((MemoryUtil.memGetShort(ptr + 14) >>> 15) & 0x1);
+
+        return block | (sky << 16);
+    }
+
+    /**
+     * Decodes one texture coordinate of a vertex, where {@code axis} is 0 or 1 for U or V respectively.
+     */
+    public static float decodeTexture(long ptr, int axis) {
+        return (MemoryUtil.memGetShort(ptr + 12 + (axis * 2)) & TEXTURE_MASK) * TEXTURE_SCALE;
+    }
+
+    /**
+     * Decodes the color of a vertex, in the same layout as {@link ChunkVertexEncoder.Vertex#color}.
+     */
+    public static int decodeColor(long ptr) {
+        return MemoryUtil.memGetInt(ptr + 8);
+    }
+
+    /**
+     * Decodes the index of the section within its region which the vertex belongs to.
+     */
+    public static int decodeSectionIndex(long ptr) {
+        return (int) ((readPackedWord(ptr) >>> SHIFT_SECTION_INDEX) & 0xFF);
+    }
+
+    /**
+     * Decodes the bits of the material which the vertex was encoded with.
+     */
+    public static int decodeMaterialBits(long ptr) {
+        return (int) ((readPackedWord(ptr) >>> SHIFT_MATERIAL) & 0x7);
+    }
+
+    private static long readPackedWord(long ptr) {
+        return Integer.toUnsignedLong(MemoryUtil.memGetInt(ptr + 0)) | ((long) MemoryUtil.memGetInt(ptr + 4) << 32);
+    }
+}
@@ -4,6 +4,10 @@ import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.blaze3d.shaders.FogShape;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.*;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.Util;
 import org.embeddedt.embeddium.api.util.ColorABGR;
 import org.embeddedt.embeddium.api.util.ColorARGB;
 import org.embeddedt.embeddium.api.util.ColorMixer;
@@ -30,12 +34,21 @@ import org.embeddedt.embeddium.api.render.clouds.ModifyCloudRenderingEvent;
 import org.embeddedt.embeddium.impl.render.ShaderModBridge;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL11C;
 import org.lwjgl.system.MemoryStack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 public class CloudRenderer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CloudRenderer.class);
+
     private static final ResourceLocation CLOUDS_TEXTURE_ID = ResourceLocation.withDefaultNamespace("textures/environment/clouds.png");
 
     private static final int CLOUD_COLOR_NEG_Y = ColorABGR.pack(0.7F, 0.7F, 0.7F, 1.0f);
@@ -72,16 +85,22 @@ public class CloudRenderer {
     // 1024 / 128 = 8
     private static final float CLOUD_PIXELS_TO_MAXIMUM_RENDER_DISTANCE = 0.0078125F;
 
-    private VertexBuffer vertexBuffer;
+    // The number of cloud cells along each edge of a geometry tile. Tiles are built and cached independently, so that
+    // moving to a new center cell only requires building the tiles which have just become visible.
+    private static final int TILE_SIZE = 32;
+
+    private final Long2ObjectOpenHashMap<CloudTile> tiles = new Long2ObjectOpenHashMap<>();
+    private final ObjectArrayList<CloudTile> visibleTiles = new ObjectArrayList<>();
+    private final IntArrayList visibleTileOrigins = new IntArrayList();
+    private int frameIndex;
+
     private CloudEdges edges;
     private ShaderInstance shader;
     private final FogRenderer.FogData fogData = new FogRenderer.FogData(FogRenderer.FogMode.FOG_TERRAIN);
 
-    private int prevCenterCellX, prevCenterCellY, cachedRenderDistance;
     private float cloudSizeX, cloudSizeZ, fogDistanceMultiplier;
     private int cloudDistanceMinimum, cloudDistanceMaximum;
     private CloudStatus cloudRenderMode;
-    private boolean hasCloudGeometry;
 
     public CloudRenderer(ResourceProvider factory) {
         this.reloadTextures(factory);
@@ -117,37 +136,14 @@ public class CloudRenderer {
         int centerCellX = (int) (Math.floor(cloudCenterX / this.cloudSizeX));
         int centerCellZ = (int) (Math.floor(cloudCenterZ / this.cloudSizeZ));
 
-        if (this.vertexBuffer == null || this.prevCenterCellX != centerCellX || this.prevCenterCellY != centerCellZ || this.cachedRenderDistance != renderDistance || cloudRenderMode != Minecraft.getInstance().options.getCloudsType()) {
-            BufferBuilder bufferBuilder = Tesselator.getInstance().begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_COLOR);
-
-            this.cloudRenderMode = Minecraft.getInstance().options.getCloudsType();
-
-            this.rebuildGeometry(bufferBuilder, cloudDistance, centerCellX, centerCellZ);
-
-            if (this.vertexBuffer == null) {
-                this.vertexBuffer = new VertexBuffer(VertexBuffer.Usage.DYNAMIC);
-            }
-
-            this.vertexBuffer.bind();
+        // The geometry of every tile depends on the cloud mode, but tiles keep showing their old geometry until it has
+        // been rebuilt
+        this.cloudRenderMode = Minecraft.getInstance().options.getCloudsType();
 
-            MeshData meshData = bufferBuilder.build();
-
-            if(meshData != null) {
-                this.vertexBuffer.upload(meshData);
-                this.hasCloudGeometry = true;
-            } else {
-                this.hasCloudGeometry = false;
-            }
-
-            VertexBuffer.unbind();
-
-            this.prevCenterCellX = centerCellX;
-            this.prevCenterCellY = centerCellZ;
-            this.cachedRenderDistance = renderDistance;
-        }
+        this.updateVisibleTiles(cloudDistance, centerCellX, centerCellZ);
 
         // Skip render path if there is no cloud geometry
-        if (!this.hasCloudGeometry) {
+        if (this.visibleTiles.isEmpty()) {
             return;
         }
 
@@ -167,8 +163,6 @@ public class CloudRenderer {
 
         RenderSystem.enableDepthTest();
 
-        this.vertexBuffer.bind();
-
         boolean insideClouds = cameraY < cloudHeight + 4.5f && cameraY > cloudHeight - 0.5f;
         boolean fastClouds = cloudRenderMode == CloudStatus.FAST;
 
@@ -180,27 +174,150 @@ public class CloudRenderer {
 
         RenderSystem.setShaderColor((float) color.x, (float) color.y, (float) color.z, 0.8f);
 
-        modelViewMatrix = new Matrix4f(modelViewMatrix);
-        modelViewMatrix.translate(-translateX, cloudHeight - (float) cameraY + 0.33F, -translateZ);
+        float translateY = cloudHeight - (float) cameraY + 0.33F;
 
         // PASS 1: Set up depth buffer
         RenderType.cloudsDepthOnly().setupRenderState();
-        this.vertexBuffer.drawWithShader(modelViewMatrix, projectionMatrix, this.shader);
+        this.drawVisibleTiles(modelViewMatrix, projectionMatrix, cloudDistance, centerCellX, centerCellZ, translateX, translateY, translateZ);
         RenderType.cloudsDepthOnly().clearRenderState();
 
         // PASS 2: Render geometry
         RenderType.clouds().setupRenderState();
-        this.vertexBuffer.drawWithShader(modelViewMatrix, projectionMatrix, this.shader);
+        this.drawVisibleTiles(modelViewMatrix, projectionMatrix, cloudDistance, centerCellX, centerCellZ, translateX, translateY, translateZ);
         RenderType.clouds().clearRenderState();
 
         VertexBuffer.unbind();
-        
+
         RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, 1.0f);
 
         RenderSystem.setShaderFogEnd(previousEnd);
         RenderSystem.setShaderFogStart(previousStart);
     }
 
+    private void drawVisibleTiles(Matrix4f modelViewMatrix, Matrix4f projectionMatrix, int cloudDistance, int centerCellX, int centerCellZ,
+                                  float translateX, float translateY, float translateZ) {
+        Matrix4f tileMatrix = new Matrix4f();
+
+        for (int i = 0; i < this.visibleTiles.size(); i++) {
+            CloudTile tile = this.visibleTiles.get(i);
+
+            int originCellX = this.visibleTileOrigins.getInt(i * 2) * TILE_SIZE;
+            int originCellZ = this.visibleTileOrigins.getInt(i * 2 + 1) * TILE_SIZE;
+
+            tileMatrix.set(modelViewMatrix);
+            tileMatrix.translate(((originCellX - centerCellX) * this.cloudSizeX) - translateX, translateY,
+                    ((originCellZ - centerCellZ) * this.cloudSizeZ) - translateZ);
+
+            // Tiles on the edge of the cloud area only draw the cells which are within the cloud distance, the same
+            // as the area which was drawn before clouds were split into tiles
+            int minCellX = Math.max(0, centerCellX - cloudDistance - originCellX);
+            int minCellZ = Math.max(0, centerCellZ - cloudDistance - originCellZ);
+            int maxCellX = Math.min(TILE_SIZE, centerCellX + cloudDistance - originCellX);
+            int maxCellZ = Math.min(TILE_SIZE, centerCellZ + cloudDistance - originCellZ);
+
+            tile.vertexBuffer.bind();
+
+            this.shader.setDefaultUniforms(VertexFormat.Mode.QUADS, tileMatrix, projectionMatrix, Minecraft.getInstance().getWindow());
+            this.shader.apply();
+
+            if (minCellX == 0 && minCellZ == 0 && maxCellX == TILE_SIZE && maxCellZ == TILE_SIZE) {
+                tile.vertexBuffer.draw();
+            } else {
+                // The cells of each column are stored next to each other, so each column is one draw
+                for (int cellX = minCellX; cellX < maxCellX; cellX++) {
+                    tile.drawCells((cellX * TILE_SIZE) + minCellZ, (cellX * TILE_SIZE) + maxCellZ);
+                }
+            }
+
+            this.shader.clear();
+        }
+    }
+
+    /**
+     * Collects the tiles which cover the cloud area around the given center cell, scheduling builds for any tiles
+     * which are not cached yet and evicting tiles which are no longer in range.
+     */
+    private void updateVisibleTiles(int cloudDistance, int centerCellX, int centerCellZ) {
+        this.visibleTiles.clear();
+        this.visibleTileOrigins.clear();
+
+        int frame = ++this.frameIndex;
+
+        // Nothing would be drawn until the tiles have been built in the background, so when there is nothing to show
+        // yet (on the first frame, or after the clouds have been reloaded), build them right away
+        boolean buildImmediately = this.tiles.isEmpty();
+
+        int minTileX = Math.floorDiv(centerCellX - cloudDistance, TILE_SIZE);
+        int minTileZ = Math.floorDiv(centerCellZ - cloudDistance, TILE_SIZE);
+        int maxTileX = Math.floorDiv(centerCellX + cloudDistance - 1, TILE_SIZE);
+        int maxTileZ = Math.floorDiv(centerCellZ + cloudDistance - 1, TILE_SIZE);
+
+        for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+            for (int tileZ = minTileZ; tileZ <= maxTileZ; tileZ++) {
+                // The cloud texture repeats, so tiles which map onto the same texels can share their geometry
+                int keyX = this.edges.wrapTileX(tileX);
+                int keyZ = this.edges.wrapTileZ(tileZ);
+
+                long key = ((long) keyX << 32) | (keyZ & 0xFFFFFFFFL);
+
+                CloudTile tile = this.tiles.get(key);
+
+                if (tile == null) {
+                    tile = new CloudTile();
+
+                    this.tiles.put(key, tile);
+                }
+
+                if (!tile.isBuilding(this.cloudRenderMode)) {
+                    var builder = createTileBuilder(this.edges, this.cloudRenderMode, this.cloudSizeX, this.cloudSizeZ,
+                            keyX * TILE_SIZE, keyZ * TILE_SIZE);
+
+                    tile.build(CompletableFuture.supplyAsync(builder, buildImmediately ? Runnable::run : Util.backgroundExecutor()),
+                            this.cloudRenderMode);
+                }
+
+                tile.lastUsedFrame = frame;
+
+                if (tile.update()) {
+                    this.visibleTiles.add(tile);
+                    this.visibleTileOrigins.add(tileX);
+                    this.visibleTileOrigins.add(tileZ);
+                }
+            }
+        }
+
+        for (var it = this.tiles.values().iterator(); it.hasNext(); ) {
+            CloudTile tile = it.next();
+
+            if (tile.lastUsedFrame != frame) {
+                tile.close();
+                it.remove();
+            }
+        }
+    }
+
+    private void clearTiles() {
+        for (CloudTile tile : this.tiles.values()) {
+            tile.close();
+        }
+
+        this.tiles.clear();
+        this.visibleTiles.clear();
+        this.visibleTileOrigins.clear();
+    }
+
+    private static Supplier<CloudTileMesh> createTileBuilder(CloudEdges edges, CloudStatus renderMode, float cloudSizeX, float cloudSizeZ,
+                                                            int originCellX, int originCellZ) {
+        return () -> {
+            ByteBufferBuilder buffer = new ByteBufferBuilder(TILE_SIZE * TILE_SIZE * 4 * ColorVertex.STRIDE);
+            BufferBuilder bufferBuilder = new BufferBuilder(buffer, VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_COLOR);
+
+            int[] cellVertexStarts = rebuildGeometry(bufferBuilder, edges, renderMode, cloudSizeX, cloudSizeZ, originCellX, originCellZ);
+
+            return new CloudTileMesh(buffer, bufferBuilder.build(), cellVertexStarts);
+        };
+    }
+
     private void applyFogModifiers(ClientLevel world, FogRenderer.FogData fogData, LocalPlayer player, int cloudDistance, float tickDelta) {
         if (Minecraft.getInstance().gameRenderer == null || Minecraft.getInstance().gameRenderer.getMainCamera() == null) {
             return;
@@ -249,23 +366,36 @@ public class CloudRenderer {
         }
     }
 
-    private void rebuildGeometry(BufferBuilder bufferBuilder, int cloudDistance, int centerCellX, int centerCellZ) {
+    /**
+     * Builds the geometry for one tile of clouds, with vertex positions relative to the origin cell of the tile. This
+     * only reads immutable data and may be called from any thread.
+     *
+     * @return The index of the first vertex of each cell, in the order they were written, followed by the total number
+     * of vertices
+     */
+    private static int[] rebuildGeometry(BufferBuilder bufferBuilder, CloudEdges edges, CloudStatus renderMode, float cloudSizeX, float cloudSizeZ,
+                                         int originCellX, int originCellZ) {
         var writer = VertexBufferWriter.of(bufferBuilder);
 
-        boolean fastClouds = cloudRenderMode == CloudStatus.FAST;
+        boolean fastClouds = renderMode == CloudStatus.FAST;
+
+        int[] cellVertexStarts = new int[(TILE_SIZE * TILE_SIZE) + 1];
+        int vertexCount = 0;
 
-        for (int offsetX = -cloudDistance; offsetX < cloudDistance; offsetX++) {
-            for (int offsetZ = -cloudDistance; offsetZ < cloudDistance; offsetZ++) {
-                int connectedEdges = this.edges.getEdges(centerCellX + offsetX, centerCellZ + offsetZ);
+        for (int offsetX = 0; offsetX < TILE_SIZE; offsetX++) {
+            for (int offsetZ = 0; offsetZ < TILE_SIZE; offsetZ++) {
+                cellVertexStarts[(offsetX * TILE_SIZE) + offsetZ] = vertexCount;
+
+                int connectedEdges = edges.getEdges(originCellX + offsetX, originCellZ + offsetZ);
 
                 if (connectedEdges == 0) {
                     continue;
                 }
 
-                int texel = this.edges.getColor(centerCellX + offsetX, centerCellZ + offsetZ);
+                int texel = edges.getColor(originCellX + offsetX, originCellZ + offsetZ);
 
-                float x = offsetX * this.cloudSizeX;
-                float z = offsetZ * this.cloudSizeZ;
+                float x = offsetX * cloudSizeX;
+                float z = offsetZ * cloudSizeZ;
 
                 try (MemoryStack stack = MemoryStack.stackPush()) {
                     final long buffer = stack.nmalloc((fastClouds ? 4 : (6 * 4)) * ColorVertex.STRIDE);
@@ -277,10 +407,10 @@ public class CloudRenderer {
                     if ((connectedEdges & DIR_NEG_Y) != 0) {
                         int mixedColor = ColorMixer.mul(texel, fastClouds ? CLOUD_COLOR_POS_Y : CLOUD_COLOR_NEG_Y);
 
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 0.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + this.cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 0.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + cloudSizeZ, mixedColor);
                         ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + 0.0f, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 0.0f, z + 0.0f, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 0.0f, z + 0.0f, mixedColor);
 
                         count += 4;
                     }
@@ -288,6 +418,7 @@ public class CloudRenderer {
                     // Only emit -Y geometry to emulate vanilla fast clouds
                     if (fastClouds) {
                         writer.push(stack, buffer, count, ColorVertex.FORMAT);
+                        vertexCount += count;
                         continue;
                     }
 
@@ -295,9 +426,9 @@ public class CloudRenderer {
                     if ((connectedEdges & DIR_POS_Y) != 0) {
                         int mixedColor = ColorMixer.mul(texel, CLOUD_COLOR_POS_Y);
 
-                        ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 4.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 4.0f, z + 0.0f, mixedColor);
+                        ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 4.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 4.0f, z + 0.0f, mixedColor);
                         ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + 0.0f, mixedColor);
 
                         count += 4;
@@ -307,8 +438,8 @@ public class CloudRenderer {
                     if ((connectedEdges & DIR_NEG_X) != 0) {
                         int mixedColor = ColorMixer.mul(texel, CLOUD_COLOR_NEG_X);
 
-                        ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + this.cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + cloudSizeZ, mixedColor);
                         ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + 0.0f, mixedColor);
                         ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + 0.0f, mixedColor);
 
@@ -319,10 +450,10 @@ public class CloudRenderer {
                     if ((connectedEdges & DIR_POS_X) != 0) {
                         int mixedColor = ColorMixer.mul(texel, CLOUD_COLOR_POS_X);
 
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 4.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 0.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 0.0f, z + 0.0f, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 4.0f, z + 0.0f, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 4.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 0.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 0.0f, z + 0.0f, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 4.0f, z + 0.0f, mixedColor);
 
                         count += 4;
                     }
@@ -331,8 +462,8 @@ public class CloudRenderer {
                     if ((connectedEdges & DIR_NEG_Z) != 0) {
                         int mixedColor = ColorMixer.mul(texel, CLOUD_COLOR_NEG_Z);
 
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 4.0f, z + 0.0f, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 0.0f, z + 0.0f, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 4.0f, z + 0.0f, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 0.0f, z + 0.0f, mixedColor);
                         ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + 0.0f, mixedColor);
                         ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + 0.0f, mixedColor);
 
@@ -343,20 +474,25 @@ public class CloudRenderer {
                     if ((connectedEdges & DIR_POS_Z) != 0) {
                         int mixedColor = ColorMixer.mul(texel, CLOUD_COLOR_POS_Z);
 
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 0.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + this.cloudSizeX, 4.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + this.cloudSizeZ, mixedColor);
-                        ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + this.cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 0.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + cloudSizeX, 4.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + 0.0f, 4.0f, z + cloudSizeZ, mixedColor);
+                        ptr = writeVertex(ptr, x + 0.0f, 0.0f, z + cloudSizeZ, mixedColor);
 
                         count += 4;
                     }
 
                     if (count > 0) {
                         writer.push(stack, buffer, count, ColorVertex.FORMAT);
+                        vertexCount += count;
                     }
                 }
             }
         }
+
+        cellVertexStarts[TILE_SIZE * TILE_SIZE] = vertexCount;
+
+        return cellVertexStarts;
     }
 
     private static long writeVertex(long buffer, float x, float y, float z, int color) {
@@ -395,10 +531,7 @@ public class CloudRenderer {
             this.shader = null;
         }
 
-        if (this.vertexBuffer != null) {
-            this.vertexBuffer.close();
-            this.vertexBuffer = null;
-        }
+        this.clearTiles();
     }
 
     private static CloudEdges createCloudEdges() {
@@ -476,6 +609,18 @@ public class CloudRenderer {
             return ColorARGB.unpackAlpha(color) > 1;
         }
 
+        /**
+         * Maps a tile coordinate onto the first repetition of the cloud texture, if the texture size allows tiles to
+         * repeat exactly. Otherwise, the coordinate is returned as-is.
+         */
+        public int wrapTileX(int tileX) {
+            return (this.width % TILE_SIZE) == 0 ? wrap(tileX, this.width / TILE_SIZE) : tileX;
+        }
+
+        public int wrapTileZ(int tileZ) {
+            return (this.height % TILE_SIZE) == 0 ? wrap(tileZ, this.height / TILE_SIZE) : tileZ;
+        }
+
         public int getEdges(int x, int z) {
             return this.edges[index(x, z, this.width, this.height)];
         }
@@ -492,4 +637,134 @@ public class CloudRenderer {
             return Math.floorMod(pos, dim);
         }
     }
+
+    private record CloudTileMesh(ByteBufferBuilder buffer, @Nullable MeshData meshData, int[] cellVertexStarts) {
+        public void close() {
+            if (this.meshData != null) {
+                this.meshData.close();
+            }
+
+            this.buffer.close();
+        }
+    }
+
+    private static class CloudTile {
+        private CompletableFuture<CloudTileMesh> pendingMesh;
+        private CloudStatus pendingMode;
+
+        private VertexBuffer vertexBuffer;
+        private int[] cellVertexStarts;
+        private CloudStatus mode;
+
+        private int lastUsedFrame;
+
+        /**
+         * @return True if the tile has geometry for the given mode, or is already building it
+         */
+        public boolean isBuilding(CloudStatus mode) {
+            return this.pendingMesh != null ? this.pendingMode == mode : this.mode == mode;
+        }
+
+        /**
+         * Starts replacing the geometry of the tile. The current geometry is still drawn until the new geometry is
+         * ready.
+         */
+        public void build(CompletableFuture<CloudTileMesh> pendingMesh, CloudStatus mode) {
+            this.discardPendingMesh();
+
+            this.pendingMesh = pendingMesh;
+            this.pendingMode = mode;
+        }
+
+        /**
+         * Uploads the geometry of the tile if it has finished building.
+         *
+         * @return True if the tile has geometry which can be drawn
+         */
+        public boolean update() {
+            if (this.pendingMesh != null && this.pendingMesh.isDone()) {
+                CloudTileMesh mesh;
+
+                try {
+                    mesh = this.pendingMesh.join();
+                } catch (CompletionException | CancellationException e) {
+                    LOGGER.error("Failed to build cloud geometry", e);
+                    mesh = null;
+                }
+
+                // A failed build is not retried until the mode changes, but the previous geometry is kept
+                this.mode = this.pendingMode;
+                this.pendingMesh = null;
+                this.pendingMode = null;
+
+                if (mesh != null) {
+                    this.upload(mesh);
+                }
+            }
+
+            return this.vertexBuffer != null;
+        }
+
+        private void upload(CloudTileMesh mesh) {
+            try {
+                if (mesh.meshData() != null) {
+                    if (this.vertexBuffer == null) {
+                        this.vertexBuffer = new VertexBuffer(VertexBuffer.Usage.STATIC);
+                    }
+
+                    this.vertexBuffer.bind();
+                    this.vertexBuffer.upload(mesh.meshData());
+                    this.cellVertexStarts = mesh.cellVertexStarts();
+
+                    VertexBuffer.unbind();
+                } else {
+                    this.closeVertexBuffer();
+                }
+            } finally {
+                // The mesh data is consumed by the upload, but the backing buffer still needs to be released
+                mesh.buffer().close();
+            }
+        }
+
+        /**
+         * Draws the vertices of a range of cells, in the order they were built. The vertex buffer of the tile and the
+         * shader must already be bound.
+         */
+        public void drawCells(int firstCell, int lastCell) {
+            int firstVertex = this.cellVertexStarts[firstCell];
+            int vertexCount = this.cellVertexStarts[lastCell] - firstVertex;
+
+            if (vertexCount == 0) {
+                return;
+            }
+
+            // Quads are drawn with the shared sequential index buffer, which has six indices for every four vertices
+            VertexFormat.IndexType indexType = RenderSystem.getSequentialBuffer(VertexFormat.Mode.QUADS).type();
+
+            GL11C.glDrawElements(GL11C.GL_TRIANGLES, (vertexCount / 4) * 6, indexType.asGLType,
+                    (long) (firstVertex / 4) * 6 * indexType.bytes);
+        }
+
+        private void discardPendingMesh() {
+            if (this.pendingMesh != null) {
+                // The build can't be interrupted, so release its memory once it finishes
+                this.pendingMesh.thenAccept(CloudTileMesh::close);
+                this.pendingMesh = null;
+                this.pendingMode = null;
+            }
+        }
+
+        private void closeVertexBuffer() {
+            if (this.vertexBuffer != null) {
+                this.vertexBuffer.close();
+                this.vertexBuffer = null;
+                this.cellVertexStarts = null;
+            }
+        }
+
+        public void close() {
+            this.discardPendingMesh();
+            this.closeVertexBuffer();
+        }
+    }
 }
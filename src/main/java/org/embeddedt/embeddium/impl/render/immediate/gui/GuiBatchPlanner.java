@@ -0,0 +1,214 @@
+package org.embeddedt.embeddium.impl.render.immediate.gui;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Computes a draw order for the commands in a {@link GuiCommandBuffer} which groups commands with the same key into as
+ * few batches as possible, while guaranteeing that any two commands with different keys whose bounds overlap are still
+ * drawn in the order they were recorded.
+ * <p>
+ * Every command is assigned to the earliest "layer" which comes after all overlapping commands of a different key
+ * (and no earlier than any overlapping command of the same key). Layers are then drawn in order, with one batch per
+ * key within each layer. Commands inside a batch keep their recording order, so overlapping commands of the same key
+ * also stay correctly ordered.
+ */
+public class GuiBatchPlanner {
+    /**
+     * The maximum number of commands which can be planned at once, limited by the packing of the sort keys.
+     */
+    public static final int MAX_COMMANDS = 1 << 21;
+
+    private static final int SORT_INDEX_BITS = 21;
+    private static final int SORT_KEY_BITS = 21;
+
+    private static final int CELL_SHIFT = 5;
+    private static final int MAX_CELLS_PER_COMMAND = 64;
+    private static final int MAX_TRACKED_CELLS = 4096;
+
+    private final Long2ObjectOpenHashMap<IntArrayList> cells = new Long2ObjectOpenHashMap<>();
+    private final IntArrayList largeCommands = new IntArrayList();
+
+    private int[] layers = new int[0];
+    private long[] sortKeys = new long[0];
+
+    private int[] order = new int[0];
+    private int[] batchKeys = new int[0];
+    private int[] batchStarts = new int[1];
+    private int batchCount;
+
+    /**
+     * Plans the draw order of all commands in the given buffer. The bounds of the commands must have already been
+     * computed.
+     */
+    public void plan(GuiCommandBuffer commands) {
+        int count = commands.getCommandCount();
+
+        if (count > MAX_COMMANDS) {
+            throw new IllegalArgumentException("Too many commands to plan: " + count);
+        }
+
+        this.ensureCapacity(count);
+        this.resetCells();
+
+        int[] layers = this.layers;
+
+        for (int cmd = 0; cmd < count; cmd++) {
+            layers[cmd] = this.assignLayer(commands, cmd);
+        }
+
+        long[] sortKeys = this.sortKeys;
+
+        for (int cmd = 0; cmd < count; cmd++) {
+            sortKeys[cmd] = ((long) layers[cmd] << (SORT_INDEX_BITS + SORT_KEY_BITS)) |
+                    ((long) commands.getKey(cmd) << SORT_INDEX_BITS) |
+                    cmd;
+        }
+
+        Arrays.sort(sortKeys, 0, count);
+
+        this.batchCount = 0;
+
+        long prevGroup = -1;
+
+        for (int i = 0; i < count; i++) {
+            long sortKey = sortKeys[i];
+            long group = sortKey >>> SORT_INDEX_BITS;
+
+            if (group != prevGroup) {
+                this.batchStarts[this.batchCount] = i;
+                this.batchKeys[this.batchCount] = commands.getKey((int) (sortKey & ((1L << SORT_INDEX_BITS) - 1)));
+                this.batchCount++;
+
+                prevGroup = group;
+            }
+
+            this.order[i] = (int) (sortKey & ((1L << SORT_INDEX_BITS) - 1));
+        }
+
+        this.batchStarts[this.batchCount] = count;
+    }
+
+    private int assignLayer(GuiCommandBuffer commands, int cmd) {
+        int layer = 0;
+
+        float minX = commands.getMinX(cmd), minY = commands.getMinY(cmd);
+        float maxX = commands.getMaxX(cmd), maxY = commands.getMaxY(cmd);
+
+        boolean large = !Float.isFinite(minX) || !Float.isFinite(minY) || !Float.isFinite(maxX) || !Float.isFinite(maxY);
+
+        int cellMinX = 0, cellMinY = 0, cellMaxX = 0, cellMaxY = 0;
+
+        if (!large) {
+            cellMinX = toCell(minX);
+            cellMinY = toCell(minY);
+            cellMaxX = toCell(maxX);
+            cellMaxY = toCell(maxY);
+
+            large = ((long) (cellMaxX - cellMinX + 1) * (long) (cellMaxY - cellMinY + 1)) > MAX_CELLS_PER_COMMAND;
+        }
+
+        if (large) {
+            // Commands covering a large area are checked against everything recorded before them
+            for (int other = 0; other < cmd; other++) {
+                layer = this.constrain(commands, cmd, other, layer);
+            }
+
+            this.largeCommands.add(cmd);
+
+            return layer;
+        }
+
+        for (int i = 0; i < this.largeCommands.size(); i++) {
+            layer = this.constrain(commands, cmd, this.largeCommands.getInt(i), layer);
+        }
+
+        for (int cellX = cellMinX; cellX <= cellMaxX; cellX++) {
+            for (int cellY = cellMinY; cellY <= cellMaxY; cellY++) {
+                IntArrayList list = this.cells.computeIfAbsent(cellKey(cellX, cellY), k -> new IntArrayList());
+
+                for (int i = 0; i < list.size(); i++) {
+                    layer = this.constrain(commands, cmd, list.getInt(i), layer);
+                }
+
+                list.add(cmd);
+            }
+        }
+
+        return layer;
+    }
+
+    private int constrain(GuiCommandBuffer commands, int cmd, int other, int layer) {
+        if (!commands.overlaps(cmd, other)) {
+            return layer;
+        }
+
+        int required = this.layers[other];
+
+        if (commands.getKey(other) != commands.getKey(cmd)) {
+            required += 1;
+        }
+
+        return Math.max(layer, required);
+    }
+
+    private void resetCells() {
+        if (this.cells.size() > MAX_TRACKED_CELLS) {
+            this.cells.clear();
+        } else {
+            for (IntArrayList list : this.cells.values()) {
+                list.clear();
+            }
+        }
+
+        this.largeCommands.clear();
+    }
+
+    private void ensureCapacity(int count) {
+        if (this.layers.length < count) {
+            int capacity = Math.max(count, this.layers.length * 2);
+
+            this.layers = new int[capacity];
+            this.sortKeys = new long[capacity];
+            this.order = new int[capacity];
+            this.batchKeys = new int[capacity];
+            this.batchStarts = new int[capacity + 1];
+        }
+    }
+
+    private static int toCell(float coord) {
+        return ((int) Math.floor(coord)) >> CELL_SHIFT;
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return The number of batches (and therefore draw calls) produced by the last plan
+     */
+    public int getBatchCount() {
+        return this.batchCount;
+    }
+
+    public int getBatchKey(int batch) {
+        return this.batchKeys[batch];
+    }
+
+    public int getBatchStart(int batch) {
+        return this.batchStarts[batch];
+    }
+
+    public int getBatchEnd(int batch) {
+        return this.batchStarts[batch + 1];
+    }
+
+    /**
+     * @return The index of the command which should be drawn at the given position in the planned order
+     */
+    public int getCommand(int position) {
+        return this.order[position];
+    }
+}
@@ -0,0 +1,279 @@
+package org.embeddedt.embeddium.impl.render.immediate.gui;
+
+import com.mojang.blaze3d.platform.Lighting;
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import org.embeddedt.embeddium.api.vertex.attributes.CommonVertexAttribute;
+import org.embeddedt.embeddium.api.vertex.buffer.VertexBufferWriter;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatDescription;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatRegistry;
+import org.lwjgl.system.MemoryStack;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ * A buffer source which records the geometry drawn into it as commands in a {@link GuiCommandBuffer} instead of
+ * drawing it immediately. When {@link #flush(MultiBufferSource.BufferSource)} is called, the commands are re-ordered
+ * by {@link GuiBatchPlanner} and drawn through the real buffer source with as few draw calls as possible.
+ * <p>
+ * Requests to end a batch are ignored while recording, as the recorder is responsible for preserving draw order
+ * between overlapping elements. Geometry which cannot be recorded (render types not using quads) forces the recorded
+ * commands to be drawn first, so that ordering is maintained.
+ * <p>
+ * Batches are drawn with the depth state left by the caller, since block items rely on the depth test to order their
+ * faces, and only commands which don't overlap are ever reordered.
+ * <p>
+ * This class is only safe to use from the render thread.
+ */
+public class GuiBatchRecorder extends MultiBufferSource.BufferSource {
+    private static GuiBatchRecorder INSTANCE;
+
+    /**
+     * The number of recorded commands after which the recorder will draw everything it holds, to bound memory usage.
+     */
+    private static final int MAX_PENDING_COMMANDS = 1 << 16;
+
+    private final GuiCommandBuffer commands = new GuiCommandBuffer();
+    private final GuiBatchPlanner planner = new GuiBatchPlanner();
+
+    private final Reference2IntOpenHashMap<RenderType> renderTypeIds = new Reference2IntOpenHashMap<>();
+    private final ObjectArrayList<RenderType> renderTypes = new ObjectArrayList<>();
+
+    private RecordingVertexConsumer[] consumers = new RecordingVertexConsumer[0];
+    private int[] positionOffsets = new int[0];
+
+    private final ByteBufferBuilder fallbackBuffer;
+
+    private MultiBufferSource.BufferSource target;
+    private boolean flatLighting;
+
+    GuiBatchRecorder() {
+        this(new ByteBufferBuilder(256));
+    }
+
+    private GuiBatchRecorder(ByteBufferBuilder fallbackBuffer) {
+        super(fallbackBuffer, new LinkedHashMap<>());
+
+        this.fallbackBuffer = fallbackBuffer;
+        this.renderTypeIds.defaultReturnValue(-1);
+    }
+
+    public static GuiBatchRecorder instance() {
+        if (INSTANCE == null) {
+            INSTANCE = new GuiBatchRecorder();
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * Starts recording. Anything already held by {@code target} must have been drawn before calling this.
+     */
+    public void begin(MultiBufferSource.BufferSource target) {
+        this.target = target;
+        this.flatLighting = false;
+        this.commands.reset();
+    }
+
+    /**
+     * Draws all recorded commands into the target buffer source and stops recording.
+     */
+    public void end() {
+        if (this.target != null) {
+            this.flush(this.target);
+        }
+
+        this.target = null;
+        this.flatLighting = false;
+    }
+
+    public boolean isRecording() {
+        return this.target != null;
+    }
+
+    /**
+     * Sets whether item geometry recorded from now on should be drawn with the flat item lighting setup.
+     */
+    public void setFlatLighting(boolean flatLighting) {
+        this.flatLighting = flatLighting;
+    }
+
+    /**
+     * Draws all recorded commands into {@code target} while keeping the recorder active. This is used as a barrier
+     * when something is about to be drawn outside the recorder.
+     */
+    public void flush(MultiBufferSource.BufferSource target) {
+        // Anything which bypassed the recorder was drawn after the commands we already flushed, but before the
+        // commands we currently hold
+        target.endBatch();
+
+        var commands = this.commands;
+
+        if (commands.getCommandCount() == 0) {
+            return;
+        }
+
+        this.plan();
+
+        var planner = this.planner;
+
+        try {
+            for (int batch = 0; batch < planner.getBatchCount(); batch++) {
+                int key = planner.getBatchKey(batch);
+
+                RenderType renderType = this.renderTypes.get(keyToRenderTypeId(key));
+                boolean flat = keyUsesFlatLighting(key);
+
+                if (flat) {
+                    Lighting.setupForFlatItems();
+                }
+
+                VertexFormatDescription format = this.consumers[key].format;
+                VertexBufferWriter writer = VertexBufferWriter.of(target.getBuffer(renderType));
+
+                for (int i = planner.getBatchStart(batch), end = planner.getBatchEnd(batch); i < end; i++) {
+                    int cmd = planner.getCommand(i);
+
+                    try (MemoryStack stack = MemoryStack.stackPush()) {
+                        writer.push(stack, commands.getDataPointer(cmd), commands.getVertexCount(cmd), format);
+                    }
+                }
+
+                target.endBatch(renderType);
+
+                if (flat) {
+                    Lighting.setupFor3DItems();
+                }
+            }
+        } finally {
+            this.discard();
+        }
+    }
+
+    /**
+     * Computes the bounds of the recorded commands and plans the order in which they will be drawn.
+     *
+     * @return The number of batches the recorded commands will be drawn with
+     */
+    int plan() {
+        this.commands.computeBounds(this.positionOffsets);
+        this.planner.plan(this.commands);
+
+        return this.planner.getBatchCount();
+    }
+
+    /**
+     * Throws away every recorded command without drawing it.
+     */
+    void discard() {
+        this.commands.reset();
+
+        for (RecordingVertexConsumer consumer : this.consumers) {
+            if (consumer != null) {
+                consumer.reset();
+            }
+        }
+    }
+
+    int getCommandCount() {
+        return this.commands.getCommandCount();
+    }
+
+    /**
+     * Frees the memory held by the recorder. It must not be used afterward.
+     */
+    public void destroy() {
+        this.commands.destroy();
+        this.fallbackBuffer.close();
+    }
+
+    @Override
+    public VertexConsumer getBuffer(RenderType renderType) {
+        var target = this.target;
+
+        if (target == null) {
+            throw new IllegalStateException("Not recording");
+        }
+
+        if (renderType.mode() != VertexFormat.Mode.QUADS) {
+            // Only quads can be recorded as independent commands, so draw everything we have so far and let the real
+            // buffer source handle this geometry
+            this.flush(target);
+
+            return target.getBuffer(renderType);
+        }
+
+        if (this.commands.getCommandCount() >= MAX_PENDING_COMMANDS) {
+            this.flush(target);
+        }
+
+        int key = this.getKey(renderType);
+
+        return this.consumers[key];
+    }
+
+    @Override
+    public void endBatch() {
+        // Deferred until the recorder is flushed
+    }
+
+    @Override
+    public void endBatch(RenderType renderType) {
+        // Deferred until the recorder is flushed
+    }
+
+    private int getKey(RenderType renderType) {
+        int id = this.renderTypeIds.getInt(renderType);
+
+        if (id == -1) {
+            id = this.renderTypes.size();
+
+            this.renderTypes.add(renderType);
+            this.renderTypeIds.put(renderType, id);
+
+            this.createConsumers(renderType, id);
+        }
+
+        return createKey(id, this.flatLighting);
+    }
+
+    private void createConsumers(RenderType renderType, int id) {
+        int keyCount = createKey(id, true) + 1;
+
+        if (this.consumers.length < keyCount) {
+            int capacity = Math.max(keyCount, this.consumers.length * 2);
+
+            this.consumers = Arrays.copyOf(this.consumers, capacity);
+            this.positionOffsets = Arrays.copyOf(this.positionOffsets, capacity);
+        }
+
+        VertexFormatDescription format = VertexFormatRegistry.instance().get(renderType.format());
+        int positionOffset = format.containsElement(CommonVertexAttribute.POSITION) ?
+                format.getElementOffset(CommonVertexAttribute.POSITION) : -1;
+
+        for (int flat = 0; flat < 2; flat++) {
+            int key = createKey(id, flat != 0);
+
+            this.consumers[key] = new RecordingVertexConsumer(this.commands, key, format);
+            this.positionOffsets[key] = positionOffset;
+        }
+    }
+
+    private static int createKey(int renderTypeId, boolean flatLighting) {
+        return (renderTypeId << 1) | (flatLighting ? 1 : 0);
+    }
+
+    private static int keyToRenderTypeId(int key) {
+        return key >>> 1;
+    }
+
+    private static boolean keyUsesFlatLighting(int key) {
+        return (key & 1) != 0;
+    }
+}
@@ -0,0 +1,187 @@
+package org.embeddedt.embeddium.impl.render.immediate.gui;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * An off-heap list of draw commands recorded during a GUI pass. Each command owns a contiguous run of vertices in the
+ * destination format of its batch key, along with the screen-space bounds of those vertices, which are used to
+ * determine whether two commands may be reordered.
+ * <p>
+ * Vertex data is addressed by offset rather than by pointer, as the backing storage may be reallocated while commands
+ * are still being written to.
+ */
+public class GuiCommandBuffer {
+    private static final int HEADER_KEY = 0;
+    private static final int HEADER_VERTEX_COUNT = 4;
+    private static final int HEADER_STRIDE = 8;
+    private static final int HEADER_DATA_OFFSET = 12;
+    private static final int HEADER_MIN_X = 16;
+    private static final int HEADER_MIN_Y = 20;
+    private static final int HEADER_MAX_X = 24;
+    private static final int HEADER_MAX_Y = 28;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int INITIAL_COMMAND_CAPACITY = 256;
+    private static final int INITIAL_DATA_CAPACITY = 64 * 1024;
+
+    private long headers;
+    private int commandCount;
+    private int commandCapacity;
+
+    private long data;
+    private int dataUsed;
+    private int dataCapacity;
+
+    public GuiCommandBuffer() {
+        this.commandCapacity = INITIAL_COMMAND_CAPACITY;
+        this.headers = MemoryUtil.nmemAlloc((long) this.commandCapacity * HEADER_SIZE);
+
+        this.dataCapacity = INITIAL_DATA_CAPACITY;
+        this.data = MemoryUtil.nmemAlloc(this.dataCapacity);
+    }
+
+    /**
+     * Reserves space for a new command. The vertex data of the command is zero-initialized and can be written
+     * through {@link #getDataPointer(int)} until the buffer is reset.
+     *
+     * @param key The batch key of the command
+     * @param vertexCount The number of vertices in the command
+     * @param stride The number of bytes between consecutive vertices
+     * @return The index of the new command
+     */
+    public int allocate(int key, int vertexCount, int stride) {
+        int length = vertexCount * stride;
+
+        if (this.commandCount >= this.commandCapacity) {
+            this.commandCapacity *= 2;
+            this.headers = MemoryUtil.nmemRealloc(this.headers, (long) this.commandCapacity * HEADER_SIZE);
+        }
+
+        if (this.dataUsed + length > this.dataCapacity) {
+            this.dataCapacity = Math.max(this.dataCapacity * 2, this.dataUsed + length);
+            this.data = MemoryUtil.nmemRealloc(this.data, this.dataCapacity);
+        }
+
+        int index = this.commandCount++;
+        long header = this.getHeaderPointer(index);
+
+        MemoryUtil.memPutInt(header + HEADER_KEY, key);
+        MemoryUtil.memPutInt(header + HEADER_VERTEX_COUNT, vertexCount);
+        MemoryUtil.memPutInt(header + HEADER_STRIDE, stride);
+        MemoryUtil.memPutInt(header + HEADER_DATA_OFFSET, this.dataUsed);
+
+        MemoryUtil.memSet(this.data + this.dataUsed, 0, length);
+        this.dataUsed += length;
+
+        return index;
+    }
+
+    /**
+     * Computes the screen-space bounds of every command from the X/Y components of its vertex positions. This must
+     * be called after all commands have been written and before the bounds are queried.
+     *
+     * @param positionOffsets The byte offset of the position attribute for each key, or -1 if the key's format has no
+     *                        usable position, in which case the command is treated as covering the whole screen
+     */
+    public void computeBounds(int[] positionOffsets) {
+        for (int i = 0; i < this.commandCount; i++) {
+            long header = this.getHeaderPointer(i);
+
+            int positionOffset = positionOffsets[this.getKey(i)];
+
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+            if (positionOffset < 0) {
+                minX = minY = Float.NEGATIVE_INFINITY;
+                maxX = maxY = Float.POSITIVE_INFINITY;
+            } else {
+                int stride = this.getStride(i);
+                long ptr = this.getDataPointer(i) + positionOffset;
+
+                for (int vertex = 0, count = this.getVertexCount(i); vertex < count; vertex++) {
+                    float x = MemoryUtil.memGetFloat(ptr);
+                    float y = MemoryUtil.memGetFloat(ptr + 4);
+
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+
+                    ptr += stride;
+                }
+            }
+
+            MemoryUtil.memPutFloat(header + HEADER_MIN_X, minX);
+            MemoryUtil.memPutFloat(header + HEADER_MIN_Y, minY);
+            MemoryUtil.memPutFloat(header + HEADER_MAX_X, maxX);
+            MemoryUtil.memPutFloat(header + HEADER_MAX_Y, maxY);
+        }
+    }
+
+    public int getCommandCount() {
+        return this.commandCount;
+    }
+
+    public int getKey(int index) {
+        return MemoryUtil.memGetInt(this.getHeaderPointer(index) + HEADER_KEY);
+    }
+
+    public int getVertexCount(int index) {
+        return MemoryUtil.memGetInt(this.getHeaderPointer(index) + HEADER_VERTEX_COUNT);
+    }
+
+    public int getStride(int index) {
+        return MemoryUtil.memGetInt(this.getHeaderPointer(index) + HEADER_STRIDE);
+    }
+
+    public long getDataPointer(int index) {
+        return this.data + MemoryUtil.memGetInt(this.getHeaderPointer(index) + HEADER_DATA_OFFSET);
+    }
+
+    public float getMinX(int index) {
+        return MemoryUtil.memGetFloat(this.getHeaderPointer(index) + HEADER_MIN_X);
+    }
+
+    public float getMinY(int index) {
+        return MemoryUtil.memGetFloat(this.getHeaderPointer(index) + HEADER_MIN_Y);
+    }
+
+    public float getMaxX(int index) {
+        return MemoryUtil.memGetFloat(this.getHeaderPointer(index) + HEADER_MAX_X);
+    }
+
+    public float getMaxY(int index) {
+        return MemoryUtil.memGetFloat(this.getHeaderPointer(index) + HEADER_MAX_Y);
+    }
+
+    public boolean overlaps(int a, int b) {
+        return this.getMinX(a) < this.getMaxX(b) && this.getMinX(b) < this.getMaxX(a) &&
+                this.getMinY(a) < this.getMaxY(b) && this.getMinY(b) < this.getMaxY(a);
+    }
+
+    public void reset() {
+        this.commandCount = 0;
+        this.dataUsed = 0;
+    }
+
+    public void destroy() {
+        if (this.headers != MemoryUtil.NULL) {
+            MemoryUtil.nmemFree(this.headers);
+            this.headers = MemoryUtil.NULL;
+        }
+
+        if (this.data != MemoryUtil.NULL) {
+            MemoryUtil.nmemFree(this.data);
+            this.data = MemoryUtil.NULL;
+        }
+
+        this.commandCount = 0;
+        this.dataUsed = 0;
+    }
+
+    private long getHeaderPointer(int index) {
+        return this.headers + ((long) index * HEADER_SIZE);
+    }
+}
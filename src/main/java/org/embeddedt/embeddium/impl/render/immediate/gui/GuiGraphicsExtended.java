@@ -0,0 +1,14 @@
+package org.embeddedt.embeddium.impl.render.immediate.gui;
+
+public interface GuiGraphicsExtended {
+    /**
+     * Starts recording GUI geometry into the {@link GuiBatchRecorder} so that it can be drawn in batches. Does nothing
+     * if batching is disabled or already active.
+     */
+    void embeddium$beginBatching();
+
+    /**
+     * Draws everything recorded since {@link #embeddium$beginBatching()} and stops recording.
+     */
+    void embeddium$endBatching();
+}
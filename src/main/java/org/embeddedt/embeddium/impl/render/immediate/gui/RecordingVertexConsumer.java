@@ -0,0 +1,144 @@
+package org.embeddedt.embeddium.impl.render.immediate.gui;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import org.embeddedt.embeddium.api.util.NormI8;
+import org.embeddedt.embeddium.api.vertex.attributes.CommonVertexAttribute;
+import org.embeddedt.embeddium.api.vertex.attributes.common.ColorAttribute;
+import org.embeddedt.embeddium.api.vertex.attributes.common.LightAttribute;
+import org.embeddedt.embeddium.api.vertex.attributes.common.NormalAttribute;
+import org.embeddedt.embeddium.api.vertex.attributes.common.OverlayAttribute;
+import org.embeddedt.embeddium.api.vertex.attributes.common.PositionAttribute;
+import org.embeddedt.embeddium.api.vertex.attributes.common.TextureAttribute;
+import org.embeddedt.embeddium.api.vertex.buffer.VertexBufferWriter;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatDescription;
+import org.embeddedt.embeddium.api.vertex.serializer.VertexSerializerRegistry;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Records the quads written into it as commands of a single batch key in a {@link GuiCommandBuffer}. Bulk writes
+ * through {@link VertexBufferWriter} are copied (and converted if needed) into one command, while vertices written
+ * through the {@link VertexConsumer} methods are assembled into one command per quad.
+ * <p>
+ * The command for a quad assembled from individual vertices is allocated when its first vertex is started, so that it
+ * keeps its place in the recording order even when several consumers are written to in an interleaved fashion.
+ */
+class RecordingVertexConsumer implements VertexConsumer, VertexBufferWriter {
+    private static final int NO_COMMAND = -1;
+
+    private final GuiCommandBuffer commands;
+    private final int key;
+
+    final VertexFormatDescription format;
+
+    private final int stride;
+    private final int positionOffset, colorOffset, textureOffset, overlayOffset, lightOffset, normalOffset;
+
+    private int currentCommand = NO_COMMAND;
+    private int currentVertex;
+
+    RecordingVertexConsumer(GuiCommandBuffer commands, int key, VertexFormatDescription format) {
+        this.commands = commands;
+        this.key = key;
+        this.format = format;
+        this.stride = format.stride();
+
+        this.positionOffset = getOffset(format, CommonVertexAttribute.POSITION);
+        this.colorOffset = getOffset(format, CommonVertexAttribute.COLOR);
+        this.textureOffset = getOffset(format, CommonVertexAttribute.TEXTURE);
+        this.overlayOffset = getOffset(format, CommonVertexAttribute.OVERLAY);
+        this.lightOffset = getOffset(format, CommonVertexAttribute.LIGHT);
+        this.normalOffset = getOffset(format, CommonVertexAttribute.NORMAL);
+    }
+
+    private static int getOffset(VertexFormatDescription format, CommonVertexAttribute attribute) {
+        return format.containsElement(attribute) ? format.getElementOffset(attribute) : -1;
+    }
+
+    void reset() {
+        this.currentCommand = NO_COMMAND;
+    }
+
+    @Override
+    public void push(MemoryStack stack, long ptr, int count, VertexFormatDescription format) {
+        // Any partially assembled quad is complete once bulk data arrives
+        this.currentCommand = NO_COMMAND;
+
+        int cmd = this.commands.allocate(this.key, count, this.stride);
+        long dst = this.commands.getDataPointer(cmd);
+
+        if (format == this.format) {
+            MemoryUtil.memCopy(ptr, dst, (long) count * this.stride);
+        } else {
+            VertexSerializerRegistry.instance()
+                    .get(format, this.format)
+                    .serialize(ptr, dst, count);
+        }
+    }
+
+    private long currentVertexPointer() {
+        return this.commands.getDataPointer(this.currentCommand) + ((long) this.currentVertex * this.stride);
+    }
+
+    @Override
+    public VertexConsumer addVertex(float x, float y, float z) {
+        if (this.currentCommand == NO_COMMAND || this.currentVertex == 3) {
+            this.currentCommand = this.commands.allocate(this.key, 4, this.stride);
+            this.currentVertex = 0;
+        } else {
+            this.currentVertex++;
+        }
+
+        if (this.positionOffset >= 0) {
+            PositionAttribute.put(this.currentVertexPointer() + this.positionOffset, x, y, z);
+        }
+
+        return this;
+    }
+
+    @Override
+    public VertexConsumer setColor(int r, int g, int b, int a) {
+        if (this.colorOffset >= 0 && this.currentCommand != NO_COMMAND) {
+            ColorAttribute.set(this.currentVertexPointer() + this.colorOffset,
+                    ((a & 255) << 24) | ((b & 255) << 16) | ((g & 255) << 8) | (r & 255));
+        }
+
+        return this;
+    }
+
+    @Override
+    public VertexConsumer setUv(float u, float v) {
+        if (this.textureOffset >= 0 && this.currentCommand != NO_COMMAND) {
+            TextureAttribute.put(this.currentVertexPointer() + this.textureOffset, u, v);
+        }
+
+        return this;
+    }
+
+    @Override
+    public VertexConsumer setUv1(int u, int v) {
+        if (this.overlayOffset >= 0 && this.currentCommand != NO_COMMAND) {
+            OverlayAttribute.set(this.currentVertexPointer() + this.overlayOffset, (v << 16) | (u & 0xFFFF));
+        }
+
+        return this;
+    }
+
+    @Override
+    public VertexConsumer setUv2(int u, int v) {
+        if (this.lightOffset >= 0 && this.currentCommand != NO_COMMAND) {
+            LightAttribute.set(this.currentVertexPointer() + this.lightOffset, (v << 16) | (u & 0xFFFF));
+        }
+
+        return this;
+    }
+
+    @Override
+    public VertexConsumer setNormal(float x, float y, float z) {
+        if (this.normalOffset >= 0 && this.currentCommand != NO_COMMAND) {
+            NormalAttribute.set(this.currentVertexPointer() + this.normalOffset, NormI8.pack(x, y, z));
+        }
+
+        return this;
+    }
+}
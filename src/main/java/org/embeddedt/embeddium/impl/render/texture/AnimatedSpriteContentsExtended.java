@@ -0,0 +1,8 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+public interface AnimatedSpriteContentsExtended {
+    /**
+     * @return The cache of the pixels last uploaded for this sprite, creating it if necessary
+     */
+    SpriteFrameCache embeddium$getFrameCache();
+}
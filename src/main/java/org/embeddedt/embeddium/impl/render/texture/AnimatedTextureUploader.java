@@ -0,0 +1,178 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.platform.NativeImage;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.util.NativeImageHelper;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL21C;
+
+/**
+ * Collects the animated sprite uploads of a texture atlas while its animations are being ticked, and uploads them
+ * together once the atlas has finished ticking.
+ * <p>
+ * Each recorded frame is compared against the frame which was last uploaded for the same sprite, and only the
+ * rectangle containing changed pixels is kept. The rectangles of all sprites are packed into one staging buffer
+ * (see {@link TextureUploadBatch}), which is copied into a pixel unpack buffer with a single call before the texture
+ * is updated from it.
+ * <p>
+ * This class is only safe to use from the render thread.
+ */
+public class AnimatedTextureUploader {
+    private static final int STRIDE = 4;
+
+    private static AnimatedTextureUploader INSTANCE;
+
+    private final TextureUploadBatch batch = new TextureUploadBatch();
+
+    private int pixelBuffer;
+    private boolean recording;
+
+    private long tickUploadedBytes, tickFrameBytes;
+    private int tickRegions, tickBatches;
+
+    private long lastUploadedBytes, lastFrameBytes;
+    private int lastRegions, lastBatches;
+
+    public static AnimatedTextureUploader instance() {
+        if (INSTANCE == null) {
+            INSTANCE = new AnimatedTextureUploader();
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * Starts collecting uploads for the texture which is currently bound.
+     */
+    public void begin() {
+        this.recording = Embeddium.options().advanced.enableAnimatedTextureBatching;
+        this.batch.reset();
+    }
+
+    /**
+     * Uploads everything which was collected since {@link #begin()} into the texture which is currently bound.
+     */
+    public void end() {
+        if (!this.recording) {
+            return;
+        }
+
+        this.recording = false;
+
+        if (this.batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.upload(this.batch);
+        } finally {
+            this.batch.reset();
+        }
+    }
+
+    public boolean isRecording() {
+        return this.recording;
+    }
+
+    /**
+     * Records the upload of one mip level of a sprite's frame.
+     *
+     * @param cache The cache of previously uploaded pixels for the sprite
+     * @param level The mip level which is being uploaded
+     * @param x The X coordinate of the sprite in the atlas at the given mip level
+     * @param y The Y coordinate of the sprite in the atlas at the given mip level
+     * @param image The image which contains the frame
+     * @param frameX The X coordinate of the frame within the image
+     * @param frameY The Y coordinate of the frame within the image
+     */
+    public void record(SpriteFrameCache cache, int level, int x, int y, NativeImage image, int frameX, int frameY) {
+        int width = cache.getWidth(level);
+        int height = cache.getHeight(level);
+
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        int rowLength = image.getWidth();
+        long src = NativeImageHelper.getPointerRGBA(image) + (((long) frameY * rowLength) + frameX) * STRIDE;
+        long prev = cache.getPointer(level);
+
+        long region;
+
+        if (cache.isValid(level)) {
+            region = TextureRegionDiff.findDirtyRegion(prev, width, src, rowLength, width, height);
+        } else {
+            // We don't know what the texture currently contains, so the whole frame needs to be uploaded
+            region = TextureRegionDiff.pack(0, 0, width, height);
+            cache.setValid(level);
+        }
+
+        this.tickFrameBytes += (long) width * height * STRIDE;
+
+        if (region == TextureRegionDiff.EMPTY) {
+            return;
+        }
+
+        TextureRegionDiff.copyRegion(src, rowLength, prev, width, region);
+
+        int regionX = TextureRegionDiff.unpackX(region);
+        int regionY = TextureRegionDiff.unpackY(region);
+        int regionWidth = TextureRegionDiff.unpackWidth(region);
+        int regionHeight = TextureRegionDiff.unpackHeight(region);
+
+        this.batch.add(level, x + regionX, y + regionY, regionWidth, regionHeight,
+                src + (((long) regionY * rowLength) + regionX) * STRIDE, rowLength);
+    }
+
+    private void upload(TextureUploadBatch batch) {
+        if (this.pixelBuffer == 0) {
+            this.pixelBuffer = GlStateManager._glGenBuffers();
+        }
+
+        GlStateManager._glBindBuffer(GL21C.GL_PIXEL_UNPACK_BUFFER, this.pixelBuffer);
+
+        try {
+            // Orphan the previous contents of the buffer, since the driver may still be reading from them
+            GL15C.nglBufferData(GL21C.GL_PIXEL_UNPACK_BUFFER, batch.getStagingSize(), batch.getStagingPointer(), GL15C.GL_STREAM_DRAW);
+
+            // Regions are tightly packed, so the unpack state left behind by other uploads must not apply to them
+            GlStateManager._pixelStore(GL11C.GL_UNPACK_ROW_LENGTH, 0);
+            GlStateManager._pixelStore(GL11C.GL_UNPACK_SKIP_PIXELS, 0);
+            GlStateManager._pixelStore(GL11C.GL_UNPACK_SKIP_ROWS, 0);
+            GlStateManager._pixelStore(GL11C.GL_UNPACK_ALIGNMENT, 4);
+
+            for (int i = 0; i < batch.getRegionCount(); i++) {
+                GlStateManager._texSubImage2D(GL11C.GL_TEXTURE_2D, batch.getLevel(i), batch.getX(i), batch.getY(i),
+                        batch.getWidth(i), batch.getHeight(i), GL11C.GL_RGBA, GL11C.GL_UNSIGNED_BYTE, batch.getOffset(i));
+            }
+        } finally {
+            GlStateManager._glBindBuffer(GL21C.GL_PIXEL_UNPACK_BUFFER, 0);
+        }
+
+        this.tickUploadedBytes += batch.getStagingSize();
+        this.tickRegions += batch.getRegionCount();
+        this.tickBatches++;
+    }
+
+    /**
+     * Publishes the statistics collected during the previous tick and starts collecting new ones.
+     */
+    public void beginTick() {
+        this.lastUploadedBytes = this.tickUploadedBytes;
+        this.lastFrameBytes = this.tickFrameBytes;
+        this.lastRegions = this.tickRegions;
+        this.lastBatches = this.tickBatches;
+
+        this.tickUploadedBytes = 0;
+        this.tickFrameBytes = 0;
+        this.tickRegions = 0;
+        this.tickBatches = 0;
+    }
+
+    public String getDebugString() {
+        return String.format("Texture Animations: %d/%d KiB/t (%d regions, %d batches)",
+                this.lastUploadedBytes / 1024, this.lastFrameBytes / 1024, this.lastRegions, this.lastBatches);
+    }
+}
@@ -0,0 +1,110 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import net.minecraft.client.renderer.texture.SpriteContents;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.resources.ResourceLocation;
+import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.mixin.features.textures.SpriteContentsInvoker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Generates the mip levels of every sprite in an atlas by splitting the sprites into groups of similar total size
+ * and processing each group as a separate task, instead of walking all sprites on a single thread.
+ * <p>
+ * The mip levels of a sprite only depend on the sprite's own image, so the output is the same regardless of how the
+ * groups are scheduled.
+ */
+public class ParallelMipmapGenerator {
+    /**
+     * The number of tasks to create for each thread of the executor, so that threads which finish early can pick up
+     * the remaining work.
+     */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Groups with less total area than this are merged, as the overhead of scheduling them would dominate.
+     */
+    private static final long MIN_TASK_AREA = 16 * 16 * 64;
+
+    public static CompletableFuture<Void> generate(ResourceLocation atlas, Collection<TextureAtlasSprite> sprites, int mipLevel,
+                                                   Executor executor, long stitchNanos) {
+        long startNanos = System.nanoTime();
+
+        List<List<SpriteContents>> tasks = partition(sprites, getParallelism(executor) * TASKS_PER_THREAD);
+
+        CompletableFuture<?>[] futures = new CompletableFuture[tasks.size()];
+
+        for (int i = 0; i < tasks.size(); i++) {
+            List<SpriteContents> task = tasks.get(i);
+
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (SpriteContents contents : task) {
+                    contents.increaseMipLevel(mipLevel);
+                }
+            }, executor);
+        }
+
+        return CompletableFuture.allOf(futures).thenRun(() -> {
+            long mipmapNanos = System.nanoTime() - startNanos;
+
+            Embeddium.logger().info("Atlas {}: stitched {} sprites in {} ms, generated {} mip levels in {} ms ({} tasks)",
+                    atlas, sprites.size(), stitchNanos / 1_000_000L, mipLevel, mipmapNanos / 1_000_000L, tasks.size());
+        });
+    }
+
+    private static List<List<SpriteContents>> partition(Collection<TextureAtlasSprite> sprites, int targetTasks) {
+        long totalArea = 0;
+
+        for (TextureAtlasSprite sprite : sprites) {
+            totalArea += getArea(sprite.contents());
+        }
+
+        long taskArea = Math.max(MIN_TASK_AREA, totalArea / Math.max(1, targetTasks));
+
+        List<List<SpriteContents>> tasks = new ArrayList<>();
+        List<SpriteContents> task = new ArrayList<>();
+        long area = 0;
+
+        for (TextureAtlasSprite sprite : sprites) {
+            SpriteContents contents = sprite.contents();
+
+            task.add(contents);
+            area += getArea(contents);
+
+            if (area >= taskArea) {
+                tasks.add(task);
+
+                task = new ArrayList<>();
+                area = 0;
+            }
+        }
+
+        if (!task.isEmpty()) {
+            tasks.add(task);
+        }
+
+        return tasks;
+    }
+
+    private static long getArea(SpriteContents contents) {
+        // Mip levels are generated for the whole image, which includes every frame of an animated sprite
+        NativeImage image = ((SpriteContentsInvoker) contents).getOriginalImage();
+
+        return (long) image.getWidth() * image.getHeight();
+    }
+
+    private static int getParallelism(Executor executor) {
+        if (executor instanceof ForkJoinPool pool) {
+            return pool.getParallelism();
+        }
+
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,71 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Holds a copy of the pixels which were last uploaded for each mip level of an animated sprite, so that the next frame
+ * can be compared against it and only the changed area needs to be uploaded.
+ */
+public class SpriteFrameCache {
+    private static final int STRIDE = 4;
+
+    private final int width, height;
+    private final long[] levels;
+
+    private int validLevels;
+
+    public SpriteFrameCache(int width, int height, int levelCount) {
+        this.width = width;
+        this.height = height;
+        this.levels = new long[levelCount];
+
+        for (int level = 0; level < levelCount; level++) {
+            this.levels[level] = MemoryUtil.nmemAlloc(Math.max(1L, (long) this.getWidth(level) * this.getHeight(level) * STRIDE));
+        }
+    }
+
+    public int getLevelCount() {
+        return this.levels.length;
+    }
+
+    public int getWidth(int level) {
+        return this.width >> level;
+    }
+
+    public int getHeight(int level) {
+        return this.height >> level;
+    }
+
+    public long getPointer(int level) {
+        return this.levels[level];
+    }
+
+    /**
+     * @return True if the cached pixels of the given level match what was last uploaded to the texture
+     */
+    public boolean isValid(int level) {
+        return (this.validLevels & (1 << level)) != 0;
+    }
+
+    public void setValid(int level) {
+        this.validLevels |= (1 << level);
+    }
+
+    /**
+     * Marks every level as unknown, which must be done if the sprite was uploaded without going through the cache.
+     */
+    public void invalidate() {
+        this.validLevels = 0;
+    }
+
+    public void destroy() {
+        for (int level = 0; level < this.levels.length; level++) {
+            if (this.levels[level] != MemoryUtil.NULL) {
+                MemoryUtil.nmemFree(this.levels[level]);
+                this.levels[level] = MemoryUtil.NULL;
+            }
+        }
+
+        this.validLevels = 0;
+    }
+}
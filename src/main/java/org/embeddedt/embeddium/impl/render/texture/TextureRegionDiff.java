@@ -0,0 +1,131 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import org.embeddedt.embeddium.impl.util.NativeImageHelper;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Helpers for finding the area of an RGBA image which has changed between two frames. Regions are packed into a
+ * single long, with each of the X, Y, width, and height components taking 16 bits. An empty region (with no changed
+ * pixels) is represented by {@link #EMPTY}.
+ * <p>
+ * These functions only operate on memory and never touch the graphics device.
+ */
+public class TextureRegionDiff {
+    public static final long EMPTY = 0L;
+
+    private static final int STRIDE = 4;
+
+    /**
+     * Finds the smallest rectangle which contains every pixel that differs between the two images.
+     *
+     * @param prev The pointer to the first pixel of the previous frame
+     * @param prevRowLength The number of pixels between the start of each row in the previous frame
+     * @param next The pointer to the first pixel of the next frame
+     * @param nextRowLength The number of pixels between the start of each row in the next frame
+     * @param width The width of the compared area in pixels
+     * @param height The height of the compared area in pixels
+     * @return The packed region which has changed, or {@link #EMPTY} if both frames are identical
+     */
+    public static long findDirtyRegion(long prev, int prevRowLength, long next, int nextRowLength, int width, int height) {
+        int minX = width, maxX = -1;
+        int minY = height, maxY = -1;
+
+        for (int y = 0; y < height; y++) {
+            long prevRow = prev + ((long) y * prevRowLength * STRIDE);
+            long nextRow = next + ((long) y * nextRowLength * STRIDE);
+
+            int first = findFirstDifference(prevRow, nextRow, width);
+
+            if (first < 0) {
+                continue;
+            }
+
+            // The last difference can't come before the first difference in the same row
+            int last = findLastDifference(prevRow, nextRow, first, width);
+
+            minX = Math.min(minX, first);
+            maxX = Math.max(maxX, last);
+
+            minY = Math.min(minY, y);
+            maxY = y;
+        }
+
+        if (maxY < 0) {
+            return EMPTY;
+        }
+
+        return pack(minX, minY, (maxX - minX) + 1, (maxY - minY) + 1);
+    }
+
+    /**
+     * Finds the smallest rectangle which contains every pixel that differs between two images of the same size.
+     */
+    public static long findDirtyRegion(NativeImage prev, NativeImage next) {
+        if (prev.getWidth() != next.getWidth() || prev.getHeight() != next.getHeight()) {
+            throw new IllegalArgumentException("Images must have the same dimensions");
+        }
+
+        return findDirtyRegion(NativeImageHelper.getPointerRGBA(prev), prev.getWidth(),
+                NativeImageHelper.getPointerRGBA(next), next.getWidth(), next.getWidth(), next.getHeight());
+    }
+
+    /**
+     * Copies a rectangle of pixels between two images.
+     */
+    public static void copyRegion(long src, int srcRowLength, long dst, int dstRowLength, long region) {
+        int x = unpackX(region);
+        int y = unpackY(region);
+        int width = unpackWidth(region);
+        int height = unpackHeight(region);
+
+        for (int row = y; row < y + height; row++) {
+            MemoryUtil.memCopy(src + (((long) row * srcRowLength) + x) * STRIDE,
+                    dst + (((long) row * dstRowLength) + x) * STRIDE,
+                    (long) width * STRIDE);
+        }
+    }
+
+    private static int findFirstDifference(long prevRow, long nextRow, int width) {
+        for (int x = 0; x < width; x++) {
+            if (MemoryUtil.memGetInt(prevRow + ((long) x * STRIDE)) != MemoryUtil.memGetInt(nextRow + ((long) x * STRIDE))) {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int findLastDifference(long prevRow, long nextRow, int first, int width) {
+        for (int x = width - 1; x > first; x--) {
+            if (MemoryUtil.memGetInt(prevRow + ((long) x * STRIDE)) != MemoryUtil.memGetInt(nextRow + ((long) x * STRIDE))) {
+                return x;
+            }
+        }
+
+        return first;
+    }
+
+    public static long pack(int x, int y, int width, int height) {
+        return ((long) (x & 0xFFFF)) |
+                ((long) (y & 0xFFFF) << 16) |
+                ((long) (width & 0xFFFF) << 32) |
+                ((long) (height & 0xFFFF) << 48);
+    }
+
+    public static int unpackX(long region) {
+        return (int) (region & 0xFFFF);
+    }
+
+    public static int unpackY(long region) {
+        return (int) ((region >>> 16) & 0xFFFF);
+    }
+
+    public static int unpackWidth(long region) {
+        return (int) ((region >>> 32) & 0xFFFF);
+    }
+
+    public static int unpackHeight(long region) {
+        return (int) ((region >>> 48) & 0xFFFF);
+    }
+}
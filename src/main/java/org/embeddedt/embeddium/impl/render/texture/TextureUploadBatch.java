@@ -0,0 +1,150 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Arrays;
+
+/**
+ * Packs many small RGBA texture region uploads into one contiguous staging buffer, so that they can be copied to the
+ * graphics device together. The rows of each region are stored tightly packed, and every region starts at an offset
+ * which is suitably aligned for an unpack alignment of 4 bytes.
+ * <p>
+ * This class only manages memory and never touches the graphics device.
+ */
+public class TextureUploadBatch {
+    private static final int STRIDE = 4;
+
+    private static final int REGION_LEVEL = 0;
+    private static final int REGION_X = 1;
+    private static final int REGION_Y = 2;
+    private static final int REGION_WIDTH = 3;
+    private static final int REGION_HEIGHT = 4;
+    private static final int REGION_OFFSET = 5;
+
+    private static final int REGION_SIZE = 6;
+
+    private static final int INITIAL_STAGING_CAPACITY = 64 * 1024;
+
+    private int[] regions = new int[16 * REGION_SIZE];
+    private int regionCount;
+
+    private long staging;
+    private int stagingUsed;
+    private int stagingCapacity;
+
+    public TextureUploadBatch() {
+        this.stagingCapacity = INITIAL_STAGING_CAPACITY;
+        this.staging = MemoryUtil.nmemAlloc(this.stagingCapacity);
+    }
+
+    /**
+     * Copies a region of pixels into the staging buffer.
+     *
+     * @param level The mip level of the destination texture
+     * @param x The X coordinate of the region in the destination texture
+     * @param y The Y coordinate of the region in the destination texture
+     * @param width The width of the region in pixels
+     * @param height The height of the region in pixels
+     * @param src The pointer to the first pixel of the region in the source image
+     * @param srcRowLength The number of pixels between the start of each row in the source image
+     */
+    public void add(int level, int x, int y, int width, int height, long src, int srcRowLength) {
+        int rowBytes = width * STRIDE;
+        int length = rowBytes * height;
+
+        if (length == 0) {
+            return;
+        }
+
+        if (this.stagingUsed + length > this.stagingCapacity) {
+            this.stagingCapacity = Math.max(this.stagingCapacity * 2, this.stagingUsed + length);
+            this.staging = MemoryUtil.nmemRealloc(this.staging, this.stagingCapacity);
+        }
+
+        long dst = this.staging + this.stagingUsed;
+
+        if (srcRowLength == width) {
+            MemoryUtil.memCopy(src, dst, length);
+        } else {
+            for (int row = 0; row < height; row++) {
+                MemoryUtil.memCopy(src + ((long) row * srcRowLength * STRIDE), dst + ((long) row * rowBytes), rowBytes);
+            }
+        }
+
+        if ((this.regionCount + 1) * REGION_SIZE > this.regions.length) {
+            this.regions = Arrays.copyOf(this.regions, this.regions.length * 2);
+        }
+
+        int base = this.regionCount * REGION_SIZE;
+
+        this.regions[base + REGION_LEVEL] = level;
+        this.regions[base + REGION_X] = x;
+        this.regions[base + REGION_Y] = y;
+        this.regions[base + REGION_WIDTH] = width;
+        this.regions[base + REGION_HEIGHT] = height;
+        this.regions[base + REGION_OFFSET] = this.stagingUsed;
+
+        this.regionCount++;
+        this.stagingUsed += length;
+    }
+
+    public int getRegionCount() {
+        return this.regionCount;
+    }
+
+    public int getLevel(int region) {
+        return this.regions[(region * REGION_SIZE) + REGION_LEVEL];
+    }
+
+    public int getX(int region) {
+        return this.regions[(region * REGION_SIZE) + REGION_X];
+    }
+
+    public int getY(int region) {
+        return this.regions[(region * REGION_SIZE) + REGION_Y];
+    }
+
+    public int getWidth(int region) {
+        return this.regions[(region * REGION_SIZE) + REGION_WIDTH];
+    }
+
+    public int getHeight(int region) {
+        return this.regions[(region * REGION_SIZE) + REGION_HEIGHT];
+    }
+
+    /**
+     * @return The byte offset of the region's pixels from the start of the staging buffer
+     */
+    public int getOffset(int region) {
+        return this.regions[(region * REGION_SIZE) + REGION_OFFSET];
+    }
+
+    public long getStagingPointer() {
+        return this.staging;
+    }
+
+    /**
+     * @return The number of bytes in the staging buffer which are used by regions
+     */
+    public int getStagingSize() {
+        return this.stagingUsed;
+    }
+
+    public boolean isEmpty() {
+        return this.regionCount == 0;
+    }
+
+    public void reset() {
+        this.regionCount = 0;
+        this.stagingUsed = 0;
+    }
+
+    public void destroy() {
+        if (this.staging != MemoryUtil.NULL) {
+            MemoryUtil.nmemFree(this.staging);
+            this.staging = MemoryUtil.NULL;
+        }
+
+        this.reset();
+    }
+}
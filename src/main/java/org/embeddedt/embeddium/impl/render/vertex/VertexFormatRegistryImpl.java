@@ -4,6 +4,8 @@ import com.mojang.blaze3d.vertex.VertexFormat;
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
 import org.embeddedt.embeddium.api.vertex.format.VertexFormatDescription;
 import org.embeddedt.embeddium.api.vertex.format.VertexFormatRegistry;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.StampedLock;
 
@@ -36,15 +38,35 @@ public class VertexFormatRegistryImpl implements VertexFormatRegistry {
     private VertexFormatDescription create(VertexFormat format) {
         var stamp = this.lock.writeLock();
 
-        var id = this.descriptions.size();
-        var desc = new VertexFormatDescriptionImpl(format, id);
-
         try {
+            // Another thread may have created the description while we were waiting for the lock
+            var existing = this.descriptions.get(format);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            var id = this.descriptions.size();
+            var desc = new VertexFormatDescriptionImpl(format, id);
+
             this.descriptions.put(format, desc);
+
+            return desc;
         } finally {
             this.lock.unlockWrite(stamp);
         }
+    }
 
-        return desc;
+    /**
+     * @return A snapshot of every vertex format description which has been created so far
+     */
+    public List<VertexFormatDescription> getRegisteredFormats() {
+        var stamp = this.lock.readLock();
+
+        try {
+            return new ArrayList<>(this.descriptions.values());
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
     }
 }
@@ -1,8 +1,7 @@
 package org.embeddedt.embeddium.impl.render.vertex.serializers;
 
-import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
 import org.embeddedt.embeddium.impl.render.vertex.serializers.generated.VertexSerializerFactory;
+import org.embeddedt.embeddium.api.vertex.attributes.CommonVertexAttribute;
 import org.embeddedt.embeddium.api.vertex.format.VertexFormatDescription;
 import org.embeddedt.embeddium.api.vertex.serializer.VertexSerializer;
 import org.embeddedt.embeddium.api.vertex.serializer.VertexSerializerRegistry;
@@ -14,7 +13,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.locks.StampedLock;
+import java.util.Arrays;
+import java.util.Collection;
 
 public class VertexSerializerRegistryImpl implements VertexSerializerRegistry {
     private static final Logger LOGGER = LoggerFactory.getLogger(VertexSerializerRegistryImpl.class);
@@ -31,49 +31,107 @@ public class VertexSerializerRegistryImpl implements VertexSerializerRegistry {
         }
     }
 
-    private final Long2ReferenceMap<VertexSerializer> cache = new Long2ReferenceOpenHashMap<>();
-    private final StampedLock lock = new StampedLock();
+    /**
+     * The serializers which have been created so far, indexed by the source and destination format IDs. The table is
+     * never modified after being published, so lookups don't need to acquire any locks. Creating a serializer
+     * publishes a new copy of the table.
+     */
+    private volatile VertexSerializer[][] table = new VertexSerializer[0][];
+    private final Object lock = new Object();
 
     @Override
     public VertexSerializer get(VertexFormatDescription srcFormat, VertexFormatDescription dstFormat) {
-        var identifier = createKey(srcFormat, dstFormat);
-        var serializer = this.find(identifier);
+        var serializer = this.find(srcFormat.id(), dstFormat.id());
 
         if (serializer == null) {
-            serializer = this.create(identifier, srcFormat, dstFormat);
+            serializer = this.create(srcFormat, dstFormat);
         }
 
         return serializer;
     }
 
-    private VertexSerializer create(long identifier, VertexFormatDescription srcFormat, VertexFormatDescription dstFormat) {
-        var stamp = this.lock.writeLock();
-
-        try {
+    private VertexSerializer create(VertexFormatDescription srcFormat, VertexFormatDescription dstFormat) {
+        synchronized (this.lock) {
             // Additional lookup to avoid calling createSerializer twice
-            // Necessary because 'find' only acquires a non-exclusive lock
-            var cached = this.cache.get(identifier);
+            // Necessary because 'find' does not hold the lock
+            var cached = this.find(srcFormat.id(), dstFormat.id());
             if (cached != null) {
                 return cached;
             }
 
             // Create serializer
             var serializer = createSerializer(srcFormat, dstFormat);
-            this.cache.put(identifier, serializer);
+            this.publish(srcFormat.id(), dstFormat.id(), serializer);
             return serializer;
-        } finally {
-            this.lock.unlockWrite(stamp);
         }
     }
 
-    private VertexSerializer find(long identifier) {
-        var stamp = this.lock.readLock();
+    private VertexSerializer find(int srcId, int dstId) {
+        var table = this.table;
 
-        try {
-            return this.cache.get(identifier);
-        } finally {
-            this.lock.unlockRead(stamp);
+        if (srcId < table.length) {
+            var row = table[srcId];
+
+            if (row != null && dstId < row.length) {
+                return row[dstId];
+            }
+        }
+
+        return null;
+    }
+
+    private void publish(int srcId, int dstId, VertexSerializer serializer) {
+        var table = Arrays.copyOf(this.table, Math.max(this.table.length, srcId + 1));
+        var row = table[srcId];
+
+        if (row == null) {
+            row = new VertexSerializer[dstId + 1];
+        } else {
+            row = Arrays.copyOf(row, Math.max(row.length, dstId + 1));
         }
+
+        row[dstId] = serializer;
+        table[srcId] = row;
+
+        this.table = table;
+    }
+
+    /**
+     * Creates the serializers for every pair of the given formats which can be converted between, so that they don't
+     * need to be generated when first used. This can be called from any thread.
+     */
+    public void warmup(Collection<VertexFormatDescription> formats) {
+        long start = System.nanoTime();
+        int count = 0;
+
+        for (var srcFormat : formats) {
+            for (var dstFormat : formats) {
+                if (srcFormat == dstFormat || !canSerialize(srcFormat, dstFormat)) {
+                    continue;
+                }
+
+                if (this.find(srcFormat.id(), dstFormat.id()) == null) {
+                    this.create(srcFormat, dstFormat);
+                    count++;
+                }
+            }
+        }
+
+        LOGGER.info("Generated {} vertex serializers in {} ms", count, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    private static boolean canSerialize(VertexFormatDescription srcFormat, VertexFormatDescription dstFormat) {
+        if (!srcFormat.isSimpleFormat() || !dstFormat.isSimpleFormat()) {
+            return false;
+        }
+
+        for (var element : CommonVertexAttribute.values()) {
+            if (dstFormat.containsElement(element) && !srcFormat.containsElement(element)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     private static VertexSerializer createSerializer(VertexFormatDescription srcVertexFormat, VertexFormatDescription dstVertexFormat) {
@@ -122,8 +180,4 @@ public class VertexSerializerRegistryImpl implements VertexSerializerRegistry {
             LOGGER.warn("Could not dump bytecode to location: {}", path, e);
         }
     }
-
-    private static long createKey(VertexFormatDescription a, VertexFormatDescription b) {
-        return (long) a.id() & 0xffffffffL | ((long) b.id() & 0xffffffffL) << 32;
-    }
 }
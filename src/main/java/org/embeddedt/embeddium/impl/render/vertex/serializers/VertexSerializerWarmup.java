@@ -0,0 +1,73 @@
+package org.embeddedt.embeddium.impl.render.vertex.serializers;
+
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import net.minecraft.Util;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatDescription;
+import org.embeddedt.embeddium.api.vertex.format.VertexFormatRegistry;
+import org.embeddedt.embeddium.api.vertex.format.common.ColorVertex;
+import org.embeddedt.embeddium.api.vertex.format.common.GlyphVertex;
+import org.embeddedt.embeddium.api.vertex.format.common.LineVertex;
+import org.embeddedt.embeddium.api.vertex.format.common.ModelVertex;
+import org.embeddedt.embeddium.api.vertex.format.common.ParticleVertex;
+import org.embeddedt.embeddium.api.vertex.serializer.VertexSerializerRegistry;
+import org.embeddedt.embeddium.impl.render.vertex.VertexFormatRegistryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Generates the vertex serializers between all formats known at startup on a background thread, so that the render
+ * thread does not stall on class generation the first time a conversion is needed.
+ */
+public class VertexSerializerWarmup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VertexSerializerWarmup.class);
+
+    private static final List<VertexFormat> VANILLA_FORMATS = List.of(
+            DefaultVertexFormat.BLOCK,
+            DefaultVertexFormat.NEW_ENTITY,
+            DefaultVertexFormat.PARTICLE,
+            DefaultVertexFormat.POSITION,
+            DefaultVertexFormat.POSITION_COLOR,
+            DefaultVertexFormat.POSITION_COLOR_NORMAL,
+            DefaultVertexFormat.POSITION_COLOR_LIGHTMAP,
+            DefaultVertexFormat.POSITION_TEX,
+            DefaultVertexFormat.POSITION_TEX_COLOR,
+            DefaultVertexFormat.POSITION_COLOR_TEX_LIGHTMAP,
+            DefaultVertexFormat.POSITION_TEX_LIGHTMAP_COLOR,
+            DefaultVertexFormat.POSITION_TEX_COLOR_NORMAL
+    );
+
+    public static CompletableFuture<Void> start() {
+        return CompletableFuture.runAsync(VertexSerializerWarmup::run, Util.backgroundExecutor())
+                .exceptionally(throwable -> {
+                    // Serializers will still be created on demand, so this isn't fatal
+                    LOGGER.warn("Failed to generate vertex serializers ahead of time", throwable);
+                    return null;
+                });
+    }
+
+    private static void run() {
+        if (!(VertexFormatRegistry.instance() instanceof VertexFormatRegistryImpl formatRegistry) ||
+                !(VertexSerializerRegistry.instance() instanceof VertexSerializerRegistryImpl serializerRegistry)) {
+            return;
+        }
+
+        // The formats which we write vertex data with, and the vanilla formats they are most often converted into
+        Set<VertexFormatDescription> formats = new LinkedHashSet<>(List.of(ColorVertex.FORMAT, GlyphVertex.FORMAT,
+                LineVertex.FORMAT, ModelVertex.FORMAT, ParticleVertex.FORMAT));
+
+        for (VertexFormat format : VANILLA_FORMATS) {
+            formats.add(formatRegistry.get(format));
+        }
+
+        // Any other formats which mods have registered so far
+        formats.addAll(formatRegistry.getRegisteredFormats());
+
+        serializerRegistry.warmup(formats);
+    }
+}
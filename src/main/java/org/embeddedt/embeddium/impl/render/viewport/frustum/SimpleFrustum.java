@@ -1,12 +1,31 @@
 package org.embeddedt.embeddium.impl.render.viewport.frustum;
 
 import org.joml.FrustumIntersection;
+import org.joml.Matrix4fc;
+import org.jetbrains.annotations.Nullable;
 
 public final class SimpleFrustum implements Frustum {
     private final FrustumIntersection frustum;
+    private final @Nullable Matrix4fc matrix;
 
     public SimpleFrustum(FrustumIntersection frustumIntersection) {
+        this(frustumIntersection, null);
+    }
+
+    /**
+     * @param matrix The combined projection and view matrix which the frustum was created from
+     */
+    public SimpleFrustum(FrustumIntersection frustumIntersection, @Nullable Matrix4fc matrix) {
         this.frustum = frustumIntersection;
+        this.matrix = matrix;
+    }
+
+    /**
+     * @return The combined projection and view matrix which the frustum was created from, if known. This may be
+     * changed by the game once the current frame is over, so it must be copied if it is needed for longer.
+     */
+    public @Nullable Matrix4fc getMatrix() {
+        return this.matrix;
     }
 
     @Override
@@ -16,4 +16,12 @@ public class FileUtil {
         // Atomically replace the old config file (if it exists) with the temporary file
         Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
     }
+
+    public static void writeBytesRobustly(byte[] bytes, Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        Files.write(tempPath, bytes);
+
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
 }
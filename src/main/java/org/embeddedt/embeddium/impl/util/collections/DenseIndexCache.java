@@ -0,0 +1,88 @@
+package org.embeddedt.embeddium.impl.util.collections;
+
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * A cache of values computed from keys which each have a small, dense index, such as the states of a block. Lookups
+ * never lock: they are a plain read of an array slot, followed by an identity check of the key stored there.
+ * <p>
+ * Entries are published through a data race. Since they are immutable, a reader either sees a complete entry or none
+ * at all, in which case it computes the value again and one of the copies is lost. Keys whose slot is already taken
+ * by another key (for instance, states of a different block which share the same index) are kept in a copy-on-write
+ * map instead, which is only expected to be used by unusual models.
+ */
+public final class DenseIndexCache<K, V> {
+    private static final Entry<?, ?>[] EMPTY_ENTRIES = new Entry[0];
+
+    private final ToIntFunction<K> indexer;
+
+    @SuppressWarnings("unchecked")
+    private volatile Entry<K, V>[] entries = (Entry<K, V>[]) EMPTY_ENTRIES;
+
+    private volatile Reference2ReferenceOpenHashMap<K, V> overflow;
+
+    public DenseIndexCache(ToIntFunction<K> indexer) {
+        this.indexer = indexer;
+    }
+
+    public @Nullable V get(K key) {
+        int index = this.indexer.applyAsInt(key);
+
+        var entries = this.entries;
+
+        if (index >= 0 && index < entries.length) {
+            var entry = entries[index];
+
+            if (entry != null && entry.key == key) {
+                return entry.value;
+            }
+        }
+
+        var overflow = this.overflow;
+
+        return overflow != null ? overflow.get(key) : null;
+    }
+
+    /**
+     * Stores the value for the given key. Callers compute values without holding any lock, so the same key may be put
+     * more than once, and every value for a key must be equivalent.
+     */
+    public void put(K key, V value) {
+        int index = this.indexer.applyAsInt(key);
+
+        if (index < 0) {
+            this.putOverflow(key, value);
+            return;
+        }
+
+        var entries = this.entries;
+
+        if (index >= entries.length) {
+            // Growing the array races with other writers, which may cause their entries to be lost, but as the keys
+            // are dense this only happens a few times for each cache
+            this.entries = entries = Arrays.copyOf(entries, Math.max(index + 1, entries.length * 2));
+        }
+
+        var existing = entries[index];
+
+        if (existing == null || existing.key == key) {
+            entries[index] = new Entry<>(key, value);
+        } else {
+            this.putOverflow(key, value);
+        }
+    }
+
+    private synchronized void putOverflow(K key, V value) {
+        var overflow = this.overflow;
+        var copy = overflow != null ? new Reference2ReferenceOpenHashMap<>(overflow) : new Reference2ReferenceOpenHashMap<K, V>();
+        copy.put(key, value);
+
+        this.overflow = copy;
+    }
+
+    private record Entry<K, V>(K key, V value) { }
+}
@@ -0,0 +1,85 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events (or sums amounts, such as bytes) and reports how much was counted in each window.
+ */
+public class Counter extends Metric {
+    private final LongAdder total = new LongAdder();
+
+    private final long[] history;
+    private final long[] historyStart;
+    private int historyCount;
+    private int historyNext;
+
+    private long lastTotal;
+    private long lastValue;
+    private long lastLengthNanos;
+
+    Counter(MetricsRegistry registry, String name, int historySize) {
+        super(registry, name);
+
+        this.history = new long[historySize];
+        this.historyStart = new long[historySize];
+    }
+
+    public void increment() {
+        this.add(1);
+    }
+
+    public void add(long amount) {
+        if (this.isEnabled()) {
+            this.total.add(amount);
+        }
+    }
+
+    /**
+     * @return Everything which has been counted since the counter was created
+     */
+    public long getTotal() {
+        return this.total.sum();
+    }
+
+    /**
+     * @return The amount which was counted in the last complete window
+     */
+    public long getLastValue() {
+        return this.lastValue;
+    }
+
+    @Override
+    void roll(long startMillis, long lengthNanos) {
+        // The total is never reset, since resetting a LongAdder can lose updates which happen at the same time
+        long total = this.total.sum();
+
+        this.lastValue = total - this.lastTotal;
+        this.lastTotal = total;
+        this.lastLengthNanos = lengthNanos;
+
+        this.history[this.historyNext] = this.lastValue;
+        this.historyStart[this.historyNext] = startMillis;
+        this.historyNext = (this.historyNext + 1) % this.history.length;
+        this.historyCount = Math.min(this.historyCount + 1, this.history.length);
+    }
+
+    @Override
+    public String describe() {
+        double seconds = this.lastLengthNanos / 1_000_000_000.0;
+
+        return String.format("%s: %.0f/s", this.getName(), seconds > 0 ? this.lastValue / seconds : 0.0);
+    }
+
+    @Override
+    void writeCsv(Writer writer) throws IOException {
+        int first = (this.historyNext - this.historyCount + this.history.length) % this.history.length;
+
+        for (int i = 0; i < this.historyCount; i++) {
+            int index = (first + i) % this.history.length;
+
+            writer.write(String.format("%d,%s,counter,%d,,,,,%n", this.historyStart[index], this.getName(), this.history[index]));
+        }
+    }
+}
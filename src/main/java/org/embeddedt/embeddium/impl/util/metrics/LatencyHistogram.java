@@ -0,0 +1,199 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records durations in nanoseconds into buckets whose width grows with their value, in the same way as an HDR
+ * histogram. Every power of two is split into {@link #SUB_BUCKETS} buckets, so the percentiles which are reported are
+ * within 1/{@value #SUB_BUCKETS} of the actual values, while the whole histogram only needs a few hundred counters.
+ */
+public class LatencyHistogram extends Metric {
+    private static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values are never negative, so the highest bit which can be set is bit 62
+    static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    private final Window[] history;
+    private int historyCount;
+    private int historyNext;
+
+    private Window lastWindow = Window.EMPTY;
+
+    LatencyHistogram(MetricsRegistry registry, String name, int historySize) {
+        super(registry, name);
+
+        this.history = new Window[historySize];
+    }
+
+    /**
+     * A summary of the values which were recorded in one window.
+     */
+    public record Window(long startMillis, long count, long sum, long p50, long p90, long p99, long max) {
+        static final Window EMPTY = new Window(0, 0, 0, 0, 0, 0, 0);
+
+        public long mean() {
+            return this.count > 0 ? this.sum / this.count : 0;
+        }
+    }
+
+    /**
+     * @return The current time to pass to {@link #recordSince(long)}, or 0 if nothing is being recorded
+     */
+    public long startTime() {
+        return this.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time which has passed since the given start time, unless the start time is 0.
+     */
+    public void recordSince(long startTime) {
+        if (startTime != 0L) {
+            this.recordValue(System.nanoTime() - startTime);
+        }
+    }
+
+    public void record(long nanos) {
+        if (this.isEnabled()) {
+            this.recordValue(nanos);
+        }
+    }
+
+    private void recordValue(long nanos) {
+        long value = Math.max(0, nanos);
+
+        this.buckets.incrementAndGet(getBucketIndex(value));
+        this.sum.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return ((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS) + subBucket;
+    }
+
+    /**
+     * @return The smallest value which is placed in the given bucket
+     */
+    static long getBucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = (index / SUB_BUCKETS) + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return The value in the middle of the given bucket, which is used to report values in that bucket
+     */
+    static long getBucketMidpoint(int index) {
+        long lower = getBucketLowerBound(index);
+
+        if (index < SUB_BUCKETS) {
+            return lower;
+        }
+
+        int exponent = (index / SUB_BUCKETS) + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+
+        return lower + (width / 2);
+    }
+
+    /**
+     * Summarizes the values which were recorded since the last call, and starts counting from zero again. Values
+     * which are recorded at the same time are either part of this window or the next one, but are never lost.
+     */
+    Window takeWindow(long startMillis) {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = this.buckets.getAndSet(i, 0);
+            count += counts[i];
+        }
+
+        long sum = this.sum.getAndSet(0);
+        long max = this.max.getAndSet(0);
+
+        if (count == 0) {
+            return new Window(startMillis, 0, 0, 0, 0, 0, 0);
+        }
+
+        return new Window(startMillis, count, sum,
+                getPercentile(counts, count, 0.50),
+                getPercentile(counts, count, 0.90),
+                getPercentile(counts, count, 0.99),
+                max);
+    }
+
+    static long getPercentile(long[] counts, long total, double percentile) {
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+
+            if (seen >= target) {
+                return getBucketMidpoint(i);
+            }
+        }
+
+        return 0;
+    }
+
+    public Window getLastWindow() {
+        return this.lastWindow;
+    }
+
+    @Override
+    void roll(long startMillis, long lengthNanos) {
+        this.lastWindow = this.takeWindow(startMillis);
+
+        this.history[this.historyNext] = this.lastWindow;
+        this.historyNext = (this.historyNext + 1) % this.history.length;
+        this.historyCount = Math.min(this.historyCount + 1, this.history.length);
+    }
+
+    @Override
+    public String describe() {
+        var window = this.lastWindow;
+
+        return String.format("%s: p50 %s, p99 %s, max %s (%d)", this.getName(),
+                formatNanos(window.p50()), formatNanos(window.p99()), formatNanos(window.max()), window.count());
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000L) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        } else {
+            return String.format("%.0fus", nanos / 1_000.0);
+        }
+    }
+
+    @Override
+    void writeCsv(Writer writer) throws IOException {
+        int first = (this.historyNext - this.historyCount + this.history.length) % this.history.length;
+
+        for (int i = 0; i < this.historyCount; i++) {
+            var window = this.history[(first + i) % this.history.length];
+
+            writer.write(String.format("%d,%s,histogram,%d,%d,%d,%d,%d,%d%n", window.startMillis(), this.getName(),
+                    window.count(), window.sum(), window.p50(), window.p90(), window.p99(), window.max()));
+        }
+    }
+}
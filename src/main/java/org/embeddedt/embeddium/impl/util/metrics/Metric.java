@@ -0,0 +1,44 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A named value which is collected by a {@link MetricsRegistry}. Values are recorded from any thread without locking,
+ * and are summarized into windows of a fixed length by {@link MetricsRegistry#tick(long)}.
+ */
+public abstract class Metric {
+    private final MetricsRegistry registry;
+    private final String name;
+
+    protected Metric(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return True if values should be recorded, which callers can check before doing any work to measure them
+     */
+    public boolean isEnabled() {
+        return this.registry.isEnabled();
+    }
+
+    /**
+     * Ends the current window and starts a new one.
+     *
+     * @param startMillis The time at which the window which is ending started
+     * @param lengthNanos The length of the window which is ending
+     */
+    abstract void roll(long startMillis, long lengthNanos);
+
+    /**
+     * @return A description of the last complete window, for the overlay
+     */
+    public abstract String describe();
+
+    abstract void writeCsv(Writer writer) throws IOException;
+}
@@ -0,0 +1,139 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A collection of named {@link Counter counters} and {@link LatencyHistogram histograms} which are summarized into
+ * windows of a fixed length, so that recent performance can be shown while the game is running and the history can
+ * be exported for later analysis.
+ * <p>
+ * Metrics are created once (usually in a static field) and can then be updated from any thread without locking.
+ * While the registry is disabled, updating a metric only costs a single field read. Windows are only advanced by
+ * calling {@link #tick(long)}, which, like reading the results, must only happen on one thread.
+ */
+public class MetricsRegistry {
+    public static final MetricsRegistry GLOBAL = new MetricsRegistry(1_000_000_000L, 300);
+
+    private static final String CSV_HEADER = "window_start_ms,metric,type,count,sum_ns,p50_ns,p90_ns,p99_ns,max_ns";
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    private final long windowNanos;
+    private final int historySize;
+
+    private volatile boolean enabled;
+
+    private long windowStartNanos = Long.MIN_VALUE;
+    private long windowStartMillis;
+
+    /**
+     * @param windowNanos The length of each window
+     * @param historySize The number of windows which are kept for exporting
+     */
+    public MetricsRegistry(long windowNanos, int historySize) {
+        this.windowNanos = windowNanos;
+        this.historySize = historySize;
+    }
+
+    public Counter counter(String name) {
+        return this.getOrCreate(name, Counter.class, Counter::new);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return this.getOrCreate(name, LatencyHistogram.class, LatencyHistogram::new);
+    }
+
+    private <T extends Metric> T getOrCreate(String name, Class<T> type, MetricFactory<T> factory) {
+        var metric = this.metrics.computeIfAbsent(name, key -> factory.create(this, key, this.historySize));
+
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + metric.getClass().getSimpleName());
+        }
+
+        return type.cast(metric);
+    }
+
+    @FunctionalInterface
+    private interface MetricFactory<T extends Metric> {
+        T create(MetricsRegistry registry, String name, int historySize);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Ends the current window if it has lasted long enough.
+     *
+     * @param nanoTime The current value of {@link System#nanoTime()}
+     * @return True if a window was ended
+     */
+    public boolean tick(long nanoTime) {
+        return this.tick(nanoTime, System.currentTimeMillis());
+    }
+
+    boolean tick(long nanoTime, long currentMillis) {
+        if (!this.enabled) {
+            this.windowStartNanos = Long.MIN_VALUE;
+            return false;
+        }
+
+        if (this.windowStartNanos == Long.MIN_VALUE) {
+            this.startWindow(nanoTime, currentMillis);
+            return false;
+        }
+
+        long length = nanoTime - this.windowStartNanos;
+
+        if (length < this.windowNanos) {
+            return false;
+        }
+
+        for (var metric : this.metrics.values()) {
+            metric.roll(this.windowStartMillis, length);
+        }
+
+        this.startWindow(nanoTime, currentMillis);
+
+        return true;
+    }
+
+    private void startWindow(long nanoTime, long currentMillis) {
+        this.windowStartNanos = nanoTime;
+        this.windowStartMillis = currentMillis;
+    }
+
+    /**
+     * @return One line for each metric, describing the last complete window, in alphabetical order
+     */
+    public List<String> getOverlayLines() {
+        var lines = new ArrayList<String>(this.metrics.size());
+
+        for (var metric : this.metrics.values()) {
+            lines.add(metric.describe());
+        }
+
+        return lines;
+    }
+
+    /**
+     * Writes every window which has been kept for every metric as CSV, one row per window and metric.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write(System.lineSeparator());
+
+        for (var metric : this.metrics.values()) {
+            metric.writeCsv(writer);
+        }
+    }
+}
@@ -16,7 +16,38 @@ uint _draw_id;
 // The material bits for the primitive
 uint _material_params;
 
-#ifdef USE_VERTEX_COMPRESSION
+#if defined(USE_VERTEX_DENSE_PACKING)
+in uvec2 a_PosId;
+in vec4 a_Color;
+in uvec2 a_TexCoord;
+
+#if !defined(VERT_POS_SCALE)
+#error "VERT_POS_SCALE not defined"
+#elif !defined(VERT_POS_OFFSET)
+#error "VERT_POS_OFFSET not defined"
+#elif !defined(VERT_TEX_SCALE)
+#error "VERT_TEX_SCALE not defined"
+#endif
+
+void _vert_init() {
+    uint lo = a_PosId.x;
+    uint hi = a_PosId.y;
+
+    // 13 bits per axis, with the Z axis split across both words
+    uvec3 pos = uvec3(lo & 0x1FFFu, (lo >> 13u) & 0x1FFFu, (lo >> 26u) | ((hi & 0x7Fu) << 6u));
+
+    _vert_position = (vec3(pos) * VERT_POS_SCALE + VERT_POS_OFFSET);
+    _vert_tex_diffuse_coord = (vec2(a_TexCoord & uvec2(0x7FFFu)) * VERT_TEX_SCALE);
+    _vert_color = a_Color;
+
+    _draw_id = (hi >> 7u) & 0xFFu;
+    _material_params = (hi >> 15u) & 0x7u;
+
+    // The upper 7 bits of each light value are in the packed word, and the lowest bit is in the texture coordinates
+    _vert_tex_light_coord = ivec2((((uvec2(hi) >> uvec2(18u, 25u)) & uvec2(0x7Fu)) << 1u) | (a_TexCoord >> 15u));
+}
+
+#elif defined(USE_VERTEX_COMPRESSION)
 in uvec4 a_PosId;
 in vec4 a_Color;
 in vec2 a_TexCoord;
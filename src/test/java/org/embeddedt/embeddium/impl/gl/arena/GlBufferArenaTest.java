@@ -0,0 +1,276 @@
+package org.embeddedt.embeddium.impl.gl.arena;
+
+import org.embeddedt.embeddium.impl.gl.arena.staging.FallbackStagingBuffer;
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList;
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks how the arena hands out and frees its segments, and where it moves them when it is compacted, on a command list
+ * which keeps the contents of its buffers in memory instead of on a graphics device.
+ */
+public class GlBufferArenaTest {
+    private static final int STRIDE = 4;
+    private static final int CAPACITY = 64;
+
+    private final RecordingCommandList commandList = new RecordingCommandList();
+
+    // The data which was uploaded into each segment that is still in use
+    private final Map<GlBufferSegment, byte[]> contents = new HashMap<>();
+
+    private FallbackStagingBuffer stagingBuffer;
+    private GlBufferArena arena;
+
+    @BeforeEach
+    public void create() {
+        this.stagingBuffer = new FallbackStagingBuffer(this.commandList);
+        this.arena = new GlBufferArena(this.commandList, CAPACITY, STRIDE, this.stagingBuffer);
+    }
+
+    @AfterEach
+    public void delete() {
+        this.arena.delete(this.commandList);
+        this.stagingBuffer.delete(this.commandList);
+    }
+
+    @Test
+    public void freeSegmentsAreMerged() {
+        var first = this.upload(8, GlBufferArena.NO_GROUP);
+        var second = this.upload(8, GlBufferArena.NO_GROUP);
+        var third = this.upload(8, GlBufferArena.NO_GROUP);
+
+        // Without a group, allocations are taken from the end of the free segment
+        assertEquals(CAPACITY - 8, first.getOffset());
+        assertEquals(CAPACITY - 16, second.getOffset());
+        assertEquals(CAPACITY - 24, third.getOffset());
+
+        // The segment in the middle is freed first, so the others are merged into it from either side
+        this.free(second);
+        this.free(third);
+        this.free(first);
+
+        this.assertArenaIsEmpty();
+    }
+
+    @Test
+    public void randomAllocationsKeepTheSegmentsConsistent() {
+        var random = new Random(12);
+        var live = new ArrayList<GlBufferSegment>();
+
+        for (int step = 0; step < 2000; step++) {
+            if (live.isEmpty() || random.nextInt(3) != 0) {
+                live.add(this.upload(1 + random.nextInt(12), random.nextInt(4)));
+            } else {
+                this.free(live.remove(random.nextInt(live.size())));
+            }
+
+            this.assertArena();
+        }
+
+        while (!live.isEmpty()) {
+            this.free(live.remove(live.size() - 1));
+        }
+
+        this.assertArenaIsEmpty();
+    }
+
+    @Test
+    public void compactionKeepsGroupsTogether() {
+        var uploads = new ArrayList<GlBufferSegment>();
+
+        // The allocations of three groups are interleaved, with holes from the allocations which were freed
+        for (int i = 0; i < 12; i++) {
+            uploads.add(this.upload(2 + (i % 3), 1 + (i % 3)));
+        }
+
+        for (int i = 0; i < uploads.size(); i += 4) {
+            this.free(uploads.get(i));
+        }
+
+        var before = this.getSegments();
+
+        this.arena.ensureCapacity(this.commandList, 0);
+        this.assertArena();
+
+        var segments = this.getSegments();
+
+        // The free space is moved to the start, and every group is in one piece after it
+        assertTrue(segments.get(0).isFree());
+
+        var groups = segments.subList(1, segments.size()).stream()
+                .map(GlBufferSegment::getGroup)
+                .toList();
+
+        assertEquals(List.of(1, 1, 1, 2, 2, 2, 3, 3, 3), groups);
+
+        // The allocations within each group keep the order they were in before
+        for (int group = 1; group <= 3; group++) {
+            assertEquals(getGroup(before, group), getGroup(segments, group), "group " + group);
+        }
+    }
+
+    @Test
+    public void allocationAfterItsGroupTakesTheStartOfTheFreeSegment() {
+        var first = this.upload(8, 1);
+        var second = this.upload(8, 2);
+        var third = this.upload(8, 1);
+
+        // The group 1 segment at the end is freed, which leaves free space that only has group 2 before it
+        this.free(first);
+
+        var segment = this.upload(4, 2);
+
+        // The allocation is placed right after the rest of its group, instead of at the end of the free space
+        assertEquals(second.getEnd(), segment.getOffset());
+        assertSame(second, segment.getPrev());
+
+        var rest = segment.getNext();
+        assertTrue(rest.isFree());
+        assertEquals(segment.getEnd(), rest.getOffset());
+        assertEquals(CAPACITY - segment.getEnd(), rest.getLength());
+
+        // Free space which is next to the group is used before a tighter fit elsewhere
+        var fourth = this.upload(2, 1);
+        assertSame(third, fourth.getNext());
+
+        this.assertArena();
+    }
+
+    @Test
+    public void uploadsWhichDoNotFitCompactTheArena() {
+        var buffer = this.arena.getBufferObject();
+        var uploads = new ArrayList<GlBufferSegment>();
+
+        for (int i = 0; i < 8; i++) {
+            uploads.add(this.upload(8, 1 + (i % 2)));
+        }
+
+        this.free(uploads.get(1));
+        this.free(uploads.get(4));
+
+        // Neither of the holes is large enough, so the arena has to grow
+        var segment = this.upload(12, 1);
+
+        assertNotSame(buffer, this.arena.getBufferObject());
+        assertTrue(this.commandList.deletedBuffers.contains(buffer));
+        assertEquals(12, segment.getLength());
+
+        this.assertArena();
+    }
+
+    private GlBufferSegment upload(int elements, int group) {
+        byte[] data = new byte[elements * STRIDE];
+        new Random((this.contents.size() * 31L) + elements).nextBytes(data);
+
+        var buffer = new NativeBuffer(data.length);
+        buffer.getDirectBuffer().put(data);
+
+        try {
+            var upload = new PendingUpload(buffer);
+            this.arena.upload(this.commandList, Stream.of(upload), group);
+
+            var segment = upload.getResult();
+            assertEquals(group, segment.getGroup());
+            assertEquals(elements, segment.getLength());
+
+            this.contents.put(segment, data);
+
+            return segment;
+        } finally {
+            buffer.free();
+        }
+    }
+
+    private void free(GlBufferSegment segment) {
+        this.contents.remove(segment);
+        segment.delete();
+    }
+
+    /**
+     * Checks the links between the segments, and that every segment in use still holds its data after the segments
+     * were moved around.
+     */
+    private void assertArena() {
+        this.arena.checkAssertions0();
+
+        if (this.contents.isEmpty()) {
+            return;
+        }
+
+        var segments = this.getSegments();
+
+        assertEquals(0, segments.get(0).getOffset());
+        assertEquals(this.arena.getDeviceAllocatedMemoryL(), (long) segments.get(segments.size() - 1).getEnd() * STRIDE);
+        assertEquals(this.contents.size(), segments.stream().filter(segment -> !segment.isFree()).count());
+
+        byte[] buffer = this.commandList.getContents(this.arena.getBufferObject());
+
+        for (var entry : this.contents.entrySet()) {
+            var segment = entry.getKey();
+            assertFalse(segment.isFree());
+
+            int offset = segment.getOffset() * STRIDE;
+            assertArrayEquals(entry.getValue(), Arrays.copyOfRange(buffer, offset, offset + entry.getValue().length));
+        }
+    }
+
+    /**
+     * Checks that all of the free space was merged back into one segment, by filling the whole arena at once without
+     * growing it.
+     */
+    private void assertArenaIsEmpty() {
+        this.arena.checkAssertions0();
+        assertTrue(this.arena.isEmpty());
+
+        var buffer = this.arena.getBufferObject();
+        int capacity = (int) (this.arena.getDeviceAllocatedMemoryL() / STRIDE);
+
+        var segment = this.upload(capacity, GlBufferArena.NO_GROUP);
+
+        assertEquals(0, segment.getOffset());
+        assertSame(buffer, this.arena.getBufferObject());
+    }
+
+    /**
+     * Walks the segments of the arena in order, starting from any segment which is in use.
+     */
+    private List<GlBufferSegment> getSegments() {
+        GlBufferSegment segment = this.contents.keySet().iterator().next();
+
+        while (segment.getPrev() != null) {
+            segment = segment.getPrev();
+        }
+
+        var segments = new ArrayList<GlBufferSegment>();
+
+        while (segment != null) {
+            segments.add(segment);
+            segment = segment.getNext();
+        }
+
+        return segments;
+    }
+
+    private static List<GlBufferSegment> getGroup(List<GlBufferSegment> segments, int group) {
+        return segments.stream()
+                .filter(segment -> !segment.isFree() && segment.getGroup() == group)
+                .toList();
+    }
+}
@@ -0,0 +1,228 @@
+package org.embeddedt.embeddium.impl.gl.arena.staging;
+
+import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferUsage;
+import org.embeddedt.embeddium.impl.gl.buffer.GlImmutableBuffer;
+import org.embeddedt.embeddium.impl.gl.buffer.GlMutableBuffer;
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList;
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList.MappedFlush;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the copies which the mapped staging buffer issues, and when it adds and releases segments, on a command list
+ * which records them instead of using a graphics device.
+ */
+public class MappedStagingBufferTest {
+    private static final int SEGMENT_SIZE = 64;
+    private static final int DESTINATION_SIZE = 1024;
+
+    private final RecordingCommandList commandList = new RecordingCommandList();
+
+    private MappedStagingBuffer stagingBuffer;
+    private GlMutableBuffer destination;
+
+    @BeforeEach
+    public void create() {
+        this.stagingBuffer = new MappedStagingBuffer(this.commandList, SEGMENT_SIZE);
+
+        this.destination = this.commandList.createMutableBuffer();
+        this.commandList.allocateStorage(this.destination, DESTINATION_SIZE, GlBufferUsage.STATIC_DRAW);
+    }
+
+    @AfterEach
+    public void delete() {
+        this.stagingBuffer.delete(this.commandList);
+    }
+
+    @Test
+    public void copiesReachTheDestination() {
+        byte[] first = data(24, 1);
+        byte[] second = data(16, 2);
+
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(first), this.destination, 100);
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(second), this.destination, 124);
+        this.stagingBuffer.flush(this.commandList);
+
+        // Both copies are next to each other in the segment and in the destination, so they are merged
+        assertEquals(1, this.commandList.copies.size());
+        assertEquals(List.of(new MappedFlush(this.commandList.copies.get(0).src(), 0, 40)), this.commandList.mappedFlushes);
+
+        this.assertDestination(100, first);
+        this.assertDestination(124, second);
+
+        assertEquals(1, this.commandList.fences.size());
+    }
+
+    @Test
+    public void flushingARingWhichIsFullToItsStart() {
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(40, 1)), this.destination, 0);
+        this.stagingBuffer.flush(this.commandList);
+
+        this.commandList.completeFences();
+        this.stagingBuffer.flip();
+
+        this.commandList.copies.clear();
+        this.commandList.mappedFlushes.clear();
+
+        // The whole segment, starting where the previous copy ended and wrapping around to it
+        byte[] data = data(SEGMENT_SIZE, 2);
+
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data), this.destination, 200);
+        this.stagingBuffer.flush(this.commandList);
+
+        GlBuffer segment = this.commandList.copies.get(0).src();
+
+        assertEquals(List.of(new MappedFlush(segment, 40, SEGMENT_SIZE - 40), new MappedFlush(segment, 0, 40)),
+                this.commandList.mappedFlushes);
+
+        assertEquals(List.of(
+                new RecordingCommandList.Copy(segment, this.destination, 40, 200, SEGMENT_SIZE - 40),
+                new RecordingCommandList.Copy(segment, this.destination, 0, 200 + (SEGMENT_SIZE - 40), 40)),
+                this.commandList.copies);
+
+        this.assertDestination(200, data);
+
+        // The segment stays in use until the fence of the second flush completes
+        this.commandList.copies.clear();
+        this.stagingBuffer.flip();
+
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(8, 3)), this.destination, 0);
+
+        assertInstanceOf(GlMutableBuffer.class, this.commandList.copies.get(0).src());
+    }
+
+    @Test
+    public void segmentIsAddedAfterThreeStalledFrames() {
+        GlBuffer first = this.fillFirstSegment();
+
+        for (int frame = 0; frame < 3; frame++) {
+            this.commandList.copies.clear();
+
+            // The first segment is still in use, so the copy stalls and goes through the fallback buffer
+            this.stagingBuffer.enqueueCopy(this.commandList, direct(data(32, frame)), this.destination, 0);
+            this.stagingBuffer.flush(this.commandList);
+            this.stagingBuffer.flip();
+
+            assertInstanceOf(GlMutableBuffer.class, this.commandList.copies.get(0).src(), "copy of frame " + frame);
+        }
+
+        this.commandList.copies.clear();
+
+        byte[] data = data(32, 4);
+
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data), this.destination, 300);
+        this.stagingBuffer.flush(this.commandList);
+
+        GlBuffer second = this.commandList.copies.get(0).src();
+
+        assertInstanceOf(GlImmutableBuffer.class, second);
+        assertNotSame(first, second);
+
+        this.assertDestination(300, data);
+    }
+
+    @Test
+    public void segmentIsNotAddedForShortStalls() {
+        this.fillFirstSegment();
+
+        // Two stalled frames, then one without a stall, then two more
+        for (int frame = 0; frame < 5; frame++) {
+            if (frame != 2) {
+                this.stagingBuffer.enqueueCopy(this.commandList, direct(data(32, frame)), this.destination, 0);
+                this.stagingBuffer.flush(this.commandList);
+            }
+
+            this.stagingBuffer.flip();
+        }
+
+        this.commandList.copies.clear();
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(32, 5)), this.destination, 0);
+
+        assertInstanceOf(GlMutableBuffer.class, this.commandList.copies.get(0).src());
+    }
+
+    @Test
+    public void extraSegmentIsReleasedAfterSixHundredIdleFrames() {
+        this.fillFirstSegment();
+
+        for (int frame = 0; frame < 3; frame++) {
+            this.stagingBuffer.enqueueCopy(this.commandList, direct(data(32, frame)), this.destination, 0);
+            this.stagingBuffer.flip();
+        }
+
+        this.commandList.copies.clear();
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(32, 3)), this.destination, 0);
+        this.stagingBuffer.flush(this.commandList);
+
+        GlBuffer second = this.commandList.copies.get(0).src();
+        assertInstanceOf(GlImmutableBuffer.class, second);
+
+        // The graphics device catches up, so the first segment is preferred from now on and the second one goes unused
+        this.commandList.completeFences();
+        this.stagingBuffer.flip();
+
+        for (int frame = 1; frame < 599; frame++) {
+            this.stagingBuffer.flip();
+        }
+
+        // The second segment has been idle for 599 frames
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(8, 4)), this.destination, 0);
+        this.stagingBuffer.flush(this.commandList);
+
+        assertFalse(this.commandList.deletedBuffers.contains(second));
+
+        this.commandList.completeFences();
+        this.stagingBuffer.flip();
+
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(8, 5)), this.destination, 0);
+
+        assertTrue(this.commandList.deletedBuffers.contains(second));
+    }
+
+    /**
+     * Fills the first segment with a copy which the graphics device hasn't finished yet.
+     */
+    private GlBuffer fillFirstSegment() {
+        this.stagingBuffer.enqueueCopy(this.commandList, direct(data(SEGMENT_SIZE, 0)), this.destination, 0);
+        this.stagingBuffer.flush(this.commandList);
+        this.stagingBuffer.flip();
+
+        return this.commandList.copies.get(0).src();
+    }
+
+    private void assertDestination(int offset, byte[] expected) {
+        byte[] contents = this.commandList.getContents(this.destination);
+
+        assertArrayEquals(expected, Arrays.copyOfRange(contents, offset, offset + expected.length));
+    }
+
+    /**
+     * Staged data is copied out of native memory, like the meshes which are uploaded in game.
+     */
+    private static ByteBuffer direct(byte[] data) {
+        return ByteBuffer.allocateDirect(data.length).put(data).flip();
+    }
+
+    private static byte[] data(int length, int seed) {
+        byte[] data = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) ((i * 7) + (seed * 31) + 1);
+        }
+
+        return data;
+    }
+}
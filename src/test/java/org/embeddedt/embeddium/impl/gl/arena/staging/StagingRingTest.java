@@ -0,0 +1,137 @@
+package org.embeddedt.embeddium.impl.gl.arena.staging;
+
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList.ManualFence;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which parts of the ring are handed out and freed again, with fences which only complete when the test says so.
+ */
+public class StagingRingTest {
+    private static final int CAPACITY = 100;
+
+    private final StagingRing ring = new StagingRing(CAPACITY);
+
+    @Test
+    public void allocationsWrapAroundTheEnd() {
+        assertEquals(0, this.ring.allocate(60));
+        var first = this.fence();
+
+        assertEquals(60, this.ring.allocate(30));
+        var second = this.fence();
+
+        // Only the ten bytes at the end are free until the first fence completes
+        assertFalse(this.ring.canAllocate(20));
+        assertThrows(IllegalStateException.class, () -> this.ring.allocate(20));
+
+        first.complete();
+        assertEquals(60, this.ring.retire());
+
+        // The allocation starts at the end and continues at the start of the ring
+        assertEquals(90, this.ring.allocate(50));
+        assertEquals(90, this.ring.getPendingStart());
+        assertEquals(50, this.ring.getPendingLength());
+        assertEquals(20, this.ring.getRemaining());
+
+        var third = this.fence();
+
+        // The next allocation follows the wrapped one
+        assertEquals(40, this.ring.allocate(20));
+        this.fence();
+
+        second.complete();
+        third.complete();
+
+        assertEquals(80, this.ring.retire());
+        assertEquals(80, this.ring.getRemaining());
+    }
+
+    @Test
+    public void ringCanBeFilledExactlyToItsStart() {
+        this.ring.allocate(40);
+        this.fence().complete();
+        this.ring.retire();
+
+        // Everything from the start of the pending memory back around to it
+        assertEquals(40, this.ring.allocate(CAPACITY));
+        assertEquals(0, this.ring.getRemaining());
+        assertFalse(this.ring.canAllocate(1));
+
+        assertEquals(40, this.ring.getPendingStart());
+        assertEquals(CAPACITY, this.ring.getPendingLength());
+
+        var fence = this.fence();
+
+        // A full ring must not look empty once the written memory is fenced
+        assertEquals(40, this.ring.getPendingStart());
+        assertEquals(0, this.ring.getPendingLength());
+        assertFalse(this.ring.isIdle());
+
+        fence.complete();
+        assertEquals(CAPACITY, this.ring.retire());
+        assertTrue(this.ring.isIdle());
+
+        assertEquals(40, this.ring.allocate(10));
+    }
+
+    @Test
+    public void retireFreesInOrder() {
+        this.ring.allocate(10);
+        var first = this.fence();
+
+        this.ring.allocate(20);
+        var second = this.fence();
+
+        this.ring.allocate(30);
+        var third = this.fence();
+
+        // The second fence completed first, but the memory before it is still in use
+        second.complete();
+
+        assertEquals(0, this.ring.retire());
+        assertFalse(second.isDeleted());
+        assertEquals(40, this.ring.getRemaining());
+
+        first.complete();
+
+        assertEquals(30, this.ring.retire());
+        assertTrue(first.isDeleted());
+        assertTrue(second.isDeleted());
+        assertFalse(third.isDeleted());
+        assertEquals(70, this.ring.getRemaining());
+
+        // Nothing changes until the last fence completes
+        assertEquals(0, this.ring.retire());
+
+        third.complete();
+
+        assertEquals(30, this.ring.retire());
+        assertTrue(third.isDeleted());
+        assertTrue(this.ring.isIdle());
+    }
+
+    @Test
+    public void deleteReleasesPendingFences() {
+        this.ring.allocate(10);
+        var first = this.fence();
+
+        this.ring.allocate(10);
+        var second = this.fence();
+
+        this.ring.delete();
+
+        assertTrue(first.isDeleted());
+        assertTrue(second.isDeleted());
+    }
+
+    private ManualFence fence() {
+        var fence = new ManualFence();
+        this.ring.fence(fence);
+
+        return fence;
+    }
+}
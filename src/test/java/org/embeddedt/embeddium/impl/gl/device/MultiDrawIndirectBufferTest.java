@@ -0,0 +1,190 @@
+package org.embeddedt.embeddium.impl.gl.device;
+
+import org.embeddedt.embeddium.impl.gl.buffer.GlMutableBuffer;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.Pointer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that drawing a batch through the indirect buffer issues the same draws as drawing it directly, and that
+ * uploads only send the commands which changed.
+ */
+public class MultiDrawIndirectBufferTest {
+    private final RecordingCommandList commandList = new RecordingCommandList();
+
+    private MultiDrawIndirectBuffer indirectBuffer;
+    private MultiDrawBatch sortedBatch, weldedBatch;
+
+    @BeforeEach
+    public void setup() {
+        // Start with a small capacity so that appending has to grow the buffer
+        this.indirectBuffer = new MultiDrawIndirectBuffer(this.commandList, 2);
+
+        // Commands which use 32-bit indices, like the sorted translucent pass
+        this.sortedBatch = new MultiDrawBatch(8);
+        addCommand(this.sortedBatch, 6, 0, 0);
+        addCommand(this.sortedBatch, 12, 6 * 4, 4);
+        addCommand(this.sortedBatch, 600, 18 * 4, 1000);
+
+        // Commands which use 16-bit indices, like sections with welded vertices
+        this.weldedBatch = new MultiDrawBatch(8);
+        addCommand(this.weldedBatch, 36, 1024, 20000);
+        addCommand(this.weldedBatch, 6, 1024 + (36 * 2), 20030);
+    }
+
+    @AfterEach
+    public void free() {
+        this.sortedBatch.delete();
+        this.weldedBatch.delete();
+        this.indirectBuffer.delete(this.commandList);
+    }
+
+    @Test
+    public void indirectDrawsMatchDirectDraws() {
+        int sortedFirst = this.indirectBuffer.append(this.sortedBatch, GlIndexType.UNSIGNED_INT);
+        int weldedFirst = this.indirectBuffer.append(this.weldedBatch, GlIndexType.UNSIGNED_SHORT);
+
+        assertEquals(0, sortedFirst);
+        assertEquals(this.sortedBatch.size(), weldedFirst);
+        assertEquals(this.sortedBatch.size() + this.weldedBatch.size(), this.indirectBuffer.size());
+
+        this.indirectBuffer.upload(this.commandList);
+
+        var drawCommands = this.commandList.beginTessellating(null);
+
+        drawCommands.multiDrawElementsBaseVertex(this.sortedBatch, GlIndexType.UNSIGNED_INT);
+        drawCommands.multiDrawElementsBaseVertex(this.weldedBatch, GlIndexType.UNSIGNED_SHORT);
+
+        List<RecordingCommandList.Draw> direct = List.copyOf(this.commandList.draws);
+        this.commandList.draws.clear();
+
+        drawCommands.multiDrawElementsIndirect(this.indirectBuffer, sortedFirst, this.sortedBatch.size(), GlIndexType.UNSIGNED_INT);
+        drawCommands.multiDrawElementsIndirect(this.indirectBuffer, weldedFirst, this.weldedBatch.size(), GlIndexType.UNSIGNED_SHORT);
+
+        assertEquals(direct, this.commandList.draws);
+    }
+
+    @Test
+    public void unchangedCommandsAreNotUploadedAgain() {
+        this.indirectBuffer.append(this.sortedBatch, GlIndexType.UNSIGNED_INT);
+        this.indirectBuffer.append(this.weldedBatch, GlIndexType.UNSIGNED_SHORT);
+        this.indirectBuffer.upload(this.commandList);
+
+        assertEquals(1, this.commandList.uploads.size());
+
+        this.reappend();
+        this.indirectBuffer.upload(this.commandList);
+
+        assertEquals(1, this.commandList.uploads.size());
+        assertDeviceMatchesHost();
+    }
+
+    @Test
+    public void onlyTheChangedRangeIsUploaded() {
+        this.indirectBuffer.append(this.sortedBatch, GlIndexType.UNSIGNED_INT);
+        this.indirectBuffer.append(this.weldedBatch, GlIndexType.UNSIGNED_SHORT);
+        this.indirectBuffer.upload(this.commandList);
+
+        // Change the second and third command, as if the section they belong to was rebuilt
+        MemoryUtil.memPutInt(this.sortedBatch.pElementCount + Integer.BYTES, 18);
+        MemoryUtil.memPutInt(this.sortedBatch.pBaseVertex + (2L * Integer.BYTES), 2000);
+
+        this.reappend();
+        this.indirectBuffer.upload(this.commandList);
+
+        var upload = this.commandList.uploads.get(this.commandList.uploads.size() - 1);
+
+        assertEquals(MultiDrawIndirectBuffer.COMMAND_STRIDE, upload.offset());
+        assertEquals(2 * MultiDrawIndirectBuffer.COMMAND_STRIDE, upload.data().length);
+        assertDeviceMatchesHost();
+
+        // The instance count and the base instance of every command are fixed
+        long pCommand = this.indirectBuffer.getCommandPointer(1);
+
+        assertEquals(18, MemoryUtil.memGetInt(pCommand + 0));
+        assertEquals(1, MemoryUtil.memGetInt(pCommand + 4));
+        assertEquals(6, MemoryUtil.memGetInt(pCommand + 8));
+        assertEquals(4, MemoryUtil.memGetInt(pCommand + 12));
+        assertEquals(0, MemoryUtil.memGetInt(pCommand + 16));
+    }
+
+    @Test
+    public void appendedCommandsAreUploaded() {
+        this.indirectBuffer.append(this.sortedBatch, GlIndexType.UNSIGNED_INT);
+        this.indirectBuffer.upload(this.commandList);
+
+        var buffer = (GlMutableBuffer) this.indirectBuffer.getBufferObject();
+        long deviceSize = buffer.getSize();
+
+        // Appending had to grow the buffer to four commands, so there is room for one more on the device, which is
+        // uploaded on its own
+        assertEquals(4L * MultiDrawIndirectBuffer.COMMAND_STRIDE, deviceSize);
+
+        this.weldedBatch.size = 1;
+        this.reappend();
+        this.indirectBuffer.upload(this.commandList);
+
+        var upload = this.commandList.uploads.get(this.commandList.uploads.size() - 1);
+
+        assertEquals(deviceSize, buffer.getSize());
+        assertEquals(3L * MultiDrawIndirectBuffer.COMMAND_STRIDE, upload.offset());
+        assertEquals(MultiDrawIndirectBuffer.COMMAND_STRIDE, upload.data().length);
+        assertDeviceMatchesHost();
+
+        // Five commands don't fit, so the storage is re-allocated and everything is uploaded again
+        this.weldedBatch.size = 2;
+        this.reappend();
+        this.indirectBuffer.upload(this.commandList);
+
+        upload = this.commandList.uploads.get(this.commandList.uploads.size() - 1);
+
+        assertTrue(buffer.getSize() > deviceSize);
+        assertEquals(0, upload.offset());
+        assertEquals(5 * MultiDrawIndirectBuffer.COMMAND_STRIDE, upload.data().length);
+        assertDeviceMatchesHost();
+
+        // Dropping the last command doesn't upload anything, since the others are unchanged
+        this.weldedBatch.size = 1;
+        this.reappend();
+
+        int uploads = this.commandList.uploads.size();
+        this.indirectBuffer.upload(this.commandList);
+
+        assertEquals(uploads, this.commandList.uploads.size());
+    }
+
+    private void reappend() {
+        this.indirectBuffer.clear();
+        this.indirectBuffer.append(this.sortedBatch, GlIndexType.UNSIGNED_INT);
+        this.indirectBuffer.append(this.weldedBatch, GlIndexType.UNSIGNED_SHORT);
+    }
+
+    private void assertDeviceMatchesHost() {
+        int length = this.indirectBuffer.size() * MultiDrawIndirectBuffer.COMMAND_STRIDE;
+
+        byte[] host = new byte[length];
+        MemoryUtil.memByteBuffer(this.indirectBuffer.getCommandPointer(0), length).get(host);
+
+        byte[] device = Arrays.copyOf(this.commandList.getContents(this.indirectBuffer.getBufferObject()), length);
+
+        assertArrayEquals(host, device);
+    }
+
+    private static void addCommand(MultiDrawBatch batch, int elementCount, long elementPointer, int baseVertex) {
+        int index = batch.size++;
+
+        MemoryUtil.memPutInt(batch.pElementCount + ((long) index * Integer.BYTES), elementCount);
+        MemoryUtil.memPutAddress(batch.pElementPointer + ((long) index * Pointer.POINTER_SIZE), elementPointer);
+        MemoryUtil.memPutInt(batch.pBaseVertex + ((long) index * Integer.BYTES), baseVertex);
+    }
+}
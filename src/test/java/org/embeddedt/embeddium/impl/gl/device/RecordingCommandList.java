@@ -0,0 +1,357 @@
+package org.embeddedt.embeddium.impl.gl.device;
+
+import org.embeddedt.embeddium.impl.gl.array.GlVertexArray;
+import org.embeddedt.embeddium.impl.gl.buffer.*;
+import org.embeddedt.embeddium.impl.gl.sync.GlFence;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlPrimitiveType;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlTessellation;
+import org.embeddedt.embeddium.impl.gl.tessellation.TessellationBinding;
+import org.embeddedt.embeddium.impl.gl.util.EnumBitField;
+import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command list which records the commands it is given instead of sending them to a graphics device, so that code
+ * which issues commands can be checked without an OpenGL context.
+ * <p>
+ * Buffers are given made-up handles, and the contents of each buffer are kept on the heap, so that uploads, copies and
+ * mappings change them the same way they would on the graphics device. Writes to a mapping only reach the buffer when
+ * the range is flushed or the buffer is unmapped. Indirect draws are decoded from the contents of the indirect buffer,
+ * and fences only complete when the test completes them.
+ */
+public class RecordingCommandList implements CommandList {
+    public record Upload(GlBuffer buffer, long offset, byte[] data) { }
+
+    public record Copy(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes) { }
+
+    public record Draw(int elementCount, GlIndexType indexType, long elementPointer, int baseVertex) { }
+
+    public record MappedFlush(GlBuffer buffer, int offset, int length) { }
+
+    /**
+     * A fence which only completes once the test says so.
+     */
+    public static class ManualFence extends GlFence {
+        private boolean completed, deleted;
+
+        public ManualFence() {
+            super(0L);
+        }
+
+        public void complete() {
+            this.completed = true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            if (this.deleted) {
+                throw new IllegalStateException("Fence object has been disposed");
+            }
+
+            return this.completed;
+        }
+
+        @Override
+        public void delete() {
+            this.deleted = true;
+        }
+
+        public boolean isDeleted() {
+            return this.deleted;
+        }
+    }
+
+    public record Tessellation(GlPrimitiveType primitiveType, TessellationBinding[] bindings) implements GlTessellation {
+        @Override
+        public void delete(CommandList commandList) {
+
+        }
+
+        @Override
+        public void bind(CommandList commandList) {
+
+        }
+
+        @Override
+        public void unbind(CommandList commandList) {
+
+        }
+
+        @Override
+        public GlPrimitiveType getPrimitiveType() {
+            return this.primitiveType;
+        }
+    }
+
+    public final List<Upload> uploads = new ArrayList<>();
+    public final List<Copy> copies = new ArrayList<>();
+    public final List<Draw> draws = new ArrayList<>();
+    public final List<MappedFlush> mappedFlushes = new ArrayList<>();
+    public final List<ManualFence> fences = new ArrayList<>();
+
+    /**
+     * Every tessellation which was bound for drawing, in order, which is one vertex array bind each
+     */
+    public final List<GlTessellation> tessellationBinds = new ArrayList<>();
+
+    public final List<GlBuffer> deletedBuffers = new ArrayList<>();
+
+    private final Map<GlBuffer, byte[]> contents = new HashMap<>();
+    private final GlBuffer[] bindings = new GlBuffer[GlBufferTarget.COUNT];
+
+    private int nextHandle = 1;
+
+    public int flushes;
+
+    @Override
+    public GlMutableBuffer createMutableBuffer() {
+        var buffer = new GlMutableBuffer(this.nextHandle++);
+        this.contents.put(buffer, new byte[0]);
+
+        return buffer;
+    }
+
+    @Override
+    public void uploadData(GlMutableBuffer glBuffer, ByteBuffer byteBuffer, GlBufferUsage usage) {
+        byte[] data = new byte[byteBuffer.remaining()];
+        byteBuffer.duplicate().get(data);
+
+        this.uploads.add(new Upload(glBuffer, 0L, data));
+        this.contents.put(glBuffer, data.clone());
+
+        glBuffer.setSize(data.length);
+    }
+
+    @Override
+    public void uploadSubData(GlBuffer glBuffer, long offset, ByteBuffer byteBuffer) {
+        byte[] data = new byte[byteBuffer.remaining()];
+        byteBuffer.duplicate().get(data);
+
+        this.uploads.add(new Upload(glBuffer, offset, data));
+
+        System.arraycopy(data, 0, this.getContents(glBuffer, offset, data.length), (int) offset, data.length);
+    }
+
+    @Override
+    public void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes) {
+        this.copies.add(new Copy(src, dst, readOffset, writeOffset, bytes));
+
+        System.arraycopy(this.getContents(src, readOffset, bytes), (int) readOffset,
+                this.getContents(dst, writeOffset, bytes), (int) writeOffset, (int) bytes);
+    }
+
+    @Override
+    public void bindBuffer(GlBufferTarget target, GlBuffer buffer) {
+        this.bindings[target.ordinal()] = buffer;
+    }
+
+    @Override
+    public void unbindBuffer(GlBufferTarget target) {
+        this.bindings[target.ordinal()] = null;
+    }
+
+    /**
+     * @return The buffer which is bound to the given target, or null if none is
+     */
+    public GlBuffer getBoundBuffer(GlBufferTarget target) {
+        return this.bindings[target.ordinal()];
+    }
+
+    @Override
+    public void allocateStorage(GlMutableBuffer buffer, long bufferSize, GlBufferUsage usage) {
+        // The previous contents are lost, just like with glBufferData
+        this.contents.put(buffer, new byte[Math.toIntExact(bufferSize)]);
+
+        buffer.setSize(bufferSize);
+    }
+
+    @Override
+    public void deleteBuffer(GlBuffer buffer) {
+        this.deletedBuffers.add(buffer);
+        this.contents.remove(buffer);
+
+        for (int i = 0; i < this.bindings.length; i++) {
+            if (this.bindings[i] == buffer) {
+                this.bindings[i] = null;
+            }
+        }
+    }
+
+    /**
+     * @return The current contents of the given buffer on the "graphics device"
+     */
+    public byte[] getContents(GlBuffer buffer) {
+        byte[] data = this.contents.get(buffer);
+
+        if (data == null) {
+            throw new IllegalStateException("Buffer does not exist");
+        }
+
+        return data;
+    }
+
+    private byte[] getContents(GlBuffer buffer, long offset, long length) {
+        byte[] data = this.getContents(buffer);
+
+        if (offset < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("Range [%d, %d) is outside of a buffer with %d bytes"
+                    .formatted(offset, offset + length, data.length));
+        }
+
+        return data;
+    }
+
+    @Override
+    public void flush() {
+        this.flushes++;
+    }
+
+    @Override
+    public GlTessellation createTessellation(GlPrimitiveType primitiveType, TessellationBinding[] bindings) {
+        return new Tessellation(primitiveType, bindings);
+    }
+
+    @Override
+    public DrawCommandList beginTessellating(GlTessellation tessellation) {
+        this.tessellationBinds.add(tessellation);
+
+        return new DrawCommandList() {
+            @Override
+            public void multiDrawElementsBaseVertex(MultiDrawBatch batch, GlIndexType indexType) {
+                for (int i = 0; i < batch.size(); i++) {
+                    RecordingCommandList.this.draws.add(new Draw(
+                            MemoryUtil.memGetInt(batch.pElementCount + ((long) i * Integer.BYTES)),
+                            indexType,
+                            MemoryUtil.memGetAddress(batch.pElementPointer + ((long) i * Pointer.POINTER_SIZE)),
+                            MemoryUtil.memGetInt(batch.pBaseVertex + ((long) i * Integer.BYTES))));
+                }
+            }
+
+            @Override
+            public void multiDrawElementsIndirect(MultiDrawIndirectBuffer buffer, int first, int count, GlIndexType indexType) {
+                RecordingCommandList.this.bindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER, buffer.getBufferObject());
+
+                // Draws are decoded from the contents of the buffer, which is what the graphics device would read
+                ByteBuffer commands = ByteBuffer.wrap(RecordingCommandList.this.getContents(buffer.getBufferObject(),
+                                (long) first * MultiDrawIndirectBuffer.COMMAND_STRIDE, (long) count * MultiDrawIndirectBuffer.COMMAND_STRIDE))
+                        .order(ByteOrder.nativeOrder());
+
+                for (int index = first; index < first + count; index++) {
+                    int offset = index * MultiDrawIndirectBuffer.COMMAND_STRIDE;
+
+                    RecordingCommandList.this.draws.add(new Draw(commands.getInt(offset),
+                            indexType,
+                            Integer.toUnsignedLong(commands.getInt(offset + 8)) * indexType.getStride(),
+                            commands.getInt(offset + 12)));
+                }
+            }
+
+            @Override
+            public void endTessellating() {
+
+            }
+
+            @Override
+            public void flush() {
+
+            }
+        };
+    }
+
+    @Override
+    public void deleteTessellation(GlTessellation tessellation) {
+        tessellation.delete(this);
+    }
+
+    @Override
+    public GlBufferMapping mapBuffer(GlBuffer buffer, long offset, long length, EnumBitField<GlBufferMapFlags> flags) {
+        this.getContents(buffer, offset, length);
+
+        var mapping = new Mapping(buffer, MemoryUtil.memCalloc(Math.toIntExact(length)), offset);
+        buffer.setActiveMapping(mapping);
+
+        return mapping;
+    }
+
+    @Override
+    public void unmap(GlBufferMapping map) {
+        var mapping = (Mapping) map;
+        var memory = mapping.getMemoryBuffer();
+
+        memory.get(0, this.getContents(mapping.getBufferObject()), (int) mapping.offset, memory.capacity());
+
+        MemoryUtil.memFree(memory);
+
+        mapping.dispose();
+        mapping.getBufferObject().setActiveMapping(null);
+    }
+
+    @Override
+    public void flushMappedRange(GlBufferMapping map, int offset, int length) {
+        var mapping = (Mapping) map;
+
+        this.mappedFlushes.add(new MappedFlush(mapping.getBufferObject(), offset, length));
+
+        // Writes to the mapping only become visible to the graphics device once they are flushed
+        mapping.getMemoryBuffer().get(offset, this.getContents(mapping.getBufferObject(), mapping.offset + offset, length),
+                (int) mapping.offset + offset, length);
+    }
+
+    /**
+     * Completes every fence which was created so far, as if the graphics device had caught up.
+     */
+    public void completeFences() {
+        for (var fence : this.fences) {
+            fence.complete();
+        }
+    }
+
+    private static class Mapping extends GlBufferMapping {
+        private final long offset;
+
+        private Mapping(GlBuffer buffer, ByteBuffer map, long offset) {
+            super(buffer, map);
+
+            this.offset = offset;
+        }
+    }
+
+    @Override
+    public GlImmutableBuffer createImmutableBuffer(long bufferSize, EnumBitField<GlBufferStorageFlags> flags) {
+        var buffer = new GlImmutableBuffer(this.nextHandle++, flags);
+        this.contents.put(buffer, new byte[Math.toIntExact(bufferSize)]);
+
+        return buffer;
+    }
+
+    @Override
+    public void bindVertexArray(GlVertexArray array) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unbindVertexArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteVertexArray(GlVertexArray vertexArray) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlFence createFence() {
+        var fence = new ManualFence();
+        this.fences.add(fence);
+
+        return fence;
+    }
+}
@@ -0,0 +1,180 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import org.embeddedt.embeddium.impl.gl.arena.staging.StagingBuffer;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
+import org.embeddedt.embeddium.impl.gl.device.CommandList;
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads build results through a staging buffer which records every copy, with a clock which only advances when a
+ * group of results is uploaded, so that both budgets behave the same on every run.
+ */
+public class ChunkUploadSchedulerTest {
+    private static final TerrainRenderPass PASS = new TerrainRenderPass(null, false, false);
+
+    private static final int MESH_SIZE = 4096;
+    private static final long NANOS_PER_GROUP = 1_000_000L;
+    private static final int VISIBLE_FRAME = 1;
+
+    private final RecordingCommandList commandList = new RecordingCommandList();
+    private final RecordingStagingBuffer stagingBuffer = new RecordingStagingBuffer();
+
+    private long nanoTime;
+
+    private final ChunkUploadScheduler scheduler = new ChunkUploadScheduler(() -> this.nanoTime);
+
+    @AfterEach
+    public void free() {
+        this.scheduler.clear();
+    }
+
+    @Test
+    public void importantResultsIgnoreTheBudget() {
+        var results = new ArrayList<ChunkBuildOutput>();
+
+        for (int x = 1; x <= 3; x++) {
+            results.add(createResult(x, true, false));
+        }
+
+        // More than one group of important results
+        for (int x = 10; x < 30; x++) {
+            results.add(createResult(x, true, true));
+        }
+
+        this.scheduler.enqueue(results);
+        this.upload(MESH_SIZE, NANOS_PER_GROUP / 2);
+
+        var expected = new ArrayList<Integer>();
+
+        for (int x = 10; x < 30; x++) {
+            expected.add(x);
+        }
+
+        // Only the nearest normal result fits into the budget
+        expected.add(1);
+
+        assertEquals(expected, this.stagingBuffer.copiedSections);
+        assertEquals(3, this.stagingBuffer.flushes);
+
+        assertEquals(2, this.scheduler.size());
+        assertEquals(2L * MESH_SIZE, this.scheduler.getPendingBytes());
+    }
+
+    @Test
+    public void visibleAndNearResultsAreUploadedFirst() {
+        this.scheduler.enqueue(List.of(
+                createResult(5, true, false),
+                createResult(1, false, false),
+                createResult(3, true, false),
+                createResult(2, false, false)));
+
+        this.upload(2L * MESH_SIZE, 0);
+
+        assertEquals(List.of(3, 5), this.stagingBuffer.copiedSections);
+        assertEquals(2L * MESH_SIZE, this.scheduler.getPendingBytes());
+
+        this.upload(2L * MESH_SIZE, 0);
+
+        assertEquals(List.of(3, 5, 1, 2), this.stagingBuffer.copiedSections);
+        assertTrue(this.scheduler.isEmpty());
+    }
+
+    @Test
+    public void timeBudgetStopsBetweenGroups() {
+        var results = new ArrayList<ChunkBuildOutput>();
+
+        // Uploading these takes time, but it isn't counted against the budget
+        for (int x = 100; x < 116; x++) {
+            results.add(createResult(x, true, true));
+        }
+
+        for (int x = 1; x <= 40; x++) {
+            results.add(createResult(x, true, false));
+        }
+
+        this.scheduler.enqueue(results);
+
+        // The budget runs out after the second group of normal results
+        this.upload(0, (NANOS_PER_GROUP * 3) / 2);
+
+        assertEquals(16 + 32, this.stagingBuffer.copiedSections.size());
+        assertEquals(8, this.scheduler.size());
+
+        this.upload(0, (NANOS_PER_GROUP * 3) / 2);
+
+        assertEquals(16 + 40, this.stagingBuffer.copiedSections.size());
+        assertTrue(this.scheduler.isEmpty());
+    }
+
+    private void upload(long byteBudget, long nanoBudget) {
+        this.scheduler.upload(this::uploadGroup, 0.0f, 0.0f, 0.0f, VISIBLE_FRAME, byteBudget, nanoBudget);
+    }
+
+    private void uploadGroup(List<ChunkBuildOutput> group) {
+        long offset = 0;
+
+        for (var result : group) {
+            var data = result.getMesh(PASS).getVertexData().getDirectBuffer();
+
+            this.stagingBuffer.enqueueCopy(this.commandList, data, null, offset);
+            offset += data.remaining();
+        }
+
+        this.stagingBuffer.flush(this.commandList);
+
+        this.nanoTime += NANOS_PER_GROUP;
+    }
+
+    private static ChunkBuildOutput createResult(int x, boolean visible, boolean important) {
+        var section = new RenderSection(null, x, 0, 0);
+        section.setLastVisibleFrame(visible ? VISIBLE_FRAME : VISIBLE_FRAME - 1);
+
+        // The first bytes of the vertex data identify the section
+        var vertexData = new NativeBuffer(MESH_SIZE);
+        vertexData.getDirectBuffer().putInt(0, x);
+
+        var result = new ChunkBuildOutput(section, null, Map.of(PASS, new BuiltSectionMeshParts(vertexData, null, null, null)), 0);
+        result.setImportant(important);
+
+        return result;
+    }
+
+    private static class RecordingStagingBuffer implements StagingBuffer {
+        private final List<Integer> copiedSections = new ArrayList<>();
+        private int flushes;
+
+        @Override
+        public void enqueueCopy(CommandList commandList, ByteBuffer data, GlBuffer dst, long writeOffset) {
+            this.copiedSections.add(data.getInt(data.position()));
+        }
+
+        @Override
+        public void flush(CommandList commandList) {
+            this.flushes++;
+        }
+
+        @Override
+        public void delete(CommandList commandList) {
+
+        }
+
+        @Override
+        public void flip() {
+
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferTarget;
+import org.embeddedt.embeddium.impl.gl.device.CommandList;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawIndirectBuffer;
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList;
+import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
+import org.embeddedt.embeddium.impl.gl.functions.DeviceFunctions;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.data.SectionRenderDataStorage;
+import org.embeddedt.embeddium.impl.render.chunk.data.SectionRenderDataUnsafe;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkMeshFormats;
+import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DefaultChunkRendererTest {
+    private static final TerrainRenderPass PASS = new TerrainRenderPass(null, false, false);
+
+    // The section which has welded vertices, and is drawn with its own 16-bit indices
+    private static final int WELDED_SECTION = 3;
+
+    private final RecordingCommandList commandList = new RecordingCommandList();
+
+    private RenderRegion region;
+    private SectionRenderDataStorage storage;
+
+    private DefaultChunkRenderer directRenderer, indirectRenderer;
+
+    @BeforeEach
+    public void setup() {
+        var device = new RecordingDevice(this.commandList);
+
+        this.directRenderer = new DefaultChunkRenderer(device, ChunkMeshFormats.COMPACT, false);
+        this.indirectRenderer = new DefaultChunkRenderer(device, ChunkMeshFormats.COMPACT, true);
+
+        var resources = new RenderRegion.DeviceResources(this.commandList, null, ChunkMeshFormats.COMPACT.getVertexFormat().getStride());
+
+        this.region = new RenderRegion(0, 0, 0, null, resources, 1);
+        this.region.createResources(this.commandList);
+
+        this.storage = this.region.createStorage(PASS);
+
+        var renderList = this.region.getRenderList();
+        renderList.reset(0);
+
+        var info = BuiltSectionInfo.createPlaceholder(1 << RenderSectionFlags.HAS_BLOCK_GEOMETRY, 0L);
+        int vertexOffset = 0, indexOffset = 0;
+
+        // A row of sections along the X axis, which each have geometry on every face
+        for (int x = 0; x < 4; x++) {
+            var section = new RenderSection(this.region, x, 0, 0);
+            section.setInfo(info);
+
+            renderList.add(section);
+
+            long pMeshData = this.storage.getDataPointer(section.getSectionIndex());
+            boolean welded = x == WELDED_SECTION;
+
+            for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+                int elementCount = 6 * (1 + facing + x);
+
+                SectionRenderDataUnsafe.setVertexOffset(pMeshData, facing, vertexOffset);
+                SectionRenderDataUnsafe.setElementCount(pMeshData, facing, elementCount);
+                SectionRenderDataUnsafe.setIndexOffset(pMeshData, facing, welded ? indexOffset : 0);
+
+                vertexOffset += (elementCount / 6) * 4;
+                indexOffset += welded ? elementCount * 2 : 0;
+            }
+
+            SectionRenderDataUnsafe.setSliceMask(pMeshData, ModelQuadFacing.ALL);
+            SectionRenderDataUnsafe.setWelded(pMeshData, welded);
+        }
+    }
+
+    @AfterEach
+    public void free() {
+        this.region.delete(this.commandList);
+
+        this.directRenderer.delete(this.commandList);
+        this.indirectRenderer.delete(this.commandList);
+    }
+
+    @Test
+    public void indirectDrawsMatchDirectDraws() {
+        // Inside the second section, so that some faces of every section are culled
+        var camera = new CameraTransform(24.5, 8.5, 8.5);
+        var draws = this.draw(this.directRenderer, camera);
+
+        // Both the shared indices and the indices of the welded section are used
+        assertTrue(draws.stream().anyMatch(draw -> draw.indexType() == GlIndexType.UNSIGNED_INT));
+        assertTrue(draws.stream().anyMatch(draw -> draw.indexType() == GlIndexType.UNSIGNED_SHORT));
+
+        assertEquals(draws, this.draw(this.indirectRenderer, camera));
+
+        // Other faces are visible once the camera has moved past the third section
+        camera = new CameraTransform(56.5, 30.5, 8.5);
+
+        assertEquals(this.draw(this.directRenderer, camera), this.draw(this.indirectRenderer, camera));
+    }
+
+    @Test
+    public void indirectCommandsAreOnlyUploadedWhenTheyChange() {
+        var camera = new CameraTransform(24.5, 8.5, 8.5);
+
+        this.draw(this.indirectRenderer, camera);
+
+        GlBuffer indirectBuffer = this.storage.getDrawCommandCache()
+                .getIndirectCommands(this.commandList)
+                .getBufferObject();
+
+        int uploads = this.getUploads(indirectBuffer).size();
+
+        // Drawing the same sections again re-uses the commands on the device
+        this.draw(this.indirectRenderer, camera);
+
+        assertEquals(uploads, this.getUploads(indirectBuffer).size());
+
+        // Changing one face of one section only uploads the command of that face
+        long pMeshData = this.storage.getDataPointer(LocalSectionIndex.pack(2, 0, 0));
+        SectionRenderDataUnsafe.setElementCount(pMeshData, ModelQuadFacing.UNASSIGNED.ordinal(), 600);
+
+        this.storage.onBufferResized();
+
+        var draws = this.draw(this.indirectRenderer, camera);
+        var indirectUploads = this.getUploads(indirectBuffer);
+
+        assertEquals(uploads + 1, indirectUploads.size());
+        assertEquals(MultiDrawIndirectBuffer.COMMAND_STRIDE, indirectUploads.get(indirectUploads.size() - 1).data().length);
+
+        assertEquals(this.draw(this.directRenderer, camera), draws);
+        assertTrue(draws.stream().anyMatch(draw -> draw.elementCount() == 600));
+    }
+
+    @Test
+    public void indirectBufferIsUnboundAfterDrawing() {
+        this.draw(this.indirectRenderer, new CameraTransform(24.5, 8.5, 8.5));
+
+        assertNull(this.commandList.getBoundBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER));
+    }
+
+    @Test
+    public void sharedGeometryPoolBindsTheTessellationOnce() {
+        int stride = ChunkMeshFormats.COMPACT.getVertexFormat().getStride();
+        var sharedResources = new RenderRegion.DeviceResources(this.commandList, null, stride);
+
+        var sharedRegions = new ArrayList<RenderRegion>();
+        var ownRegions = new ArrayList<RenderRegion>();
+
+        for (int x = 0; x < 3; x++) {
+            sharedRegions.add(this.createRegion(x, sharedResources, x + 1));
+            ownRegions.add(this.createRegion(x, new RenderRegion.DeviceResources(this.commandList, null, stride), 1));
+        }
+
+        var camera = new CameraTransform(8.5, 8.5, 8.5);
+
+        var ownDraws = this.drawRegions(ownRegions, camera);
+        int ownBinds = this.commandList.tessellationBinds.size();
+
+        var sharedDraws = this.drawRegions(sharedRegions, camera);
+        int sharedBinds = this.commandList.tessellationBinds.size();
+
+        // Without the pool, every region has its own vertex buffer, so its vertex array is bound before it is drawn
+        assertEquals(3, ownBinds);
+        assertEquals(1, sharedBinds);
+
+        assertEquals(ownDraws, sharedDraws);
+    }
+
+    /**
+     * Creates a region with one section, which has geometry on every face and uses the shared index buffer.
+     */
+    private RenderRegion createRegion(int x, RenderRegion.DeviceResources resources, int poolGroup) {
+        var region = new RenderRegion(x, 0, 0, null, resources, poolGroup);
+        region.createResources(this.commandList);
+
+        var storage = region.createStorage(PASS);
+
+        var renderList = region.getRenderList();
+        renderList.reset(0);
+
+        var section = new RenderSection(region, x * RenderRegion.REGION_WIDTH, 0, 0);
+        section.setInfo(BuiltSectionInfo.createPlaceholder(1 << RenderSectionFlags.HAS_BLOCK_GEOMETRY, 0L));
+
+        renderList.add(section);
+
+        long pMeshData = storage.getDataPointer(section.getSectionIndex());
+        int vertexOffset = 0;
+
+        for (int facing = 0; facing < ModelQuadFacing.COUNT; facing++) {
+            SectionRenderDataUnsafe.setVertexOffset(pMeshData, facing, vertexOffset);
+            SectionRenderDataUnsafe.setElementCount(pMeshData, facing, 6);
+
+            vertexOffset += 4;
+        }
+
+        SectionRenderDataUnsafe.setSliceMask(pMeshData, ModelQuadFacing.ALL);
+
+        return region;
+    }
+
+    private List<RecordingCommandList.Draw> drawRegions(List<RenderRegion> regions, CameraTransform camera) {
+        this.commandList.draws.clear();
+        this.commandList.tessellationBinds.clear();
+
+        var renderLists = regions.stream()
+                .map(RenderRegion::getRenderList)
+                .iterator();
+
+        this.directRenderer.renderRegions(this.commandList, renderLists, PASS, camera, (x, y, z) -> { }, true);
+
+        return List.copyOf(this.commandList.draws);
+    }
+
+    private List<RecordingCommandList.Draw> draw(DefaultChunkRenderer renderer, CameraTransform camera) {
+        this.commandList.draws.clear();
+
+        var offsets = new ArrayList<float[]>();
+
+        renderer.renderRegions(this.commandList, List.of(this.region.getRenderList()).iterator(), PASS, camera,
+                (x, y, z) -> offsets.add(new float[] { x, y, z }), true);
+
+        // Both batches of the region are drawn after setting the offset of the region once
+        assertEquals(1, offsets.size());
+        assertEquals((this.region.getOriginX() - camera.intX) - camera.fracX, offsets.get(0)[0]);
+        assertEquals((this.region.getOriginY() - camera.intY) - camera.fracY, offsets.get(0)[1]);
+        assertEquals((this.region.getOriginZ() - camera.intZ) - camera.fracZ, offsets.get(0)[2]);
+
+        return List.copyOf(this.commandList.draws);
+    }
+
+    private List<RecordingCommandList.Upload> getUploads(GlBuffer buffer) {
+        return this.commandList.uploads.stream()
+                .filter(upload -> upload.buffer() == buffer)
+                .toList();
+    }
+
+    private record RecordingDevice(CommandList commandList) implements RenderDevice {
+        @Override
+        public CommandList createCommandList() {
+            return this.commandList;
+        }
+
+        @Override
+        public void makeActive() {
+
+        }
+
+        @Override
+        public void makeInactive() {
+
+        }
+
+        @Override
+        public GLCapabilities getCapabilities() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DeviceFunctions getDeviceFunctions() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void visibleFacesKeyChangesOnlyWithVisibleFaces() {
+        var region = new RenderRegion(-1, 2, 3, null);
+
+        int minX = region.getChunkX() << 4, maxX = minX + (RenderRegion.REGION_WIDTH * 16);
+        int minY = region.getChunkY() << 4, maxY = minY + (RenderRegion.REGION_HEIGHT * 16);
+        int minZ = region.getChunkZ() << 4, maxZ = minZ + (RenderRegion.REGION_LENGTH * 16);
+
+        // Move the camera along each axis on its own, from well outside the region on one side to the other
+        for (int axis = 0; axis < 3; axis++) {
+            int min = axis == 0 ? minX : axis == 1 ? minY : minZ;
+            int max = axis == 0 ? maxX : axis == 1 ? maxY : maxZ;
+
+            CameraTransform previous = null;
+
+            for (int pos = min - 40; pos <= max + 40; pos++) {
+                var camera = new CameraTransform(
+                        axis == 0 ? pos : minX + 37,
+                        axis == 1 ? pos : minY + 21,
+                        axis == 2 ? pos : minZ + 90);
+
+                if (previous != null) {
+                    boolean sameKey = DefaultChunkRenderer.getVisibleFacesKey(previous, region) ==
+                            DefaultChunkRenderer.getVisibleFacesKey(camera, region);
+                    boolean sameFaces = Arrays.equals(getVisibleFaces(previous, region), getVisibleFaces(camera, region));
+
+                    assertEquals(sameFaces, sameKey, "axis " + axis + " at " + pos);
+                }
+
+                previous = camera;
+            }
+        }
+    }
+
+    private static int[] getVisibleFaces(CameraTransform camera, RenderRegion region) {
+        int[] faces = new int[RenderRegion.REGION_SIZE];
+        int index = 0;
+
+        for (int x = 0; x < RenderRegion.REGION_WIDTH; x++) {
+            for (int y = 0; y < RenderRegion.REGION_HEIGHT; y++) {
+                for (int z = 0; z < RenderRegion.REGION_LENGTH; z++) {
+                    faces[index++] = DefaultChunkRenderer.getVisibleFaces(camera.intX, camera.intY, camera.intZ,
+                            region.getChunkX() + x, region.getChunkY() + y, region.getChunkZ() + z);
+                }
+            }
+        }
+
+        return faces;
+    }
+}
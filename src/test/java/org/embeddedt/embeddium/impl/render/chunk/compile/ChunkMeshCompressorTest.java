@@ -0,0 +1,204 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that compressed vertex data is restored exactly, for vertices of any size and data of any length, including
+ * data which ends partway through a group and runs of unchanged groups which are longer than one count can hold.
+ */
+public class ChunkMeshCompressorTest {
+    // Smaller than a group, the size of a group, and the sizes of the vertex formats (compact, dense and vanilla-like)
+    private static final int[] STRIDES = { 1, 4, 8, 12, 16, 20, 28, 32 };
+
+    private static final int[] LENGTHS = { 0, 1, 7, 8, 9, 31, 100, 1001, 4096, 65539 };
+
+    // Written after the end of the compressed data, to check that the encoder stays within its maximum length
+    private static final long GUARD = 0x5A5A5A5A5A5A5A5AL;
+
+    @Test
+    public void randomDataIsRestored() {
+        var random = new Random(38);
+
+        for (int stride : STRIDES) {
+            for (int length : LENGTHS) {
+                byte[] data = new byte[length];
+                random.nextBytes(data);
+
+                assertRoundTrip(data, stride);
+            }
+        }
+    }
+
+    @Test
+    public void structuredDataIsRestored() {
+        for (int stride : STRIDES) {
+            for (int length : LENGTHS) {
+                assertRoundTrip(createVertices(length, stride), stride);
+            }
+        }
+    }
+
+    @Test
+    public void longZeroRunsAreRestored() {
+        for (int stride : STRIDES) {
+            for (int groups : new int[] { 254, 255, 256, 257, 511, 512, 2000 }) {
+                // Unchanged data which continues past the longest run, and ends in a partial group
+                for (int tail : new int[] { 0, 3 }) {
+                    byte[] data = new byte[(groups * 8) + tail];
+
+                    assertRoundTrip(data, stride);
+
+                    // The same run after a vertex which is different from the ones around it
+                    for (int i = stride * 2; i < stride * 3; i++) {
+                        data[i] = (byte) (i + 1);
+                    }
+
+                    assertRoundTrip(data, stride);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void zeroRunsAreCappedAtTheLongestCount() {
+        // With a stride of one group, the first group has no previous vertex and is written with its mask alone. Every
+        // other group is unchanged, and each mask of zero is followed by the number of unchanged groups after it,
+        // which is at most 255, so every 256 groups need two bytes.
+        for (int groups : new int[] { 1, 255, 256, 257, 512, 513, 1000 }) {
+            byte[] data = new byte[(1 + groups) * 8];
+
+            int expected = 4 + 1 + (2 * ((groups + 255) / 256));
+
+            assertEquals(expected, assertRoundTrip(data, 8), groups + " groups");
+        }
+    }
+
+    @Test
+    public void compressionIsOnlyKeptWhenItSavesMemory() {
+        int stride = 20;
+
+        byte[] vertices = createVertices(4096 * stride, stride);
+        byte[] random = new byte[4096 * stride];
+        new Random(1).nextBytes(random);
+
+        var structured = toBuffer(vertices);
+        var noise = toBuffer(random);
+
+        try {
+            var compressed = ChunkMeshCompressor.compress(structured, stride);
+            assertNotNull(compressed);
+
+            try {
+                assertTrue(compressed.getLength() < vertices.length / 2);
+
+                var restored = ChunkMeshCompressor.decompress(compressed, stride);
+
+                try {
+                    assertArrayEquals(vertices, toBytes(restored));
+                } finally {
+                    restored.free();
+                }
+            } finally {
+                compressed.free();
+            }
+
+            assertNull(ChunkMeshCompressor.compress(noise, stride));
+        } finally {
+            structured.free();
+            noise.free();
+        }
+    }
+
+    /**
+     * Compresses and restores the data, checking that neither step touches memory outside of its buffers.
+     *
+     * @return The length of the compressed data
+     */
+    private static int assertRoundTrip(byte[] data, int stride) {
+        int length = data.length;
+        int maxLength = ChunkMeshCompressor.getMaxCompressedLength(length);
+
+        long src = MemoryUtil.nmemAlloc(Math.max(1, length));
+        long compressed = MemoryUtil.nmemAlloc(maxLength + 8);
+        long dst = MemoryUtil.nmemAlloc(length + 8);
+
+        try {
+            for (int i = 0; i < length; i++) {
+                MemoryUtil.memPutByte(src + i, data[i]);
+            }
+
+            MemoryUtil.memPutLong(compressed + maxLength, GUARD);
+            MemoryUtil.memPutLong(dst + length, GUARD);
+
+            int compressedLength = ChunkMeshCompressor.encode(src, length, stride, compressed);
+
+            assertTrue(compressedLength <= maxLength, "compressed length for stride " + stride);
+            assertEquals(GUARD, MemoryUtil.memGetLong(compressed + maxLength));
+
+            // The whole of the compressed data is needed, or the decoder would have run out of input
+            ChunkMeshCompressor.decode(compressed, compressedLength, stride, dst, length);
+
+            byte[] restored = new byte[length];
+
+            for (int i = 0; i < length; i++) {
+                restored[i] = MemoryUtil.memGetByte(dst + i);
+            }
+
+            assertArrayEquals(data, restored, "stride " + stride + ", length " + length);
+            assertEquals(GUARD, MemoryUtil.memGetLong(dst + length));
+
+            return compressedLength;
+        } finally {
+            MemoryUtil.nmemFree(src);
+            MemoryUtil.nmemFree(compressed);
+            MemoryUtil.nmemFree(dst);
+        }
+    }
+
+    /**
+     * Creates vertices which look like terrain: the positions move along a grid, while the color and light only change
+     * now and then.
+     */
+    private static byte[] createVertices(int length, int stride) {
+        byte[] data = new byte[length];
+        var random = new Random(stride);
+
+        for (int i = 0; i < length; i++) {
+            int vertex = i / stride;
+            int offset = i % stride;
+
+            data[i] = switch (offset % 4) {
+                case 0 -> (byte) (vertex & 3);
+                case 1 -> (byte) (vertex >> 5);
+                case 2 -> (byte) (offset < 8 ? vertex >> 2 : 0x7F);
+                default -> (byte) (vertex % 97 == 0 ? random.nextInt() : 0xF0);
+            };
+        }
+
+        return data;
+    }
+
+    private static NativeBuffer toBuffer(byte[] bytes) {
+        var buffer = new NativeBuffer(bytes.length);
+        buffer.getDirectBuffer().put(bytes);
+
+        return buffer;
+    }
+
+    private static byte[] toBytes(NativeBuffer buffer) {
+        byte[] bytes = new byte[buffer.getLength()];
+        buffer.getDirectBuffer().get(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,141 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that welded meshes draw the same triangles as the original quads, and that welding is only kept when it
+ * makes the mesh smaller.
+ */
+public class ChunkVertexWelderTest {
+    // Two ints per vertex, standing in for the position and the other attributes
+    private static final int STRIDE = 8;
+
+    private static final int MAX_QUADS = (ChunkVertexWelder.MAX_VERTICES / 4) + 1;
+
+    private final ChunkVertexWelder welder = new ChunkVertexWelder();
+
+    private long src, dst, indices;
+
+    @BeforeEach
+    public void allocate() {
+        this.src = MemoryUtil.nmemAlloc((long) MAX_QUADS * 4 * STRIDE);
+        this.dst = MemoryUtil.nmemAlloc((long) MAX_QUADS * 4 * STRIDE);
+        this.indices = MemoryUtil.nmemAlloc(ChunkVertexWelder.getIndexBufferSize(MAX_QUADS * 4));
+    }
+
+    @AfterEach
+    public void free() {
+        MemoryUtil.nmemFree(this.src);
+        MemoryUtil.nmemFree(this.dst);
+        MemoryUtil.nmemFree(this.indices);
+    }
+
+    @Test
+    public void sharedCornersAreMerged() {
+        // A 4x4 grid of quads with the same attributes, which only has 5x5 distinct corners
+        int quads = this.writeGrid(4, 0);
+
+        int uniqueCount = this.welder.weld(this.src, quads * 4, STRIDE, this.dst, this.indices);
+
+        assertEquals(25, uniqueCount);
+        this.assertSameTriangles(quads, uniqueCount);
+    }
+
+    @Test
+    public void differentAttributesAreNotMerged() {
+        // Every quad has its own attributes, like quads which map the corners of their own sprite
+        int quads = this.writeGrid(4, 1);
+
+        int uniqueCount = this.welder.weld(this.src, quads * 4, STRIDE, this.dst, this.indices);
+
+        assertEquals(quads * 4, uniqueCount);
+        this.assertSameTriangles(quads, uniqueCount);
+
+        assertFalse(ChunkVertexWelder.isWorthWelding(quads * 4, uniqueCount, STRIDE));
+    }
+
+    @Test
+    public void tooManyVerticesAreRejected() {
+        int quads = MAX_QUADS;
+
+        for (int vertex = 0; vertex < quads * 4; vertex++) {
+            this.putVertex(vertex, vertex, 0);
+        }
+
+        assertEquals(-1, this.welder.weld(this.src, quads * 4, STRIDE, this.dst, this.indices));
+
+        // Exactly as many vertices as the indices can refer to still fit
+        int uniqueCount = this.welder.weld(this.src, (quads - 1) * 4, STRIDE, this.dst, this.indices);
+
+        assertEquals(ChunkVertexWelder.MAX_VERTICES, uniqueCount);
+        this.assertSameTriangles(quads - 1, uniqueCount);
+    }
+
+    @Test
+    public void weldingMustSaveMoreThanTheIndicesCost() {
+        // Each quad needs 12 bytes of 16-bit indices, so with 20 byte vertices, 3 of the 16 vertices in 4 quads must
+        // be merged before the welded mesh is smaller
+        assertFalse(ChunkVertexWelder.isWorthWelding(16, 16, 20));
+        assertFalse(ChunkVertexWelder.isWorthWelding(16, 14, 20));
+        assertTrue(ChunkVertexWelder.isWorthWelding(16, 13, 20));
+    }
+
+    /**
+     * Writes a grid of quads in the XY plane, where every quad has the same attributes if {@code attributeStep} is 0.
+     *
+     * @return The number of quads which were written
+     */
+    private int writeGrid(int size, int attributeStep) {
+        int vertex = 0;
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int attributes = ((y * size) + x) * attributeStep;
+
+                this.putVertex(vertex++, pack(x, y), attributes);
+                this.putVertex(vertex++, pack(x, y + 1), attributes);
+                this.putVertex(vertex++, pack(x + 1, y + 1), attributes);
+                this.putVertex(vertex++, pack(x + 1, y), attributes);
+            }
+        }
+
+        return size * size;
+    }
+
+    private static int pack(int x, int y) {
+        return (x << 16) | y;
+    }
+
+    private void putVertex(int index, int position, int attributes) {
+        long ptr = this.src + ((long) index * STRIDE);
+
+        MemoryUtil.memPutInt(ptr, position);
+        MemoryUtil.memPutInt(ptr + 4, attributes);
+    }
+
+    private void assertSameTriangles(int quads, int uniqueCount) {
+        // The triangles of each quad, in the order used by the shared quad index buffer
+        int[] corners = { 0, 1, 2, 2, 3, 0 };
+
+        for (int quad = 0; quad < quads; quad++) {
+            for (int element = 0; element < 6; element++) {
+                int index = Short.toUnsignedInt(MemoryUtil.memGetShort(this.indices + (((quad * 6L) + element) * 2)));
+
+                assertTrue(index < uniqueCount);
+
+                long expected = this.src + ((((long) quad * 4) + corners[element]) * STRIDE);
+                long actual = this.dst + ((long) index * STRIDE);
+
+                assertEquals(MemoryUtil.memGetInt(expected), MemoryUtil.memGetInt(actual));
+                assertEquals(MemoryUtil.memGetInt(expected + 4), MemoryUtil.memGetInt(actual + 4));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class SectionContentHashTest {
+    private static final List<String> STATES = List.of(
+            "Block{minecraft:air}",
+            "Block{minecraft:stone}",
+            "Block{minecraft:oak_stairs}[facing=north,half=bottom,shape=straight,waterlogged=false]",
+            "Block{minecraft:oak_stairs}[facing=south,half=bottom,shape=straight,waterlogged=false]");
+
+    @Test
+    public void hashIsStable() {
+        // Entries are stored on disk, so the hash of the same input must never change between runs or versions
+        // unless the format of the cache changes as well
+        assertEquals(0xd8a310150df90781L, new SectionContentHash(0).getValue());
+        assertEquals(0x1963304d3b723d16L, new SectionContentHash(42).putInt(1).putInt(-2).putLong(0x0123456789ABCDEFL).getValue());
+        assertEquals(0x0d3562e7da8101e2L, new SectionContentHash(42).putBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 }).getValue());
+    }
+
+    @Test
+    public void hashDependsOnSeedAndOrder() {
+        long hash = new SectionContentHash(1).putInt(1).putInt(2).getValue();
+
+        assertEquals(hash, new SectionContentHash(1).putInt(1).putInt(2).getValue());
+
+        // A different fingerprint makes every entry unreachable
+        assertNotEquals(hash, new SectionContentHash(2).putInt(1).putInt(2).getValue());
+        assertNotEquals(hash, new SectionContentHash(1).putInt(2).putInt(1).getValue());
+    }
+
+    @Test
+    public void trailingZeroBytesChangeTheHash() {
+        assertNotEquals(new SectionContentHash(0).putBytes(new byte[] { 1 }).getValue(),
+                new SectionContentHash(0).putBytes(new byte[] { 1, 0 }).getValue());
+        assertNotEquals(new SectionContentHash(0).putBytes(new byte[8]).getValue(),
+                new SectionContentHash(0).putBytes(new byte[9]).getValue());
+    }
+
+    @Test
+    public void stateMappingHashChangesWithTheMapping() {
+        long hash = SectionMeshCache.computeStateMappingHash(STATES);
+
+        assertEquals(hash, SectionMeshCache.computeStateMappingHash(List.copyOf(STATES)));
+
+        // The same number of states, but two IDs now refer to each other's state
+        assertNotEquals(hash, SectionMeshCache.computeStateMappingHash(List.of(STATES.get(0), STATES.get(1), STATES.get(3), STATES.get(2))));
+
+        // The same number of states, but one of them belongs to a different block
+        assertNotEquals(hash, SectionMeshCache.computeStateMappingHash(List.of(STATES.get(0), "Block{minecraft:granite}", STATES.get(2), STATES.get(3))));
+
+        assertNotEquals(hash, SectionMeshCache.computeStateMappingHash(STATES.subList(0, 3)));
+    }
+}
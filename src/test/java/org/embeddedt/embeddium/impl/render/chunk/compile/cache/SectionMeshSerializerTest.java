@@ -0,0 +1,218 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.cache;
+
+import net.minecraft.client.renderer.chunk.VisibilitySet;
+import net.minecraft.core.Direction;
+import org.embeddedt.embeddium.impl.gl.util.VertexRange;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that entries of the mesh cache restore the meshes they were written from, and that entries which belong to
+ * another section or vertex format, or which were damaged on disk, are never used.
+ */
+public class SectionMeshSerializerTest {
+    private static final long KEY = 0x0123456789ABCDEFL;
+    private static final int STRIDE = 20;
+
+    private final Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new HashMap<>();
+    private final Map<TerrainRenderPass, BuiltSectionMeshParts> restored = new HashMap<>();
+
+    private BuiltSectionInfo info;
+    private byte[] solidVertices, translucentVertices, solidIndices;
+
+    @BeforeEach
+    public void createMeshes() {
+        var random = new Random(7);
+
+        // Solid terrain is a grid of quads which share most of their attributes, so it is stored compressed, and is
+        // compressed in memory already, like a result which waited in the upload backlog
+        this.solidVertices = new byte[64 * 4 * STRIDE];
+        var vertices = ByteBuffer.wrap(this.solidVertices);
+
+        for (int vertex = 0; vertex < 64 * 4; vertex++) {
+            vertices.putFloat(vertex / 4 % 8).putFloat(0.0f).putFloat(vertex / 32).putInt(-1).putInt(0x00F000F0);
+        }
+
+        this.solidIndices = new byte[96 * Short.BYTES];
+        random.nextBytes(this.solidIndices);
+
+        var solid = new BuiltSectionMeshParts(toBuffer(this.solidVertices), toBuffer(this.solidIndices), TranslucentQuadAnalyzer.SortState.NONE,
+                new VertexRange[] { new VertexRange(0, 128), null, new VertexRange(128, 128), null, null, null, null },
+                new int[] { 48, 0, 48, 0, 0, 0, 0 });
+        solid.compressVertexData(STRIDE);
+        assertTrue(solid.isVertexDataCompressed());
+
+        // Random data doesn't compress, so it is stored as it is
+        this.translucentVertices = new byte[16 * 4 * STRIDE];
+        random.nextBytes(this.translucentVertices);
+
+        var normalSigns = new BitSet();
+        normalSigns.set(3);
+        normalSigns.set(15);
+
+        float[] centers = new float[16 * 3];
+
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = random.nextFloat() * 16.0f;
+        }
+
+        var translucent = new BuiltSectionMeshParts(toBuffer(this.translucentVertices), null,
+                new TranslucentQuadAnalyzer.SortState(TranslucentQuadAnalyzer.Level.STATIC, centers, normalSigns, new Vector3f(0.0f, 1.0f, 0.0f)),
+                new VertexRange[] { null, null, null, null, null, null, new VertexRange(0, 64) });
+
+        this.meshes.put(DefaultTerrainRenderPasses.SOLID, solid);
+        this.meshes.put(DefaultTerrainRenderPasses.TRANSLUCENT, translucent);
+
+        var occlusionData = new VisibilitySet();
+        occlusionData.set(Direction.UP, Direction.NORTH, true);
+        occlusionData.set(Direction.WEST, Direction.EAST, true);
+
+        var renderData = new BuiltSectionInfo.Builder();
+        renderData.addRenderPass(DefaultTerrainRenderPasses.SOLID);
+        renderData.addRenderPass(DefaultTerrainRenderPasses.TRANSLUCENT);
+        renderData.setOcclusionData(occlusionData);
+
+        this.info = renderData.build();
+    }
+
+    @AfterEach
+    public void freeMeshes() {
+        SectionMeshSerializer.freeMeshes(this.meshes);
+        SectionMeshSerializer.freeMeshes(this.restored);
+    }
+
+    @Test
+    public void roundTripRestoresMeshesAndSectionInfo() throws IOException {
+        var renderData = new BuiltSectionInfo.Builder();
+
+        assertTrue(SectionMeshSerializer.fromBytes(this.write(), KEY, STRIDE, renderData, this.restored));
+        assertEquals(this.meshes.keySet(), this.restored.keySet());
+
+        var solid = this.restored.get(DefaultTerrainRenderPasses.SOLID);
+
+        // Meshes are always read back uncompressed, since they are uploaded right away
+        assertFalse(solid.isVertexDataCompressed());
+        assertArrayEquals(this.solidVertices, toBytes(solid.getVertexData()));
+        assertArrayEquals(this.solidIndices, toBytes(solid.getIndexData()));
+        assertArrayEquals(this.meshes.get(DefaultTerrainRenderPasses.SOLID).getVertexRanges(), solid.getVertexRanges());
+        assertArrayEquals(new int[] { 48, 0, 48, 0, 0, 0, 0 }, solid.getElementCounts());
+        assertSame(TranslucentQuadAnalyzer.SortState.NONE, solid.getSortState());
+
+        var translucent = this.restored.get(DefaultTerrainRenderPasses.TRANSLUCENT);
+        var original = this.meshes.get(DefaultTerrainRenderPasses.TRANSLUCENT);
+
+        assertArrayEquals(this.translucentVertices, toBytes(translucent.getVertexData()));
+        assertNull(translucent.getIndexData());
+        assertNull(translucent.getElementCounts());
+        assertArrayEquals(original.getVertexRanges(), translucent.getVertexRanges());
+
+        var sortState = translucent.getSortState();
+        assertEquals(TranslucentQuadAnalyzer.Level.STATIC, sortState.level());
+        assertArrayEquals(original.getSortState().centers(), sortState.centers());
+        assertEquals(original.getSortState().normalSigns(), sortState.normalSigns());
+        assertEquals(original.getSortState().sharedNormal(), sortState.sharedNormal());
+
+        var restoredInfo = renderData.build();
+        assertEquals(this.info.visibilityData, restoredInfo.visibilityData);
+        assertEquals(this.info.flags, restoredInfo.flags);
+    }
+
+    @Test
+    public void entriesForAnotherSectionAreRejected() throws IOException {
+        assertRejected(this.write(), KEY + 1, STRIDE);
+    }
+
+    @Test
+    public void entriesForAnotherVertexFormatAreRejected() throws IOException {
+        byte[] bytes = this.write();
+
+        assertRejected(bytes, KEY, STRIDE + 4);
+        assertRejected(bytes, KEY, STRIDE / 2);
+    }
+
+    @Test
+    public void truncatedEntriesAreRejected() throws IOException {
+        byte[] bytes = this.write();
+
+        // Such as when the game was closed while the entry was being written
+        for (int length : new int[] { 0, 7, 8, 24, bytes.length / 2, bytes.length - 8, bytes.length - 1 }) {
+            assertRejected(Arrays.copyOf(bytes, length), KEY, STRIDE);
+        }
+    }
+
+    @Test
+    public void damagedEntriesAreRejected() throws IOException {
+        byte[] bytes = this.write();
+
+        // Every byte is damaged in turn, including the lengths and the compressed vertex data, which would otherwise
+        // be decoded without checking where it ends
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] damaged = bytes.clone();
+            damaged[i] ^= (byte) (1 << (i % 8));
+
+            assertRejected(damaged, KEY, STRIDE);
+        }
+    }
+
+    @Test
+    public void appendedBytesAreRejected() throws IOException {
+        byte[] bytes = this.write();
+
+        assertRejected(Arrays.copyOf(bytes, bytes.length + 8), KEY, STRIDE);
+    }
+
+    private byte[] write() throws IOException {
+        return SectionMeshSerializer.toBytes(KEY, STRIDE, this.meshes, this.info);
+    }
+
+    private void assertRejected(byte[] bytes, long key, int stride) throws IOException {
+        var renderData = new BuiltSectionInfo.Builder();
+
+        assertFalse(SectionMeshSerializer.fromBytes(bytes, key, stride, renderData, this.restored));
+        assertTrue(this.restored.isEmpty());
+
+        // Nothing was added to the builder, so it still describes a section without any meshes
+        renderData.setOcclusionData(new VisibilitySet());
+        assertEquals(0, renderData.build().flags);
+    }
+
+    private static NativeBuffer toBuffer(byte[] bytes) {
+        var buffer = new NativeBuffer(bytes.length);
+        buffer.getDirectBuffer().put(bytes);
+
+        return buffer;
+    }
+
+    private static byte[] toBytes(NativeBuffer buffer) {
+        assertNotNull(buffer);
+
+        byte[] bytes = new byte[buffer.getLength()];
+        buffer.getDirectBuffer().get(bytes);
+
+        return bytes;
+    }
+}
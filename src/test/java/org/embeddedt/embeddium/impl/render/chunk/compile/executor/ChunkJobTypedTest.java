@@ -0,0 +1,232 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import jdk.jfr.Event;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.embeddedt.embeddium.impl.gl.util.VertexRange;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.jfr.*;
+import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderSortTask;
+import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.util.NativeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs sort jobs and creates upload events while a flight recording is active, and checks the chunk pipeline events
+ * which they write. Sorting is the only kind of job which can run without a world, so it stands in for all jobs.
+ */
+public class ChunkJobTypedTest {
+    private static final List<Class<? extends Event>> EVENT_TYPES = List.of(
+            ChunkJobScheduledEvent.class,
+            ChunkSnapshotEvent.class,
+            ChunkJobDequeuedEvent.class,
+            ChunkMeshEvent.class,
+            ChunkSortEvent.class,
+            ChunkJobResultEvent.class,
+            ChunkUploadEvent.class);
+
+    private static final TerrainRenderPass PASS = new TerrainRenderPass(null, false, true);
+
+    // The centers of four quads within the section, which are sorted by their distance to the far corner
+    private static final float[] CENTERS = {
+            0.5f, 0.5f, 0.5f,
+            8.0f, 8.0f, 8.0f,
+            15.5f, 15.5f, 15.5f,
+            4.0f, 12.0f, 2.0f
+    };
+
+    @Test
+    public void sortJobWritesEventsForItsSection() throws InterruptedException {
+        var section = new RenderSection(null, 3, -2, 7);
+        var results = new ArrayList<ChunkJobResult<ChunkBuildOutput>>();
+
+        var events = record(3, () -> {
+            var task = createSortTask(section, CENTERS);
+            task.setUpdateType(ChunkUpdateType.IMPORTANT_SORT);
+
+            new ChunkJobTyped<>(task, results::add).execute(null);
+        });
+
+        assertEquals(List.of("embeddium.ChunkJobDequeued", "embeddium.ChunkSort", "embeddium.ChunkJobResult"),
+                events.stream().map(event -> event.getEventType().getName()).toList());
+
+        for (var event : events) {
+            assertSection(event, 3, -2, 7);
+            assertEquals("IMPORTANT_SORT", event.getString("updateType"));
+            assertEquals(Thread.currentThread().getName(), event.getThread().getJavaName());
+        }
+
+        var dequeued = events.get(0);
+        assertTrue(dequeued.getDuration("queueTime").toNanos() >= 0);
+
+        // Six indices of four bytes each for every quad
+        var sort = events.get(1);
+        assertEquals(CENTERS.length / 3 * 6 * 4, sort.getLong("indexBytes"));
+
+        var result = events.get(2);
+        assertTrue(result.getBoolean("successful"));
+        assertTrue(result.getDuration("totalTime").compareTo(dequeued.getDuration("queueTime")) >= 0);
+        assertFalse(result.getStartTime().isBefore(sort.getStartTime()));
+
+        // The result holds the indices which the event describes, sorted from the farthest quad to the nearest
+        var output = results.get(0).unwrap();
+
+        try {
+            assertTrue(output.isIndexOnlyUpload());
+            assertTrue(output.isImportant());
+
+            var indexData = output.getMesh(PASS).getIndexData();
+            assertEquals(sort.getLong("indexBytes"), indexData.getLength());
+
+            var indices = indexData.getDirectBuffer().asIntBuffer();
+            int[] firstVertices = new int[4];
+
+            for (int quad = 0; quad < firstVertices.length; quad++) {
+                firstVertices[quad] = indices.get(quad * 6);
+            }
+
+            assertArrayEquals(new int[] { 0, 12, 4, 8 }, firstVertices);
+        } finally {
+            output.delete();
+        }
+    }
+
+    @Test
+    public void failedJobIsRecordedAsUnsuccessful() throws InterruptedException {
+        var section = new RenderSection(null, 0, 4, 0);
+        var results = new ArrayList<ChunkJobResult<ChunkBuildOutput>>();
+
+        // A sort state without the centers of its quads can't be sorted
+        var events = record(2, () -> new ChunkJobTyped<>(createSortTask(section, null), results::add).execute(null));
+
+        assertThrows(RuntimeException.class, () -> results.get(0).unwrap());
+
+        assertEquals("embeddium.ChunkJobResult", events.get(1).getEventType().getName());
+        assertFalse(events.get(1).getBoolean("successful"));
+        assertEquals(4, events.get(1).getInt("sectionY"));
+    }
+
+    @Test
+    public void cancelledJobWritesNoEvents() throws InterruptedException {
+        var section = new RenderSection(null, 0, 0, 0);
+
+        // The marker event is written after the job, so every event of the job would have been delivered before it
+        var events = record(1, () -> {
+            var job = new ChunkJobTyped<>(createSortTask(section, CENTERS), result -> fail("Job was cancelled"));
+            job.setCancelled();
+            job.execute(null);
+
+            var marker = new ChunkSnapshotEvent();
+            marker.setSection(section, null);
+            marker.commit();
+        });
+
+        assertEquals("embeddium.ChunkSnapshot", events.get(0).getEventType().getName());
+        assertNull(events.get(0).getString("updateType"));
+    }
+
+    @Test
+    public void uploadEventsDescribeTheResults() throws InterruptedException {
+        var sorted = createSortTask(new RenderSection(null, -5, 1, 9), CENTERS).execute(null, null);
+
+        // A rebuilt section with vertex and index data
+        var vertexData = new NativeBuffer(4096);
+        var indexData = new NativeBuffer(768);
+
+        var rebuilt = new ChunkBuildOutput(new RenderSection(null, 2, 0, -1), null, Map.of(PASS,
+                new BuiltSectionMeshParts(vertexData, indexData, TranslucentQuadAnalyzer.SortState.NONE, new VertexRange[7])), 1);
+
+        try {
+            var events = record(2, () -> {
+                var uploadEvents = ChunkUploadEvent.createUploadEvents(List.of(sorted, rebuilt));
+
+                for (var event : uploadEvents) {
+                    event.commit();
+                }
+            });
+
+            var sortUpload = events.stream().filter(event -> event.getInt("sectionX") == -5).findFirst().orElseThrow();
+            assertSection(sortUpload, -5, 1, 9);
+            assertTrue(sortUpload.getBoolean("indexOnly"));
+            assertEquals(0, sortUpload.getLong("vertexBytes"));
+            assertEquals(sorted.getMesh(PASS).getIndexData().getLength(), sortUpload.getLong("indexBytes"));
+
+            var rebuildUpload = events.stream().filter(event -> event.getInt("sectionX") == 2).findFirst().orElseThrow();
+            assertSection(rebuildUpload, 2, 0, -1);
+            assertFalse(rebuildUpload.getBoolean("indexOnly"));
+            assertEquals(4096, rebuildUpload.getLong("vertexBytes"));
+            assertEquals(768, rebuildUpload.getLong("indexBytes"));
+
+            for (var event : events) {
+                // Uploads aren't scheduled updates, so they have no update type
+                assertNull(event.getString("updateType"));
+                assertTrue(event.getDuration("uploadWait").toNanos() >= 0);
+                assertEquals(List.of("Embeddium", "Chunk Pipeline"), event.getEventType().getCategoryNames());
+            }
+        } finally {
+            sorted.delete();
+            rebuilt.delete();
+        }
+    }
+
+    private static ChunkBuilderSortTask createSortTask(RenderSection section, float[] centers) {
+        var sortState = new TranslucentQuadAnalyzer.SortState(TranslucentQuadAnalyzer.Level.DYNAMIC, centers, null, null);
+
+        // The camera is at the corner of the section which is farthest from the first quad
+        return new ChunkBuilderSortTask(section, section.getOriginX() + 16.0f, section.getOriginY() + 16.0f,
+                section.getOriginZ() + 16.0f, 1, Map.of(PASS, sortState));
+    }
+
+    private static void assertSection(RecordedEvent event, int x, int y, int z) {
+        assertEquals(x, event.getInt("sectionX"));
+        assertEquals(y, event.getInt("sectionY"));
+        assertEquals(z, event.getInt("sectionZ"));
+    }
+
+    /**
+     * Runs the given action while recording the chunk pipeline events, and waits for the expected number of events.
+     */
+    private static List<RecordedEvent> record(int expectedCount, Runnable action) throws InterruptedException {
+        var events = new CopyOnWriteArrayList<RecordedEvent>();
+        var received = new CountDownLatch(expectedCount);
+
+        try (var stream = new RecordingStream()) {
+            for (var type : EVENT_TYPES) {
+                stream.enable(type).withoutThreshold();
+            }
+
+            Consumer<RecordedEvent> consumer = event -> {
+                events.add(event);
+                received.countDown();
+            };
+
+            stream.onEvent(consumer);
+            stream.startAsync();
+
+            action.run();
+
+            assertTrue(received.await(30, TimeUnit.SECONDS), "Timed out waiting for events");
+        }
+
+        var sorted = new ArrayList<>(events);
+        sorted.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+
+        assertEquals(expectedCount, sorted.size());
+
+        return sorted;
+    }
+}
@@ -0,0 +1,256 @@
+package org.embeddedt.embeddium.impl.render.chunk.vertex.format.impl;
+
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.material.parameters.AlphaCutoffParameter;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every attribute of the dense vertex format survives a round trip through the encoder, to the precision
+ * the format documents, and that it decodes to the same attributes as the vanilla-like format, which stores them
+ * without any loss.
+ */
+public class DenseChunkVertexTest {
+    private static final Material MATERIAL = new Material(null, AlphaCutoffParameter.ZERO, true);
+
+    // Every combination of alpha cutoff and mipmapping, which uses all three material bits
+    private static final Material[] MATERIALS = new Material[8];
+
+    static {
+        for (int i = 0; i < MATERIALS.length; i++) {
+            MATERIALS[i] = new Material(null, AlphaCutoffParameter.values()[i >> 1], (i & 1) != 0);
+        }
+    }
+
+    // 13 bits over a 32 block range, which is 1/256 of a block
+    private static final float POSITION_PRECISION = 32.0f / (1 << 13);
+
+    // 15 bits for each texture coordinate
+    private static final float TEXTURE_PRECISION = 1.0f / (1 << 15);
+
+    private final ChunkVertexEncoder encoder = new DenseChunkVertex().getEncoder();
+    private final ChunkVertexEncoder.Vertex vertex = new ChunkVertexEncoder.Vertex();
+
+    private long ptr;
+
+    @BeforeEach
+    public void allocate() {
+        this.ptr = MemoryUtil.nmemAlloc(DenseChunkVertex.STRIDE);
+    }
+
+    @AfterEach
+    public void free() {
+        MemoryUtil.nmemFree(this.ptr);
+    }
+
+    @Test
+    public void lightIsStoredAtFullPrecision() {
+        for (int block = 0; block <= 0xFF; block++) {
+            for (int sky = 0; sky <= 0xFF; sky++) {
+                this.vertex.light = block | (sky << 16);
+                this.encode(0);
+
+                assertEquals(this.vertex.light, DenseChunkVertex.decodeLight(this.ptr));
+            }
+        }
+    }
+
+    @Test
+    public void lightDoesNotChangeTextureCoordinates() {
+        this.vertex.u = 0.25f;
+        this.vertex.v = 0.75f;
+
+        for (int light : new int[] { 0x00000000, 0x00010000, 0x00000001, 0x00FF00FF, 0x00F000F0 }) {
+            this.vertex.light = light;
+            this.encode(0);
+
+            assertEquals(0.25f, DenseChunkVertex.decodeTexture(this.ptr, 0));
+            assertEquals(0.75f, DenseChunkVertex.decodeTexture(this.ptr, 1));
+        }
+    }
+
+    @Test
+    public void textureCoordinatesOnTexelBoundariesAreExact() {
+        // Sprite corners lie on texel boundaries, which are multiples of 1/4096 for a 4096 texel wide atlas
+        for (int texel = 0; texel < 4096; texel++) {
+            this.vertex.u = texel / 4096.0f;
+            this.vertex.v = (4095 - texel) / 4096.0f;
+            this.vertex.light = 0x00FF00FF;
+            this.encode(0);
+
+            assertEquals(this.vertex.u, DenseChunkVertex.decodeTexture(this.ptr, 0));
+            assertEquals(this.vertex.v, DenseChunkVertex.decodeTexture(this.ptr, 1));
+        }
+    }
+
+    @Test
+    public void textureCoordinateOfOneStaysInTheLastTexel() {
+        this.vertex.u = 1.0f;
+        this.vertex.v = 1.0f;
+        this.encode(0);
+
+        // Even in a 16384 texel wide atlas, the coordinate is still within the last texel
+        for (int axis = 0; axis < 2; axis++) {
+            float value = DenseChunkVertex.decodeTexture(this.ptr, axis);
+
+            assertTrue(value < 1.0f);
+            assertEquals(16383, (int) (value * 16384.0f));
+        }
+    }
+
+    @Test
+    public void positionsRoundToTheNearestStep() {
+        Random random = new Random(0L);
+
+        for (int i = 0; i < 10000; i++) {
+            // Stay away from the upper end of the encodable range, where values are clamped to the largest step
+            this.vertex.x = (random.nextFloat() * 31.0f) - 8.0f;
+            this.vertex.y = (random.nextFloat() * 31.0f) - 8.0f;
+            this.vertex.z = (random.nextFloat() * 31.0f) - 8.0f;
+            this.vertex.light = random.nextInt() & 0x00FF00FF;
+            this.encode(random.nextInt(256));
+
+            assertEquals(this.vertex.x, DenseChunkVertex.decodePosition(this.ptr, 0), POSITION_PRECISION / 2.0f);
+            assertEquals(this.vertex.y, DenseChunkVertex.decodePosition(this.ptr, 1), POSITION_PRECISION / 2.0f);
+            assertEquals(this.vertex.z, DenseChunkVertex.decodePosition(this.ptr, 2), POSITION_PRECISION / 2.0f);
+            assertEquals(this.vertex.light, DenseChunkVertex.decodeLight(this.ptr));
+        }
+    }
+
+    @Test
+    public void blockPositionsAreExact() {
+        for (int x = -8; x < 24; x++) {
+            this.vertex.x = x;
+            this.vertex.y = x + 0.5f;
+            this.vertex.z = x + 0.0625f;
+            this.encode(255);
+
+            assertEquals(this.vertex.x, DenseChunkVertex.decodePosition(this.ptr, 0));
+            assertEquals(this.vertex.y, DenseChunkVertex.decodePosition(this.ptr, 1));
+            assertEquals(this.vertex.z, DenseChunkVertex.decodePosition(this.ptr, 2));
+        }
+    }
+
+    @Test
+    public void attributesMatchTheVanillaLikeFormat() {
+        var vanillaEncoder = new VanillaLikeChunkVertex().getEncoder();
+        long vanilla = MemoryUtil.nmemAlloc(VanillaLikeChunkVertex.STRIDE);
+
+        try {
+            Random random = new Random(31L);
+
+            for (int quad = 0; quad < 4096; quad++) {
+                var material = MATERIALS[quad % MATERIALS.length];
+                int sectionIndex = (quad * 7) & 0xFF;
+
+                // Half of the quads have their corners on the sixteenth of a block grid used by block models, and the
+                // others are anywhere in the range of the format
+                boolean aligned = (quad & 1) == 0;
+
+                int color = random.nextInt();
+                int light = random.nextInt() & 0x00FF00FF;
+
+                for (int corner = 0; corner < 4; corner++) {
+                    this.vertex.x = aligned ? (random.nextInt(32 * 16) / 16.0f) - 8.0f : (random.nextFloat() * 31.0f) - 8.0f;
+                    this.vertex.y = aligned ? (random.nextInt(32 * 16) / 16.0f) - 8.0f : (random.nextFloat() * 31.0f) - 8.0f;
+                    this.vertex.z = aligned ? (random.nextInt(32 * 16) / 16.0f) - 8.0f : (random.nextFloat() * 31.0f) - 8.0f;
+                    this.vertex.color = color;
+                    this.vertex.u = aligned ? random.nextInt(4097) / 4096.0f : random.nextFloat();
+                    this.vertex.v = aligned ? random.nextInt(4097) / 4096.0f : random.nextFloat();
+                    this.vertex.light = light;
+
+                    vanillaEncoder.write(vanilla, material, this.vertex, sectionIndex);
+                    this.encode(material, sectionIndex);
+
+                    this.assertSameAttributes(vanilla, aligned);
+                }
+            }
+        } finally {
+            MemoryUtil.nmemFree(vanilla);
+        }
+    }
+
+    @Test
+    public void packedFieldsDoNotOverlap() {
+        // The lowest position, the origin of the section, and the highest position
+        float[] positions = { -8.0f, 0.0f, 23.99609375f };
+        int[] lights = { 0x00000000, 0x000000FF, 0x00FF0000, 0x00FF00FF };
+
+        for (var material : MATERIALS) {
+            for (int sectionIndex : new int[] { 0, 1, 128, 255 }) {
+                for (int light : lights) {
+                    for (int i = 0; i < positions.length; i++) {
+                        // Each axis has a different value, so that one axis spilling into the next would be noticed
+                        this.vertex.x = positions[i];
+                        this.vertex.y = positions[(i + 1) % positions.length];
+                        this.vertex.z = positions[(i + 2) % positions.length];
+                        this.vertex.color = 0xFFFFFFFF;
+                        this.vertex.u = 1.0f;
+                        this.vertex.v = 0.0f;
+                        this.vertex.light = light;
+
+                        this.encode(material, sectionIndex);
+
+                        assertEquals(this.vertex.x, DenseChunkVertex.decodePosition(this.ptr, 0));
+                        assertEquals(this.vertex.y, DenseChunkVertex.decodePosition(this.ptr, 1));
+                        assertEquals(this.vertex.z, DenseChunkVertex.decodePosition(this.ptr, 2));
+                        assertEquals(sectionIndex, DenseChunkVertex.decodeSectionIndex(this.ptr));
+                        assertEquals(material.bits(), DenseChunkVertex.decodeMaterialBits(this.ptr));
+                        assertEquals(light, DenseChunkVertex.decodeLight(this.ptr));
+                        assertEquals(0xFFFFFFFF, DenseChunkVertex.decodeColor(this.ptr));
+                        assertEquals(0.0f, DenseChunkVertex.decodeTexture(this.ptr, 1));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the vertex at {@link #ptr} with a vertex of the vanilla-like format, which was encoded from the same
+     * attributes.
+     */
+    private void assertSameAttributes(long vanilla, boolean aligned) {
+        // Only the position and texture coordinates lose precision, and positions which are on the grid of block
+        // models are stored exactly
+        float positionDelta = aligned ? 0.0f : POSITION_PRECISION / 2.0f;
+
+        for (int axis = 0; axis < 3; axis++) {
+            assertEquals(MemoryUtil.memGetFloat(vanilla + (axis * 4)), DenseChunkVertex.decodePosition(this.ptr, axis), positionDelta);
+        }
+
+        assertEquals(MemoryUtil.memGetInt(vanilla + 12), DenseChunkVertex.decodeColor(this.ptr));
+
+        // The vanilla-like format also moves a coordinate of 1.0 just below it, but by less than a step of this format
+        for (int axis = 0; axis < 2; axis++) {
+            assertEquals(MemoryUtil.memGetFloat(vanilla + 16 + (axis * 4)), DenseChunkVertex.decodeTexture(this.ptr, axis), TEXTURE_PRECISION);
+        }
+
+        int drawParameters = MemoryUtil.memGetInt(vanilla + 24);
+
+        assertEquals(drawParameters & 0xFF, DenseChunkVertex.decodeMaterialBits(this.ptr));
+        assertEquals((drawParameters >>> 8) & 0xFF, DenseChunkVertex.decodeSectionIndex(this.ptr));
+
+        int light = DenseChunkVertex.decodeLight(this.ptr);
+
+        assertEquals((drawParameters >>> 16) & 0xFF, light & 0xFF);
+        assertEquals((drawParameters >>> 24) & 0xFF, (light >>> 16) & 0xFF);
+    }
+
+    private void encode(int sectionIndex) {
+        this.encode(MATERIAL, sectionIndex);
+    }
+
+    private void encode(Material material, int sectionIndex) {
+        long end = this.encoder.write(this.ptr, material, this.vertex, sectionIndex);
+
+        assertEquals(this.ptr + DenseChunkVertex.STRIDE, end);
+    }
+}
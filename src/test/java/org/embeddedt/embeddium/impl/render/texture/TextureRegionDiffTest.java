@@ -0,0 +1,185 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the dirty regions which are found between frames of an animated sprite. Frames are kept in native images,
+ * which only need memory and no graphics device.
+ */
+public class TextureRegionDiffTest {
+    private static final int SIZE = 16;
+
+    private final List<NativeImage> images = new ArrayList<>();
+
+    @AfterEach
+    public void closeImages() {
+        this.images.forEach(NativeImage::close);
+    }
+
+    @Test
+    public void identicalFramesHaveNoDirtyRegion() {
+        var prev = this.createFrame(SIZE, SIZE, 1);
+        var next = this.createFrame(SIZE, SIZE, 1);
+
+        assertEquals(TextureRegionDiff.EMPTY, findDirtyRegion(prev, next));
+    }
+
+    @Test
+    public void singleChangedPixelIsItsOwnRegion() {
+        var prev = this.createFrame(SIZE, SIZE, 1);
+        var next = this.createFrame(SIZE, SIZE, 1);
+
+        next.setPixelRGBA(5, 9, 0xFF00FF00);
+
+        assertRegion(5, 9, 1, 1, findDirtyRegion(prev, next));
+    }
+
+    @Test
+    public void regionBoundsEveryChangedPixel() {
+        var prev = this.createFrame(SIZE, SIZE, 1);
+        var next = this.createFrame(SIZE, SIZE, 1);
+
+        // The first and last changes are in different rows, and neither of them is in the corner of the region
+        next.setPixelRGBA(7, 2, 0);
+        next.setPixelRGBA(3, 6, 0);
+        next.setPixelRGBA(12, 11, 0);
+
+        assertRegion(3, 2, 10, 10, findDirtyRegion(prev, next));
+
+        next.setPixelRGBA(0, 0, 0);
+        next.setPixelRGBA(SIZE - 1, SIZE - 1, 0);
+
+        assertRegion(0, 0, SIZE, SIZE, findDirtyRegion(prev, next));
+    }
+
+    @Test
+    public void changesInAnyChannelAreFound() {
+        var prev = this.createFrame(SIZE, SIZE, 1);
+
+        for (int channel = 0; channel < 4; channel++) {
+            var next = this.createFrame(SIZE, SIZE, 1);
+            next.setPixelRGBA(channel, channel, prev.getPixelRGBA(channel, channel) ^ (1 << (channel * 8)));
+
+            assertRegion(channel, channel, 1, 1, findDirtyRegion(prev, next));
+        }
+    }
+
+    @Test
+    public void framesAreFoundWithinLargerImages() {
+        // Animations keep all of their frames in one image, and the previous frame is cached in an image of its own
+        var strip = this.createFrame(SIZE, SIZE * 4, 1);
+        var prev = this.createFrame(SIZE, SIZE, 1);
+
+        int frameY = SIZE * 2;
+        copyFrame(prev, strip, 0, frameY);
+
+        strip.setPixelRGBA(4, frameY + 3, 0);
+        strip.setPixelRGBA(10, frameY + 8, 0);
+
+        // A change in the next frame of the strip is outside of the compared area
+        strip.setPixelRGBA(0, frameY + SIZE, 0);
+
+        long next = pointer(strip) + ((long) frameY * SIZE * 4);
+
+        assertRegion(4, 3, 7, 6, TextureRegionDiff.findDirtyRegion(pointer(prev), SIZE, next, SIZE, SIZE, SIZE));
+
+        // Rows of a different length, such as a frame which is beside the others instead of below them
+        var wide = this.createFrame(SIZE * 3, SIZE, 1);
+        copyFrame(prev, wide, SIZE, 0);
+
+        wide.setPixelRGBA(SIZE + 2, 1, 0);
+
+        assertRegion(2, 1, 1, 1, TextureRegionDiff.findDirtyRegion(pointer(prev), SIZE,
+                pointer(wide) + (SIZE * 4), SIZE * 3, SIZE, SIZE));
+    }
+
+    @Test
+    public void copiedRegionIsNoLongerDirty() {
+        var prev = this.createFrame(SIZE, SIZE, 1);
+        var next = this.createFrame(SIZE, SIZE, 2);
+
+        next.setPixelRGBA(1, 1, 0);
+        prev.setPixelRGBA(15, 15, 0);
+
+        long region = findDirtyRegion(prev, next);
+        assertRegion(0, 0, SIZE, SIZE, region);
+
+        // The cache of uploaded pixels is brought up to date this way after every upload
+        TextureRegionDiff.copyRegion(pointer(next), SIZE, pointer(prev), SIZE, region);
+
+        assertEquals(TextureRegionDiff.EMPTY, findDirtyRegion(prev, next));
+
+        next.setPixelRGBA(8, 4, 0);
+        next.setPixelRGBA(9, 5, 0);
+
+        region = findDirtyRegion(prev, next);
+        assertRegion(8, 4, 2, 2, region);
+
+        // Only the dirty region is copied, and the pixels around it are left alone
+        prev.setPixelRGBA(0, 0, 0x12345678);
+        TextureRegionDiff.copyRegion(pointer(next), SIZE, pointer(prev), SIZE, region);
+
+        assertRegion(0, 0, 1, 1, findDirtyRegion(prev, next));
+    }
+
+    @Test
+    public void regionsArePackedLosslessly() {
+        assertRegion(0, 0, 1, 1, TextureRegionDiff.pack(0, 0, 1, 1));
+        assertRegion(65535, 1, 2, 65535, TextureRegionDiff.pack(65535, 1, 2, 65535));
+        assertRegion(1024, 2048, 16, 32, TextureRegionDiff.pack(1024, 2048, 16, 32));
+    }
+
+    private NativeImage createFrame(int width, int height, int seed) {
+        var image = new NativeImage(NativeImage.Format.RGBA, width, height, false);
+        this.images.add(image);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setPixelRGBA(x, y, (x * 0x01020304) ^ (y * 0x10203040) ^ seed);
+            }
+        }
+
+        return image;
+    }
+
+    private static void copyFrame(NativeImage src, NativeImage dst, int dstX, int dstY) {
+        for (int y = 0; y < src.getHeight(); y++) {
+            for (int x = 0; x < src.getWidth(); x++) {
+                dst.setPixelRGBA(dstX + x, dstY + y, src.getPixelRGBA(x, y));
+            }
+        }
+    }
+
+    private static long findDirtyRegion(NativeImage prev, NativeImage next) {
+        return TextureRegionDiff.findDirtyRegion(pointer(prev), prev.getWidth(), pointer(next), next.getWidth(),
+                next.getWidth(), next.getHeight());
+    }
+
+    private static void assertRegion(int x, int y, int width, int height, long region) {
+        assertEquals(x, TextureRegionDiff.unpackX(region), "x");
+        assertEquals(y, TextureRegionDiff.unpackY(region), "y");
+        assertEquals(width, TextureRegionDiff.unpackWidth(region), "width");
+        assertEquals(height, TextureRegionDiff.unpackHeight(region), "height");
+    }
+
+    /**
+     * Finds the pixels of an image without the accessor mixin, which isn't applied outside of the game.
+     */
+    static long pointer(NativeImage image) {
+        try {
+            var field = NativeImage.class.getDeclaredField("pixels");
+            field.setAccessible(true);
+
+            return field.getLong(image);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.embeddedt.embeddium.impl.render.texture;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that regions are packed into the staging buffer one after another, at the offsets which are later passed to
+ * the texture uploads, and that their rows are copied out of larger images correctly.
+ */
+public class TextureUploadBatchTest {
+    private static final int ATLAS_SIZE = 256;
+
+    private final TextureUploadBatch batch = new TextureUploadBatch();
+
+    private NativeImage atlas;
+
+    @BeforeEach
+    public void createAtlas() {
+        this.atlas = new NativeImage(NativeImage.Format.RGBA, ATLAS_SIZE, ATLAS_SIZE, false);
+
+        for (int y = 0; y < ATLAS_SIZE; y++) {
+            for (int x = 0; x < ATLAS_SIZE; x++) {
+                this.atlas.setPixelRGBA(x, y, (y << 16) | x);
+            }
+        }
+    }
+
+    @AfterEach
+    public void destroy() {
+        this.batch.destroy();
+        this.atlas.close();
+    }
+
+    @Test
+    public void regionsArePackedInOrder() {
+        this.add(0, 16, 32, 16, 16);
+        this.add(1, 3, 5, 3, 7);
+        this.add(0, 100, 0, 1, 1);
+        this.add(2, 0, 200, 5, 2);
+
+        assertEquals(4, this.batch.getRegionCount());
+
+        int offset = 0;
+
+        for (int i = 0; i < this.batch.getRegionCount(); i++) {
+            assertEquals(offset, this.batch.getOffset(i), "offset of region " + i);
+
+            // Every region starts where a row can begin with an unpack alignment of 4
+            assertEquals(0, this.batch.getOffset(i) % 4);
+
+            offset += this.batch.getWidth(i) * this.batch.getHeight(i) * 4;
+        }
+
+        assertEquals(offset, this.batch.getStagingSize());
+
+        assertEquals(1, this.batch.getLevel(1));
+        assertEquals(3, this.batch.getX(1));
+        assertEquals(5, this.batch.getY(1));
+        assertEquals(3, this.batch.getWidth(1));
+        assertEquals(7, this.batch.getHeight(1));
+
+        this.assertStagedPixels();
+    }
+
+    @Test
+    public void rowsAreTightlyPacked() {
+        // A region which is narrower than its image, so every row has to be copied on its own
+        this.add(0, 7, 9, 5, 4);
+
+        // A region which covers whole rows, which is copied at once
+        this.add(0, 0, 20, ATLAS_SIZE, 2);
+
+        assertEquals(5 * 4 * 4, this.batch.getOffset(1));
+        assertEquals((5 * 4 * 4) + (ATLAS_SIZE * 2 * 4), this.batch.getStagingSize());
+
+        this.assertStagedPixels();
+    }
+
+    @Test
+    public void emptyRegionsAreSkipped() {
+        this.add(0, 0, 0, 0, 16);
+        this.add(0, 0, 0, 16, 0);
+
+        assertTrue(this.batch.isEmpty());
+        assertEquals(0, this.batch.getStagingSize());
+    }
+
+    @Test
+    public void growingKeepsEarlierRegions() {
+        // More than the initial capacity of the staging buffer, and more than the initial number of regions
+        for (int i = 0; i < 40; i++) {
+            this.add(i % 3, (i * 37) % (ATLAS_SIZE - 64), (i * 53) % (ATLAS_SIZE - 32), 64, 32);
+        }
+
+        assertEquals(40, this.batch.getRegionCount());
+        assertEquals(40 * 64 * 32 * 4, this.batch.getStagingSize());
+
+        this.assertStagedPixels();
+    }
+
+    @Test
+    public void resetStartsFromTheBeginning() {
+        this.add(0, 0, 0, 8, 8);
+        this.add(0, 8, 8, 8, 8);
+
+        this.batch.reset();
+
+        assertTrue(this.batch.isEmpty());
+        assertEquals(0, this.batch.getStagingSize());
+
+        this.add(0, 32, 32, 4, 4);
+
+        assertFalse(this.batch.isEmpty());
+        assertEquals(0, this.batch.getOffset(0));
+        assertEquals(4 * 4 * 4, this.batch.getStagingSize());
+
+        this.assertStagedPixels();
+    }
+
+    private void add(int level, int x, int y, int width, int height) {
+        long src = TextureRegionDiffTest.pointer(this.atlas) + (((long) y * ATLAS_SIZE) + x) * 4;
+
+        this.batch.add(level, x, y, width, height, src, ATLAS_SIZE);
+    }
+
+    /**
+     * Checks that the staging buffer holds the pixels of every region, in the layout which the uploads read them with.
+     */
+    private void assertStagedPixels() {
+        long staging = this.batch.getStagingPointer();
+
+        for (int i = 0; i < this.batch.getRegionCount(); i++) {
+            int width = this.batch.getWidth(i);
+
+            for (int row = 0; row < this.batch.getHeight(i); row++) {
+                for (int column = 0; column < width; column++) {
+                    int expected = this.atlas.getPixelRGBA(this.batch.getX(i) + column, this.batch.getY(i) + row);
+                    int actual = MemoryUtil.memGetInt(staging + this.batch.getOffset(i) + (((long) row * width) + column) * 4);
+
+                    assertEquals(expected, actual, "pixel (%d, %d) of region %d".formatted(column, row, i));
+                }
+            }
+        }
+    }
+}
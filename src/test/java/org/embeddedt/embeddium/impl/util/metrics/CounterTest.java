@@ -0,0 +1,74 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CounterTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void eachWindowReportsWhatWasCountedInIt() {
+        var registry = new MetricsRegistry(SECOND, 4);
+        var counter = registry.counter("test");
+
+        registry.setEnabled(true);
+        registry.tick(0, 0);
+
+        counter.add(5);
+        counter.increment();
+        registry.tick(2 * SECOND, 2000);
+
+        assertEquals(6, counter.getLastValue());
+        assertEquals("test: 3/s", counter.describe());
+
+        counter.add(10);
+        registry.tick(3 * SECOND, 3000);
+
+        assertEquals(10, counter.getLastValue());
+        assertEquals(16, counter.getTotal());
+
+        // Nothing counted in a window is reported as zero, not as the previous value
+        registry.tick(4 * SECOND, 4000);
+
+        assertEquals(0, counter.getLastValue());
+    }
+
+    @Test
+    public void nothingIsCountedWhileDisabled() {
+        var registry = new MetricsRegistry(SECOND, 4);
+        var counter = registry.counter("test");
+
+        counter.add(100);
+
+        assertEquals(0, counter.getTotal());
+
+        registry.setEnabled(true);
+        counter.add(1);
+
+        assertEquals(1, counter.getTotal());
+    }
+
+    @Test
+    public void historyKeepsOnlyTheNewestWindows() throws Exception {
+        var registry = new MetricsRegistry(SECOND, 3);
+        var counter = registry.counter("test");
+
+        registry.setEnabled(true);
+        registry.tick(0, 0);
+
+        // Five windows, which wrap around the history of three
+        for (int window = 1; window <= 5; window++) {
+            counter.add(window);
+            registry.tick(window * SECOND, window * 1000L);
+        }
+
+        var csv = new StringWriter();
+        counter.writeCsv(csv);
+
+        assertEquals(String.format("2000,test,counter,3,,,,,%n3000,test,counter,4,,,,,%n4000,test,counter,5,,,,,%n"),
+                csv.toString());
+    }
+}
@@ -0,0 +1,112 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void smallValuesHaveTheirOwnBuckets() {
+        for (int value = 0; value < LatencyHistogram.SUB_BUCKETS * 2; value++) {
+            assertEquals(value, LatencyHistogram.getBucketIndex(value));
+            assertEquals(value, LatencyHistogram.getBucketLowerBound(value));
+        }
+    }
+
+    @Test
+    public void bucketsCoverEveryValueInOrder() {
+        for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+            long lower = LatencyHistogram.getBucketLowerBound(index);
+
+            assertEquals(index, LatencyHistogram.getBucketIndex(lower));
+
+            if (index + 1 < LatencyHistogram.BUCKET_COUNT) {
+                long next = LatencyHistogram.getBucketLowerBound(index + 1);
+
+                assertTrue(next > lower);
+                assertEquals(index, LatencyHistogram.getBucketIndex(next - 1));
+            }
+        }
+
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void reportedValuesAreWithinTheBucketPrecision() {
+        var random = new Random(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            long reported = LatencyHistogram.getBucketMidpoint(LatencyHistogram.getBucketIndex(value));
+
+            assertTrue(Math.abs(reported - value) <= value / LatencyHistogram.SUB_BUCKETS, value + " was reported as " + reported);
+        }
+    }
+
+    @Test
+    public void windowReportsPercentiles() {
+        var registry = new MetricsRegistry(1_000_000_000L, 4);
+        var histogram = registry.histogram("test");
+
+        registry.setEnabled(true);
+
+        // 1 to 100 microseconds, in a shuffled order
+        for (int i = 0; i < 100; i++) {
+            histogram.record(((i * 37L) % 100 + 1) * 1000L);
+        }
+
+        var window = histogram.takeWindow(1234);
+
+        assertEquals(1234, window.startMillis());
+        assertEquals(100, window.count());
+        assertEquals(5050 * 1000L, window.sum());
+        assertEquals(50500, window.mean());
+        assertEquals(100_000, window.max());
+
+        assertWithinPrecision(50_000, window.p50());
+        assertWithinPrecision(90_000, window.p90());
+        assertWithinPrecision(99_000, window.p99());
+
+        // The next window starts empty
+        var empty = histogram.takeWindow(2345);
+
+        assertEquals(0, empty.count());
+        assertEquals(0, empty.p99());
+        assertEquals(0, empty.max());
+    }
+
+    @Test
+    public void percentileOfASingleValueIsThatValue() {
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        counts[LatencyHistogram.getBucketIndex(5)] = 1;
+
+        assertEquals(5, LatencyHistogram.getPercentile(counts, 1, 0.0));
+        assertEquals(5, LatencyHistogram.getPercentile(counts, 1, 0.5));
+        assertEquals(5, LatencyHistogram.getPercentile(counts, 1, 1.0));
+    }
+
+    @Test
+    public void negativeAndDisabledValuesAreHandled() {
+        var registry = new MetricsRegistry(1_000_000_000L, 4);
+        var histogram = registry.histogram("test");
+
+        histogram.record(1000);
+        assertEquals(0L, histogram.startTime());
+
+        registry.setEnabled(true);
+
+        // A clock which goes backwards is recorded as zero
+        histogram.record(-50);
+
+        var window = histogram.takeWindow(0);
+
+        assertEquals(1, window.count());
+        assertEquals(0, window.max());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKETS, "expected about " + expected + " but was " + actual);
+    }
+}
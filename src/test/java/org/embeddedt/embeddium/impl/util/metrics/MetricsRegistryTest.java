@@ -0,0 +1,111 @@
+package org.embeddedt.embeddium.impl.util.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void metricsAreSharedByName() {
+        var registry = new MetricsRegistry(SECOND, 4);
+
+        assertSame(registry.counter("a"), registry.counter("a"));
+        assertSame(registry.histogram("b"), registry.histogram("b"));
+
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("a"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("b"));
+    }
+
+    @Test
+    public void windowsEndOnceTheyAreLongEnough() {
+        var registry = new MetricsRegistry(SECOND, 4);
+        var counter = registry.counter("test");
+
+        registry.setEnabled(true);
+
+        // The first tick only starts the window
+        assertFalse(registry.tick(100, 5000));
+
+        counter.add(3);
+
+        assertFalse(registry.tick(100 + SECOND - 1, 5999));
+        assertEquals(0, counter.getLastValue());
+
+        assertTrue(registry.tick(100 + SECOND, 6000));
+        assertEquals(3, counter.getLastValue());
+
+        // The next window starts where the previous one ended, even if ticks are late
+        assertFalse(registry.tick(100 + (2 * SECOND) - 1, 6999));
+        assertTrue(registry.tick(100 + (3 * SECOND), 8000));
+    }
+
+    @Test
+    public void windowsUseTheWallClockTimeOfTheirStart() throws Exception {
+        var registry = new MetricsRegistry(SECOND, 4);
+        var histogram = registry.histogram("test");
+
+        registry.setEnabled(true);
+        registry.tick(0, 5000);
+
+        histogram.record(1000);
+
+        registry.tick(SECOND, 6000);
+
+        assertEquals(5000, histogram.getLastWindow().startMillis());
+        assertEquals(1, histogram.getLastWindow().count());
+    }
+
+    @Test
+    public void disablingRestartsTheWindow() {
+        var registry = new MetricsRegistry(SECOND, 4);
+        var counter = registry.counter("test");
+
+        registry.setEnabled(true);
+        registry.tick(0, 0);
+
+        registry.setEnabled(false);
+        assertFalse(registry.tick(5 * SECOND, 5000));
+
+        // Time which passed while the registry was disabled doesn't count towards the new window
+        registry.setEnabled(true);
+        counter.add(1);
+
+        assertFalse(registry.tick(6 * SECOND, 6000));
+        assertFalse(registry.tick((7 * SECOND) - 1, 6999));
+        assertTrue(registry.tick(7 * SECOND, 7000));
+
+        assertEquals(1, counter.getLastValue());
+    }
+
+    @Test
+    public void csvContainsEveryMetricInOrder() throws Exception {
+        var registry = new MetricsRegistry(SECOND, 4);
+        var histogram = registry.histogram("b.histogram");
+        var counter = registry.counter("a.counter");
+
+        registry.setEnabled(true);
+        registry.tick(0, 1000);
+
+        counter.add(7);
+        histogram.record(16);
+
+        registry.tick(SECOND, 2000);
+
+        var csv = new StringWriter();
+        registry.writeCsv(csv);
+
+        var lines = csv.toString().lines().toList();
+
+        assertEquals(List.of(
+                "window_start_ms,metric,type,count,sum_ns,p50_ns,p90_ns,p99_ns,max_ns",
+                "1000,a.counter,counter,7,,,,,",
+                "1000,b.histogram,histogram,1,16,17,17,17,16"), lines);
+
+        assertEquals(List.of("a.counter: 7/s", "b.histogram: p50 0us, p99 0us, max 0us (1)"), registry.getOverlayLines());
+    }
+}